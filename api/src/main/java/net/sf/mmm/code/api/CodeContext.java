@@ -2,6 +2,10 @@
  * http://www.apache.org/licenses/LICENSE-2.0 */
 package net.sf.mmm.code.api;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import net.sf.mmm.code.api.imports.CodeImport;
 import net.sf.mmm.code.api.language.CodeLanguage;
 import net.sf.mmm.code.api.type.CodeType;
@@ -126,6 +130,28 @@ public interface CodeContext extends CodeProvider {
    */
   CodeFactory getFactory();
 
+  /**
+   * Resolves multiple {@link CodeType}s at once. The default implementation calls {@link #getType(String)} for each
+   * name. Implementations may override this method to resolve the types more efficiently.
+   *
+   * @param qualifiedNames the {@link Collection} with the {@link CodeType#getQualifiedName() qualified names} of the
+   *        requested {@link CodeType}s.
+   * @return the {@link Map} with the {@link CodeType#getQualifiedName() qualified names} as keys and the according
+   *         {@link CodeType}s as values in the order of the given {@link Collection}. Names that could not be resolved
+   *         are omitted.
+   */
+  default Map<String, CodeType> getTypes(Collection<String> qualifiedNames) {
+
+    Map<String, CodeType> types = new LinkedHashMap<>(qualifiedNames.size());
+    for (String qualifiedName : qualifiedNames) {
+      CodeType type = getType(qualifiedName);
+      if (type != null) {
+        types.put(qualifiedName, type);
+      }
+    }
+    return types;
+  }
+
   /**
    * @param qualifiedName the {@link CodeType#getQualifiedName() qualified name} of the requested {@link CodeType}.
    * @param add - {@code true} to also add newly created code elements (requires mutable access), {@code false}
@@ -0,0 +1,122 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.api.item;
+
+/**
+ * Immutable range of a parsed {@link net.sf.mmm.code.api.node.CodeNodeItem} in its source code. It consists of the
+ * character offsets and the line numbers of start and end. This allows tools to map an element back to its text (e.g.
+ * for diagnostics or incremental reparsing) without scanning the file again.
+ *
+ * @see net.sf.mmm.code.api.node.CodeNodeItem#getSourceRange()
+ * @author Joerg Hohwiller (hohwille at users.sourceforge.net)
+ * @since 1.0.0
+ */
+public final class CodeSourceRange {
+
+  private final int start;
+
+  private final int end;
+
+  private final int startLine;
+
+  private final int endLine;
+
+  /**
+   * The constructor.
+   *
+   * @param start the {@link #getStart() start offset}.
+   * @param end the {@link #getEnd() end offset}.
+   * @param startLine the {@link #getStartLine() start line}.
+   * @param endLine the {@link #getEndLine() end line}.
+   */
+  public CodeSourceRange(int start, int end, int startLine, int endLine) {
+
+    super();
+    if ((start < 0) || (end < start)) {
+      throw new IllegalArgumentException(start + "-" + end);
+    }
+    if ((startLine < 1) || (endLine < startLine)) {
+      throw new IllegalArgumentException("L" + startLine + "-L" + endLine);
+    }
+    this.start = start;
+    this.end = end;
+    this.startLine = startLine;
+    this.endLine = endLine;
+  }
+
+  /**
+   * @return the offset of the first character in the source code (starting with {@code 0}).
+   */
+  public int getStart() {
+
+    return this.start;
+  }
+
+  /**
+   * @return the offset after the last character in the source code (exclusive).
+   */
+  public int getEnd() {
+
+    return this.end;
+  }
+
+  /**
+   * @return the number of characters in this range.
+   */
+  public int getLength() {
+
+    return this.end - this.start;
+  }
+
+  /**
+   * @return the line number of the {@link #getStart() start} (starting with {@code 1}).
+   */
+  public int getStartLine() {
+
+    return this.startLine;
+  }
+
+  /**
+   * @return the line number of the {@link #getEnd() end}. The same as {@link #getStartLine()} if the range does not
+   *         span multiple lines.
+   */
+  public int getEndLine() {
+
+    return this.endLine;
+  }
+
+  /**
+   * @param offset the character offset to test.
+   * @return {@code true} if the given {@code offset} is within this range, {@code false} otherwise.
+   */
+  public boolean contains(int offset) {
+
+    return (offset >= this.start) && (offset < this.end);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+
+    if (obj == this) {
+      return true;
+    } else if ((obj == null) || (obj.getClass() != getClass())) {
+      return false;
+    }
+    CodeSourceRange other = (CodeSourceRange) obj;
+    return (this.start == other.start) && (this.end == other.end) && (this.startLine == other.startLine)
+        && (this.endLine == other.endLine);
+  }
+
+  @Override
+  public int hashCode() {
+
+    return (this.start * 31) + this.end;
+  }
+
+  @Override
+  public String toString() {
+
+    return this.start + "-" + this.end + "@L" + this.startLine + "-L" + this.endLine;
+  }
+
+}
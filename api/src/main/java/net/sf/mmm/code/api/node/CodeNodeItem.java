@@ -5,6 +5,7 @@ package net.sf.mmm.code.api.node;
 import net.sf.mmm.code.api.copy.CodeCopyMapper;
 import net.sf.mmm.code.api.item.CodeItem;
 import net.sf.mmm.code.api.item.CodeMutableItem;
+import net.sf.mmm.code.api.item.CodeSourceRange;
 
 /**
  * {@link CodeNode} that is also a {@link CodeItem}.
@@ -20,4 +21,13 @@ public abstract interface CodeNodeItem extends CodeNode, CodeMutableItem {
   @Override
   CodeNodeItem copy(CodeCopyMapper mapper);
 
+  /**
+   * @return the {@link CodeSourceRange} of this item in the source code it has been parsed from or {@code null} if not
+   *         parsed from source code or if recording of source ranges was disabled (default).
+   */
+  default CodeSourceRange getSourceRange() {
+
+    return null;
+  }
+
 }
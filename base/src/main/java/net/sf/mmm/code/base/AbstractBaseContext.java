@@ -6,6 +6,7 @@ import net.sf.mmm.code.api.language.CodeLanguage;
 import net.sf.mmm.code.api.type.CodeType;
 import net.sf.mmm.code.base.source.BaseSource;
 import net.sf.mmm.code.base.source.BaseSourceImpl;
+import net.sf.mmm.code.base.statistic.BaseStatistics;
 import net.sf.mmm.code.base.type.BaseType;
 import net.sf.mmm.code.base.type.BaseTypeWildcard;
 
@@ -19,6 +20,8 @@ public abstract class AbstractBaseContext extends AbstractBaseProvider implement
 
   private BaseSourceImpl source;
 
+  private final BaseStatistics statistics;
+
   /**
    * The constructor.
    *
@@ -29,6 +32,7 @@ public abstract class AbstractBaseContext extends AbstractBaseProvider implement
     super();
     this.source = source;
     this.source.setContext(this);
+    this.statistics = new BaseStatistics();
   }
 
   @Override
@@ -46,6 +50,12 @@ public abstract class AbstractBaseContext extends AbstractBaseProvider implement
     return this.source;
   }
 
+  @Override
+  public BaseStatistics getStatistics() {
+
+    return this.statistics;
+  }
+
   /**
    * @param qualifiedName the {@link CodeType#getQualifiedName() qualified name} of the requested {@link CodeType}.
    * @return the requested {@link CodeType} from the cache or {@code null} if not in cache.
@@ -4,17 +4,34 @@ package net.sf.mmm.code.base;
 
 import java.io.File;
 import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 import net.sf.mmm.code.api.CodeName;
 import net.sf.mmm.code.api.type.CodeType;
+import net.sf.mmm.code.base.cache.BaseTypeCacheBounded;
 import net.sf.mmm.code.base.loader.BaseLoader;
+import net.sf.mmm.code.base.loader.BaseSourceLoader;
 import net.sf.mmm.code.base.source.BaseSource;
 import net.sf.mmm.code.base.source.BaseSourceImpl;
 import net.sf.mmm.code.base.source.BaseSourceProvider;
+import net.sf.mmm.code.base.source.BaseSourceTypeIndex;
+import net.sf.mmm.code.base.statistic.BaseStatistics;
 import net.sf.mmm.code.base.type.BaseGenericType;
 import net.sf.mmm.code.base.type.BaseType;
 import net.sf.mmm.util.exception.api.DuplicateObjectException;
@@ -35,10 +52,22 @@ public abstract class AbstractBaseContextWithCache extends AbstractBaseContext {
 
   private Map<String, BaseType> typeCache;
 
+  private Map<String, Set<String>> nestedTypeKeys;
+
   private Map<String, BaseSource> sourceMap;
 
   private BaseSourceProvider sourceProvider;
 
+  private ConcurrentMap<String, TypeLoad> typeLoads;
+
+  private Map<Thread, TypeLoad> typeLoadsAwaited;
+
+  private Set<String> negativeCache;
+
+  private Object initializationLock;
+
+  private ForkJoinPool loadPool;
+
   /**
    * The constructor.
    *
@@ -59,11 +88,16 @@ public abstract class AbstractBaseContextWithCache extends AbstractBaseContext {
 
     super(source);
     this.typeCache = createCache();
+    this.nestedTypeKeys = new ConcurrentHashMap<>();
+    this.negativeCache = ConcurrentHashMap.newKeySet();
+    if (this.typeCache instanceof BaseTypeCacheBounded) {
+      ((BaseTypeCacheBounded) this.typeCache).setListener(new TypeCacheListener());
+    }
     this.sourceProvider = sourceProvider;
     if (this.sourceProvider != null) {
       this.sourceProvider.setContext(this);
     }
-    this.sourceMap = new HashMap<>();
+    this.sourceMap = new ConcurrentHashMap<>();
     registerSource(source);
   }
 
@@ -71,13 +105,219 @@ public abstract class AbstractBaseContextWithCache extends AbstractBaseContext {
    * @param <K> key type.
    * @param <V> value type.
    * @return a new empty {@link Map} instance to use as cache. May be a regular {@link HashMap} but can also be a full
-   *         blown cache implementation that will automatically evict old items if a specific size is reached.
+   *         blown cache implementation that will automatically evict old items if a specific size is reached. Override
+   *         and return a {@link BaseTypeCacheBounded} to limit the memory footprint of long-lived contexts.
    */
   protected <K, V> Map<K, V> createCache() {
 
     return new HashMap<>();
   }
 
+  /**
+   * @return {@code true} if this context is in concurrent mode so {@link #getType(String) type lookups} may be
+   *         performed from multiple threads in parallel, {@code false} otherwise (default).
+   * @see #setConcurrent(boolean)
+   */
+  public boolean isConcurrent() {
+
+    return (this.typeLoads != null);
+  }
+
+  /**
+   * Enables or disables the concurrent mode. In concurrent mode the cache is thread-safe and loading is deduplicated
+   * per {@link CodeType#getQualifiedName() qualified name}: concurrent lookups of the same type trigger only a single
+   * call of {@link BaseLoader#getType(String)} and the other threads wait for its result while lookups of different
+   * types do not block each other. Further, the lazy initialization of the code items owned by this context is
+   * synchronized via the {@link #getInitializationLock() initialization lock} while fully initialized items are read
+   * without locking. This method has to be called before the context is shared with other threads.
+   *
+   * @param concurrent the new value of {@link #isConcurrent()}.
+   */
+  public void setConcurrent(boolean concurrent) {
+
+    if (concurrent == isConcurrent()) {
+      return;
+    }
+    if (concurrent) {
+      if (!(this.typeCache instanceof ConcurrentMap)) {
+        this.typeCache = Collections.synchronizedMap(this.typeCache);
+      }
+      this.typeLoads = new ConcurrentHashMap<>();
+      this.typeLoadsAwaited = new HashMap<>();
+      this.initializationLock = new Object();
+    } else {
+      this.typeLoads = null;
+      this.typeLoadsAwaited = null;
+      this.initializationLock = null;
+    }
+  }
+
+  /**
+   * @return the {@link ForkJoinPool} used by {@link #getTypes(Collection)} to load types in parallel in
+   *         {@link #isConcurrent() concurrent mode}. Defaults to the {@link ForkJoinPool#commonPool() common pool}.
+   */
+  public ForkJoinPool getLoadPool() {
+
+    if (this.loadPool == null) {
+      return ForkJoinPool.commonPool();
+    }
+    return this.loadPool;
+  }
+
+  /**
+   * @param loadPool the {@link #getLoadPool() load pool} or {@code null} for the default.
+   */
+  public void setLoadPool(ForkJoinPool loadPool) {
+
+    this.loadPool = loadPool;
+  }
+
+  @Override
+  public Object getInitializationLock() {
+
+    return this.initializationLock;
+  }
+
+  /**
+   * @return the number of {@link CodeType#getQualifiedName() qualified names} that could not be resolved and are
+   *         therefore remembered to answer subsequent lookups without asking the {@link #getLoader() loader} again.
+   * @see #invalidateNegativeCache()
+   */
+  public int getNegativeCacheSize() {
+
+    return this.negativeCache.size();
+  }
+
+  /**
+   * @return the number of {@link #getType(String) lookups} that have been answered with {@code null} from the negative
+   *         cache without asking the {@link #getLoader() loader}.
+   * @see BaseStatistics#getNegativeLookups()
+   */
+  public long getNegativeCacheHits() {
+
+    return getStatistics().getNegativeLookups();
+  }
+
+  /**
+   * Clears the negative cache of {@link CodeType#getQualifiedName() qualified names} that could not be resolved. Has
+   * to be called if the sources or class loaders visible to this context have changed so that previously unresolvable
+   * types may now be found. This is done automatically when a new {@link BaseSource} is registered.
+   */
+  public void invalidateNegativeCache() {
+
+    Set<String> cache = this.negativeCache;
+    if (cache != null) {
+      cache.clear();
+    }
+  }
+
+  /**
+   * Invalidates a top-level type after its source-code has been modified, created or deleted. The type and its nested
+   * types are evicted from the cache and the {@link BaseFile} is detached from its {@link BasePackage} so the changed
+   * file is reloaded (and reparsed) on its next access while all other types remain cached. Existing references to the
+   * invalidated {@link BaseType} objects become stale. In {@link #isConcurrent() concurrent mode} this method may be
+   * called from a different thread (e.g. a {@link net.sf.mmm.code.base.loader.BaseSourceCodeWatcher}).
+   *
+   * @param qualifiedName the {@link CodeType#getQualifiedName() qualified name} of the top-level type whose source file
+   *        has changed.
+   * @return {@code true} if a cached type or file has been invalidated, {@code false} otherwise (type was not loaded).
+   */
+  public boolean invalidateType(String qualifiedName) {
+
+    Predicate<String> affected = name -> name.equals(qualifiedName)
+        || (name.startsWith(qualifiedName) && isNestedSeparator(name.charAt(qualifiedName.length())));
+    this.negativeCache.removeIf(affected);
+    // remove (instead of get) so an evicted type is dropped and not restored
+    BaseType type = this.typeCache.remove(qualifiedName);
+    boolean invalidated = (type != null);
+    Set<String> nestedKeys = this.nestedTypeKeys.remove(qualifiedName);
+    if (nestedKeys != null) {
+      for (String key : nestedKeys) {
+        if (this.typeCache.remove(key) != null) {
+          invalidated = true;
+        }
+      }
+    }
+    for (BaseSource src : this.sourceMap.values()) {
+      BaseSourceLoader loader = src.getLoader();
+      if (loader != null) {
+        loader.invalidateType(qualifiedName);
+      }
+    }
+    BaseFile file = null;
+    if (type != null) {
+      file = type.getFile();
+    } else {
+      CodeName path = parseName(qualifiedName);
+      for (BaseSource src : this.sourceMap.values()) {
+        file = src.getRootPackage().getChildren().getFile(path);
+        if (file != null) {
+          break;
+        }
+      }
+    }
+    if (file != null) {
+      BasePathElements children = file.getParentPackage().getChildren();
+      if (removePathElementInternal(children, file)) {
+        invalidated = true;
+      }
+    }
+    if (invalidated) {
+      LOG.debug("Invalidated type {}", qualifiedName);
+      onTypeRemoved(qualifiedName);
+    }
+    return invalidated;
+  }
+
+  /**
+   * Called after a {@link BaseType} has been {@link #invalidateType(String) invalidated} or evicted from a
+   * {@link BaseTypeCacheBounded bounded cache}. Override to release data retained for the removed types (e.g. while
+   * parsing them). In {@link #isConcurrent() concurrent mode} this method may be called from any thread.
+   *
+   * @param qualifiedName the {@link CodeType#getQualifiedName() qualified name} of the removed {@link BaseType}.
+   */
+  protected void onTypeRemoved(String qualifiedName) {
+
+    // nothing by default
+  }
+
+  /**
+   * @param qualifiedName the {@link CodeType#getQualifiedName() qualified name} of a {@link CodeType}.
+   * @return {@code true} if the specified type is already cached by this context or its {@link #getParent() parent},
+   *         {@code false} otherwise. Unlike {@link #getType(String)} this will never load the type.
+   */
+  public boolean isTypeCached(String qualifiedName) {
+
+    return (getTypeFromCache(qualifiedName) != null);
+  }
+
+  /**
+   * @return a {@link List} with a snapshot of the {@link BaseType}s currently cached by this context (excluding its
+   *         {@link #getParent() parent}). Useful to persist what has been resolved (e.g. for a faster startup).
+   */
+  public List<BaseType> getCachedTypes() {
+
+    synchronized (this.typeCache) {
+      return new ArrayList<>(this.typeCache.values());
+    }
+  }
+
+  private static BaseType getTopLevelType(BaseType type) {
+
+    BaseType topLevelType = type;
+    BaseType declaringType = type.getDeclaringType();
+    while ((declaringType != null) && (declaringType != topLevelType)) {
+      topLevelType = declaringType;
+      declaringType = topLevelType.getDeclaringType();
+    }
+    return topLevelType;
+  }
+
+  private static boolean isNestedSeparator(char c) {
+
+    return (c == '.') || (c == '$');
+  }
+
   /**
    * @return the {@link BaseLoader} to load {@link BaseType}s.
    */
@@ -90,6 +330,7 @@ public abstract class AbstractBaseContextWithCache extends AbstractBaseContext {
     if (type == null) {
       BaseFile file = getSource().getRootPackage().getChildren().getOrCreateFile(parseName(qualifiedName), add);
       type = file.getType();
+      this.negativeCache.remove(qualifiedName);
       putTypeInCache(qualifiedName, type);
     }
     return type;
@@ -98,24 +339,22 @@ public abstract class AbstractBaseContextWithCache extends AbstractBaseContext {
   @Override
   public BaseType getType(String qualifiedName) {
 
-    BaseType type = getTypeFromCache(qualifiedName);
-    if (type != null) {
+    BaseType type = getCachedType(qualifiedName);
+    if ((type != null) || isNegativeCacheHit(qualifiedName)) {
       return type;
     }
-    type = getLoader().getType(qualifiedName);
-    return putTypeInCache(qualifiedName, type);
+    return loadType(qualifiedName, () -> getLoader().getType(qualifiedName));
   }
 
   @Override
   public BaseType getType(CodeName qName) {
 
     String qualifiedName = qName.getFullName();
-    BaseType type = getTypeFromCache(qualifiedName);
-    if (type != null) {
+    BaseType type = getCachedType(qualifiedName);
+    if ((type != null) || isNegativeCacheHit(qualifiedName)) {
       return type;
     }
-    type = getLoader().getType(qName);
-    return putTypeInCache(qualifiedName, type);
+    return loadType(qualifiedName, () -> getLoader().getType(qName));
   }
 
   @Override
@@ -126,12 +365,258 @@ public abstract class AbstractBaseContextWithCache extends AbstractBaseContext {
       return componentType.createArray();
     }
     String qualifiedName = clazz.getName();
-    BaseGenericType type = getTypeFromCache(qualifiedName);
+    BaseType type = getCachedType(qualifiedName);
     if (type != null) {
       return type;
     }
-    type = getLoader().getType(clazz);
-    return putTypeInCache(qualifiedName, (BaseType) type);
+    return loadType(qualifiedName, () -> (BaseType) getLoader().getType(clazz));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * Names found in the cache are resolved immediately. The others are grouped by the {@link BaseSource} owning them
+   * according to its {@link BaseSource#getTypeIndex() type index} and each group is loaded in one go so the
+   * {@link BaseSourceLoader} of a source is accessed sequentially. In {@link #isConcurrent() concurrent mode} the groups
+   * (and names without a known owner) are loaded in parallel on the {@link #getLoadPool() load pool}. Nested types are
+   * resolved via their declaring type after it has been loaded.
+   */
+  @Override
+  public Map<String, CodeType> getTypes(Collection<String> qualifiedNames) {
+
+    Map<String, BaseType> resolved = new ConcurrentHashMap<>(qualifiedNames.size());
+    Set<String> missing = new LinkedHashSet<>();
+    for (String qualifiedName : qualifiedNames) {
+      BaseType type = getCachedType(qualifiedName);
+      if (type != null) {
+        resolved.put(qualifiedName, type);
+      } else if (!isNegativeCacheHit(qualifiedName)) {
+        missing.add(qualifiedName);
+      }
+    }
+    if (!missing.isEmpty()) {
+      Map<BaseSource, List<String>> groups = new LinkedHashMap<>();
+      List<String> nestedNames = new ArrayList<>();
+      for (String qualifiedName : missing) {
+        if (hasDeclaringName(qualifiedName, missing)) {
+          nestedNames.add(qualifiedName);
+        } else {
+          groups.computeIfAbsent(getOwningSource(qualifiedName), k -> new ArrayList<>()).add(qualifiedName);
+        }
+      }
+      List<String> unownedNames = groups.remove(null);
+      List<List<String>> batches = new ArrayList<>(groups.values());
+      if (unownedNames != null) {
+        for (String qualifiedName : unownedNames) {
+          batches.add(Collections.singletonList(qualifiedName));
+        }
+      }
+      if (isConcurrent() && (batches.size() > 1)) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(batches.size());
+        for (List<String> batch : batches) {
+          tasks.add(ForkJoinTask.adapt(() -> loadTypes(batch, resolved)));
+        }
+        getLoadPool().invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+      } else {
+        for (List<String> batch : batches) {
+          loadTypes(batch, resolved);
+        }
+      }
+      loadTypes(nestedNames, resolved);
+    }
+    Map<String, CodeType> types = new LinkedHashMap<>(resolved.size());
+    for (String qualifiedName : qualifiedNames) {
+      BaseType type = resolved.get(qualifiedName);
+      if (type != null) {
+        types.put(qualifiedName, type);
+      }
+    }
+    return types;
+  }
+
+  private void loadTypes(List<String> qualifiedNames, Map<String, BaseType> resolved) {
+
+    for (String qualifiedName : qualifiedNames) {
+      BaseType type = getType(qualifiedName);
+      if (type != null) {
+        resolved.put(qualifiedName, type);
+      }
+    }
+  }
+
+  /**
+   * @param qualifiedName the {@link CodeType#getQualifiedName() qualified name} of a type that is not yet loaded.
+   * @return the registered {@link BaseSource} whose {@link BaseSource#getTypeIndex() type index} contains the given
+   *         type or {@code null} if the owner is unknown before loading the type.
+   */
+  private BaseSource getOwningSource(String qualifiedName) {
+
+    for (BaseSource source : this.sourceMap.values()) {
+      BaseSourceTypeIndex index = source.getTypeIndex();
+      if ((index != null) && index.contains(qualifiedName)) {
+        return source;
+      }
+    }
+    return null;
+  }
+
+  private static boolean hasDeclaringName(String qualifiedName, Set<String> names) {
+
+    int lastIndex = Math.max(qualifiedName.lastIndexOf('.'), qualifiedName.lastIndexOf('$'));
+    while (lastIndex > 0) {
+      String declaringName = qualifiedName.substring(0, lastIndex);
+      if (names.contains(declaringName)) {
+        return true;
+      }
+      lastIndex = Math.max(declaringName.lastIndexOf('.'), declaringName.lastIndexOf('$'));
+    }
+    return false;
+  }
+
+  private BaseType getCachedType(String qualifiedName) {
+
+    BaseType type = getTypeFromCacheOrDeclaringType(qualifiedName);
+    if (type != null) {
+      getStatistics().recordCacheHit();
+      BaseSource source = type.getSource();
+      if (source != null) {
+        source.getStatistics().recordCacheHit();
+      }
+    }
+    return type;
+  }
+
+  /**
+   * Nested types are not eagerly put into the cache together with their declaring type. Instead they are resolved
+   * lazily via the {@link BaseType#getNestedTypes() nested types} of their cached declaring type on first access (e.g.
+   * "{@code Outer.Inner}" or "{@code Outer$Inner}").
+   *
+   * @param qualifiedName the {@link CodeType#getQualifiedName() qualified name} of the requested type.
+   * @return the requested {@link BaseType} from the cache or {@code null} if not cached.
+   */
+  private BaseType getTypeFromCacheOrDeclaringType(String qualifiedName) {
+
+    BaseType type = getTypeFromCache(qualifiedName);
+    if (type == null) {
+      int lastIndex = Math.max(qualifiedName.lastIndexOf('.'), qualifiedName.lastIndexOf('$'));
+      if (lastIndex > 0) {
+        BaseType declaringType = getTypeFromCacheOrDeclaringType(qualifiedName.substring(0, lastIndex));
+        if (declaringType != null) {
+          type = (BaseType) declaringType.getNestedTypes().getDeclared(qualifiedName.substring(lastIndex + 1));
+          if (type != null) {
+            type = putTypeInCache(qualifiedName, type);
+          }
+        }
+      }
+    }
+    return type;
+  }
+
+  private boolean isNegativeCacheHit(String qualifiedName) {
+
+    if (this.negativeCache.contains(qualifiedName)) {
+      getStatistics().recordNegativeLookup();
+      return true;
+    }
+    return false;
+  }
+
+  private BaseType loadType(String qualifiedName, Supplier<BaseType> loader) {
+
+    BaseStatistics statistics = getStatistics();
+    statistics.recordCacheMiss();
+    long start = System.nanoTime();
+    BaseType type = doLoadType(qualifiedName, loader);
+    long nanos = System.nanoTime() - start;
+    statistics.recordLoad(nanos);
+    if (type != null) {
+      BaseSource source = type.getSource();
+      if (source != null) {
+        BaseStatistics sourceStatistics = source.getStatistics();
+        sourceStatistics.recordCacheMiss();
+        sourceStatistics.recordLoad(nanos);
+      }
+    }
+    return type;
+  }
+
+  private BaseType doLoadType(String qualifiedName, Supplier<BaseType> loader) {
+
+    ConcurrentMap<String, TypeLoad> loads = this.typeLoads;
+    if (loads == null) {
+      return putTypeInCache(qualifiedName, loader.get());
+    }
+    Thread thread = Thread.currentThread();
+    TypeLoad load = new TypeLoad(thread);
+    TypeLoad pending = loads.putIfAbsent(qualifiedName, load);
+    BaseType type;
+    if (pending != null) {
+      Object lock = this.initializationLock;
+      if ((pending.owner == thread) || ((lock != null) && Thread.holdsLock(lock)) || !awaitTypeLoad(pending)) {
+        // re-entrant load (e.g. getType(String) delegating to getType(Class)), cyclic wait or wait while holding
+        // initialization lock (that the owner may need) - load directly
+        return putTypeInCache(qualifiedName, loader.get());
+      }
+      return pending.getResult();
+    }
+    try {
+      type = getTypeFromCache(qualifiedName); // might have been completed in the meantime
+      if (type == null) {
+        type = putTypeInCache(qualifiedName, loader.get());
+      }
+      load.complete(type, null);
+      return type;
+    } catch (RuntimeException | Error e) {
+      load.complete(null, e);
+      throw e;
+    } finally {
+      loads.remove(qualifiedName, load);
+    }
+  }
+
+  /**
+   * Waits for the given {@link TypeLoad} to complete. The check for a cyclic wait and the registration of the current
+   * thread as waiting happen atomically so two threads owning a load the other one needs can not both decide to wait.
+   *
+   * @param load the pending {@link TypeLoad} owned by a different thread.
+   * @return {@code true} if the {@link TypeLoad} has completed, {@code false} if waiting would cause a deadlock and the
+   *         type has to be loaded by the current thread.
+   */
+  private boolean awaitTypeLoad(TypeLoad load) {
+
+    Thread thread = Thread.currentThread();
+    Map<Thread, TypeLoad> awaited = this.typeLoadsAwaited;
+    synchronized (awaited) {
+      if (isWaitingFor(load.owner, thread)) {
+        return false;
+      }
+      awaited.put(thread, load);
+    }
+    try {
+      load.await();
+    } finally {
+      synchronized (awaited) {
+        awaited.remove(thread);
+      }
+    }
+    return true;
+  }
+
+  private boolean isWaitingFor(Thread owner, Thread thread) {
+
+    Thread current = owner;
+    int count = this.typeLoadsAwaited.size();
+    while ((current != null) && (count-- >= 0)) {
+      if (current == thread) {
+        return true;
+      }
+      TypeLoad awaited = this.typeLoadsAwaited.get(current);
+      if (awaited == null) {
+        return false;
+      }
+      current = awaited.owner;
+    }
+    return false;
   }
 
   @Override
@@ -150,13 +635,23 @@ public abstract class AbstractBaseContextWithCache extends AbstractBaseContext {
   private BaseType putTypeInCache(String qualifiedName, BaseType type) {
 
     if (type != null) {
-      this.typeCache.put(qualifiedName, type);
-      // TODO prevent eager init...?
-      for (CodeType nested : type.getNestedTypes().getDeclared()) {
-        putTypeInCache(nested.getQualifiedName(), (BaseType) nested);
+      if (this.typeLoads == null) {
+        this.typeCache.put(qualifiedName, type);
+      } else {
+        BaseType existing = this.typeCache.putIfAbsent(qualifiedName, type);
+        if ((existing != null) && (existing != type)) {
+          return existing;
+        }
+      }
+      BaseType topLevelType = getTopLevelType(type);
+      if (topLevelType != type) {
+        // remember nested keys (e.g. "a.Foo.Bar" and "a.Foo$Bar") to invalidate them with their top-level type
+        this.nestedTypeKeys.computeIfAbsent(topLevelType.getQualifiedName(), k -> ConcurrentHashMap.newKeySet())
+            .add(qualifiedName);
       }
     } else {
       LOG.trace("Failed to get type {}", qualifiedName);
+      this.negativeCache.add(qualifiedName);
     }
     return type;
   }
@@ -177,13 +672,15 @@ public abstract class AbstractBaseContextWithCache extends AbstractBaseContext {
       location = sourceCodeLocation;
     }
     String id = BaseSourceImpl.getNormalizedId(location);
-    BaseSource source = getSource(id);
-    if (source == null) {
-      verifyCreateSource(id);
-      source = this.sourceProvider.create(byteCodeLocation, sourceCodeLocation);
-      registerSource(source);
+    synchronized (this.sourceMap) {
+      BaseSource source = getSource(id);
+      if (source == null) {
+        verifyCreateSource(id);
+        source = this.sourceProvider.create(byteCodeLocation, sourceCodeLocation);
+        registerSource(source);
+      }
+      return source;
     }
-    return source;
   }
 
   /**
@@ -197,19 +694,18 @@ public abstract class AbstractBaseContextWithCache extends AbstractBaseContext {
     } else if (this.sourceProvider == null) {
       return null;
     }
-    BaseSource source = null;
-    String id = null;
     if (codeSource.getLocation() == null) {
-      source = getSource();
-    } else {
-      id = BaseSourceImpl.getNormalizedId(codeSource);
-      source = getSource(id);
+      return getSource();
     }
-    if (source == null) {
-      source = this.sourceProvider.create(codeSource);
-      registerSource(source);
+    String id = BaseSourceImpl.getNormalizedId(codeSource);
+    synchronized (this.sourceMap) {
+      BaseSource source = getSource(id);
+      if (source == null) {
+        source = this.sourceProvider.create(codeSource);
+        registerSource(source);
+      }
+      return source;
     }
-    return source;
   }
 
   /**
@@ -223,19 +719,21 @@ public abstract class AbstractBaseContextWithCache extends AbstractBaseContext {
    */
   public BaseSource getOrCreateSource(String id, Supplier<BaseSource> sourceSupplier) {
 
-    BaseSource source = getSource(id);
-    if (source == null) {
-      if (isPreventRegisterSource()) {
-        verifyCreateSource(id);
-      }
-      source = sourceSupplier.get();
-      Objects.requireNonNull(source, "source");
-      if (!source.getId().equals(id)) {
-        throw new ObjectMismatchException(source.getId(), id, BaseSource.class);
+    synchronized (this.sourceMap) {
+      BaseSource source = getSource(id);
+      if (source == null) {
+        if (isPreventRegisterSource()) {
+          verifyCreateSource(id);
+        }
+        source = sourceSupplier.get();
+        Objects.requireNonNull(source, "source");
+        if (!source.getId().equals(id)) {
+          throw new ObjectMismatchException(source.getId(), id, BaseSource.class);
+        }
+        registerSource(source);
       }
-      registerSource(source);
+      return source;
     }
-    return source;
   }
 
   /**
@@ -264,6 +762,7 @@ public abstract class AbstractBaseContextWithCache extends AbstractBaseContext {
     if (duplicate != null) {
       throw new DuplicateObjectException(source, source.getId(), duplicate);
     }
+    invalidateNegativeCache();
   }
 
   @Override
@@ -285,11 +784,132 @@ public abstract class AbstractBaseContextWithCache extends AbstractBaseContext {
 
     super.close();
     this.typeCache = null;
+    this.nestedTypeKeys = null;
     for (BaseSource src : this.sourceMap.values()) {
       src.close();
     }
     this.sourceMap = null;
     this.sourceProvider = null;
+    this.typeLoads = null;
+    this.typeLoadsAwaited = null;
+    this.negativeCache = null;
+    this.initializationLock = null;
+    this.loadPool = null;
+  }
+
+  /**
+   * {@link BaseTypeCacheBounded.Listener} that detaches evicted top-level {@link BaseType}s from their
+   * {@link BasePackage} so they can be garbage collected and re-attaches them if they are restored. Evictions are
+   * reported to {@link AbstractBaseContextWithCache#onTypeRemoved(String)}.
+   */
+  private final class TypeCacheListener implements BaseTypeCacheBounded.Listener {
+
+    @Override
+    public void onEvict(String qualifiedName, BaseType type) {
+
+      BaseFile file = getTopLevelFile(type);
+      if (file != null) {
+        removePathElementInternal(file.getParentPackage().getChildren(), file);
+      }
+      onTypeRemoved(qualifiedName);
+    }
+
+    @Override
+    public boolean onRestore(String qualifiedName, BaseType type) {
+
+      BaseFile file = getTopLevelFile(type);
+      if (file == null) {
+        return isAttached(type);
+      }
+      BasePathElements children = file.getParentPackage().getChildren();
+      synchronized (children) {
+        BaseFile existing = children.getFile(file.getSimpleName(), false);
+        if (existing == null) {
+          addPathElementInternal(children, file);
+          return true;
+        }
+        return (existing == file);
+      }
+    }
+
+    private boolean isAttached(BaseType type) {
+
+      BaseFile file = getTopLevelFile(getTopLevelType(type));
+      if (file == null) {
+        return true;
+      }
+      // restore nested type only if its top-level type has not been evicted or invalidated in the meantime
+      return (file.getParentPackage().getChildren().getFile(file.getSimpleName(), false) == file);
+    }
+
+    private BaseFile getTopLevelFile(BaseType type) {
+
+      if (type.getDeclaringType() != type) {
+        return null; // nested types are reachable via their declaring type
+      }
+      BaseFile file = type.getFile();
+      if ((file == null) || (file.getType() != type)) {
+        return null;
+      }
+      return file;
+    }
+  }
+
+  /**
+   * A pending load of a {@link BaseType} in {@link AbstractBaseContextWithCache#isConcurrent() concurrent mode}.
+   */
+  private static final class TypeLoad {
+
+    private final Thread owner;
+
+    private final CountDownLatch latch;
+
+    private BaseType type;
+
+    private Throwable error;
+
+    private TypeLoad(Thread owner) {
+
+      super();
+      this.owner = owner;
+      this.latch = new CountDownLatch(1);
+    }
+
+    private void complete(BaseType result, Throwable failure) {
+
+      this.type = result;
+      this.error = failure;
+      this.latch.countDown();
+    }
+
+    private void await() {
+
+      boolean interrupted = false;
+      try {
+        while (true) {
+          try {
+            this.latch.await();
+            break;
+          } catch (InterruptedException e) {
+            interrupted = true;
+          }
+        }
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    private BaseType getResult() {
+
+      if (this.error instanceof RuntimeException) {
+        throw (RuntimeException) this.error;
+      } else if (this.error instanceof Error) {
+        throw (Error) this.error;
+      }
+      return this.type;
+    }
   }
 
 }
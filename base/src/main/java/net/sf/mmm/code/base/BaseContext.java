@@ -8,6 +8,7 @@ import net.sf.mmm.code.api.CodeContext;
 import net.sf.mmm.code.api.element.CodeElementWithDeclaringType;
 import net.sf.mmm.code.api.type.CodeGenericType;
 import net.sf.mmm.code.base.source.BaseSource;
+import net.sf.mmm.code.base.statistic.BaseStatistics;
 import net.sf.mmm.code.base.type.BaseGenericType;
 import net.sf.mmm.code.base.type.BaseType;
 import net.sf.mmm.code.base.type.BaseTypeWildcard;
@@ -31,6 +32,20 @@ public interface BaseContext extends CodeContext, BaseProvider {
     return getParent().getRootContext();
   }
 
+  /**
+   * @return the lock used to synchronize the lazy initialization of the code items owned by this context or
+   *         {@code null} if this context is not thread-safe (default).
+   */
+  default Object getInitializationLock() {
+
+    return null;
+  }
+
+  /**
+   * @return the {@link BaseStatistics} about the type lookups and loads of this context.
+   */
+  BaseStatistics getStatistics();
+
   /**
    * @param id the {@link BaseSource#getId() ID} of the requested source.
    * @return the existing {@link BaseSource} for the given {@link BaseSource#getId() ID} or {@code null} if not found.
@@ -49,7 +49,20 @@ public final class BaseFile extends BasePathElement implements CodeFile {
    */
   public BaseFile(BasePackage parentPackage, String simpleName) {
 
-    this(parentPackage, simpleName, null);
+    this(parentPackage, simpleName, (Class<?>) null);
+  }
+
+  /**
+   * The constructor for a file that is not created via reflection but still has its source code available.
+   *
+   * @param parentPackage the {@link #getParentPackage() parent package}.
+   * @param simpleName the {@link #getSimpleName() simple name}.
+   * @param sourceSupplier the {@link Supplier} of the lazy-loaded {@link #getSourceCodeObject() source code object}.
+   */
+  public BaseFile(BasePackage parentPackage, String simpleName, Supplier<BaseFile> sourceSupplier) {
+
+    this(parentPackage, simpleName, (Class<?>) null);
+    this.sourceSupplier = sourceSupplier;
   }
 
   /**
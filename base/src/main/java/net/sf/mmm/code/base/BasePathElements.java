@@ -3,6 +3,7 @@
 package net.sf.mmm.code.base;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.function.BiFunction;
 
 import net.sf.mmm.code.api.CodeFile;
@@ -79,7 +80,9 @@ public class BasePathElements extends BaseNodeItemContainerFlat<CodePathElement>
     if (init) {
       initialize();
     }
-    return getByName(simpleName);
+    synchronized (this) {
+      return getByName(simpleName);
+    }
   }
 
   @Override
@@ -128,11 +131,17 @@ public class BasePathElements extends BaseNodeItemContainerFlat<CodePathElement>
   }
 
   @Override
-  protected void addInternal(CodePathElement item) {
+  protected synchronized void addInternal(CodePathElement item) {
 
     super.addInternal(item);
   }
 
+  @Override
+  protected synchronized boolean removeInternal(CodePathElement item) {
+
+    return super.removeInternal(item);
+  }
+
   @Override
   protected CodePathElement ensureParent(CodePathElement item) {
 
@@ -226,18 +235,24 @@ public class BasePathElements extends BaseNodeItemContainerFlat<CodePathElement>
     }
     BasePackage pkg = parentPathElements.getPackage(simpleName, init);
     if ((pkg == null) && (factory != null)) {
-      pkg = factory.apply(parentPathElements.parent, simpleName);
-      if (pkg == null) {
-        return null;
-      }
-      if ((pkg.getParent() != parentPathElements.parent) || !simpleName.equals(pkg.getSimpleName())) {
-        throw new IllegalStateException("Invalid factory: " + factory.getClass().toGenericString());
-      }
-      if (add) {
-        if (forceAdd) {
-          parentPathElements.addInternal(pkg);
-        } else {
-          parentPathElements.add(pkg);
+      synchronized (parentPathElements) {
+        pkg = parentPathElements.getPackage(simpleName, false);
+        if (pkg != null) {
+          return pkg; // created concurrently
+        }
+        pkg = factory.apply(parentPathElements.parent, simpleName);
+        if (pkg == null) {
+          return null;
+        }
+        if ((pkg.getParent() != parentPathElements.parent) || !simpleName.equals(pkg.getSimpleName())) {
+          throw new IllegalStateException("Invalid factory: " + factory.getClass().toGenericString());
+        }
+        if (add) {
+          if (forceAdd) {
+            parentPathElements.addInternal(pkg);
+          } else {
+            parentPathElements.add(pkg);
+          }
         }
       }
     }
@@ -364,7 +379,12 @@ public class BasePathElements extends BaseNodeItemContainerFlat<CodePathElement>
     if (init) {
       initialize();
     }
-    for (CodePathElement child : getList()) {
+    CodePathElement[] children;
+    synchronized (this) {
+      List<CodePathElement> list = getList();
+      children = list.toArray(new CodePathElement[list.size()]);
+    }
+    for (CodePathElement child : children) {
       if (child.isFile()) {
         CodeType type = ((BaseFile) child).getType(simpleName, init);
         if (type != null) {
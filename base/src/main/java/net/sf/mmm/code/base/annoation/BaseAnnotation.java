@@ -160,6 +160,24 @@ public class BaseAnnotation extends BaseNodeItem implements CodeAnnotation {
     return this.type;
   }
 
+  /**
+   * @return the name of the {@link #getType() type} as given in the source-code or {@code null} if not created from
+   *         source-code or the {@link #getType() type} has already been resolved.
+   */
+  public String getTypeName() {
+
+    return this.typeName;
+  }
+
+  /**
+   * @return the qualified name of the {@link #getType() type} as resolved from the source-code or {@code null} if not
+   *         created from source-code or the {@link #getType() type} has already been resolved.
+   */
+  public String getQualifiedTypeName() {
+
+    return this.qualifiedTypeName;
+  }
+
   @Override
   public void setType(CodeGenericType type) {
 
@@ -50,14 +50,15 @@ public class BaseParameters extends BaseOperationArgs<CodeParameter> implements
 
     super.doInitialize();
     Executable reflectiveObject = getParent().getReflectiveObject();
-    List<? extends CodeParameter> sourceParams = null;
-    int sourceParamsCount = 0;
-    CodeParameters sourceParameters = getSourceCodeObject();
-    if (sourceParameters != null) {
-      sourceParams = sourceParameters.getDeclared();
-      sourceParamsCount = sourceParams.size();
-    }
     if (reflectiveObject != null) {
+      // the source code is only used to name the reflective parameters
+      List<? extends CodeParameter> sourceParams = null;
+      int sourceParamsCount = 0;
+      CodeParameters sourceParameters = getSourceCodeObject();
+      if (sourceParameters != null) {
+        sourceParams = sourceParameters.getDeclared();
+        sourceParamsCount = sourceParams.size();
+      }
       List<CodeParameter> list = getList();
       int i = 0;
       for (Parameter param : reflectiveObject.getParameters()) {
@@ -27,6 +27,10 @@ public abstract class BaseBlock extends BaseNodeItem implements CodeBlock {
 
   private List<CodeStatement> statements;
 
+  private int sourceHash;
+
+  private boolean skipped;
+
   /**
    * The constructor.
    *
@@ -58,6 +62,10 @@ public abstract class BaseBlock extends BaseNodeItem implements CodeBlock {
 
     super(template, mapper);
     this.statements = new ArrayList<>(template.statements);
+    // unlike other nodes the source range is copied as it is required to load a skipped block
+    setSourceRange(template.getSourceRange());
+    this.sourceHash = template.sourceHash;
+    this.skipped = template.skipped;
   }
 
   @Override
@@ -103,6 +111,45 @@ public abstract class BaseBlock extends BaseNodeItem implements CodeBlock {
     return this.statements;
   }
 
+  /**
+   * @return the {@link String#hashCode() hash code} of the source code of this block within its
+   *         {@link #getSourceRange() source range} from the opening to the closing curly brace. Together with the
+   *         length of the source range this is the fingerprint to verify that the source code has not changed before a
+   *         {@link #isSkipped() skipped} block is parsed on demand. Only available for {@link #isSkipped() skipped}
+   *         blocks.
+   */
+  public int getSourceHash() {
+
+    return this.sourceHash;
+  }
+
+  /**
+   * @param sourceHash the new value of {@link #getSourceHash()}.
+   */
+  public void setSourceHash(int sourceHash) {
+
+    verifyMutalbe();
+    this.sourceHash = sourceHash;
+  }
+
+  /**
+   * @return {@code true} if the {@link #getStatements() statements} of this block have been skipped by the parser so
+   *         only the {@link #getSourceRange() source range} is known, {@code false} otherwise.
+   */
+  public boolean isSkipped() {
+
+    return this.skipped;
+  }
+
+  /**
+   * @param skipped the new value of {@link #isSkipped()}.
+   */
+  public void setSkipped(boolean skipped) {
+
+    verifyMutalbe();
+    this.skipped = skipped;
+  }
+
   @Override
   public void add(CodeStatement... codeStatements) {
 
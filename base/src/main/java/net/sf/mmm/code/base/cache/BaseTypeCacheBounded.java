@@ -0,0 +1,302 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.base.cache;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+import net.sf.mmm.code.base.type.BaseType;
+
+/**
+ * A memory-bounded cache for {@link BaseType}s that can be returned from
+ * {@link net.sf.mmm.code.base.AbstractBaseContextWithCache#createCache()} to limit the memory footprint of long-lived
+ * contexts. Once the {@link #getMaxWeight() maximum weight} is exceeded, the least recently used entries are evicted.
+ * Types that are not {@link BaseType#isImmutable() immutable} (edited by the user) are pinned and never evicted. An
+ * evicted type is only weakly referenced so as long as it is still referenced from elsewhere it is returned again with
+ * the same identity. Otherwise the next lookup will reload it transparently from byte-code or source-code.
+ *
+ * @author Joerg Hohwiller (hohwille at users.sourceforge.net)
+ * @since 1.0.0
+ */
+public class BaseTypeCacheBounded extends AbstractMap<String, BaseType> {
+
+  private static final ToIntFunction<BaseType> WEIGHER_ONE = t -> 1;
+
+  private final LinkedHashMap<String, BaseType> map;
+
+  private final Map<String, EvictedType> evictedMap;
+
+  private final ReferenceQueue<BaseType> queue;
+
+  private final long maxWeight;
+
+  private final ToIntFunction<BaseType> weigher;
+
+  private long weight;
+
+  private long evictionCount;
+
+  private Listener listener;
+
+  /**
+   * The constructor.
+   *
+   * @param maxWeight the {@link #getMaxWeight() maximum weight}.
+   * @param weigher the {@link ToIntFunction} to determine the weight of a {@link BaseType}. Should be cheap, return a
+   *        stable value for the same {@link BaseType} and shall not trigger its lazy initialization.
+   */
+  public BaseTypeCacheBounded(long maxWeight, ToIntFunction<BaseType> weigher) {
+
+    super();
+    if (maxWeight < 0) {
+      throw new IllegalArgumentException(Long.toString(maxWeight));
+    }
+    this.map = new LinkedHashMap<>(64, 0.75F, true);
+    this.evictedMap = new HashMap<>();
+    this.queue = new ReferenceQueue<>();
+    this.maxWeight = maxWeight;
+    this.weigher = weigher;
+  }
+
+  /**
+   * @param maxSize the maximum number of {@link BaseType}s to keep strongly referenced.
+   * @return the new {@link BaseTypeCacheBounded}.
+   */
+  public static BaseTypeCacheBounded ofMaxSize(int maxSize) {
+
+    return new BaseTypeCacheBounded(maxSize, WEIGHER_ONE);
+  }
+
+  /**
+   * @param maxWeight the {@link #getMaxWeight() maximum weight}.
+   * @param weigher the {@link ToIntFunction} to determine the weight of a {@link BaseType}.
+   * @return the new {@link BaseTypeCacheBounded}.
+   * @see #BaseTypeCacheBounded(long, ToIntFunction)
+   */
+  public static BaseTypeCacheBounded ofMaxWeight(long maxWeight, ToIntFunction<BaseType> weigher) {
+
+    return new BaseTypeCacheBounded(maxWeight, weigher);
+  }
+
+  /**
+   * @return the maximum total weight of the strongly referenced {@link BaseType}s. For {@link #ofMaxSize(int)} this is
+   *         the maximum number of entries.
+   */
+  public long getMaxWeight() {
+
+    return this.maxWeight;
+  }
+
+  /**
+   * @return the current total weight of the strongly referenced {@link BaseType}s.
+   */
+  public synchronized long getWeight() {
+
+    return this.weight;
+  }
+
+  /**
+   * @return the total number of evictions since this cache has been created.
+   */
+  public synchronized long getEvictionCount() {
+
+    return this.evictionCount;
+  }
+
+  /**
+   * <b>Attention:</b> This is an internal method that is called by the owning context.
+   *
+   * @param listener the {@link Listener} to notify about evictions.
+   */
+  public synchronized void setListener(Listener listener) {
+
+    if ((this.listener != null) && (this.listener != listener)) {
+      throw new IllegalStateException("Already initialized!");
+    }
+    this.listener = listener;
+  }
+
+  @Override
+  public synchronized BaseType get(Object key) {
+
+    BaseType type = this.map.get(key);
+    if (type == null) {
+      expungeStaleEntries();
+      EvictedType evicted = this.evictedMap.remove(key);
+      if (evicted != null) {
+        type = evicted.get();
+        if (type != null) {
+          if ((this.listener == null) || this.listener.onRestore(evicted.key, type)) {
+            doPut(evicted.key, type);
+          } else {
+            type = null;
+          }
+        }
+      }
+    }
+    return type;
+  }
+
+  @Override
+  public synchronized boolean containsKey(Object key) {
+
+    return (get(key) != null);
+  }
+
+  @Override
+  public synchronized BaseType put(String key, BaseType value) {
+
+    BaseType old = this.map.get(key);
+    if (old == null) {
+      old = get(key);
+    }
+    if (old != null) {
+      this.map.remove(key);
+      this.weight = this.weight - weigh(old);
+    }
+    doPut(key, value);
+    return old;
+  }
+
+  @Override
+  public synchronized BaseType putIfAbsent(String key, BaseType value) {
+
+    BaseType old = get(key);
+    if (old == null) {
+      doPut(key, value);
+    }
+    return old;
+  }
+
+  private void doPut(String key, BaseType value) {
+
+    this.map.put(key, value);
+    this.weight = this.weight + weigh(value);
+    evict();
+  }
+
+  /**
+   * Removes the entry for the given key including an evicted entry that is still weakly referenced so it will never be
+   * restored.
+   *
+   * @return the removed {@link BaseType} (may also be an evicted one) or {@code null} if not present.
+   */
+  @Override
+  public synchronized BaseType remove(Object key) {
+
+    EvictedType evicted = this.evictedMap.remove(key);
+    BaseType old = this.map.remove(key);
+    if (old != null) {
+      this.weight = this.weight - weigh(old);
+    } else if (evicted != null) {
+      old = evicted.get();
+    }
+    return old;
+  }
+
+  @Override
+  public synchronized int size() {
+
+    return this.map.size();
+  }
+
+  @Override
+  public synchronized void clear() {
+
+    this.map.clear();
+    this.evictedMap.clear();
+    this.weight = 0;
+    expungeStaleEntries();
+  }
+
+  @Override
+  public Set<Entry<String, BaseType>> entrySet() {
+
+    return Collections.unmodifiableSet(this.map.entrySet());
+  }
+
+  private int weigh(BaseType type) {
+
+    return this.weigher.applyAsInt(type);
+  }
+
+  /**
+   * @param type the {@link BaseType} to check.
+   * @return {@code true} if the given {@link BaseType} shall never be evicted, {@code false} otherwise.
+   */
+  protected boolean isPinned(BaseType type) {
+
+    return !type.isImmutable();
+  }
+
+  private void evict() {
+
+    if (this.weight <= this.maxWeight) {
+      return;
+    }
+    Iterator<Entry<String, BaseType>> iterator = this.map.entrySet().iterator();
+    while ((this.weight > this.maxWeight) && iterator.hasNext()) {
+      Entry<String, BaseType> entry = iterator.next();
+      BaseType type = entry.getValue();
+      if (!isPinned(type)) {
+        String key = entry.getKey();
+        iterator.remove();
+        this.weight = this.weight - weigh(type);
+        this.evictedMap.put(key, new EvictedType(key, type, this.queue));
+        this.evictionCount++;
+        if (this.listener != null) {
+          this.listener.onEvict(key, type);
+        }
+      }
+    }
+  }
+
+  private void expungeStaleEntries() {
+
+    EvictedType stale = (EvictedType) this.queue.poll();
+    while (stale != null) {
+      this.evictedMap.remove(stale.key, stale);
+      stale = (EvictedType) this.queue.poll();
+    }
+  }
+
+  /**
+   * Callback interface to get notified when a {@link BaseType} has been evicted or restored.
+   */
+  public interface Listener {
+
+    /**
+     * @param qualifiedName the key of the evicted {@link BaseType}.
+     * @param type the evicted {@link BaseType}.
+     */
+    void onEvict(String qualifiedName, BaseType type);
+
+    /**
+     * @param qualifiedName the key of the evicted {@link BaseType}.
+     * @param type the evicted {@link BaseType} that is still referenced and shall be restored.
+     * @return {@code true} if the {@link BaseType} has been restored, {@code false} if it has been replaced in the
+     *         meantime and shall therefore be reloaded.
+     */
+    boolean onRestore(String qualifiedName, BaseType type);
+  }
+
+  private static final class EvictedType extends WeakReference<BaseType> {
+
+    private final String key;
+
+    private EvictedType(String key, BaseType type, ReferenceQueue<BaseType> queue) {
+
+      super(type, queue);
+      this.key = key;
+    }
+  }
+
+}
@@ -35,13 +35,16 @@ import net.sf.mmm.code.api.language.CodeLanguage;
 import net.sf.mmm.code.api.member.CodeField;
 import net.sf.mmm.code.api.member.CodeMethod;
 import net.sf.mmm.code.api.merge.CodeMergeStrategy;
+import net.sf.mmm.code.api.node.CodeNode;
 import net.sf.mmm.code.api.type.CodeGenericType;
 import net.sf.mmm.code.api.type.CodeType;
 import net.sf.mmm.code.api.type.CodeTypeVariable;
+import net.sf.mmm.code.base.arg.BaseOperationArg;
 import net.sf.mmm.code.base.element.BaseElement;
 import net.sf.mmm.code.base.member.BaseOperation;
 import net.sf.mmm.code.base.node.BaseNodeItem;
 import net.sf.mmm.code.base.type.BaseType;
+import net.sf.mmm.code.base.type.BaseTypeVariable;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -67,6 +70,8 @@ public class BaseDoc extends BaseNodeItem implements CodeDoc {
 
   private List<String> lines;
 
+  private String rawDoc;
+
   /**
    * The constructor.
    *
@@ -89,7 +94,7 @@ public class BaseDoc extends BaseNodeItem implements CodeDoc {
 
     super();
     this.parent = mapper.map(template.parent, CodeCopyType.PARENT);
-    this.lines = new ArrayList<>(template.lines);
+    this.lines = new ArrayList<>(template.getLines());
   }
 
   @Override
@@ -105,10 +110,58 @@ public class BaseDoc extends BaseNodeItem implements CodeDoc {
     if (this.parent == null) {
       return;
     }
+    BaseDoc declaringDoc = getDeclaringDoc();
+    if ((declaringDoc != null) && (declaringDoc.rawDoc != null)) {
+      // parameters, exceptions, return and type variables are documented via the doc of their declaring element
+      declaringDoc.initialize();
+    }
     CodeElement sourceElement = this.parent.getSourceCodeObject();
     if (sourceElement != null) {
       this.lines.addAll(sourceElement.getDoc().getLines());
     }
+    parseRawDoc();
+  }
+
+  private BaseDoc getDeclaringDoc() {
+
+    CodeNode declaringElement = null;
+    if (this.parent instanceof BaseOperationArg) {
+      declaringElement = ((BaseOperationArg) this.parent).getDeclaringOperation();
+    } else if (this.parent instanceof BaseTypeVariable) {
+      CodeNode typeVariables = this.parent.getParent();
+      if (typeVariables != null) {
+        declaringElement = typeVariables.getParent();
+      }
+    }
+    if (declaringElement instanceof BaseElement) {
+      return ((BaseElement) declaringElement).getDoc();
+    }
+    return null;
+  }
+
+  private void parseRawDoc() {
+
+    String doc = this.rawDoc;
+    if (doc != null) {
+      this.rawDoc = null;
+      new BaseDocParser().parseDoc(this.parent, doc);
+    }
+  }
+
+  /**
+   * Sets the raw documentation as found in the source code to be parsed lazily. The raw documentation is only split
+   * into {@link #getLines() lines} and tags (e.g. for parameters or return value) when this {@link CodeDoc} or the
+   * {@link CodeDoc} of one of the documented child elements is accessed for the first time.
+   *
+   * @param raw the raw documentation excluding the comment delimiters (e.g. the text between "/**" and "*&#47;").
+   */
+  public void setRawDoc(String raw) {
+
+    verifyMutalbe();
+    this.rawDoc = raw;
+    if (isInitialized()) {
+      parseRawDoc();
+    }
   }
 
   @Override
@@ -2,6 +2,7 @@
  * http://www.apache.org/licenses/LICENSE-2.0 */
 package net.sf.mmm.code.base.doc;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -269,6 +270,92 @@ public class BaseDocParser {
     parseDocForElement(field, javaDocLines);
   }
 
+  /**
+   * @param element the {@link CodeElement} to apply the documentation to. Should be a {@link CodeType},
+   *        {@link CodeOperation} or {@link CodeField}.
+   * @param rawDoc the raw documentation as found in the source code excluding the comment delimiters (e.g. the text
+   *        between "/**" and "*&#47;").
+   */
+  public void parseDoc(CodeElement element, String rawDoc) {
+
+    List<String> javaDocLines = splitLines(rawDoc);
+    if (element instanceof CodeOperation) {
+      parseDoc((CodeOperation) element, javaDocLines);
+    } else if (element instanceof CodeType) {
+      parseDoc((CodeType) element, javaDocLines);
+    } else if (element instanceof CodeField) {
+      parseDoc((CodeField) element, javaDocLines);
+    } else {
+      parseDocForElement(element, javaDocLines);
+    }
+  }
+
+  /**
+   * @param rawDoc the raw documentation as found in the source code excluding the comment delimiters.
+   * @return the plain {@link CodeDoc} {@link CodeDoc#getLines() lines} without the leading asterisks and
+   *         indentation.
+   */
+  static List<String> splitLines(String rawDoc) {
+
+    List<String> lines = new ArrayList<>();
+    int length = rawDoc.length();
+    int start = 0;
+    if ((length > 0) && (rawDoc.charAt(0) == ' ')) {
+      start++;
+    }
+    int end = getLineEnd(rawDoc, start);
+    String line = trimEnd(rawDoc.substring(start, end));
+    if (!line.isEmpty()) {
+      lines.add(line);
+    }
+    start = end + 1;
+    while (start < length) {
+      while ((start < length) && Character.isWhitespace(rawDoc.charAt(start))) {
+        start++;
+      }
+      if (start >= length) {
+        break;
+      }
+      if (rawDoc.charAt(start) == '*') {
+        start++;
+      }
+      if ((start < length) && (rawDoc.charAt(start) == ' ')) {
+        start++;
+      }
+      end = getLineEnd(rawDoc, start);
+      lines.add(trimEnd(rawDoc.substring(start, end)));
+      start = end + 1;
+    }
+    return lines;
+  }
+
+  private static int getLineEnd(String rawDoc, int start) {
+
+    int length = rawDoc.length();
+    int end = start;
+    while (end < length) {
+      char c = rawDoc.charAt(end);
+      if ((c == '\n') || (c == '\r')) {
+        break;
+      }
+      end++;
+    }
+    return end;
+  }
+
+  private static String trimEnd(String line) {
+
+    int max = line.length() - 1;
+    int end = max;
+    while ((end > 0) && (line.charAt(end) == ' ')) {
+      end--;
+    }
+    if (end < max) {
+      return line.substring(0, end + 1);
+    }
+    return line;
+  }
+
   private BaseDocTag getArgumentDoc(String name) {
 
     return this.argMap.get(name);
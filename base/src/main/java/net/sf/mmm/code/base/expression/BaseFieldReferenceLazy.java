@@ -56,6 +56,31 @@ public class BaseFieldReferenceLazy extends BaseExpression implements CodeFieldR
     this.fieldName = fieldName;
   }
 
+  /**
+   * @return the fully qualified name of the {@link #getType() type} declaring the referenced field.
+   */
+  public String getTypeName() {
+
+    return this.typeName;
+  }
+
+  /**
+   * @return the name of the referenced field.
+   */
+  public String getFieldName() {
+
+    return this.fieldName;
+  }
+
+  /**
+   * @return the {@code qualified} flag given at {@link #BaseFieldReferenceLazy(BaseContext, String, Boolean, String)
+   *         construction}.
+   */
+  public Boolean getQualified() {
+
+    return this.qualfied;
+  }
+
   @Override
   public CodeExpression getExpression() {
 
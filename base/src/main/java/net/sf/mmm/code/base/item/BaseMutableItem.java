@@ -43,7 +43,7 @@ public abstract class BaseMutableItem extends BaseItem implements CodeMutableIte
 
   private boolean immutable;
 
-  private int initialized;
+  private volatile int initialized;
 
   /**
    * The constructor.
@@ -67,22 +67,51 @@ public abstract class BaseMutableItem extends BaseItem implements CodeMutableIte
   }
 
   /**
-   * Initializes this node item.
+   * Initializes this node item. If an {@link #getInitializationLock() initialization lock} is present, this method is
+   * thread-safe and other threads will wait until the initialization is complete. Once initialized, no locking takes
+   * place.
    */
   protected final void initialize() {
 
-    if (this.initialized == 0) {
-      this.initialized++;
-      doInitialize();
-      boolean systemImmutable = isSystemImmutable();
-      if (systemImmutable) {
-        setImmutable();
+    int state = this.initialized;
+    if (state >= 2) {
+      return;
+    }
+    Object lock = getInitializationLock();
+    if (lock == null) {
+      if (state == 0) {
+        doInitializeItem();
+      }
+    } else {
+      synchronized (lock) {
+        if (this.initialized == 0) {
+          doInitializeItem();
+        }
       }
-      this.initialized++;
-      doneInitialize();
     }
   }
 
+  private void doInitializeItem() {
+
+    this.initialized = 1;
+    doInitialize();
+    boolean systemImmutable = isSystemImmutable();
+    if (systemImmutable) {
+      setImmutable();
+    }
+    this.initialized = 2;
+    doneInitialize();
+  }
+
+  /**
+   * @return the lock to synchronize the lazy {@link #initialize() initialization} on or {@code null} for no
+   *         synchronization (default).
+   */
+  protected Object getInitializationLock() {
+
+    return null;
+  }
+
   /**
    * @return {@code true} if the {@link #initialize() initialization} of this item has started but is not yet
    *         {@link #isInitialized() complete}, {@code false} otherwise.
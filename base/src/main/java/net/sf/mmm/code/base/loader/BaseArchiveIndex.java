@@ -0,0 +1,639 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.base.loader;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * An in-memory index of the central directory of a ZIP archive (e.g. a {@code *-sources.jar} or the JDK
+ * {@code src.zip}). The central directory is read only once into a compact sorted name table with the offsets and
+ * sizes of the entries. The content of an entry is then read with a single positional read from one shared
+ * {@link FileChannel} and inflated in memory. This avoids the overhead of a zip {@link java.nio.file.FileSystem} and of
+ * opening the archive for every entry. Instances are thread-safe. Use {@link #open(File)} to share the index and the
+ * {@link FileChannel} of an archive across all {@link BaseSourceCodeProviderArchive providers} of the process. Each
+ * call returns its own handle that has to be {@link #close() closed} by the caller.
+ *
+ * @author Joerg Hohwiller (hohwille at users.sourceforge.net)
+ * @since 1.0.0
+ */
+public class BaseArchiveIndex implements AutoCloseable {
+
+  private static final int SIG_LOCAL_HEADER = 0x04034b50;
+
+  private static final int SIG_CENTRAL_HEADER = 0x02014b50;
+
+  private static final int SIG_END = 0x06054b50;
+
+  private static final int SIG_ZIP64_END = 0x06064b50;
+
+  private static final int SIG_ZIP64_LOCATOR = 0x07064b50;
+
+  private static final int END_SIZE = 22;
+
+  private static final int LOCAL_HEADER_SIZE = 30;
+
+  private static final int CENTRAL_HEADER_SIZE = 46;
+
+  private static final int ZIP64_LOCATOR_SIZE = 20;
+
+  private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+  private static final int METHOD_STORED = 0;
+
+  private static final int METHOD_DEFLATED = 8;
+
+  private static final long MASK_U32 = 0xFFFFFFFFL;
+
+  private static final Map<String, BaseArchiveIndex> SHARED_INDEXES = new ConcurrentHashMap<>();
+
+  private final File archiveFile;
+
+  private final Shared shared;
+
+  private final FileChannel channel;
+
+  private final String[] names;
+
+  private final long[] offsets;
+
+  private final int[] compressedSizes;
+
+  private final int[] sizes;
+
+  private final byte[] methods;
+
+  private final AtomicBoolean closed;
+
+  /**
+   * The constructor.
+   *
+   * @param archiveFile the {@link File} pointing to the ZIP archive.
+   * @throws IOException on I/O error or if the file is not a valid ZIP archive.
+   */
+  public BaseArchiveIndex(File archiveFile) throws IOException {
+
+    this(archiveFile, null);
+  }
+
+  private BaseArchiveIndex(File archiveFile, String key) throws IOException {
+
+    super();
+    this.archiveFile = archiveFile;
+    this.closed = new AtomicBoolean();
+    this.channel = FileChannel.open(archiveFile.toPath(), StandardOpenOption.READ);
+    this.shared = new Shared(key, this.channel);
+    try {
+      List<Entry> entries = readCentralDirectory();
+      Collections.sort(entries);
+      int size = entries.size();
+      this.names = new String[size];
+      this.offsets = new long[size];
+      this.compressedSizes = new int[size];
+      this.sizes = new int[size];
+      this.methods = new byte[size];
+      for (int i = 0; i < size; i++) {
+        Entry entry = entries.get(i);
+        this.names[i] = entry.name;
+        this.offsets[i] = entry.offset;
+        this.compressedSizes[i] = entry.compressedSize;
+        this.sizes[i] = entry.size;
+        this.methods[i] = (byte) entry.method;
+      }
+    } catch (IOException | RuntimeException e) {
+      this.channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * The constructor for an additional handle of a shared index.
+   *
+   * @param template the {@link BaseArchiveIndex} to share the index and the {@link FileChannel} with.
+   */
+  private BaseArchiveIndex(BaseArchiveIndex template) {
+
+    super();
+    this.archiveFile = template.archiveFile;
+    this.shared = template.shared;
+    this.channel = template.channel;
+    this.names = template.names;
+    this.offsets = template.offsets;
+    this.compressedSizes = template.compressedSizes;
+    this.sizes = template.sizes;
+    this.methods = template.methods;
+    this.closed = new AtomicBoolean();
+  }
+
+  /**
+   * Opens the given archive as shared index. All callers of this method for the same archive share the same index and
+   * {@link FileChannel} that is reference-counted and only really closed when the last handle has been
+   * {@link #close() closed}. Each caller gets its own handle so closing a handle twice can not release the reference
+   * of another caller. The archive is identified by its {@link File#getCanonicalPath() canonical path} and its
+   * {@link File#lastModified() modification time} so a modified archive is indexed again while the callers of the
+   * previous version keep their handles.
+   *
+   * @param archiveFile the {@link File} pointing to the ZIP archive.
+   * @return a new handle of the shared {@link BaseArchiveIndex} for the given archive. Has to be {@link #close()
+   *         closed} by the caller.
+   * @throws IOException on I/O error or if the file is not a valid ZIP archive.
+   */
+  public static BaseArchiveIndex open(File archiveFile) throws IOException {
+
+    File canonicalFile = archiveFile.getCanonicalFile();
+    String key = canonicalFile.getPath() + '@' + canonicalFile.lastModified();
+    BaseArchiveIndex[] handle = new BaseArchiveIndex[1];
+    try {
+      SHARED_INDEXES.compute(key, (k, template) -> {
+        if ((template != null) && !template.shared.closed) {
+          template.shared.references++;
+          handle[0] = new BaseArchiveIndex(template);
+          return template;
+        }
+        try {
+          // the template itself is never handed out so its handle can not be closed
+          BaseArchiveIndex index = new BaseArchiveIndex(canonicalFile, k);
+          handle[0] = new BaseArchiveIndex(index);
+          return index;
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    return handle[0];
+  }
+
+  /**
+   * @return the number of open handles of this index. Will be {@code 0} if the underlying file has been closed.
+   */
+  public int getReferenceCount() {
+
+    return this.shared.references;
+  }
+
+  /**
+   * @return the {@link File} pointing to the ZIP archive.
+   */
+  public File getArchiveFile() {
+
+    return this.archiveFile;
+  }
+
+  /**
+   * @return the number of file entries in the archive.
+   */
+  public int getSize() {
+
+    return this.names.length;
+  }
+
+  /**
+   * @param path the path of the entry in the archive (e.g. "com/example/Foo.java").
+   * @return {@code true} if the archive contains a file entry with the given {@code path}, {@code false} otherwise.
+   */
+  public boolean contains(String path) {
+
+    return (Arrays.binarySearch(this.names, path) >= 0);
+  }
+
+  /**
+   * @param directory the path of the directory in the archive (e.g. "com/example") or the empty {@link String} for the
+   *        root directory.
+   * @return the names of the file entries directly contained in the given {@code directory} (excluding
+   *         sub-directories) in sorted order.
+   */
+  public List<String> list(String directory) {
+
+    String prefix = directory;
+    if (!prefix.isEmpty() && !prefix.endsWith("/")) {
+      prefix = prefix + "/";
+    }
+    int index = Arrays.binarySearch(this.names, prefix);
+    if (index < 0) {
+      index = -index - 1;
+    }
+    List<String> result = new ArrayList<>();
+    while (index < this.names.length) {
+      String name = this.names[index++];
+      if (!name.startsWith(prefix)) {
+        break;
+      }
+      if (name.indexOf('/', prefix.length()) < 0) {
+        result.add(name.substring(prefix.length()));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @param directory the path of the directory in the archive (e.g. "com/example") or the empty {@link String} for the
+   *        root directory.
+   * @return the names of the sub-directories directly contained in the given {@code directory} in sorted order.
+   */
+  public List<String> listDirectories(String directory) {
+
+    String prefix = directory;
+    if (!prefix.isEmpty() && !prefix.endsWith("/")) {
+      prefix = prefix + "/";
+    }
+    int index = Arrays.binarySearch(this.names, prefix);
+    if (index < 0) {
+      index = -index - 1;
+    }
+    List<String> result = new ArrayList<>();
+    String last = null;
+    while (index < this.names.length) {
+      String name = this.names[index++];
+      if (!name.startsWith(prefix)) {
+        break;
+      }
+      int slash = name.indexOf('/', prefix.length());
+      if (slash > prefix.length()) {
+        String child = name.substring(prefix.length(), slash);
+        if (!child.equals(last)) {
+          // entries of the same directory are contiguous as they share the same prefix
+          result.add(child);
+          last = child;
+        }
+      }
+    }
+    Collections.sort(result);
+    return result;
+  }
+
+  /**
+   * Streams the file entries of the given {@code directory} directly from the sorted name table without any
+   * intermediate {@link List}. As the entries of a directory tree form a contiguous range of the table, the
+   * {@link Stream} is backed by a {@link Spliterator#SIZED sized} {@link Spliterator} that splits evenly for parallel
+   * consumption.
+   *
+   * @param directory the path of the directory in the archive (e.g. "com/example") or the empty {@link String} for the
+   *        root directory.
+   * @param recursive - {@code true} to include the file entries of all sub-directories, {@code false} to only include
+   *        the file entries directly contained in the given {@code directory}.
+   * @return the {@link Stream} with the full paths of the file entries (e.g. "com/example/Foo.java") in sorted order.
+   */
+  public Stream<String> stream(String directory, boolean recursive) {
+
+    String prefix = directory;
+    if (!prefix.isEmpty() && !prefix.endsWith("/")) {
+      prefix = prefix + "/";
+    }
+    int start = 0;
+    int end = this.names.length;
+    if (!prefix.isEmpty()) {
+      start = insertionPoint(prefix);
+      // '0' is the successor of '/' so all entries starting with prefix are located before
+      end = insertionPoint(prefix.substring(0, prefix.length() - 1) + '0');
+    }
+    Stream<String> stream = StreamSupport.stream(Arrays.spliterator(this.names, start, end), false);
+    if (!recursive) {
+      int prefixLength = prefix.length();
+      stream = stream.filter(name -> name.indexOf('/', prefixLength) < 0);
+    }
+    return stream;
+  }
+
+  private int insertionPoint(String name) {
+
+    int index = Arrays.binarySearch(this.names, name);
+    if (index < 0) {
+      index = -index - 1;
+    }
+    return index;
+  }
+
+  /**
+   * @param path the path of the entry in the archive (e.g. "com/example/Foo.java").
+   * @return the uncompressed content of the requested entry or {@code null} if no such entry exists.
+   * @throws IOException on I/O error or if the entry is corrupt.
+   */
+  public byte[] read(String path) throws IOException {
+
+    ByteBuffer buffer = readBuffer(path);
+    if (buffer == null) {
+      return null;
+    }
+    if (buffer.hasArray() && (buffer.arrayOffset() == 0) && (buffer.remaining() == buffer.array().length)) {
+      return buffer.array();
+    }
+    byte[] result = new byte[buffer.remaining()];
+    buffer.get(result);
+    return result;
+  }
+
+  /**
+   * Like {@link #read(String)} but avoids copying where possible: the data of a large stored (uncompressed) entry is
+   * memory-mapped directly from the archive (see {@link BaseUtf8Reader#load(FileChannel, long, int)}).
+   *
+   * @param path the path of the entry in the archive (e.g. "com/example/Foo.java").
+   * @return a {@link ByteBuffer} with the uncompressed content of the requested entry or {@code null} if no such entry
+   *         exists.
+   * @throws IOException on I/O error or if the entry is corrupt.
+   */
+  public ByteBuffer readBuffer(String path) throws IOException {
+
+    if (isClosed()) {
+      throw new IllegalStateException("already closed!");
+    }
+    int index = Arrays.binarySearch(this.names, path);
+    if (index < 0) {
+      return null;
+    }
+    long headerOffset = this.offsets[index];
+    ByteBuffer header = readFully(headerOffset, LOCAL_HEADER_SIZE);
+    if (header.getInt(0) != SIG_LOCAL_HEADER) {
+      throw new ZipException("Invalid local header for " + path + " in " + this.archiveFile);
+    }
+    long dataOffset = headerOffset + LOCAL_HEADER_SIZE + getU16(header, 26) + getU16(header, 28);
+    int compressedSize = this.compressedSizes[index];
+    int method = this.methods[index];
+    if (method == METHOD_STORED) {
+      return BaseUtf8Reader.load(this.channel, dataOffset, compressedSize);
+    } else if (method == METHOD_DEFLATED) {
+      ByteBuffer data = readFully(dataOffset, compressedSize);
+      return ByteBuffer.wrap(inflate(data.array(), this.sizes[index], path));
+    }
+    throw new ZipException("Unsupported compression method " + method + " for " + path + " in " + this.archiveFile);
+  }
+
+  private byte[] inflate(byte[] compressed, int size, String path) throws IOException {
+
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(compressed);
+      byte[] result = new byte[size];
+      int length = 0;
+      while (length < size) {
+        int count = inflater.inflate(result, length, size - length);
+        if (count == 0) {
+          if (inflater.finished() || inflater.needsDictionary() || inflater.needsInput()) {
+            break;
+          }
+        }
+        length = length + count;
+      }
+      if (length != size) {
+        throw new ZipException("Invalid size of " + path + " in " + this.archiveFile);
+      }
+      return result;
+    } catch (DataFormatException e) {
+      throw new ZipException("Corrupt entry " + path + " in " + this.archiveFile + ": " + e.getMessage());
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private ByteBuffer readFully(long position, int length) throws IOException {
+
+    ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    long pos = position;
+    while (buffer.hasRemaining()) {
+      int count = this.channel.read(buffer, pos);
+      if (count < 0) {
+        throw new EOFException("Unexpected end of " + this.archiveFile);
+      }
+      pos = pos + count;
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  private List<Entry> readCentralDirectory() throws IOException {
+
+    long fileSize = this.channel.size();
+    if (fileSize < END_SIZE) {
+      throw new ZipException("Not a ZIP archive: " + this.archiveFile);
+    }
+    int tailSize = (int) Math.min(fileSize, END_SIZE + MAX_COMMENT_SIZE);
+    long tailOffset = fileSize - tailSize;
+    ByteBuffer tail = readFully(tailOffset, tailSize);
+    int endIndex = -1;
+    for (int i = tailSize - END_SIZE; i >= 0; i--) {
+      if (tail.getInt(i) == SIG_END) {
+        endIndex = i;
+        break;
+      }
+    }
+    if (endIndex < 0) {
+      throw new ZipException("Missing end of central directory in " + this.archiveFile);
+    }
+    long count = getU16(tail, endIndex + 10);
+    long directorySize = getU32(tail, endIndex + 12);
+    long directoryOffset = getU32(tail, endIndex + 16);
+    if ((count == 0xFFFF) || (directorySize == MASK_U32) || (directoryOffset == MASK_U32)) {
+      long locatorOffset = tailOffset + endIndex - ZIP64_LOCATOR_SIZE;
+      if (locatorOffset >= 0) {
+        ByteBuffer locator = readFully(locatorOffset, ZIP64_LOCATOR_SIZE);
+        if (locator.getInt(0) == SIG_ZIP64_LOCATOR) {
+          ByteBuffer end64 = readFully(locator.getLong(8), 56);
+          if (end64.getInt(0) != SIG_ZIP64_END) {
+            throw new ZipException("Invalid ZIP64 end of central directory in " + this.archiveFile);
+          }
+          count = end64.getLong(32);
+          directorySize = end64.getLong(40);
+          directoryOffset = end64.getLong(48);
+        }
+      }
+    }
+    if ((directorySize > Integer.MAX_VALUE) || (directoryOffset + directorySize > fileSize)) {
+      throw new ZipException("Invalid central directory in " + this.archiveFile);
+    }
+    ByteBuffer directory = readFully(directoryOffset, (int) directorySize);
+    List<Entry> entries = new ArrayList<>((int) Math.min(count, 0xFFFF));
+    int position = 0;
+    while (position + CENTRAL_HEADER_SIZE <= directorySize) {
+      if (directory.getInt(position) != SIG_CENTRAL_HEADER) {
+        throw new ZipException("Invalid central directory entry in " + this.archiveFile);
+      }
+      int method = getU16(directory, position + 10);
+      long compressedSize = getU32(directory, position + 20);
+      long size = getU32(directory, position + 24);
+      int nameLength = getU16(directory, position + 28);
+      int extraLength = getU16(directory, position + 30);
+      int commentLength = getU16(directory, position + 32);
+      long offset = getU32(directory, position + 42);
+      int nameStart = position + CENTRAL_HEADER_SIZE;
+      if ((size == MASK_U32) || (compressedSize == MASK_U32) || (offset == MASK_U32)) {
+        int extraStart = nameStart + nameLength;
+        int extraEnd = extraStart + extraLength;
+        int extra = extraStart;
+        while (extra + 4 <= extraEnd) {
+          int id = getU16(directory, extra);
+          int dataSize = getU16(directory, extra + 2);
+          if (id == 0x0001) {
+            int field = extra + 4;
+            if (size == MASK_U32) {
+              size = directory.getLong(field);
+              field = field + 8;
+            }
+            if (compressedSize == MASK_U32) {
+              compressedSize = directory.getLong(field);
+              field = field + 8;
+            }
+            if (offset == MASK_U32) {
+              offset = directory.getLong(field);
+            }
+            break;
+          }
+          extra = extra + 4 + dataSize;
+        }
+      }
+      String name = new String(directory.array(), nameStart, nameLength, StandardCharsets.UTF_8);
+      if (!name.endsWith("/")) {
+        if ((size > Integer.MAX_VALUE) || (compressedSize > Integer.MAX_VALUE)) {
+          throw new ZipException("Entry " + name + " too large in " + this.archiveFile);
+        }
+        entries.add(new Entry(name, offset, (int) compressedSize, (int) size, method));
+      }
+      position = nameStart + nameLength + extraLength + commentLength;
+    }
+    return entries;
+  }
+
+  private static int getU16(ByteBuffer buffer, int index) {
+
+    return buffer.getShort(index) & 0xFFFF;
+  }
+
+  private static long getU32(ByteBuffer buffer, int index) {
+
+    return buffer.getInt(index) & MASK_U32;
+  }
+
+  /**
+   * @return {@code true} if this handle or the underlying file has been {@link #close() closed}, {@code false}
+   *         otherwise.
+   */
+  public boolean isClosed() {
+
+    return this.closed.get() || this.shared.closed;
+  }
+
+  /**
+   * Releases this handle. Further calls have no effect. If it was {@link #open(File) opened as shared index}, the
+   * underlying file is only closed when the last handle has been released.
+   */
+  @Override
+  public void close() throws IOException {
+
+    if (!this.closed.compareAndSet(false, true)) {
+      return;
+    }
+    String key = this.shared.key;
+    if (key == null) {
+      this.shared.release();
+      return;
+    }
+    try {
+      SHARED_INDEXES.compute(key, (k, template) -> {
+        try {
+          if (this.shared.release() && (template != null) && (template.shared == this.shared)) {
+            return null;
+          }
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        return template;
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  @Override
+  public String toString() {
+
+    return this.archiveFile + "[" + this.names.length + "]";
+  }
+
+  /**
+   * The state shared by all handles of an index.
+   */
+  private static final class Shared {
+
+    private final String key;
+
+    private final FileChannel channel;
+
+    private volatile int references;
+
+    private volatile boolean closed;
+
+    private Shared(String key, FileChannel channel) {
+
+      super();
+      this.key = key;
+      this.channel = channel;
+      this.references = 1;
+    }
+
+    /**
+     * Releases one reference. Only called once per handle and for shared indexes only while holding the lock of the
+     * map entry.
+     *
+     * @return {@code true} if this was the last reference and the {@link FileChannel} has been closed.
+     */
+    private boolean release() throws IOException {
+
+      if (--this.references > 0) {
+        return false;
+      }
+      this.closed = true;
+      this.channel.close();
+      return true;
+    }
+  }
+
+  private static final class Entry implements Comparable<Entry> {
+
+    private final String name;
+
+    private final long offset;
+
+    private final int compressedSize;
+
+    private final int size;
+
+    private final int method;
+
+    private Entry(String name, long offset, int compressedSize, int size, int method) {
+
+      super();
+      this.name = name;
+      this.offset = offset;
+      this.compressedSize = compressedSize;
+      this.size = size;
+      this.method = method;
+    }
+
+    @Override
+    public int compareTo(Entry other) {
+
+      return this.name.compareTo(other.name);
+    }
+  }
+
+}
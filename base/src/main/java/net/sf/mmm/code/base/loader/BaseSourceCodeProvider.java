@@ -4,31 +4,21 @@ package net.sf.mmm.code.base.loader;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.Reader;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 import java.util.Objects;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import net.sf.mmm.code.api.language.JavaLanguage;
 
 /**
- * Abstract base implementation of {@link SourceCodeProvider}.
+ * Abstract base implementation of {@link SourceCodeProvider} that maps qualified names to paths of source files (e.g.
+ * "com/example/Foo.java"). How the files are stored is up to the subclass (e.g. {@link BaseSourceCodeProviderDirectory}
+ * or {@link BaseSourceCodeProviderArchive}).
  *
  * @author Joerg Hohwiller (hohwille at users.sourceforge.net)
  * @since 1.0.0
  */
 public abstract class BaseSourceCodeProvider implements SourceCodeProvider {
 
-  private static final Logger LOG = LoggerFactory.getLogger(BaseSourceCodeProvider.class);
-
   private final String typeExtension;
 
   /**
@@ -76,48 +66,63 @@ public abstract class BaseSourceCodeProvider implements SourceCodeProvider {
     return openFile(pathString);
   }
 
-  private Reader openFile(String pathString) throws IOException {
-
-    Path path = getPath(pathString);
-    if (Files.isRegularFile(path)) {
-      LOG.debug("Opening file {} to parse source code.", pathString);
-      InputStream in = Files.newInputStream(path);
-      return openReader(in);
-    } else {
-      LOG.debug("File {} does not exist.", pathString);
-    }
-    return null;
-  }
+  /**
+   * @param pathString the path of the file to open (e.g. "com/example/Foo.java").
+   * @return a new {@link Reader} to read the file or {@code null} if the file does not exist.
+   * @throws IOException on I/O error.
+   */
+  protected abstract Reader openFile(String pathString) throws IOException;
 
-  @Override
-  public List<String> scanPackage(String qualifiedName) {
+  /**
+   * @param pathString the path of a file relative to the root of the source code (e.g. "com/example/Foo.java").
+   * @return the {@link net.sf.mmm.code.api.type.CodeType#getQualifiedName() qualified name} of the
+   *         {@link net.sf.mmm.code.api.type.CodeType} contained in the file (e.g. "com.example.Foo") or {@code null} if
+   *         the file does not contain a {@link net.sf.mmm.code.api.type.CodeType} or is not located in a valid package.
+   */
+  protected String path2TypeName(String pathString) {
 
-    requireNotClosed();
-    String pathString = qualifiedName2Path(qualifiedName);
-    Path path = getPath(pathString);
-    List<String> result = null;
-    for (Path child : path) {
-      String simpleName = filename2TypeSimpleName(child.getFileName().toString());
-      if (simpleName != null) {
-        if (Files.isRegularFile(child)) {
-          if (result == null) {
-            result = new ArrayList<>();
-          }
-          result.add(simpleName);
-        }
-      }
+    int lastSlash = pathString.lastIndexOf('/');
+    String simpleName = filename2TypeSimpleName(pathString.substring(lastSlash + 1));
+    if ((simpleName == null) || !isPackageSimpleName(simpleName)) {
+      // e.g. module-info.java
+      return null;
+    }
+    if (lastSlash < 0) {
+      return simpleName;
     }
-    if (result != null) {
-      return result;
+    StringBuilder buffer = new StringBuilder(pathString.length());
+    int start = 0;
+    while (start <= lastSlash) {
+      int end = pathString.indexOf('/', start);
+      String segment = pathString.substring(start, end);
+      if (!isPackageSimpleName(segment)) {
+        return null;
+      }
+      buffer.append(segment);
+      buffer.append('.');
+      start = end + 1;
     }
-    return Collections.emptyList();
+    buffer.append(simpleName);
+    return buffer.toString();
   }
 
   /**
-   * @param path the {@link Path} as {@link String}.
-   * @return the actual {@link Path}.
+   * @param name the name of a directory.
+   * @return {@code true} if the given {@code name} is a valid {@link net.sf.mmm.code.api.CodePackage#getSimpleName()
+   *         simple name} of a package (e.g. not "META-INF"), {@code false} otherwise.
    */
-  protected abstract Path getPath(String path);
+  protected boolean isPackageSimpleName(String name) {
+
+    if (name.isEmpty() || !Character.isJavaIdentifierStart(name.charAt(0))) {
+      return false;
+    }
+    for (int i = 1; i < name.length(); i++) {
+      if (!Character.isJavaIdentifierPart(name.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
 
   /**
    * @return {@code true} if {@link #close() close} was called, {@code false} otherwise.
@@ -134,23 +139,6 @@ public abstract class BaseSourceCodeProvider implements SourceCodeProvider {
     }
   }
 
-  /**
-   * @param in the {@link InputStream} to read.
-   * @return the {@link Reader} for the given {@link InputStream}.
-   * @throws IOException on I/O error.
-   */
-  protected Reader openReader(InputStream in) throws IOException {
-
-    InputStreamReader reader;
-    try {
-      reader = new InputStreamReader(in, "UTF-8");
-      return reader;
-    } catch (IOException | RuntimeException e) {
-      in.close();
-      throw e;
-    }
-  }
-
   /**
    * @param qualifiedName the {@link net.sf.mmm.code.api.item.CodeItemWithQualifiedName#getQualifiedName() qualified
    *        name}.
@@ -4,28 +4,39 @@ package net.sf.mmm.code.base.loader;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
-import java.nio.file.Path;
-import java.util.Collections;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 import net.sf.mmm.code.api.language.JavaLanguage;
 import net.sf.mmm.util.io.api.IoMode;
 import net.sf.mmm.util.io.api.RuntimeIoException;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
- * Base implementation of {@link BaseSourceCodeProvider} for a source-code directory in the filesystem.
+ * Base implementation of {@link BaseSourceCodeProvider} for a source-code archive (e.g. *-sources.jar). The central
+ * directory of the archive is read once into a {@link BaseArchiveIndex} so all files are served from memory and a
+ * single shared file channel.
  *
  * @author Joerg Hohwiller (hohwille at users.sourceforge.net)
  * @since 1.0.0
  */
 public class BaseSourceCodeProviderArchive extends BaseSourceCodeProvider {
 
+  private static final Logger LOG = LoggerFactory.getLogger(BaseSourceCodeProviderArchive.class);
+
   private final File archiveFile;
 
-  private FileSystem fileSystem;
+  private final long archiveSize;
+
+  private final long archiveLastModified;
+
+  private BaseArchiveIndex index;
 
   /**
    * The constructor.
@@ -48,43 +59,107 @@ public class BaseSourceCodeProviderArchive extends BaseSourceCodeProvider {
     super(typeExtension);
     assert (archiveFile.isFile());
     this.archiveFile = archiveFile;
-    URI uri;
+    this.archiveSize = archiveFile.length();
+    this.archiveLastModified = archiveFile.lastModified();
     try {
-      uri = new URI("jar", this.archiveFile.toURI().toString(), null);
-    } catch (URISyntaxException e) {
-      throw new IllegalStateException("Failed to create JAR URI for: " + archiveFile, e);
-    }
-    try {
-      this.fileSystem = FileSystems.newFileSystem(uri, Collections.emptyMap());
+      this.index = BaseArchiveIndex.open(archiveFile);
     } catch (IOException e) {
       throw new RuntimeIoException(e, IoMode.READ);
     }
   }
 
+  /**
+   * @return the {@link File} pointing to the archive with the source-code.
+   */
+  public File getArchiveFile() {
+
+    return this.archiveFile;
+  }
+
+  @Override
+  protected Reader openFile(String pathString) throws IOException {
+
+    ByteBuffer data = this.index.readBuffer(pathString);
+    if (data == null) {
+      LOG.debug("File {} does not exist in {}.", pathString, this.archiveFile);
+      return null;
+    }
+    LOG.debug("Opening file {} from {} to parse source code.", pathString, this.archiveFile);
+    return new BaseUtf8Reader(data);
+  }
+
+  @Override
+  public boolean containsType(String qualifiedName) {
+
+    requireNotClosed();
+    return this.index.contains(qualifiedName2TypePath(qualifiedName));
+  }
+
+  @Override
+  public BaseSourceCodeStamp getTypeStamp(String qualifiedName) {
+
+    requireNotClosed();
+    String path = qualifiedName2TypePath(qualifiedName);
+    if (!this.index.contains(path)) {
+      return null;
+    }
+    return new BaseSourceCodeStamp(this.archiveFile.getAbsolutePath() + "!/" + path, this.archiveSize,
+        this.archiveLastModified);
+  }
+
+  @Override
+  public List<String> scanPackage(String qualifiedName) {
+
+    requireNotClosed();
+    List<String> result = new ArrayList<>();
+    for (String filename : this.index.list(qualifiedName2Path(qualifiedName))) {
+      String simpleName = filename2TypeSimpleName(filename);
+      if (simpleName != null) {
+        result.add(simpleName);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public List<String> scanSubPackages(String qualifiedName) {
+
+    requireNotClosed();
+    List<String> result = new ArrayList<>();
+    for (String directory : this.index.listDirectories(qualifiedName2Path(qualifiedName))) {
+      if (isPackageSimpleName(directory)) {
+        result.add(directory);
+      }
+    }
+    return result;
+  }
+
   @Override
-  protected Path getPath(String path) {
+  public Stream<String> streamTypes(String qualifiedName, boolean recursive) {
 
-    return this.fileSystem.getPath(path);
+    requireNotClosed();
+    return this.index.stream(qualifiedName2Path(qualifiedName), recursive).map(this::path2TypeName)
+        .filter(Objects::nonNull);
   }
 
   @Override
   public void close() {
 
-    if (this.fileSystem == null) {
+    if (this.index == null) {
       return;
     }
     try {
-      this.fileSystem.close();
+      this.index.close();
     } catch (IOException e) {
       throw new IllegalStateException(e);
     }
-    this.fileSystem = null;
+    this.index = null;
   }
 
   @Override
   protected boolean isClosed() {
 
-    return (this.fileSystem == null);
+    return (this.index == null);
   }
 
 }
@@ -3,19 +3,42 @@
 package net.sf.mmm.code.base.loader;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import net.sf.mmm.code.api.language.JavaLanguage;
+import net.sf.mmm.util.io.api.IoMode;
+import net.sf.mmm.util.io.api.RuntimeIoException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * Base implementation of {@link BaseSourceCodeProvider} for a source-code directory in the filesystem.
+ * Base implementation of {@link BaseSourceCodeProvider} for a source-code directory in the filesystem. All files are
+ * accessed via {@link #getPath(String) paths} relative to the source-code directory.
  *
  * @author Joerg Hohwiller (hohwille at users.sourceforge.net)
  * @since 1.0.0
  */
 public class BaseSourceCodeProviderDirectory extends BaseSourceCodeProvider {
 
+  private static final Logger LOG = LoggerFactory.getLogger(BaseSourceCodeProviderDirectory.class);
+
   private String sourceDirectory;
 
   /**
@@ -44,11 +67,184 @@ public class BaseSourceCodeProviderDirectory extends BaseSourceCodeProvider {
   }
 
   @Override
+  public boolean containsType(String qualifiedName) {
+
+    requireNotClosed();
+    return Files.isRegularFile(getPath(qualifiedName2TypePath(qualifiedName)));
+  }
+
+  @Override
+  public BaseSourceCodeStamp getTypeStamp(String qualifiedName) {
+
+    requireNotClosed();
+    Path path = getPath(qualifiedName2TypePath(qualifiedName));
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+      if (attributes.isRegularFile()) {
+        return new BaseSourceCodeStamp(path.toString(), attributes.size(), attributes.lastModifiedTime().toMillis());
+      }
+    } catch (IOException e) {
+      LOG.debug("File {} does not exist.", path);
+    }
+    return null;
+  }
+
+  @Override
+  protected Reader openFile(String pathString) throws IOException {
+
+    Path path = getPath(pathString);
+    if (Files.isRegularFile(path)) {
+      LOG.debug("Opening file {} to parse source code.", pathString);
+      return openReader(path);
+    } else {
+      LOG.debug("File {} does not exist.", pathString);
+    }
+    return null;
+  }
+
+  @Override
+  public List<String> scanPackage(String qualifiedName) {
+
+    requireNotClosed();
+    String pathString = qualifiedName2Path(qualifiedName);
+    Path path = getPath(pathString);
+    if (!Files.isDirectory(path)) {
+      return Collections.emptyList();
+    }
+    List<String> result = new ArrayList<>();
+    try (DirectoryStream<Path> children = Files.newDirectoryStream(path)) {
+      for (Path child : children) {
+        String simpleName = filename2TypeSimpleName(child.getFileName().toString());
+        if ((simpleName != null) && Files.isRegularFile(child)) {
+          result.add(simpleName);
+        }
+      }
+    } catch (IOException e) {
+      throw new RuntimeIoException(e, IoMode.READ);
+    }
+    return result;
+  }
+
+  @Override
+  public List<String> scanSubPackages(String qualifiedName) {
+
+    requireNotClosed();
+    String pathString = qualifiedName2Path(qualifiedName);
+    Path path = getPath(pathString);
+    if (!Files.isDirectory(path)) {
+      return Collections.emptyList();
+    }
+    List<String> result = new ArrayList<>();
+    try (DirectoryStream<Path> children = Files.newDirectoryStream(path)) {
+      for (Path child : children) {
+        String simpleName = child.getFileName().toString();
+        if (isPackageSimpleName(simpleName) && Files.isDirectory(child)) {
+          result.add(simpleName);
+        }
+      }
+    } catch (IOException e) {
+      throw new RuntimeIoException(e, IoMode.READ);
+    }
+    return result;
+  }
+
+  @Override
+  public Stream<String> streamTypes(String qualifiedName, boolean recursive) {
+
+    requireNotClosed();
+    Path root = getPath("");
+    Path path = getPath(qualifiedName2Path(qualifiedName));
+    if (!Files.isDirectory(path)) {
+      return Stream.empty();
+    }
+    Stream<Path> files;
+    try {
+      if (recursive) {
+        files = Files.walk(path);
+      } else {
+        files = Files.list(path);
+      }
+    } catch (IOException e) {
+      throw new RuntimeIoException(e, IoMode.READ);
+    }
+    return files.filter(Files::isRegularFile)
+        .map(file -> path2TypeName(root.relativize(file).toString().replace(File.separatorChar, '/')))
+        .filter(Objects::nonNull);
+  }
+
+  /**
+   * @param path the {@link Path} as {@link String}.
+   * @return the actual {@link Path}.
+   */
   protected Path getPath(String path) {
 
     return Paths.get(this.sourceDirectory, path);
   }
 
+  /**
+   * Opens the given file for reading as UTF-8. The file is either memory-mapped or read with a single positional read
+   * (see {@link BaseUtf8Reader#load(FileChannel, long, int)}) and decoded by a {@link BaseUtf8Reader} directly into
+   * the buffer of the parser so there is no stream, decoder or intermediate buffer per file.
+   *
+   * @param path the {@link Path} of the file to read.
+   * @return the {@link Reader} for the given {@link Path}.
+   * @throws IOException on I/O error.
+   */
+  protected Reader openReader(Path path) throws IOException {
+
+    FileChannel channel;
+    try {
+      channel = FileChannel.open(path, StandardOpenOption.READ);
+    } catch (UnsupportedOperationException e) {
+      // file system without channel support
+      return openReader(Files.newInputStream(path));
+    }
+    try {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("File too large: " + path);
+      }
+      return new BaseUtf8Reader(BaseUtf8Reader.load(channel, 0, (int) size));
+    } finally {
+      channel.close();
+    }
+  }
+
+  /**
+   * @param in the {@link InputStream} to read.
+   * @return the {@link Reader} for the given {@link InputStream}.
+   * @throws IOException on I/O error.
+   */
+  protected Reader openReader(InputStream in) throws IOException {
+
+    InputStreamReader reader;
+    try {
+      reader = new InputStreamReader(in, "UTF-8");
+      return reader;
+    } catch (IOException | RuntimeException e) {
+      in.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Creates a {@link BaseSourceCodeWatcher} for the source-code directory of this provider. Use it with
+   * {@link net.sf.mmm.code.base.AbstractBaseContextWithCache#invalidateType(String)} as {@code listener} to reparse
+   * only the changed source files instead of rebuilding the entire context.
+   *
+   * @param listener the {@link Consumer} to notify with the qualified name of each type whose source file has been
+   *        created, modified or deleted.
+   * @return the new {@link BaseSourceCodeWatcher}. Call {@link BaseSourceCodeWatcher#poll() poll()} or
+   *         {@link BaseSourceCodeWatcher#start() start()} to process events and
+   *         {@link BaseSourceCodeWatcher#close() close()} when done.
+   * @throws IOException on I/O error.
+   */
+  public BaseSourceCodeWatcher watch(Consumer<String> listener) throws IOException {
+
+    requireNotClosed();
+    return new BaseSourceCodeWatcher(this, Paths.get(this.sourceDirectory), listener);
+  }
+
   @Override
   public void close() {
 
@@ -0,0 +1,69 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.base.loader;
+
+/**
+ * The stamp of a source file consisting of its {@link #getPath() path}, {@link #getSize() size} and
+ * {@link #getLastModified() last modification time}. It allows to detect unchanged source files (e.g. in a parse cache)
+ * without reading and hashing their content.
+ *
+ * @see SourceCodeProvider#getTypeStamp(String)
+ * @author Joerg Hohwiller (hohwille at users.sourceforge.net)
+ * @since 1.0.0
+ */
+public final class BaseSourceCodeStamp {
+
+  private final String path;
+
+  private final long size;
+
+  private final long lastModified;
+
+  /**
+   * The constructor.
+   *
+   * @param path the {@link #getPath() path}.
+   * @param size the {@link #getSize() size}.
+   * @param lastModified the {@link #getLastModified() last modification time}.
+   */
+  public BaseSourceCodeStamp(String path, long size, long lastModified) {
+
+    super();
+    this.path = path;
+    this.size = size;
+    this.lastModified = lastModified;
+  }
+
+  /**
+   * @return the absolute path of the source file. For an entry of an archive this is the path of the archive
+   *         followed by "!/" and the path of the entry.
+   */
+  public String getPath() {
+
+    return this.path;
+  }
+
+  /**
+   * @return the size of the source file (or of the archive containing it) in bytes.
+   */
+  public long getSize() {
+
+    return this.size;
+  }
+
+  /**
+   * @return the last modification time of the source file (or of the archive containing it) in milliseconds since the
+   *         epoch.
+   */
+  public long getLastModified() {
+
+    return this.lastModified;
+  }
+
+  @Override
+  public String toString() {
+
+    return this.path + "@" + this.size + ":" + this.lastModified;
+  }
+
+}
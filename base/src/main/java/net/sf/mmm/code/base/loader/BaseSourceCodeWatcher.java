@@ -0,0 +1,224 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.base.loader;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches the source-code directory of a {@link BaseSourceCodeProviderDirectory} via a {@link WatchService} and
+ * notifies a listener with the {@link net.sf.mmm.code.api.type.CodeType#getQualifiedName() qualified name} of each
+ * top-level type whose source file has been created, modified or deleted. Typically the listener is
+ * {@link net.sf.mmm.code.base.AbstractBaseContextWithCache#invalidateType(String)} so only changed types are reparsed
+ * on their next access. Events are either processed on the calling thread via {@link #poll()} or in a background
+ * thread after {@link #start()}.
+ *
+ * @author Joerg Hohwiller (hohwille at users.sourceforge.net)
+ * @since 1.0.0
+ * @see BaseSourceCodeProviderDirectory#watch(Consumer)
+ */
+public class BaseSourceCodeWatcher implements AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(BaseSourceCodeWatcher.class);
+
+  private final BaseSourceCodeProvider provider;
+
+  private final Path rootDirectory;
+
+  private final Consumer<String> listener;
+
+  private final WatchService watchService;
+
+  private final Map<WatchKey, Path> keyMap;
+
+  private Thread thread;
+
+  /**
+   * The constructor.
+   *
+   * @param provider the {@link BaseSourceCodeProvider} owning the source-code directory.
+   * @param rootDirectory the top-level source-code directory (where the root/default package is located).
+   * @param listener the {@link Consumer} to notify with the qualified name of each changed type.
+   * @throws IOException on I/O error.
+   */
+  public BaseSourceCodeWatcher(BaseSourceCodeProvider provider, Path rootDirectory, Consumer<String> listener)
+      throws IOException {
+
+    super();
+    this.provider = provider;
+    this.rootDirectory = rootDirectory;
+    this.listener = listener;
+    this.watchService = FileSystems.getDefault().newWatchService();
+    this.keyMap = new ConcurrentHashMap<>();
+    registerRecursive(rootDirectory, false);
+  }
+
+  private void registerRecursive(Path directory, boolean notify) throws IOException {
+
+    Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+
+        register(dir);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+
+        if (notify) {
+          notifyListener(file);
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private void register(Path directory) throws IOException {
+
+    WatchKey key = directory.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+    this.keyMap.put(key, directory);
+  }
+
+  /**
+   * Processes all pending events on the calling thread without blocking.
+   *
+   * @return the number of events that have been processed.
+   */
+  public int poll() {
+
+    int count = 0;
+    try {
+      WatchKey key = this.watchService.poll();
+      while (key != null) {
+        count = count + process(key);
+        key = this.watchService.poll();
+      }
+    } catch (ClosedWatchServiceException e) {
+      LOG.debug("Watcher for {} already closed.", this.rootDirectory);
+    }
+    return count;
+  }
+
+  /**
+   * Starts a daemon thread that processes the events as they occur until this watcher is {@link #close() closed}.
+   * The listener will then be called from that thread so it has to be thread-safe (e.g. the context has to be in
+   * {@link net.sf.mmm.code.base.AbstractBaseContextWithCache#setConcurrent(boolean) concurrent mode}).
+   */
+  public synchronized void start() {
+
+    if (this.thread != null) {
+      throw new IllegalStateException("Already started!");
+    }
+    this.thread = new Thread(this::run, "mmm-code-watcher-" + this.rootDirectory.getFileName());
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  private void run() {
+
+    try {
+      while (true) {
+        process(this.watchService.take());
+      }
+    } catch (ClosedWatchServiceException | InterruptedException e) {
+      LOG.debug("Stopped watching {}.", this.rootDirectory);
+    }
+  }
+
+  private int process(WatchKey key) {
+
+    int count = 0;
+    Path directory = this.keyMap.get(key);
+    if (directory != null) {
+      for (WatchEvent<?> event : key.pollEvents()) {
+        count++;
+        WatchEvent.Kind<?> kind = event.kind();
+        if (kind == StandardWatchEventKinds.OVERFLOW) {
+          LOG.debug("Events lost for {} - invalidating all types in this directory.", directory);
+          notifyDirectory(directory);
+        } else {
+          Path path = directory.resolve((Path) event.context());
+          if ((kind == StandardWatchEventKinds.ENTRY_CREATE) && Files.isDirectory(path)) {
+            try {
+              registerRecursive(path, true);
+            } catch (IOException e) {
+              LOG.warn("Failed to watch directory {}", path, e);
+            }
+          } else {
+            notifyListener(path);
+          }
+        }
+      }
+    }
+    if (!key.reset()) {
+      this.keyMap.remove(key);
+    }
+    return count;
+  }
+
+  private void notifyDirectory(Path directory) {
+
+    try (Stream<Path> children = Files.list(directory)) {
+      children.forEach(this::notifyListener);
+    } catch (IOException e) {
+      LOG.warn("Failed to list directory {}", directory, e);
+    }
+  }
+
+  private void notifyListener(Path file) {
+
+    String simpleName = this.provider.filename2TypeSimpleName(file.getFileName().toString());
+    if (simpleName == null) {
+      return;
+    }
+    Path relativePath = this.rootDirectory.relativize(file.getParent());
+    StringBuilder qualifiedName = new StringBuilder();
+    for (Path segment : relativePath) {
+      String name = segment.toString();
+      if (!name.isEmpty()) {
+        qualifiedName.append(name);
+        qualifiedName.append('.');
+      }
+    }
+    qualifiedName.append(simpleName);
+    String typeName = qualifiedName.toString();
+    LOG.debug("Source of type {} changed.", typeName);
+    try {
+      this.listener.accept(typeName);
+    } catch (RuntimeException e) {
+      LOG.warn("Failed to notify change of type {}", typeName, e);
+    }
+  }
+
+  @Override
+  public void close() {
+
+    try {
+      this.watchService.close();
+    } catch (IOException e) {
+      LOG.debug("Failed to close watch service for {}", this.rootDirectory, e);
+    }
+    this.keyMap.clear();
+  }
+
+}
@@ -2,7 +2,13 @@
  * http://www.apache.org/licenses/LICENSE-2.0 */
 package net.sf.mmm.code.base.loader;
 
+import java.util.List;
+import java.util.stream.Stream;
+
+import net.sf.mmm.code.api.statement.CodeStatement;
+import net.sf.mmm.code.base.BaseFile;
 import net.sf.mmm.code.base.BasePackage;
+import net.sf.mmm.code.base.block.BaseBlock;
 
 /**
  * {@link BaseLoader} that encapsulates the physical loading of code from a
@@ -21,6 +27,59 @@ public interface BaseSourceLoader extends BaseLoader, AutoCloseable {
    */
   void scan(BasePackage pkg);
 
+  /**
+   * Enumerates the types of the given {@link BasePackage} without loading them. Unlike {@link #scan(BasePackage)} this
+   * neither parses the types nor builds intermediate lists per package so e.g. an entire source tree can be indexed
+   * via {@code streamTypes(rootPackage, true).parallel().map(context::getType)}. The returned {@link Stream} may hold
+   * open directory handles of the underlying {@link SourceCodeProvider} and therefore has to be
+   * {@link Stream#close() closed} by the caller, e.g. via try-with-resources:
+   *
+   * <pre>
+   * try (Stream&lt;String&gt; types = loader.streamTypes(pkg, true)) {
+   *   types.forEach(context::getType);
+   * }
+   * </pre>
+   *
+   * @param pkg the {@link BasePackage} to enumerate.
+   * @param recursive - {@code true} to also include the types of the entire subtree of sub-packages, {@code false}
+   *        otherwise.
+   * @return the {@link Stream} with the {@link net.sf.mmm.code.api.type.CodeType#getQualifiedName() qualified names}
+   *         of the top-level {@link net.sf.mmm.code.api.type.CodeType}s. Will be empty if enumeration is not supported.
+   *         Has to be {@link Stream#close() closed} after use.
+   * @see SourceCodeProvider#streamTypes(String, boolean)
+   */
+  default Stream<String> streamTypes(BasePackage pkg, boolean recursive) {
+
+    return Stream.empty();
+  }
+
+  /**
+   * Parses the {@link BaseBlock#getStatements() statements} of a {@link BaseBlock#isSkipped() skipped} block on demand
+   * by reloading its {@link BaseBlock#getSourceRange() source range} from the original source code if it is unchanged
+   * according to its {@link BaseBlock#getSourceHash() hash}.
+   *
+   * @param file the {@link BaseFile} containing the {@link BaseBlock}.
+   * @param block the {@link BaseBlock#isSkipped() skipped} {@link BaseBlock}.
+   * @return the parsed {@link CodeStatement}s or {@code null} if the source code is not available.
+   */
+  default List<CodeStatement> loadStatements(BaseFile file, BaseBlock block) {
+
+    return null;
+  }
+
+  /**
+   * Notifies this loader that the source code of a type has been modified, created or deleted so any data read ahead
+   * of time for this type has to be discarded.
+   *
+   * @param qualifiedName the {@link net.sf.mmm.code.api.type.CodeType#getQualifiedName() qualified name} of the
+   *        top-level type whose source file has changed.
+   * @see net.sf.mmm.code.base.AbstractBaseContextWithCache#invalidateType(String)
+   */
+  default void invalidateType(String qualifiedName) {
+
+    // nothing by default
+  }
+
   @Override
   void close();
 
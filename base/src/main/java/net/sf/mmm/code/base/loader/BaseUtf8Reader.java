@@ -0,0 +1,197 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.base.loader;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * A {@link Reader} that decodes UTF-8 directly from a {@link ByteBuffer} (e.g. a memory-mapped file or the bytes of an
+ * archive entry) into the {@code char[]} of the caller. Unlike {@link java.io.InputStreamReader} it has no intermediate
+ * stream, byte buffer or {@link java.nio.charset.CharsetDecoder}. ASCII characters (the vast majority in source-code)
+ * are copied by a tight fast path. Each maximal subpart of malformed input is replaced with {@code U+FFFD} as
+ * recommended by the Unicode standard.
+ *
+ * @author Joerg Hohwiller (hohwille at users.sourceforge.net)
+ * @since 1.0.0
+ */
+public class BaseUtf8Reader extends Reader {
+
+  /** Minimum size in bytes for a file region to be memory-mapped. Smaller regions are cheaper to read. */
+  public static final int MAP_THRESHOLD = 16 * 1024;
+
+  private static final char REPLACEMENT = '\uFFFD';
+
+  private ByteBuffer buffer;
+
+  private int position;
+
+  private final int limit;
+
+  private char pendingLowSurrogate;
+
+  /**
+   * The constructor.
+   *
+   * @param buffer the {@link ByteBuffer} with the UTF-8 encoded data from its {@link ByteBuffer#position() position} to
+   *        its {@link ByteBuffer#limit() limit}. Will not be modified.
+   */
+  public BaseUtf8Reader(ByteBuffer buffer) {
+
+    super();
+    this.buffer = buffer;
+    this.position = buffer.position();
+    this.limit = buffer.limit();
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param bytes the UTF-8 encoded data.
+   */
+  public BaseUtf8Reader(byte[] bytes) {
+
+    this(ByteBuffer.wrap(bytes));
+  }
+
+  @Override
+  public int read(char[] cbuf, int off, int len) throws IOException {
+
+    ByteBuffer bytes = this.buffer;
+    if (bytes == null) {
+      throw new IOException("Stream closed");
+    }
+    if ((off < 0) || (len < 0) || (len > cbuf.length - off)) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (len == 0) {
+      return 0;
+    }
+    int count = 0;
+    if (this.pendingLowSurrogate != 0) {
+      cbuf[off] = this.pendingLowSurrogate;
+      this.pendingLowSurrogate = 0;
+      count++;
+    }
+    int pos = this.position;
+    int end = this.limit;
+    if ((pos >= end) && (count == 0)) {
+      return -1;
+    }
+    int charIndex = off + count;
+    int charEnd = off + len;
+    while ((charIndex < charEnd) && (pos < end)) {
+      int b = bytes.get(pos);
+      if (b >= 0) {
+        // ASCII fast path
+        cbuf[charIndex++] = (char) b;
+        pos++;
+        continue;
+      }
+      int lead = b & 0xFF;
+      int size;
+      int min = 0x80;
+      int max = 0xBF;
+      if ((lead >= 0xC2) && (lead <= 0xDF)) {
+        size = 2;
+      } else if ((lead >= 0xE0) && (lead <= 0xEF)) {
+        size = 3;
+        if (lead == 0xE0) {
+          min = 0xA0; // overlong
+        } else if (lead == 0xED) {
+          max = 0x9F; // surrogate
+        }
+      } else if ((lead >= 0xF0) && (lead <= 0xF4)) {
+        size = 4;
+        if (lead == 0xF0) {
+          min = 0x90; // overlong
+        } else if (lead == 0xF4) {
+          max = 0x8F; // beyond U+10FFFF
+        }
+      } else {
+        cbuf[charIndex++] = REPLACEMENT;
+        pos++;
+        continue;
+      }
+      int codePoint = lead & (0x7F >> size);
+      int i = 1;
+      while ((i < size) && (pos + i < end)) {
+        int next = bytes.get(pos + i) & 0xFF;
+        if ((next < min) || (next > max)) {
+          break;
+        }
+        min = 0x80;
+        max = 0xBF;
+        codePoint = (codePoint << 6) | (next & 0x3F);
+        i++;
+      }
+      if (i < size) {
+        // replace the maximal subpart of the ill-formed sequence
+        cbuf[charIndex++] = REPLACEMENT;
+        pos = pos + i;
+      } else if (size == 4) {
+        char high = Character.highSurrogate(codePoint);
+        char low = Character.lowSurrogate(codePoint);
+        cbuf[charIndex++] = high;
+        if (charIndex < charEnd) {
+          cbuf[charIndex++] = low;
+        } else {
+          this.pendingLowSurrogate = low;
+        }
+        pos = pos + 4;
+      } else {
+        cbuf[charIndex++] = (char) codePoint;
+        pos = pos + size;
+      }
+    }
+    this.position = pos;
+    return charIndex - off;
+  }
+
+  /**
+   * @param channel the {@link FileChannel} to read from.
+   * @param position the offset of the region to read.
+   * @param length the number of bytes to read.
+   * @return a {@link ByteBuffer} with the requested region of the file. If {@code length} is at least
+   *         {@link #MAP_THRESHOLD} the region is memory-mapped so no data is copied. Otherwise it is read with
+   *         positional reads into a heap buffer as mapping has a fixed cost that does not pay off for small files.
+   * @throws IOException on I/O error.
+   */
+  public static ByteBuffer load(FileChannel channel, long position, int length) throws IOException {
+
+    if (length >= MAP_THRESHOLD) {
+      return channel.map(MapMode.READ_ONLY, position, length);
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    long pos = position;
+    while (buffer.hasRemaining()) {
+      int count = channel.read(buffer, pos);
+      if (count < 0) {
+        throw new EOFException();
+      }
+      pos = pos + count;
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  @Override
+  public boolean ready() throws IOException {
+
+    if (this.buffer == null) {
+      throw new IOException("Stream closed");
+    }
+    return (this.position < this.limit) || (this.pendingLowSurrogate != 0);
+  }
+
+  @Override
+  public void close() {
+
+    this.buffer = null;
+  }
+
+}
@@ -5,6 +5,10 @@ package net.sf.mmm.code.base.loader;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.List;
+import java.util.stream.Stream;
+
+import net.sf.mmm.util.io.api.IoMode;
+import net.sf.mmm.util.io.api.RuntimeIoException;
 
 /**
  * The interface for a provider of source-code from an arbitrary location.
@@ -22,6 +26,29 @@ public interface SourceCodeProvider extends AutoCloseable {
    */
   Reader openType(String qualifiedName) throws IOException;
 
+  /**
+   * Checks if this provider contains the source-code of a type without opening or reading it.
+   *
+   * @param qualifiedName the qualified name of the top-level {@link net.sf.mmm.code.api.type.CodeType} to check.
+   * @return {@code false} if this provider definitely does not contain the source-code of the specified type,
+   *         {@code true} if it does or if this can not be determined without {@link #openType(String) opening} it.
+   */
+  default boolean containsType(String qualifiedName) {
+
+    return true;
+  }
+
+  /**
+   * @param qualifiedName the qualified name of the top-level {@link net.sf.mmm.code.api.type.CodeType}.
+   * @return the {@link BaseSourceCodeStamp} of the source file of the specified type or {@code null} if not available.
+   *         Has to be determined before the source file is {@link #openType(String) opened} so a concurrent
+   *         modification is never missed.
+   */
+  default BaseSourceCodeStamp getTypeStamp(String qualifiedName) {
+
+    return null;
+  }
+
   /**
    * @param qualifiedName the qualified name of the {@link net.sf.mmm.code.api.CodePackage} to open.
    * @return a new {@link Reader} to read the source-code from or {@code null} if the requested package was not found.
@@ -38,6 +65,56 @@ public interface SourceCodeProvider extends AutoCloseable {
    */
   List<String> scanPackage(String qualifiedName) throws IOException;
 
+  /**
+   * @param qualifiedName the qualified name of the {@link net.sf.mmm.code.api.CodePackage} to scan.
+   * @return a {@link List} with the {@link net.sf.mmm.code.api.CodePackage#getSimpleName() simple names} of the direct
+   *         sub-packages of the specified package or {@code null} if scan is not supported.
+   * @throws IOException on I/O error.
+   */
+  List<String> scanSubPackages(String qualifiedName) throws IOException;
+
+  /**
+   * Enumerates the types of a package as a lazy {@link Stream} instead of fully materialized {@link List}s per package.
+   * The default implementation walks the packages via {@link #scanPackage(String)} and
+   * {@link #scanSubPackages(String)}. Implementations should override this method to stream directly from their
+   * storage. The returned {@link Stream} may hold resources (e.g. open directory handles) and therefore has to be
+   * {@link Stream#close() closed} by the caller (e.g. via try-with-resources).
+   *
+   * @param qualifiedName the qualified name of the {@link net.sf.mmm.code.api.CodePackage} to scan.
+   * @param recursive - {@code true} to also include the types of the entire subtree of sub-packages, {@code false}
+   *        otherwise.
+   * @return the {@link Stream} with the {@link net.sf.mmm.code.api.type.CodeType#getQualifiedName() qualified names}
+   *         of the top-level {@link net.sf.mmm.code.api.type.CodeType}s in the specified package. Will be empty if
+   *         scan is not supported.
+   */
+  default Stream<String> streamTypes(String qualifiedName, boolean recursive) {
+
+    String prefix = "";
+    if (!qualifiedName.isEmpty()) {
+      prefix = qualifiedName + ".";
+    }
+    String packagePrefix = prefix;
+    Stream<String> stream;
+    try {
+      List<String> simpleNames = scanPackage(qualifiedName);
+      if (simpleNames == null) {
+        stream = Stream.empty();
+      } else {
+        stream = simpleNames.stream().map(simpleName -> packagePrefix + simpleName);
+      }
+      if (recursive) {
+        List<String> subPackageNames = scanSubPackages(qualifiedName);
+        if (subPackageNames != null) {
+          stream = Stream.concat(stream, subPackageNames.stream()
+              .flatMap(subPackageName -> streamTypes(packagePrefix + subPackageName, true)));
+        }
+      }
+    } catch (IOException e) {
+      throw new RuntimeIoException(e, IoMode.READ);
+    }
+    return stream;
+  }
+
   @Override
   void close();
 
@@ -5,6 +5,7 @@ package net.sf.mmm.code.base.loader;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Empty implementation of {@link SourceCodeProvider} for no sources.
@@ -31,6 +32,12 @@ public class SourceCodeProviderNone implements SourceCodeProvider {
     return null;
   }
 
+  @Override
+  public boolean containsType(String qualifiedName) {
+
+    return false;
+  }
+
   @Override
   public Reader openPackage(String qualifiedName) throws IOException {
 
@@ -43,6 +50,18 @@ public class SourceCodeProviderNone implements SourceCodeProvider {
     return null;
   }
 
+  @Override
+  public List<String> scanSubPackages(String qualifiedName) throws IOException {
+
+    return null;
+  }
+
+  @Override
+  public Stream<String> streamTypes(String qualifiedName, boolean recursive) {
+
+    return Stream.empty();
+  }
+
   @Override
   public void close() {
 
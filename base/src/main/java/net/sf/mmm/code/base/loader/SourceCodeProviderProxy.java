@@ -7,6 +7,7 @@ import java.io.Reader;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Implementation of {@link SourceCodeProvider} for lazy instantiation.
@@ -55,6 +56,18 @@ public class SourceCodeProviderProxy implements SourceCodeProvider {
     return getDelegate().openType(qualifiedName);
   }
 
+  @Override
+  public boolean containsType(String qualifiedName) {
+
+    return getDelegate().containsType(qualifiedName);
+  }
+
+  @Override
+  public BaseSourceCodeStamp getTypeStamp(String qualifiedName) {
+
+    return getDelegate().getTypeStamp(qualifiedName);
+  }
+
   @Override
   public Reader openPackage(String qualifiedName) throws IOException {
 
@@ -67,6 +80,18 @@ public class SourceCodeProviderProxy implements SourceCodeProvider {
     return getDelegate().scanPackage(qualifiedName);
   }
 
+  @Override
+  public List<String> scanSubPackages(String qualifiedName) throws IOException {
+
+    return getDelegate().scanSubPackages(qualifiedName);
+  }
+
+  @Override
+  public Stream<String> streamTypes(String qualifiedName, boolean recursive) {
+
+    return getDelegate().streamTypes(qualifiedName, recursive);
+  }
+
   @Override
   public void close() {
 
@@ -4,6 +4,7 @@ package net.sf.mmm.code.base.member;
 
 import java.io.IOException;
 import java.lang.reflect.Executable;
+import java.util.List;
 
 import net.sf.mmm.code.api.arg.CodeParameter;
 import net.sf.mmm.code.api.block.CodeBlockBody;
@@ -16,9 +17,11 @@ import net.sf.mmm.code.api.member.CodeField;
 import net.sf.mmm.code.api.member.CodeOperation;
 import net.sf.mmm.code.api.merge.CodeMergeStrategy;
 import net.sf.mmm.code.api.modifier.CodeModifiers;
+import net.sf.mmm.code.api.statement.CodeStatement;
 import net.sf.mmm.code.base.arg.BaseExceptions;
 import net.sf.mmm.code.base.arg.BaseParameters;
 import net.sf.mmm.code.base.block.BaseBlockBody;
+import net.sf.mmm.code.base.source.BaseSource;
 import net.sf.mmm.code.base.type.BaseTypeVariables;
 
 /**
@@ -35,7 +38,9 @@ public abstract class BaseOperation extends BaseMember implements CodeOperation
 
   private BaseExceptions exceptions;
 
-  private CodeBlockBody body;
+  private volatile CodeBlockBody body;
+
+  private volatile boolean bodyUnavailable;
 
   /**
    * The constructor.
@@ -80,7 +85,7 @@ public abstract class BaseOperation extends BaseMember implements CodeOperation
     this.typeVariables = template.typeVariables.copy(mapper);
     this.parameters = template.parameters.copy(mapper);
     this.exceptions = template.exceptions.copy(mapper);
-    this.body = mapper.map(template.body, CodeCopyType.CHILD);
+    this.body = mapper.map(template.getBodyMaterialized(), CodeCopyType.CHILD);
   }
 
   @Override
@@ -127,10 +132,56 @@ public abstract class BaseOperation extends BaseMember implements CodeOperation
   @Override
   public CodeBlockBody getBody() {
 
-    if (this.body == null) {
-      this.body = new BaseBlockBody(this);
+    CodeBlockBody result = getBodyMaterialized();
+    if (result == null) {
+      result = new BaseBlockBody(this);
+      this.body = result;
+    }
+    return result;
+  }
+
+  /**
+   * @return the {@link #getBody() body} or {@code null} if not set. If the body has been {@link BaseBlockBody#isSkipped()
+   *         skipped} by the parser, its statements are parsed on the first call from the original source code via
+   *         {@link net.sf.mmm.code.base.loader.BaseSourceLoader#loadStatements(net.sf.mmm.code.base.BaseFile,
+   *         net.sf.mmm.code.base.block.BaseBlock) loadStatements}. If that fails (e.g. as the source code has changed),
+   *         the skipped body is returned without trying again.
+   */
+  private CodeBlockBody getBodyMaterialized() {
+
+    CodeBlockBody result = this.body;
+    if ((result instanceof BaseBlockBody) && ((BaseBlockBody) result).isSkipped() && !this.bodyUnavailable) {
+      result = materializeBody();
+    }
+    return result;
+  }
+
+  private synchronized CodeBlockBody materializeBody() {
+
+    if (!(this.body instanceof BaseBlockBody)) {
+      return this.body;
+    }
+    BaseBlockBody skippedBody = (BaseBlockBody) this.body;
+    if (!skippedBody.isSkipped() || (skippedBody.getSourceRange() == null)) {
+      return skippedBody;
+    }
+    BaseSource source = getSource();
+    List<CodeStatement> statements = null;
+    if (source != null) {
+      statements = source.getLoader().loadStatements(getDeclaringType().getFile(), skippedBody);
+    }
+    if (statements == null) {
+      // do not reopen the source and warn again on every access
+      this.bodyUnavailable = true;
+      return skippedBody;
+    }
+    BaseBlockBody loadedBody = new BaseBlockBody(this, statements);
+    loadedBody.setSourceRange(skippedBody.getSourceRange());
+    if (isImmutable()) {
+      loadedBody.setImmutable();
     }
-    return this.body;
+    this.body = loadedBody;
+    return loadedBody;
   }
 
   @Override
@@ -141,6 +192,7 @@ public abstract class BaseOperation extends BaseMember implements CodeOperation
       throw new IllegalArgumentException();
     }
     this.body = body;
+    this.bodyUnavailable = false;
   }
 
   @Override
@@ -165,6 +217,7 @@ public abstract class BaseOperation extends BaseMember implements CodeOperation
     if (strategy != CodeMergeStrategy.MERGE_KEEP_BODY) {
       BaseBlockBody otherBody = (BaseBlockBody) other.getBody();
       this.body = doCopyNode(otherBody, this);
+      this.bodyUnavailable = false;
     }
   }
 
@@ -5,6 +5,7 @@ package net.sf.mmm.code.base.node;
 import net.sf.mmm.code.api.copy.AbstractCodeCopyMapper;
 import net.sf.mmm.code.api.copy.CodeCopyMapper;
 import net.sf.mmm.code.api.item.CodeItem;
+import net.sf.mmm.code.api.item.CodeSourceRange;
 import net.sf.mmm.code.api.language.CodeLanguage;
 import net.sf.mmm.code.api.language.JavaLanguage;
 import net.sf.mmm.code.api.node.CodeNode;
@@ -27,6 +28,8 @@ public abstract class BaseNodeItem extends BaseMutableItem implements CodeNodeIt
 
   private static final Logger LOG = LoggerFactory.getLogger(BaseNodeItem.class);
 
+  private CodeSourceRange sourceRange;
+
   /**
    * The constructor.
    */
@@ -61,6 +64,21 @@ public abstract class BaseNodeItem extends BaseMutableItem implements CodeNodeIt
     super.doInitialize();
   }
 
+  @Override
+  public CodeSourceRange getSourceRange() {
+
+    return this.sourceRange;
+  }
+
+  /**
+   * @param sourceRange the new value of {@link #getSourceRange()}. Set by the parser if recording of source ranges is
+   *        enabled. Not copied by the copy-constructor as a copy is not backed by the source code.
+   */
+  public void setSourceRange(CodeSourceRange sourceRange) {
+
+    this.sourceRange = sourceRange;
+  }
+
   @Override
   public BaseContext getContext() {
 
@@ -71,6 +89,16 @@ public abstract class BaseNodeItem extends BaseMutableItem implements CodeNodeIt
     return null;
   }
 
+  @Override
+  protected Object getInitializationLock() {
+
+    BaseContext context = getContext();
+    if (context == null) {
+      return null;
+    }
+    return context.getInitializationLock();
+  }
+
   @Override
   public BaseSource getSource() {
 
@@ -293,6 +293,24 @@ public abstract class BaseNodeItemContainer<I extends CodeItem> extends BaseNode
     return key;
   }
 
+  /**
+   * Removes the given {@code item} without verifying that this container is mutable.
+   *
+   * @param item the item to remove.
+   * @return {@code true} if the item has been removed, {@code false} otherwise (if not contained).
+   */
+  protected boolean removeInternal(I item) {
+
+    if (this.map != null) {
+      String key = getKey(item);
+      if (key != null) {
+        this.map.remove(key, item);
+      }
+    }
+    getList();
+    return this.mutableList.remove(item);
+  }
+
   @Override
   public boolean remove(I item) {
 
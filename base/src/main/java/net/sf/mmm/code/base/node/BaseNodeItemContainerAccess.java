@@ -23,4 +23,17 @@ public class BaseNodeItemContainerAccess extends BasePathElementAccess {
     container.addInternal(item);
   }
 
+  /**
+   * @param <I> type of the {@link CodeItem}.
+   * @param container the {@link BaseNodeItemContainerWithName}.
+   * @param name - see {@link BaseNodeItemContainerWithName#getDeclared(String, boolean)}.
+   * @return the declared item with the given {@code name} or {@code null} if not found. Will not initialize the
+   *         container.
+   */
+  protected static <I extends CodeItem> I getContainerItemDeclared(BaseNodeItemContainerWithName<I> container,
+      String name) {
+
+    return container.getDeclared(name, false);
+  }
+
 }
@@ -3,9 +3,12 @@
 package net.sf.mmm.code.base.parser;
 
 import java.io.Reader;
+import java.util.List;
 
+import net.sf.mmm.code.api.statement.CodeStatement;
 import net.sf.mmm.code.base.BaseFile;
 import net.sf.mmm.code.base.BasePackage;
+import net.sf.mmm.code.base.loader.BaseSourceCodeStamp;
 import net.sf.mmm.code.base.type.BaseType;
 
 /**
@@ -31,6 +34,22 @@ public interface SourceCodeParser {
    */
   BaseType parseType(Reader reader, BaseFile file);
 
+  /**
+   * Same as {@link #parseType(Reader, BaseFile)} but with the {@link BaseSourceCodeStamp} of the source file. An
+   * implementation may use it to detect an unchanged file without reading the given {@link Reader}.
+   *
+   * @param reader the {@link Reader} with the source-code.
+   * @param file the {@link BaseFile} where to add the parsed {@link net.sf.mmm.code.api.element.CodeElement elements}.
+   * @param stamp the {@link BaseSourceCodeStamp} of the source file determined before the {@link Reader} was opened or
+   *        {@code null} if unknown.
+   * @return the {@link BaseFile#getType() main type}.
+   * @see #parseType(Reader, BaseFile)
+   */
+  default BaseType parseType(Reader reader, BaseFile file, BaseSourceCodeStamp stamp) {
+
+    return parseType(reader, file);
+  }
+
   /**
    * @param reader the {@link Reader} with the source-code (e.g. from {@code package-info.java} file).
    * @param pkg the {@link BasePackage} where to add {@link BasePackage#getDoc() doc},
@@ -39,4 +58,17 @@ public interface SourceCodeParser {
    */
   void parsePackage(Reader reader, BasePackage pkg);
 
+  /**
+   * Parses a single block of source code (e.g. a {@link net.sf.mmm.code.base.block.BaseBlock#isSkipped() skipped}
+   * body).
+   *
+   * @param reader the {@link Reader} to read the block from starting with its opening curly brace.
+   * @return the parsed {@link CodeStatement}s or {@code null} if the source code does not start with a block or parsing
+   *         blocks is not supported.
+   */
+  default List<CodeStatement> parseBlock(Reader reader) {
+
+    return null;
+  }
+
 }
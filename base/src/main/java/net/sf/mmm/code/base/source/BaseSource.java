@@ -7,6 +7,7 @@ import net.sf.mmm.code.base.BaseContext;
 import net.sf.mmm.code.base.BasePackage;
 import net.sf.mmm.code.base.BaseProvider;
 import net.sf.mmm.code.base.loader.BaseSourceLoader;
+import net.sf.mmm.code.base.statistic.BaseStatistics;
 import net.sf.mmm.code.base.type.BaseType;
 
 /**
@@ -43,4 +44,15 @@ public interface BaseSource extends CodeSource, BaseProvider {
    */
   BaseSourceLoader getLoader();
 
+  /**
+   * @return the {@link BaseStatistics} about the types loaded from this source.
+   */
+  BaseStatistics getStatistics();
+
+  /**
+   * @return the {@link BaseSourceTypeIndex} of the {@link #getByteCodeLocation() byte code location} or {@code null}
+   *         if not available (e.g. no byte code location).
+   */
+  BaseSourceTypeIndex getTypeIndex();
+
 }
@@ -18,6 +18,7 @@ import net.sf.mmm.code.base.BaseContext;
 import net.sf.mmm.code.base.BasePackage;
 import net.sf.mmm.code.base.loader.BaseSourceLoader;
 import net.sf.mmm.code.base.loader.BaseSourceLoaderImpl;
+import net.sf.mmm.code.base.statistic.BaseStatistics;
 import net.sf.mmm.code.base.type.BaseGenericType;
 import net.sf.mmm.code.base.type.BaseType;
 import net.sf.mmm.util.component.api.ResourceMissingException;
@@ -55,6 +56,10 @@ public class BaseSourceImpl extends AbstractBaseProvider implements BaseSource {
 
   private boolean immutable;
 
+  private final BaseStatistics statistics;
+
+  private volatile BaseSourceTypeIndex typeIndex;
+
   /**
    * The constructor.
    *
@@ -126,6 +131,7 @@ public class BaseSourceImpl extends AbstractBaseProvider implements BaseSource {
       ((BaseSourceLoaderImpl) loader).setSource(this);
     }
     this.loader = loader;
+    this.statistics = new BaseStatistics();
   }
 
   @Override
@@ -192,6 +198,28 @@ public class BaseSourceImpl extends AbstractBaseProvider implements BaseSource {
     return this.loader;
   }
 
+  @Override
+  public BaseStatistics getStatistics() {
+
+    return this.statistics;
+  }
+
+  @Override
+  public BaseSourceTypeIndex getTypeIndex() {
+
+    BaseSourceTypeIndex index = this.typeIndex;
+    if (index == null) {
+      synchronized (this) {
+        index = this.typeIndex;
+        if (index == null) {
+          index = BaseSourceTypeIndex.of(getByteCodeLocation());
+          this.typeIndex = index;
+        }
+      }
+    }
+    return index;
+  }
+
   @Override
   public CodeSource getReflectiveObject() {
 
@@ -0,0 +1,175 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.base.source;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A compact index of the {@link Class#getName() binary names} of the types contained in the byte-code location of a
+ * {@link BaseSource}. It allows to decide if a type is contained without probing a {@link ClassLoader} (that is
+ * expensive for types that do not exist as each location of the class-path has to be searched). For an archive the
+ * names are read once from its central directory and kept as sorted {@link String} array. For a directory (e.g.
+ * "target/classes") no index is built as its content may change at any time. Instead a lookup simply checks if the
+ * according class file exists.
+ *
+ * @author Joerg Hohwiller (hohwille at users.sourceforge.net)
+ * @since 1.0.0
+ * @see BaseSource#getTypeIndex()
+ */
+public final class BaseSourceTypeIndex {
+
+  private static final Logger LOG = LoggerFactory.getLogger(BaseSourceTypeIndex.class);
+
+  private static final String SUFFIX_CLASS = ".class";
+
+  private static final String PREFIX_VERSIONS = "META-INF/versions/";
+
+  private final File location;
+
+  private final String[] typeNames;
+
+  private final List<File> classPath;
+
+  private BaseSourceTypeIndex(File location, String[] typeNames, List<File> classPath) {
+
+    super();
+    this.location = location;
+    this.typeNames = typeNames;
+    this.classPath = classPath;
+  }
+
+  /**
+   * @return the byte-code location (archive or directory) this index has been created for.
+   */
+  public File getLocation() {
+
+    return this.location;
+  }
+
+  /**
+   * @return the number of type names in this index or {@code -1} for a directory that is not indexed.
+   */
+  public int getSize() {
+
+    if (this.typeNames == null) {
+      return -1;
+    }
+    return this.typeNames.length;
+  }
+
+  /**
+   * @return the {@link List} of additional locations referenced via the {@code Class-Path} attribute of the manifest
+   *         of the archive. Will be empty for a directory or if not present.
+   */
+  public List<File> getClassPath() {
+
+    return this.classPath;
+  }
+
+  /**
+   * @param qualifiedName the {@link Class#getName() binary name} of a type (e.g. "java.util.Map$Entry").
+   * @return {@code true} if the type is contained in the location of this index, {@code false} otherwise.
+   */
+  public boolean contains(String qualifiedName) {
+
+    if (this.typeNames == null) {
+      return new File(this.location, qualifiedName.replace('.', '/') + SUFFIX_CLASS).isFile();
+    }
+    return (Arrays.binarySearch(this.typeNames, qualifiedName) >= 0);
+  }
+
+  /**
+   * @param location the byte-code location as archive file or directory.
+   * @return the {@link BaseSourceTypeIndex} for the given {@code location} or {@code null} if the location does not
+   *         exist or can not be read.
+   */
+  public static BaseSourceTypeIndex of(File location) {
+
+    if ((location == null) || !location.exists()) {
+      return null;
+    } else if (location.isDirectory()) {
+      return new BaseSourceTypeIndex(location, null, Collections.emptyList());
+    }
+    try (ZipFile zipFile = new ZipFile(location)) {
+      List<String> names = new ArrayList<>(zipFile.size());
+      Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        String typeName = getTypeName(entries.nextElement().getName());
+        if (typeName != null) {
+          names.add(typeName);
+        }
+      }
+      String[] typeNames = names.toArray(new String[names.size()]);
+      Arrays.sort(typeNames);
+      List<File> classPath = getClassPath(location, zipFile);
+      LOG.debug("Indexed {} types of {}", typeNames.length, location);
+      return new BaseSourceTypeIndex(location, typeNames, classPath);
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Failed to index {}: {}", location, e.toString());
+      return null;
+    }
+  }
+
+  private static String getTypeName(String path) {
+
+    if (!path.endsWith(SUFFIX_CLASS) || path.endsWith("module-info.class") || path.endsWith("package-info.class")) {
+      return null;
+    }
+    String typePath = path;
+    if (typePath.startsWith(PREFIX_VERSIONS)) {
+      // multi-release JAR: META-INF/versions/9/com/foo/Bar.class
+      int slash = typePath.indexOf('/', PREFIX_VERSIONS.length());
+      if (slash < 0) {
+        return null;
+      }
+      typePath = typePath.substring(slash + 1);
+    }
+    return typePath.substring(0, typePath.length() - SUFFIX_CLASS.length()).replace('/', '.');
+  }
+
+  private static List<File> getClassPath(File archive, ZipFile zipFile) throws IOException {
+
+    ZipEntry manifestEntry = zipFile.getEntry("META-INF/MANIFEST.MF");
+    if (manifestEntry == null) {
+      return Collections.emptyList();
+    }
+    Manifest manifest;
+    try (InputStream in = zipFile.getInputStream(manifestEntry)) {
+      manifest = new Manifest(in);
+    }
+    String classPath = manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH);
+    if ((classPath == null) || classPath.trim().isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<File> result = new ArrayList<>();
+    for (String entry : classPath.trim().split("\\s+")) {
+      try {
+        result.add(new File(archive.getParentFile().toURI().resolve(entry)));
+      } catch (IllegalArgumentException e) {
+        LOG.debug("Ignoring invalid class-path entry {} of {}", entry, archive);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+
+    return this.location + "[" + getSize() + "]";
+  }
+
+}
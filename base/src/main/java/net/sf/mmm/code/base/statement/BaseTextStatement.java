@@ -40,9 +40,21 @@ public class BaseTextStatement extends BaseAtomicStatement {
   @Override
   protected void doWrite(Appendable sink, String newline, String defaultIndent, String currentIndent, CodeLanguage language) throws IOException {
 
-    sink.append(currentIndent);
-    sink.append(this.code);
-    sink.append(newline);
+    // a statement with a nested block spans multiple lines that are indented relative to the statement
+    int length = this.code.length();
+    int start = 0;
+    while (start <= length) {
+      int end = this.code.indexOf('\n', start);
+      if (end < 0) {
+        end = length;
+      }
+      if (end > start) {
+        sink.append(currentIndent);
+        sink.append(this.code, start, end);
+      }
+      sink.append(newline);
+      start = end + 1;
+    }
   }
 
 }
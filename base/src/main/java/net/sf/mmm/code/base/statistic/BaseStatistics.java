@@ -0,0 +1,252 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.base.statistic;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics about the caching and loading of code for a {@link net.sf.mmm.code.base.BaseContext#getStatistics()
+ * context} or a {@link net.sf.mmm.code.base.source.BaseSource#getStatistics() source}. All counters are thread-safe
+ * and cheap to update so they are always collected. Use {@link #reset()} to start a new measurement (e.g. between
+ * phases of a run).
+ *
+ * @author Joerg Hohwiller (hohwille at users.sourceforge.net)
+ * @since 1.0.0
+ */
+public class BaseStatistics {
+
+  private final LongAdder cacheHits;
+
+  private final LongAdder cacheMisses;
+
+  private final LongAdder negativeLookups;
+
+  private final LongAdder reflectiveLoads;
+
+  private final LongAdder sourceParses;
+
+  private final LongAdder charsRead;
+
+  private final LongAdder loadNanos;
+
+  private final LongAdder parseNanos;
+
+  /**
+   * The constructor.
+   */
+  public BaseStatistics() {
+
+    super();
+    this.cacheHits = new LongAdder();
+    this.cacheMisses = new LongAdder();
+    this.negativeLookups = new LongAdder();
+    this.reflectiveLoads = new LongAdder();
+    this.sourceParses = new LongAdder();
+    this.charsRead = new LongAdder();
+    this.loadNanos = new LongAdder();
+    this.parseNanos = new LongAdder();
+  }
+
+  /**
+   * @return the number of type lookups answered from the cache.
+   */
+  public long getCacheHits() {
+
+    return this.cacheHits.sum();
+  }
+
+  /**
+   * @return the number of type lookups that were not found in the cache and had to be loaded.
+   */
+  public long getCacheMisses() {
+
+    return this.cacheMisses.sum();
+  }
+
+  /**
+   * @return the number of type lookups answered from the negative cache (type known to be not resolvable).
+   */
+  public long getNegativeLookups() {
+
+    return this.negativeLookups.sum();
+  }
+
+  /**
+   * @return the number of types loaded from byte-code via reflection.
+   */
+  public long getReflectiveLoads() {
+
+    return this.reflectiveLoads.sum();
+  }
+
+  /**
+   * @return the number of source files that have been parsed.
+   */
+  public long getSourceParses() {
+
+    return this.sourceParses.sum();
+  }
+
+  /**
+   * @return the number of characters of source-code that have been read for {@link #getSourceParses() parsing}. For
+   *         ASCII source files this is equal to the number of bytes.
+   */
+  public long getCharsRead() {
+
+    return this.charsRead.sum();
+  }
+
+  /**
+   * @param unit the {@link TimeUnit} of the result.
+   * @return the cumulative duration of loading types on {@link #getCacheMisses() cache misses}.
+   */
+  public long getLoadTime(TimeUnit unit) {
+
+    return unit.convert(this.loadNanos.sum(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @param unit the {@link TimeUnit} of the result.
+   * @return the cumulative duration of {@link #getSourceParses() parsing} source files.
+   */
+  public long getParseTime(TimeUnit unit) {
+
+    return unit.convert(this.parseNanos.sum(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Records a {@link #getCacheHits() cache hit}.
+   */
+  public void recordCacheHit() {
+
+    this.cacheHits.increment();
+  }
+
+  /**
+   * Records a {@link #getCacheMisses() cache miss}.
+   */
+  public void recordCacheMiss() {
+
+    this.cacheMisses.increment();
+  }
+
+  /**
+   * Records a {@link #getNegativeLookups() negative lookup}.
+   */
+  public void recordNegativeLookup() {
+
+    this.negativeLookups.increment();
+  }
+
+  /**
+   * Records a {@link #getReflectiveLoads() reflective load}.
+   */
+  public void recordReflectiveLoad() {
+
+    this.reflectiveLoads.increment();
+  }
+
+  /**
+   * @param nanos the duration of the load in nanoseconds.
+   * @see #getLoadTime(TimeUnit)
+   */
+  public void recordLoad(long nanos) {
+
+    this.loadNanos.add(nanos);
+  }
+
+  /**
+   * @param chars the number of {@link #getCharsRead() characters read}.
+   * @param nanos the duration of the parsing in nanoseconds.
+   * @see #getSourceParses()
+   */
+  public void recordSourceParse(long chars, long nanos) {
+
+    this.sourceParses.increment();
+    this.charsRead.add(chars);
+    this.parseNanos.add(nanos);
+  }
+
+  /**
+   * Resets all statistics to zero.
+   */
+  public void reset() {
+
+    this.cacheHits.reset();
+    this.cacheMisses.reset();
+    this.negativeLookups.reset();
+    this.reflectiveLoads.reset();
+    this.sourceParses.reset();
+    this.charsRead.reset();
+    this.loadNanos.reset();
+    this.parseNanos.reset();
+  }
+
+  @Override
+  public String toString() {
+
+    return "cacheHits=" + getCacheHits() + ", cacheMisses=" + getCacheMisses() + ", negativeLookups="
+        + getNegativeLookups() + ", reflectiveLoads=" + getReflectiveLoads() + ", sourceParses=" + getSourceParses()
+        + ", charsRead=" + getCharsRead() + ", loadTime=" + getLoadTime(TimeUnit.MILLISECONDS) + "ms, parseTime="
+        + getParseTime(TimeUnit.MILLISECONDS) + "ms";
+  }
+
+  /**
+   * {@link FilterReader} that counts the {@link #getCount() number of characters} read.
+   */
+  public static class CountingReader extends FilterReader {
+
+    private long count;
+
+    /**
+     * The constructor.
+     *
+     * @param reader the {@link Reader} to delegate to.
+     */
+    public CountingReader(Reader reader) {
+
+      super(reader);
+    }
+
+    /**
+     * @return the number of characters read so far.
+     */
+    public long getCount() {
+
+      return this.count;
+    }
+
+    @Override
+    public int read() throws IOException {
+
+      int c = super.read();
+      if (c >= 0) {
+        this.count++;
+      }
+      return c;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+
+      int read = super.read(cbuf, off, len);
+      if (read > 0) {
+        this.count = this.count + read;
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+
+      long skipped = super.skip(n);
+      this.count = this.count + skipped;
+      return skipped;
+    }
+  }
+
+}
@@ -131,6 +131,18 @@ public class BaseNestedTypes extends BaseNodeItemContainerHierarchicalWithName<C
     super.add(item);
   }
 
+  @Override
+  protected synchronized void addInternal(CodeType item) {
+
+    super.addInternal(item);
+  }
+
+  @Override
+  protected synchronized CodeType getByName(String name) {
+
+    return super.getByName(name);
+  }
+
   @Override
   protected void rename(CodeType child, String oldName, String newName, Consumer<String> renamer) {
 
@@ -71,6 +71,8 @@ public class BaseType extends BaseGenericType implements CodeType {
 
   private CodeType sourceCodeObject;
 
+  private boolean systemImmutable;
+
   /**
    * The constructor for a nested type.
    *
@@ -379,6 +381,25 @@ public class BaseType extends BaseGenericType implements CodeType {
     return this.reflectiveObject;
   }
 
+  @Override
+  protected boolean isSystemImmutable() {
+
+    if (this.systemImmutable || super.isSystemImmutable()) {
+      return true;
+    }
+    return (this.declaringType != null) && (this.declaringType != this) && this.declaringType.isSystemImmutable();
+  }
+
+  /**
+   * Makes this type {@link #isSystemImmutable() system immutable} like a type with a {@link #getReflectiveObject()
+   * reflective object}. Unlike {@link #setImmutable()} the referenced types are not resolved eagerly as the children
+   * turn immutable lazily. Has to be called after the type has been populated (e.g. from a pre-computed model).
+   */
+  public void setSystemImmutable() {
+
+    this.systemImmutable = true;
+  }
+
   @Override
   public BaseFile getFile() {
 
@@ -8,7 +8,9 @@ import java.lang.reflect.Type;
 import net.sf.mmm.code.api.copy.CodeCopyMapper;
 import net.sf.mmm.code.api.copy.CodeCopyType;
 import net.sf.mmm.code.api.type.CodeGenericType;
+import net.sf.mmm.code.api.type.CodeType;
 import net.sf.mmm.code.api.type.CodeTypeParameters;
+import net.sf.mmm.code.api.type.CodeTypeVariable;
 import net.sf.mmm.code.base.BaseContext;
 import net.sf.mmm.code.base.member.BaseOperation;
 
@@ -106,7 +108,8 @@ public class BaseTypeParameters extends BaseGenericTypeParameters<CodeGenericTyp
   @Override
   protected CodeGenericType ensureParent(CodeGenericType item) {
 
-    if (item.getParent() != this) {
+    if ((item.getParent() != this) && !(item instanceof CodeTypeVariable) && !(item instanceof CodeType)) {
+      // raw types and type variables are only referenced and owned by their declaring file or type variables
       return doCopyNodeUnsafe(item, this);
     }
     return item;
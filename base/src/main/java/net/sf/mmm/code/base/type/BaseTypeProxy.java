@@ -105,6 +105,13 @@ public class BaseTypeProxy extends BaseGenericTypeProxy implements CodeNodeItemC
     return this.type;
   }
 
+  @Override
+  protected boolean isSystemImmutable() {
+
+    // a proxy is a reference from source code that has to be configured even if the raw type is reflective
+    return false;
+  }
+
   @Override
   public boolean isQualified() {
 
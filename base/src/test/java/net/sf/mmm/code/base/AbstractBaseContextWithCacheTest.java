@@ -0,0 +1,506 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.base;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sf.mmm.code.api.CodeName;
+import net.sf.mmm.code.api.type.CodeType;
+import net.sf.mmm.code.base.cache.BaseTypeCacheBounded;
+import net.sf.mmm.code.base.loader.BaseLoader;
+import net.sf.mmm.code.base.source.BaseSource;
+import net.sf.mmm.code.base.statistic.BaseStatistics;
+import net.sf.mmm.code.base.type.BaseGenericType;
+import net.sf.mmm.code.base.type.BaseType;
+
+import org.junit.Test;
+
+/**
+ * Test of {@link AbstractBaseContextWithCache} via {@link TestContext}.
+ */
+public class AbstractBaseContextWithCacheTest extends BaseContextTest {
+
+  /**
+   * Test of {@link AbstractBaseContextWithCache#getType(String)} in {@link AbstractBaseContextWithCache#isConcurrent()
+   * concurrent mode}.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testConcurrentGetType() throws Exception {
+
+    // given
+    CountingTestContext context = new CountingTestContext();
+    context.setConcurrent(true);
+    int threadCount = 8;
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    List<Future<BaseType>> futures = new ArrayList<>();
+    Callable<BaseType> lookup = () -> {
+      start.await();
+      return context.getType("java.util.ArrayList");
+    };
+
+    // when
+    for (int i = 0; i < threadCount; i++) {
+      futures.add(executor.submit(lookup));
+    }
+    start.countDown();
+    List<BaseType> types = new ArrayList<>();
+    for (Future<BaseType> future : futures) {
+      types.add(future.get());
+    }
+    executor.shutdown();
+
+    // then
+    assertThat(context.isConcurrent()).isTrue();
+    assertThat(context.loadCount.get()).isEqualTo(1);
+    BaseType type = types.get(0);
+    assertThat(type.getQualifiedName()).isEqualTo("java.util.ArrayList");
+    for (BaseType t : types) {
+      assertThat(t).isSameAs(type);
+    }
+    assertThat(context.getType(ArrayList.class)).isSameAs(type);
+  }
+
+  /**
+   * Test of {@link AbstractBaseContextWithCache#getType(String)} in {@link AbstractBaseContextWithCache#isConcurrent()
+   * concurrent mode} with two loads where each loading thread requires the type loaded by the other one.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testConcurrentGetTypeCyclicWait() throws Exception {
+
+    // given
+    CyclicTestContext context = new CyclicTestContext();
+    context.setConcurrent(true);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    // when
+    Future<BaseType> future1 = executor.submit(() -> context.getType(CyclicTestContext.NAME_1));
+    Future<BaseType> future2 = executor.submit(() -> context.getType(CyclicTestContext.NAME_2));
+    BaseType type1 = future1.get(10, TimeUnit.SECONDS);
+    BaseType type2 = future2.get(10, TimeUnit.SECONDS);
+    executor.shutdown();
+
+    // then
+    assertThat(type1.getQualifiedName()).isEqualTo("java.util.ArrayList");
+    assertThat(type2.getQualifiedName()).isEqualTo("java.util.HashMap");
+    assertThat(context.getType(CyclicTestContext.NAME_1)).isSameAs(type1);
+    assertThat(context.getType(CyclicTestContext.NAME_2)).isSameAs(type2);
+  }
+
+  /**
+   * Test of {@link net.sf.mmm.code.api.CodeContext#getTypes(java.util.Collection)}.
+   */
+  @Test
+  public void testGetTypes() {
+
+    // given
+    CountingTestContext context = new CountingTestContext();
+    BaseType list = context.getType("java.util.List");
+    List<String> names = Arrays.asList("java.util.ArrayList", "com.example.Undefined", "java.util.List",
+        "java.util.HashMap");
+
+    // when
+    Map<String, CodeType> types = context.getTypes(names);
+
+    // then
+    assertThat(types.keySet()).containsExactly("java.util.ArrayList", "java.util.List", "java.util.HashMap");
+    assertThat(types.get("java.util.List")).isSameAs(list);
+    assertThat(types.get("java.util.ArrayList")).isSameAs(context.getType("java.util.ArrayList"));
+    assertThat(types.get("java.util.HashMap")).isSameAs(context.getType("java.util.HashMap"));
+    assertThat(context.loadCount.get()).isEqualTo(4);
+  }
+
+  /**
+   * Test of {@link AbstractBaseContextWithCache#getTypes(java.util.Collection)} in
+   * {@link AbstractBaseContextWithCache#isConcurrent() concurrent mode} with types grouped by their owning source.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testGetTypesConcurrent() throws Exception {
+
+    // given
+    Path directory = Files.createTempDirectory("mmm-code-types");
+    Path pkg = Files.createDirectories(directory.resolve("java/util"));
+    Path arrayList = Files.createFile(pkg.resolve("ArrayList.class"));
+    Path hashMap = Files.createFile(pkg.resolve("HashMap.class"));
+    CountingTestContext context = new CountingTestContext(directory.toFile());
+    context.setConcurrent(true);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    context.setLoadPool(pool);
+    List<String> names = Arrays.asList("java.util.ArrayList", "java.util.LinkedList", "java.util.HashMap",
+        "java.util.Map$Entry", "java.util.TreeMap", "java.util.Map");
+
+    // when
+    Map<String, CodeType> types;
+    try {
+      types = context.getTypes(names);
+    } finally {
+      pool.shutdown();
+      Files.delete(arrayList);
+      Files.delete(hashMap);
+      Files.delete(pkg);
+      Files.delete(pkg.getParent());
+      Files.delete(directory);
+    }
+
+    // then
+    assertThat(types.keySet()).containsExactly(names.toArray(new String[names.size()]));
+    assertThat(types.get("java.util.Map$Entry").getDeclaringType()).isSameAs(types.get("java.util.Map"));
+    for (String name : Arrays.asList("java.util.ArrayList", "java.util.LinkedList", "java.util.HashMap",
+        "java.util.TreeMap", "java.util.Map")) {
+      Thread thread = context.loadThreads.get(name);
+      assertThat(thread).isInstanceOf(ForkJoinWorkerThread.class);
+      assertThat(((ForkJoinWorkerThread) thread).getPool()).isSameAs(pool);
+    }
+    // both types of the source are loaded in one group
+    assertThat(context.loadThreads.get("java.util.HashMap")).isSameAs(context.loadThreads.get("java.util.ArrayList"));
+  }
+
+  /**
+   * Test of {@link AbstractBaseContextWithCache#getType(String)} for nested types that are resolved lazily via their
+   * declaring type.
+   */
+  @Test
+  public void testGetNestedType() {
+
+    // given
+    CountingTestContext context = new CountingTestContext();
+    BaseType outer = context.getOrCreateType("example.Outer", false);
+    BaseType inner = outer.getNestedTypes().add("Inner");
+    int loadCount = context.loadCount.get();
+
+    // when
+    BaseType type = context.getType("example.Outer.Inner");
+
+    // then
+    assertThat(type).isSameAs(inner);
+    assertThat(context.getType("example.Outer$Inner")).isSameAs(inner);
+    assertThat(context.loadCount.get()).isEqualTo(loadCount);
+  }
+
+  /**
+   * Test of {@link AbstractBaseContextWithCache#getType(String)} for a type that can not be resolved.
+   */
+  @Test
+  public void testNegativeCache() {
+
+    // given
+    CountingTestContext context = new CountingTestContext();
+    String qualifiedName = "com.example.Undefined";
+
+    // when
+    BaseType type1 = context.getType(qualifiedName);
+    BaseType type2 = context.getType(qualifiedName);
+
+    // then
+    assertThat(type1).isNull();
+    assertThat(type2).isNull();
+    assertThat(context.loadCount.get()).isEqualTo(1);
+    assertThat(context.getNegativeCacheSize()).isEqualTo(1);
+    assertThat(context.getNegativeCacheHits()).isEqualTo(1L);
+
+    // and when
+    context.invalidateNegativeCache();
+
+    // then
+    assertThat(context.getNegativeCacheSize()).isEqualTo(0);
+    assertThat(context.getType(qualifiedName)).isNull();
+    assertThat(context.loadCount.get()).isEqualTo(2);
+  }
+
+  /**
+   * Test of {@link AbstractBaseContextWithCache#getType(String)} with a {@link BaseTypeCacheBounded}.
+   */
+  @Test
+  public void testBoundedCache() {
+
+    // given
+    BoundedTestContext context = new BoundedTestContext();
+    BaseType arrayList = context.getType("java.util.ArrayList");
+    BaseFile arrayListFile = arrayList.getFile();
+    BasePathElements children = arrayList.getParentPackage().getChildren();
+
+    // when
+    context.getType("java.util.HashMap");
+    context.getType("java.util.LinkedList");
+    context.getType("java.util.TreeMap");
+
+    // then
+    assertThat(context.cache.size()).isLessThanOrEqualTo(2);
+    assertThat(context.cache.getEvictionCount()).isGreaterThan(0);
+    assertThat(children.getFile("ArrayList", false)).isNull();
+    assertThat(context.getType("java.util.ArrayList")).isSameAs(arrayList);
+    assertThat(children.getFile("ArrayList", false)).isSameAs(arrayListFile);
+  }
+
+  /**
+   * Test of {@link AbstractBaseContextWithCache#invalidateType(String)}.
+   */
+  @Test
+  public void testInvalidateType() {
+
+    // given
+    CountingTestContext context = new CountingTestContext();
+    BaseType arrayList = context.getType("java.util.ArrayList");
+    BaseType hashMap = context.getType("java.util.HashMap");
+    BasePathElements children = arrayList.getParentPackage().getChildren();
+    int loadCount = context.loadCount.get();
+
+    // when
+    boolean invalidated = context.invalidateType("java.util.ArrayList");
+
+    // then
+    assertThat(invalidated).isTrue();
+    assertThat(children.getFile("ArrayList", false)).isNull();
+    BaseType reloaded = context.getType("java.util.ArrayList");
+    assertThat(reloaded).isNotNull().isNotSameAs(arrayList);
+    assertThat(children.getFile("ArrayList", false)).isSameAs(reloaded.getFile());
+    assertThat(context.getType("java.util.HashMap")).isSameAs(hashMap);
+    assertThat(context.loadCount.get()).isEqualTo(loadCount + 1);
+    assertThat(context.invalidateType("com.example.Undefined")).isFalse();
+  }
+
+  /**
+   * Test of {@link AbstractBaseContextWithCache#invalidateType(String)} with a {@link BaseTypeCacheBounded} where the
+   * invalidated types have been evicted but are still referenced. Also tests that evicted and invalidated types are
+   * reported to {@link AbstractBaseContextWithCache#onTypeRemoved(String)}.
+   */
+  @Test
+  public void testInvalidateEvictedType() {
+
+    // given
+    BoundedTestContext context = new BoundedTestContext();
+    BaseType map = context.getType("java.util.Map");
+    BaseType entry = context.getType("java.util.Map$Entry");
+    BasePathElements children = map.getParentPackage().getChildren();
+    context.getType("java.util.HashMap");
+    context.getType("java.util.LinkedList");
+    context.getType("java.util.TreeMap");
+    assertThat(children.getFile("Map", false)).isNull();
+    assertThat(context.removedTypes).contains("java.util.Map").doesNotContain("java.util.TreeMap");
+    context.removedTypes.clear();
+
+    // when
+    boolean invalidated = context.invalidateType("java.util.Map");
+
+    // then
+    assertThat(invalidated).isTrue();
+    assertThat(context.removedTypes).containsExactly("java.util.Map");
+    assertThat(children.getFile("Map", false)).isNull();
+    BaseType reloadedEntry = context.getType("java.util.Map$Entry");
+    assertThat(reloadedEntry).isNotNull().isNotSameAs(entry);
+    BaseType reloaded = context.getType("java.util.Map");
+    assertThat(reloaded).isNotNull().isNotSameAs(map);
+    assertThat(children.getFile("Map", false)).isSameAs(reloaded.getFile());
+  }
+
+  /**
+   * Test of {@link AbstractBaseContextWithCache#getStatistics()}.
+   */
+  @Test
+  public void testStatistics() {
+
+    // given
+    CountingTestContext context = new CountingTestContext();
+    BaseStatistics statistics = context.getStatistics();
+
+    // when
+    BaseType type = context.getType("java.util.ArrayList");
+    context.getType("java.util.ArrayList");
+    context.getType("com.example.Undefined");
+    context.getType("com.example.Undefined");
+
+    // then
+    assertThat(statistics.getCacheHits()).isEqualTo(1L);
+    assertThat(statistics.getCacheMisses()).isEqualTo(2L);
+    assertThat(statistics.getNegativeLookups()).isEqualTo(1L);
+    assertThat(statistics.getLoadTime(TimeUnit.NANOSECONDS)).isGreaterThan(0L);
+    BaseStatistics sourceStatistics = type.getSource().getStatistics();
+    assertThat(sourceStatistics.getCacheHits()).isEqualTo(1L);
+    assertThat(sourceStatistics.getCacheMisses()).isEqualTo(1L);
+
+    // and when
+    statistics.reset();
+
+    // then
+    assertThat(statistics.getCacheHits()).isEqualTo(0L);
+    assertThat(statistics.getCacheMisses()).isEqualTo(0L);
+    assertThat(context.getNegativeCacheHits()).isEqualTo(0L);
+  }
+
+  private static class BoundedTestContext extends TestContext {
+
+    private BaseTypeCacheBounded cache;
+
+    private final List<String> removedTypes = new ArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected <K, V> Map<K, V> createCache() {
+
+      this.cache = BaseTypeCacheBounded.ofMaxSize(2);
+      return (Map<K, V>) this.cache;
+    }
+
+    @Override
+    protected void onTypeRemoved(String qualifiedName) {
+
+      this.removedTypes.add(qualifiedName);
+    }
+  }
+
+  /**
+   * {@link TestContext} where loading {@link #NAME_1} requires {@link #NAME_2} and vice versa. The first load of each
+   * name waits until both loads are pending so the two loading threads are forced to wait on each other.
+   */
+  private static class CyclicTestContext extends TestContext {
+
+    private static final String NAME_1 = "com.example.Cyclic1";
+
+    private static final String NAME_2 = "com.example.Cyclic2";
+
+    private final Set<String> crossLoads = ConcurrentHashMap.newKeySet();
+
+    private final CyclicBarrier barrier = new CyclicBarrier(2);
+
+    private final BaseLoader loader = new BaseLoader() {
+
+      @Override
+      public BaseType getType(String qualifiedName) {
+
+        String delegate;
+        String other;
+        if (NAME_1.equals(qualifiedName)) {
+          delegate = "java.util.ArrayList";
+          other = NAME_2;
+        } else if (NAME_2.equals(qualifiedName)) {
+          delegate = "java.util.HashMap";
+          other = NAME_1;
+        } else {
+          return CyclicTestContext.super.getLoader().getType(qualifiedName);
+        }
+        if (CyclicTestContext.this.crossLoads.add(qualifiedName)) {
+          try {
+            CyclicTestContext.this.barrier.await(10, TimeUnit.SECONDS);
+          } catch (Exception e) {
+            throw new IllegalStateException(e);
+          }
+          CyclicTestContext.this.getType(other);
+        }
+        return CyclicTestContext.super.getLoader().getType(delegate);
+      }
+
+      @Override
+      public BaseType getType(CodeName qualifiedName) {
+
+        return getType(qualifiedName.getFullName());
+      }
+
+      @Override
+      public BaseGenericType getType(Class<?> clazz) {
+
+        return CyclicTestContext.super.getLoader().getType(clazz);
+      }
+
+      @Override
+      public BaseSource getSource() {
+
+        return CyclicTestContext.this.getSource();
+      }
+
+      @Override
+      public BaseContext getContext() {
+
+        return CyclicTestContext.this;
+      }
+    };
+
+    @Override
+    protected BaseLoader getLoader() {
+
+      return this.loader;
+    }
+  }
+
+  private static class CountingTestContext extends TestContext {
+
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    private final Map<String, Thread> loadThreads = new ConcurrentHashMap<>();
+
+    private final BaseLoader loader = new BaseLoader() {
+
+      @Override
+      public BaseType getType(String qualifiedName) {
+
+        CountingTestContext.this.loadCount.incrementAndGet();
+        CountingTestContext.this.loadThreads.put(qualifiedName, Thread.currentThread());
+        return CountingTestContext.super.getLoader().getType(qualifiedName);
+      }
+
+      @Override
+      public BaseType getType(CodeName qualifiedName) {
+
+        return getType(qualifiedName.getFullName());
+      }
+
+      @Override
+      public BaseGenericType getType(Class<?> clazz) {
+
+        return CountingTestContext.super.getLoader().getType(clazz);
+      }
+
+      @Override
+      public BaseSource getSource() {
+
+        return CountingTestContext.this.getSource();
+      }
+
+      @Override
+      public BaseContext getContext() {
+
+        return CountingTestContext.this;
+      }
+    };
+
+    private CountingTestContext() {
+
+      super();
+    }
+
+    private CountingTestContext(File byteCodeLocation) {
+
+      super(byteCodeLocation);
+    }
+
+    @Override
+    protected BaseLoader getLoader() {
+
+      return this.loader;
+    }
+  }
+
+}
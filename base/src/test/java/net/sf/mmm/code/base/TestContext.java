@@ -17,6 +17,7 @@ import net.sf.mmm.code.base.loader.BaseSourceLoaderImpl;
 import net.sf.mmm.code.base.source.BaseSource;
 import net.sf.mmm.code.base.source.BaseSourceImpl;
 import net.sf.mmm.code.base.type.BaseGenericType;
+import net.sf.mmm.code.base.type.BaseNestedTypes;
 import net.sf.mmm.code.base.type.BaseType;
 import net.sf.mmm.code.base.type.BaseTypeWildcard;
 
@@ -30,13 +31,23 @@ public class TestContext extends AbstractBaseContextWithCache {
    */
   public TestContext() {
 
-    super(createSource());
+    this(new File(""));
   }
 
-  private static BaseSourceImpl createSource() {
+  /**
+   * The constructor.
+   *
+   * @param byteCodeLocation the {@link BaseSourceImpl#getByteCodeLocation() byte code location} of the source.
+   */
+  public TestContext(File byteCodeLocation) {
+
+    super(createSource(byteCodeLocation));
+  }
+
+  private static BaseSourceImpl createSource(File byteCodeLocation) {
 
     BaseSourceLoader loader = new TestSoureLoader();
-    BaseSourceImpl source = new BaseSourceImpl(new File(""), null, null, null, loader);
+    BaseSourceImpl source = new BaseSourceImpl(byteCodeLocation, null, null, null, loader);
     return source;
   }
 
@@ -162,6 +173,17 @@ public class TestContext extends AbstractBaseContextWithCache {
         BaseGenericType componentType = getType(clazz.getComponentType());
         return componentType.createArray();
       }
+      Class<?> declaringClass = clazz.getDeclaringClass();
+      if (declaringClass != null) {
+        BaseType declaringType = (BaseType) getType(declaringClass);
+        BaseNestedTypes nestedTypes = declaringType.getNestedTypes();
+        BaseType type = (BaseType) getContainerItemDeclared(nestedTypes, clazz.getSimpleName());
+        if (type == null) {
+          type = new BaseType(declaringType.getFile(), clazz.getSimpleName(), declaringType, clazz);
+          addContainerItem(nestedTypes, type);
+        }
+        return type;
+      }
       BaseSource source = getSource();
       BasePackage parentPackage = source.getRootPackage();
       Package pkg = clazz.getPackage();
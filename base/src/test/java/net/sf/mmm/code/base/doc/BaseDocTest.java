@@ -4,10 +4,12 @@ package net.sf.mmm.code.base.doc;
 
 import org.junit.Test;
 
+import net.sf.mmm.code.api.arg.CodeParameter;
 import net.sf.mmm.code.api.doc.CodeDocFormat;
 import net.sf.mmm.code.base.BaseContext;
 import net.sf.mmm.code.base.BaseContextTest;
 import net.sf.mmm.code.base.BasePackage;
+import net.sf.mmm.code.base.member.BaseMethod;
 import net.sf.mmm.code.base.type.BaseType;
 
 /**
@@ -63,4 +65,26 @@ public class BaseDocTest extends BaseContextTest {
             "* item2\n");
   }
 
+  /**
+   * Test of {@link BaseDoc#setRawDoc(String)} that is only parsed when accessed.
+   */
+  @Test
+  public void testRawDoc() {
+
+    // given
+    BaseContext context = createContext();
+    BasePackage rootPackage = context.getSource().getRootPackage();
+    BaseType type = rootPackage.getChildren().createType("Foo");
+    BaseMethod method = type.getMethods().add("bar");
+    CodeParameter parameter = method.getParameters().add("x");
+    String rawDoc = "\n   * Does the bar.   \n   *\n   * @param x the value   \n   * for the bar.\n   ";
+
+    // when
+    method.getDoc().setRawDoc(rawDoc);
+
+    // then
+    assertThat(parameter.getDoc().getLines()).containsExactly("the value", "for the bar.");
+    assertThat(method.getDoc().getLines()).containsExactly("Does the bar.", "");
+  }
+
 }
@@ -0,0 +1,160 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.base.loader;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test of {@link BaseSourceCodeProviderArchive} and {@link BaseArchiveIndex}.
+ */
+public class BaseSourceCodeProviderArchiveTest extends Assertions {
+
+  private static final String FOO = "package com.example;\n\npublic class Foo {\n  // äöü\n}\n";
+
+  private static final String BAR = "package com.example;\n\nclass Bar {}\n";
+
+  private File archive;
+
+  private File createArchive(String name) throws Exception {
+
+    this.archive = new File(Files.createTempDirectory("mmm-code-archive").toFile(), name);
+    return this.archive;
+  }
+
+  /**
+   * Deletes the temporary {@link #archive} and its directory.
+   */
+  @After
+  public void deleteArchive() {
+
+    if (this.archive != null) {
+      this.archive.delete();
+      this.archive.getParentFile().delete();
+    }
+  }
+
+  /**
+   * Test of {@link BaseSourceCodeProviderArchive#openType(String)},
+   * {@link BaseSourceCodeProviderArchive#scanPackage(String)} and
+   * {@link BaseSourceCodeProviderArchive#scanSubPackages(String)}.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testArchive() throws Exception {
+
+    // given
+    File archive = createArchive("test-sources.jar");
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive))) {
+      out.putNextEntry(new ZipEntry("com/"));
+      out.putNextEntry(new ZipEntry("com/example/"));
+      write(out, "com/example/Foo.java", FOO, false);
+      write(out, "com/example/Bar.java", BAR, true);
+      write(out, "com/example/package-info.java", "package com.example;", false);
+      write(out, "com/example/sub/Sub.java", "package com.example.sub;", false);
+      write(out, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0\n", false);
+    }
+
+    // when
+    try (BaseSourceCodeProviderArchive provider = new BaseSourceCodeProviderArchive(archive)) {
+
+      // then
+      assertThat(read(provider.openType("com.example.Foo"))).isEqualTo(FOO);
+      assertThat(read(provider.openType("com.example.Bar"))).isEqualTo(BAR);
+      assertThat(read(provider.openPackage("com.example"))).isEqualTo("package com.example;");
+      assertThat(provider.openType("com.example.Undefined")).isNull();
+      assertThat(provider.scanPackage("com.example")).containsExactly("Bar", "Foo");
+      assertThat(provider.scanPackage("com")).isEmpty();
+      assertThat(provider.scanSubPackages("")).containsExactly("com");
+      assertThat(provider.scanSubPackages("com.example")).containsExactly("sub");
+      assertThat(provider.scanSubPackages("com.example.sub")).isEmpty();
+      assertThat(provider.streamTypes("com.example", false)).containsExactly("com.example.Bar", "com.example.Foo");
+      assertThat(provider.streamTypes("", true)).containsExactly("com.example.Bar", "com.example.Foo",
+          "com.example.sub.Sub");
+      assertThat(provider.streamTypes("com.example.sub", true).parallel().count()).isEqualTo(1);
+      assertThat(provider.streamTypes("com.undefined", true)).isEmpty();
+    }
+  }
+
+  /**
+   * Test of {@link BaseArchiveIndex#open(File)} and {@link BaseArchiveIndex#close()} with shared handles.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testShared() throws Exception {
+
+    // given
+    File archive = createArchive("shared-sources.jar");
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive))) {
+      write(out, "com/example/Foo.java", FOO, false);
+    }
+
+    // when
+    BaseArchiveIndex index1 = BaseArchiveIndex.open(archive);
+    BaseArchiveIndex index2 = BaseArchiveIndex.open(new File(archive.getParentFile(), "./shared-sources.jar"));
+
+    // then
+    assertThat(index2).isNotSameAs(index1);
+    assertThat(index1.getReferenceCount()).isEqualTo(2);
+    index1.close();
+    index1.close(); // closing a handle twice must not release the reference of index2
+    assertThat(index1.isClosed()).isTrue();
+    assertThat(index2.isClosed()).isFalse();
+    assertThat(index2.getReferenceCount()).isEqualTo(1);
+    assertThatThrownBy(() -> index1.read("com/example/Foo.java")).isInstanceOf(IllegalStateException.class);
+    assertThat(new String(index2.read("com/example/Foo.java"), StandardCharsets.UTF_8)).isEqualTo(FOO);
+    archive.setLastModified(archive.lastModified() - 10000);
+    BaseArchiveIndex index3 = BaseArchiveIndex.open(archive);
+    assertThat(index3.getReferenceCount()).isEqualTo(1);
+    index2.close();
+    assertThat(index2.isClosed()).isTrue();
+    assertThat(index2.getReferenceCount()).isEqualTo(0);
+    assertThat(index3.isClosed()).isFalse();
+    index3.close();
+    assertThat(index3.isClosed()).isTrue();
+  }
+
+  private static void write(ZipOutputStream out, String path, String content, boolean stored) throws Exception {
+
+    byte[] data = content.getBytes(StandardCharsets.UTF_8);
+    ZipEntry entry = new ZipEntry(path);
+    if (stored) {
+      CRC32 crc = new CRC32();
+      crc.update(data);
+      entry.setMethod(ZipEntry.STORED);
+      entry.setSize(data.length);
+      entry.setCrc(crc.getValue());
+    }
+    out.putNextEntry(entry);
+    out.write(data);
+    out.closeEntry();
+  }
+
+  private static String read(Reader reader) throws Exception {
+
+    assertThat(reader).isNotNull();
+    StringBuilder sb = new StringBuilder();
+    try (BufferedReader br = new BufferedReader(reader)) {
+      int c = br.read();
+      while (c >= 0) {
+        sb.append((char) c);
+        c = br.read();
+      }
+    }
+    return sb.toString();
+  }
+
+}
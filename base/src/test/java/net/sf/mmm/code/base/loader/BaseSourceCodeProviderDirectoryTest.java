@@ -0,0 +1,79 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.base.loader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Test of {@link BaseSourceCodeProviderDirectory}.
+ */
+public class BaseSourceCodeProviderDirectoryTest extends Assertions {
+
+  private static void write(Path root, String path, String content) throws IOException {
+
+    Path file = root.resolve(path);
+    Files.createDirectories(file.getParent());
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void delete(Path root) throws IOException {
+
+    try (Stream<Path> paths = Files.walk(root)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  /**
+   * Test of {@link BaseSourceCodeProviderDirectory#streamTypes(String, boolean)}. As the {@link Stream} holds open
+   * directory handles it is closed via try-with-resources.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testStreamTypes() throws Exception {
+
+    // given
+    Path root = Files.createTempDirectory("mmm-code-directory");
+    write(root, "com/example/Foo.java", "package com.example;\n\npublic class Foo {}\n");
+    write(root, "com/example/Bar.java", "package com.example;\n\nclass Bar {}\n");
+    write(root, "com/example/package-info.java", "package com.example;");
+    write(root, "com/example/readme.txt", "no type");
+    write(root, "com/example/sub/Sub.java", "package com.example.sub;");
+    write(root, "module-info.java", "module com.example {}");
+    write(root, "META-INF/Invalid.java", "class Invalid {}");
+
+    // when
+    try (BaseSourceCodeProviderDirectory provider = new BaseSourceCodeProviderDirectory(root.toFile())) {
+
+      // then
+      try (Stream<String> types = provider.streamTypes("com.example", false)) {
+        assertThat(types).containsExactlyInAnyOrder("com.example.Bar", "com.example.Foo");
+      }
+      try (Stream<String> types = provider.streamTypes("", true)) {
+        assertThat(types).containsExactlyInAnyOrder("com.example.Bar", "com.example.Foo", "com.example.sub.Sub");
+      }
+      try (Stream<String> types = provider.streamTypes("com.example.sub", true)) {
+        assertThat(types.parallel().count()).isEqualTo(1);
+      }
+      try (Stream<String> types = provider.streamTypes("com.undefined", true)) {
+        assertThat(types).isEmpty();
+      }
+      assertThat(new File(root.toFile(), "com/example/Foo.java").delete()).isTrue();
+      try (Stream<String> types = provider.streamTypes("com.example", false)) {
+        assertThat(types).containsExactly("com.example.Bar");
+      }
+    } finally {
+      delete(root);
+    }
+  }
+
+}
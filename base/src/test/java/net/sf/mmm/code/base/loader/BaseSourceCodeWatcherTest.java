@@ -0,0 +1,62 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.base.loader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Test of {@link BaseSourceCodeWatcher}.
+ */
+public class BaseSourceCodeWatcherTest extends Assertions {
+
+  private static void delete(Path root) throws IOException {
+
+    try (Stream<Path> paths = Files.walk(root)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  /**
+   * Test of {@link BaseSourceCodeProviderDirectory#watch(java.util.function.Consumer)}.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testWatch() throws Exception {
+
+    // given
+    Path root = Files.createTempDirectory("mmm-code-watch");
+    Path pkg = Files.createDirectories(root.resolve("com/example"));
+    Path source = Files.write(pkg.resolve("Foo.java"), "class Foo {}".getBytes(StandardCharsets.UTF_8));
+    List<String> changes = new CopyOnWriteArrayList<>();
+    BaseSourceCodeProviderDirectory provider = new BaseSourceCodeProviderDirectory(root.toFile());
+
+    try (BaseSourceCodeWatcher watcher = provider.watch(changes::add)) {
+      // when
+      Files.write(source, "class Foo { int x; }".getBytes(StandardCharsets.UTF_8));
+      Files.write(pkg.resolve("package-info.java"), "package com.example;".getBytes(StandardCharsets.UTF_8));
+      Files.write(pkg.resolve("notes.txt"), "ignored".getBytes(StandardCharsets.UTF_8));
+      long timeout = System.currentTimeMillis() + 10000;
+      while (changes.isEmpty() && (System.currentTimeMillis() < timeout)) {
+        watcher.poll();
+        Thread.sleep(50);
+      }
+
+      // then
+      assertThat(changes).isNotEmpty().containsOnly("com.example.Foo");
+    } finally {
+      delete(root);
+    }
+  }
+
+}
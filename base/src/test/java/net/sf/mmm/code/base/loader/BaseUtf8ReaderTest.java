@@ -0,0 +1,69 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.base.loader;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Test of {@link BaseUtf8Reader}.
+ */
+public class BaseUtf8ReaderTest extends Assertions {
+
+  private static String read(byte[] bytes, int chunkSize) throws Exception {
+
+    StringBuilder sb = new StringBuilder();
+    char[] buffer = new char[chunkSize];
+    try (Reader reader = new BaseUtf8Reader(bytes)) {
+      int count = reader.read(buffer, 0, chunkSize);
+      while (count >= 0) {
+        sb.append(buffer, 0, count);
+        count = reader.read(buffer, 0, chunkSize);
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Test of {@link BaseUtf8Reader#read(char[], int, int)} with valid UTF-8 including supplementary characters split
+   * across reads.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testValid() throws Exception {
+
+    // given
+    String text = "package com.example;\n// äöü ß € 😀 end";
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+
+    // when + then
+    for (int chunkSize = 1; chunkSize < 8; chunkSize++) {
+      assertThat(read(bytes, chunkSize)).isEqualTo(text);
+    }
+    assertThat(read(bytes, 4096)).isEqualTo(text);
+  }
+
+  /**
+   * Test of {@link BaseUtf8Reader#read(char[], int, int)} with malformed input that has to be replaced.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testMalformed() throws Exception {
+
+    // given
+    byte[] bytes = new byte[] { 'a', (byte) 0xC3, 'b', (byte) 0x80, (byte) 0xC0, (byte) 0xAF, 'c', (byte) 0xE2,
+    (byte) 0x82 };
+
+    // when
+    String text = read(bytes, 4096);
+
+    // then
+    assertThat(text).isEqualTo("a\uFFFDb\uFFFD\uFFFD\uFFFDc\uFFFD");
+  }
+
+}
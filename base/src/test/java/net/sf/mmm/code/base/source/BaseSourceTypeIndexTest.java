@@ -0,0 +1,105 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.base.source;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test of {@link BaseSourceTypeIndex}.
+ */
+public class BaseSourceTypeIndexTest extends Assertions {
+
+  private File directory;
+
+  /**
+   * Deletes the temporary {@link #directory} of the test.
+   *
+   * @throws IOException on error.
+   */
+  @After
+  public void deleteDirectory() throws IOException {
+
+    if (this.directory != null) {
+      try (Stream<Path> paths = Files.walk(this.directory.toPath())) {
+        paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+      }
+    }
+  }
+
+  /**
+   * Test of {@link BaseSourceTypeIndex#of(File)} for an archive.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testArchive() throws Exception {
+
+    // given
+    File directory = Files.createTempDirectory("mmm-code-index").toFile();
+    this.directory = directory;
+    File jar = new File(directory, "test.jar");
+    Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, "lib/other.jar");
+    try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar), manifest)) {
+      for (String entry : new String[] { "com/example/Foo.class", "com/example/Foo$Bar.class",
+      "com/example/package-info.class", "META-INF/versions/9/com/example/Baz.class", "com/example/readme.txt" }) {
+        out.putNextEntry(new ZipEntry(entry));
+        out.closeEntry();
+      }
+    }
+
+    // when
+    BaseSourceTypeIndex index = BaseSourceTypeIndex.of(jar);
+
+    // then
+    assertThat(index).isNotNull();
+    assertThat(index.getSize()).isEqualTo(3);
+    assertThat(index.contains("com.example.Foo")).isTrue();
+    assertThat(index.contains("com.example.Foo$Bar")).isTrue();
+    assertThat(index.contains("com.example.Baz")).isTrue();
+    assertThat(index.contains("com.example.Undefined")).isFalse();
+    assertThat(index.contains("com.example.package-info")).isFalse();
+    assertThat(index.getClassPath()).containsExactly(new File(directory, "lib/other.jar"));
+  }
+
+  /**
+   * Test of {@link BaseSourceTypeIndex#of(File)} for a directory.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testDirectory() throws Exception {
+
+    // given
+    File directory = Files.createTempDirectory("mmm-code-index").toFile();
+    this.directory = directory;
+    BaseSourceTypeIndex index = BaseSourceTypeIndex.of(directory);
+    File pkg = new File(directory, "com/example");
+    pkg.mkdirs();
+
+    // when
+    Files.write(new File(pkg, "Foo.class").toPath(), new byte[0]);
+
+    // then
+    assertThat(index.getSize()).isEqualTo(-1);
+    assertThat(index.contains("com.example.Foo")).isTrue();
+    assertThat(index.contains("com.example.Undefined")).isFalse();
+    assertThat(BaseSourceTypeIndex.of(new File(directory, "missing.jar"))).isNull();
+  }
+
+}
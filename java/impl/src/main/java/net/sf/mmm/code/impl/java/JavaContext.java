@@ -2,6 +2,7 @@
  * http://www.apache.org/licenses/LICENSE-2.0 */
 package net.sf.mmm.code.impl.java;
 
+import java.io.IOException;
 import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
@@ -20,6 +21,11 @@ import net.sf.mmm.code.base.arg.BaseOperationArg;
 import net.sf.mmm.code.base.element.BaseElement;
 import net.sf.mmm.code.base.element.BaseElementWithDeclaringType;
 import net.sf.mmm.code.base.loader.BaseLoader;
+import net.sf.mmm.code.base.loader.BaseSourceCodeProviderDirectory;
+import net.sf.mmm.code.base.loader.BaseSourceCodeWatcher;
+import net.sf.mmm.code.base.loader.BaseSourceLoader;
+import net.sf.mmm.code.base.loader.SourceCodeProvider;
+import net.sf.mmm.code.base.loader.SourceCodeProviderProxy;
 import net.sf.mmm.code.base.member.BaseOperation;
 import net.sf.mmm.code.base.node.BaseNodeItem;
 import net.sf.mmm.code.base.source.BaseSource;
@@ -29,10 +35,15 @@ import net.sf.mmm.code.base.type.BaseArrayType;
 import net.sf.mmm.code.base.type.BaseGenericType;
 import net.sf.mmm.code.base.type.BaseParameterizedType;
 import net.sf.mmm.code.base.type.BaseType;
+import net.sf.mmm.code.base.type.BaseTypeParameters;
 import net.sf.mmm.code.base.type.BaseTypeVariable;
 import net.sf.mmm.code.base.type.BaseTypeVariables;
 import net.sf.mmm.code.base.type.BaseTypeWildcard;
+import net.sf.mmm.code.impl.java.loader.JavaSourceLoader;
+import net.sf.mmm.code.impl.java.parser.JavaSymbolTable;
 import net.sf.mmm.util.exception.api.IllegalCaseException;
+import net.sf.mmm.util.io.api.IoMode;
+import net.sf.mmm.util.io.api.RuntimeIoException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,6 +58,8 @@ public abstract class JavaContext extends AbstractBaseContextWithCache {
 
   private static final Logger LOG = LoggerFactory.getLogger(JavaContext.class);
 
+  private final JavaSymbolTable symbolTable = new JavaSymbolTable();
+
   /**
    * The constructor.
    *
@@ -145,18 +158,70 @@ public abstract class JavaContext extends AbstractBaseContextWithCache {
       }
     } else if (node instanceof BaseGenericType) {
       return findElementWithTypeVariables(node.getParent());
-    } else if (node instanceof BaseTypeVariables) {
+    } else if ((node instanceof BaseTypeVariables) || (node instanceof BaseTypeParameters)) {
       return findElementWithTypeVariables(node.getParent());
     } else {
       throw new IllegalCaseException(node.getClass().getSimpleName());
     }
   }
 
+  /**
+   * @return the {@link JavaSymbolTable} used to intern identifiers and qualified names of the source-code parsed in
+   *         this context.
+   */
+  public JavaSymbolTable getSymbolTable() {
+
+    return this.symbolTable;
+  }
+
+  @Override
+  protected void onTypeRemoved(String qualifiedName) {
+
+    // otherwise the symbols of all types ever parsed would be retained
+    this.symbolTable.clear();
+  }
+
   /**
    * @return the {@link ClassLoader} used by this context to load byte-code.
    */
   public abstract ClassLoader getClassLoader();
 
+  /**
+   * Watches the source-code directory of the given {@link BaseSource} in a background thread and
+   * {@link #invalidateType(String) invalidates} the types whose source files have changed so they get reparsed on their
+   * next access. As invalidation happens from the watcher thread, {@link #setConcurrent(boolean) concurrent mode} has
+   * to be enabled before the context is shared.
+   *
+   * @param source the {@link BaseSource} to watch (e.g. {@link #getSource()}).
+   * @return the started {@link BaseSourceCodeWatcher} that has to be {@link BaseSourceCodeWatcher#close() closed} to
+   *         stop watching or {@code null} if the source-code of the given {@link BaseSource} is not located in a
+   *         directory.
+   */
+  public BaseSourceCodeWatcher watchSourceCode(BaseSource source) {
+
+    if (!isConcurrent()) {
+      throw new IllegalStateException("Concurrent mode is required to watch the source-code of " + source.getId());
+    }
+    BaseSourceLoader loader = source.getLoader();
+    if (!(loader instanceof JavaSourceLoader)) {
+      return null;
+    }
+    SourceCodeProvider provider = ((JavaSourceLoader) loader).getSourceCodeProvider();
+    if (provider instanceof SourceCodeProviderProxy) {
+      provider = ((SourceCodeProviderProxy) provider).getDelegate();
+    }
+    if (!(provider instanceof BaseSourceCodeProviderDirectory)) {
+      return null;
+    }
+    try {
+      BaseSourceCodeWatcher watcher = ((BaseSourceCodeProviderDirectory) provider).watch(this::invalidateType);
+      watcher.start();
+      return watcher;
+    } catch (IOException e) {
+      throw new RuntimeIoException(e, IoMode.READ);
+    }
+  }
+
   /**
    * Implementation of {@link BaseLoader} to load classes from byte-code.
    *
@@ -208,14 +273,15 @@ public abstract class JavaContext extends AbstractBaseContextWithCache {
     @Override
     public BaseType getType(String qualifiedName) {
 
-      if (this.classLoader != null) {
+      if ((this.classLoader != null) && isAvailable(qualifiedName)) {
         Class<?> clazz = null;
         try {
           clazz = this.classLoader.loadClass(qualifiedName);
           if (clazz.isArray()) {
             throw new IllegalArgumentException(qualifiedName);
           }
-          return (BaseType) getContext().getType(clazz);
+          // the context has already missed the cache for this name and will cache the result
+          return (BaseType) getType(clazz);
         } catch (ClassNotFoundException | NoClassDefFoundError e) {
           if (LOG.isTraceEnabled()) {
             LOG.debug("Class {} not found.", qualifiedName, e);
@@ -232,6 +298,16 @@ public abstract class JavaContext extends AbstractBaseContextWithCache {
       return type;
     }
 
+    /**
+     * @param qualifiedName the {@link Class#getName() qualified name} of the requested type.
+     * @return {@code false} if the type is known to be not available via the {@link #getClassLoader() class loader} so
+     *         probing it can be omitted, {@code true} otherwise.
+     */
+    protected boolean isAvailable(String qualifiedName) {
+
+      return true;
+    }
+
     @Override
     public BaseType getType(CodeName qualifiedName) {
 
@@ -250,7 +326,12 @@ public abstract class JavaContext extends AbstractBaseContextWithCache {
       if (source == null) {
         return null;
       }
-      return source.getLoader().getType(clazz);
+      BaseGenericType type = source.getLoader().getType(clazz);
+      if (type != null) {
+        JavaContext.this.getStatistics().recordReflectiveLoad();
+        source.getStatistics().recordReflectiveLoad();
+      }
+      return type;
     }
 
   }
@@ -2,9 +2,26 @@
  * http://www.apache.org/licenses/LICENSE-2.0 */
 package net.sf.mmm.code.impl.java;
 
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
 import net.sf.mmm.code.base.loader.BaseLoader;
+import net.sf.mmm.code.base.source.BaseSource;
+import net.sf.mmm.code.base.source.BaseSourceHelper;
 import net.sf.mmm.code.base.source.BaseSourceImpl;
 import net.sf.mmm.code.base.source.BaseSourceProvider;
+import net.sf.mmm.code.base.source.BaseSourceTypeIndex;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Implementation of {@link JavaContext} that inherits from a {@link #getParent() parent} context.
@@ -14,6 +31,8 @@ import net.sf.mmm.code.base.source.BaseSourceProvider;
  */
 public class JavaExtendedContext extends JavaContext {
 
+  private static final Logger LOG = LoggerFactory.getLogger(JavaExtendedContext.class);
+
   private final JavaContext parent;
 
   private final BaseLoader loader;
@@ -49,9 +68,9 @@ public class JavaExtendedContext extends JavaContext {
 
     JavaClassLoader jcl;
     if (classLoader == null) {
-      jcl = new JavaClassLoader();
+      jcl = new JavaExtendedClassLoader(Thread.currentThread().getContextClassLoader());
     } else {
-      jcl = new JavaClassLoader(classLoader);
+      jcl = new JavaExtendedClassLoader(classLoader);
     }
     this.loader = jcl;
     this.classLoader = jcl.getClassLoader();
@@ -98,4 +117,110 @@ public class JavaExtendedContext extends JavaContext {
     return this.classLoader;
   }
 
+  /**
+   * Extends {@link JavaClassLoader} to use the {@link BaseSourceTypeIndex} of each class-path location together with
+   * the {@link JavaRootContext#getSnapshot() JDK snapshot} so types that do not exist are never probed via
+   * {@link ClassLoader#loadClass(String)}. This is only done if the {@link ClassLoader} and all its parents (except
+   * the JDK platform and bootstrap {@link ClassLoader}s) are plain {@link URLClassLoader}s whose
+   * {@link URLClassLoader#getURLs() URLs} can all be indexed. Otherwise (e.g. for the system {@link ClassLoader} that
+   * may also load from the module-path, agent JARs or dynamically appended locations or for custom
+   * {@link ClassLoader} implementations) or if no JDK snapshot is available, every type is probed as before.
+   */
+  private class JavaExtendedClassLoader extends JavaClassLoader {
+
+    private volatile List<BaseSourceTypeIndex> classPathIndex;
+
+    private volatile boolean classPathIndexed;
+
+    private JavaExtendedClassLoader(ClassLoader classLoader) {
+
+      super(classLoader);
+    }
+
+    @Override
+    protected boolean isAvailable(String qualifiedName) {
+
+      List<BaseSourceTypeIndex> indexes = getClassPathIndex();
+      if (indexes == null) {
+        return true;
+      }
+      if (getRootContext().getSnapshot().contains(qualifiedName)) {
+        return true;
+      }
+      for (BaseSourceTypeIndex index : indexes) {
+        if (index.contains(qualifiedName)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private List<BaseSourceTypeIndex> getClassPathIndex() {
+
+      if (!this.classPathIndexed) {
+        synchronized (this) {
+          if (!this.classPathIndexed) {
+            if (getRootContext().getSnapshot() != null) {
+              this.classPathIndex = createClassPathIndex();
+            }
+            this.classPathIndexed = true;
+          }
+        }
+      }
+      return this.classPathIndex;
+    }
+
+    private List<BaseSourceTypeIndex> createClassPathIndex() {
+
+      Set<File> locations = new LinkedHashSet<>();
+      ClassLoader platformClassLoader = ClassLoader.getSystemClassLoader().getParent();
+      ClassLoader cl = getClassLoader();
+      while (cl != null) {
+        if ((cl == platformClassLoader) && !(cl instanceof URLClassLoader)) {
+          break; // platform class loader of Java 9+ is covered by JDK snapshot
+        } else if (cl.getClass() != URLClassLoader.class) {
+          LOG.debug("Class-path can not be indexed due to {}", cl);
+          return null;
+        }
+        for (URL url : ((URLClassLoader) cl).getURLs()) {
+          if (!"file".equals(url.getProtocol())) {
+            LOG.debug("Class-path can not be indexed due to URL {}", url);
+            return null;
+          }
+          locations.add(BaseSourceHelper.asFile(url));
+        }
+        cl = cl.getParent();
+      }
+      List<BaseSourceTypeIndex> indexes = new ArrayList<>(locations.size());
+      Set<File> visited = new HashSet<>();
+      Deque<File> queue = new ArrayDeque<>(locations);
+      while (!queue.isEmpty()) {
+        File location = queue.removeFirst();
+        if (visited.add(location)) {
+          BaseSourceTypeIndex index = getTypeIndex(location);
+          if (index != null) {
+            indexes.add(index);
+            queue.addAll(index.getClassPath());
+          } else if (location.exists()) {
+            LOG.debug("Class-path can not be indexed due to {}", location);
+            return null;
+          }
+        }
+      }
+      return indexes;
+    }
+
+    private BaseSourceTypeIndex getTypeIndex(File location) {
+
+      BaseSource source = JavaExtendedContext.this.getSource(BaseSourceImpl.getNormalizedId(location));
+      if (source != null) {
+        BaseSourceTypeIndex index = source.getTypeIndex();
+        if (index != null) {
+          return index;
+        }
+      }
+      return BaseSourceTypeIndex.of(location);
+    }
+  }
+
 }
@@ -8,11 +8,13 @@ import net.sf.mmm.code.api.language.CodeLanguage;
 import net.sf.mmm.code.api.language.JavaLanguage;
 import net.sf.mmm.code.api.source.CodeSourceDescriptor;
 import net.sf.mmm.code.base.loader.BaseLoader;
+import net.sf.mmm.code.base.loader.BaseSourceLoader;
 import net.sf.mmm.code.base.loader.SourceCodeProvider;
 import net.sf.mmm.code.base.source.BaseSourceDescriptorType;
 import net.sf.mmm.code.base.source.BaseSourceImpl;
 import net.sf.mmm.code.base.type.BaseType;
 import net.sf.mmm.code.base.type.BaseTypeWildcard;
+import net.sf.mmm.code.impl.java.loader.JavaSourceCodeProviderJdk;
 import net.sf.mmm.code.impl.java.loader.JavaSourceLoader;
 
 /**
@@ -23,12 +25,12 @@ import net.sf.mmm.code.impl.java.loader.JavaSourceLoader;
  */
 public class JavaRootContext extends JavaContext {
 
-  private static JavaRootContext instance;
-
   private final JavaClassLoader loader;
 
   private final JavaFactory factory;
 
+  private final JavaRootContextSnapshot snapshot;
+
   private BaseTypeWildcard unboundedWildcard;
 
   /**
@@ -38,14 +40,35 @@ public class JavaRootContext extends JavaContext {
    */
   public JavaRootContext(BaseSourceImpl source) {
 
+    this(source, null);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param source the toplevel {@link #getSource() source}.
+   * @param snapshot the optional {@link JavaRootContextSnapshot} of the JDK. May be {@code null}.
+   */
+  public JavaRootContext(BaseSourceImpl source, JavaRootContextSnapshot snapshot) {
+
     super(source);
-    this.loader = new JavaClassLoader(ClassLoader.getSystemClassLoader());
+    this.snapshot = snapshot;
+    this.loader = new JavaRootClassLoader();
     this.factory = new JavaFactory();
     for (Class<?> primitive : JavaConstants.PRIMITIVE_TYPES) {
       getType(primitive);
     }
   }
 
+  /**
+   * @return the {@link JavaRootContextSnapshot} used to avoid probing the {@link ClassLoader} for types that do not
+   *         exist in the JDK or {@code null} if not available.
+   */
+  public JavaRootContextSnapshot getSnapshot() {
+
+    return this.snapshot;
+  }
+
   @Override
   public JavaContext getParent() {
 
@@ -156,8 +179,6 @@ public class JavaRootContext extends JavaContext {
 
   private static BaseSourceImpl createRootSource() {
 
-    SourceCodeProvider sourceCodeProvider = null; // TODO
-    JavaSourceLoader loader = new JavaSourceLoader(sourceCodeProvider);
     String javaHome = System.getProperty("java.home");
     File byteCodeLocation = new File(javaHome);
     String version = System.getProperty("java.version");
@@ -165,17 +186,37 @@ public class JavaRootContext extends JavaContext {
     String docUrl = "http://docs.oracle.com/javase/" + majorVersion + "/docs/api/";
     String groupId = "java";
     String artifactId = "jre";
-    File jdkHome = byteCodeLocation.getParentFile();
-    File srcZip = new File(jdkHome, "src.zip");
+    File srcZip = findSrcZip(byteCodeLocation);
     File sourceCodeLocation = null;
-    if (srcZip.isFile()) {
+    SourceCodeProvider sourceCodeProvider = null;
+    if (srcZip != null) {
       artifactId = "jdk";
       sourceCodeLocation = srcZip;
+      sourceCodeProvider = new JavaSourceCodeProviderJdk(srcZip);
     }
+    JavaSourceLoader loader = new JavaSourceLoader(sourceCodeProvider);
     CodeSourceDescriptor descriptor = new BaseSourceDescriptorType(groupId, artifactId, version, null, docUrl);
     return new BaseSourceImpl(byteCodeLocation, sourceCodeLocation, null, descriptor, loader);
   }
 
+  private static File findSrcZip(File javaHome) {
+
+    // Java 9+: ${java.home}/lib/src.zip
+    File srcZip = new File(javaHome, "lib/src.zip");
+    if (srcZip.isFile()) {
+      return srcZip;
+    }
+    // Java 8: ${java.home} is the jre folder inside the JDK
+    File jdkHome = javaHome.getParentFile();
+    if (jdkHome != null) {
+      srcZip = new File(jdkHome, "src.zip");
+      if (srcZip.isFile()) {
+        return srcZip;
+      }
+    }
+    return null;
+  }
+
   private static String getJavaMajorVersion(String version) {
 
     String majorVersion;
@@ -195,16 +236,122 @@ public class JavaRootContext extends JavaContext {
     return majorVersion;
   }
 
+  private static JavaRootContext create() {
+
+    File directory = JavaRootContextSnapshot.getDefaultDirectory();
+    JavaRootContext context = create(JavaRootContextSnapshot.get(directory));
+    try {
+      if (Boolean.getBoolean(JavaRootContextSnapshot.PROPERTY_WRITE)) {
+        // update the snapshot with the resolved types off the startup path
+        Thread snapshotWriter = new Thread(() -> JavaRootContextSnapshot.write(context, directory),
+            "mmm-code-snapshot");
+        Runtime.getRuntime().addShutdownHook(snapshotWriter);
+      }
+    } catch (IllegalStateException | SecurityException e) {
+      // JVM already shutting down or hooks not permitted - the snapshot is simply not updated
+    }
+    return context;
+  }
+
+  /**
+   * @param snapshot the {@link JavaRootContextSnapshot} to use. May be {@code null}.
+   * @return a new {@link JavaRootContext} in {@link #isConcurrent() concurrent mode}.
+   */
+  static JavaRootContext create(JavaRootContextSnapshot snapshot) {
+
+    BaseSourceImpl source = createRootSource();
+    JavaRootContext context = new JavaRootContext(source, snapshot);
+    context.setConcurrent(true);
+    return context;
+  }
+
   /**
-   * @return the default instance of this class.
+   * @return the default instance of this class. It is created lazily, safely published and in
+   *         {@link #isConcurrent() concurrent mode} so it can be shared by any number of {@link JavaExtendedContext}s
+   *         used from different threads.
    */
   public static JavaRootContext get() {
 
-    if (instance == null) {
-      BaseSourceImpl source = createRootSource();
-      instance = new JavaRootContext(source);
+    return Holder.INSTANCE;
+  }
+
+  /**
+   * Lazy holder of the {@link JavaRootContext#get() default instance}.
+   */
+  private static final class Holder {
+
+    private static final JavaRootContext INSTANCE = create();
+  }
+
+  /**
+   * Extends {@link JavaClassLoader} to use the {@link #getSnapshot() snapshot} if available. Types not contained are
+   * not probed and types whose model is contained are rehydrated from the snapshot instead of reflection.
+   */
+  private class JavaRootClassLoader extends JavaClassLoader {
+
+    private JavaRootClassLoader() {
+
+      super(ClassLoader.getSystemClassLoader());
+    }
+
+    @Override
+    public BaseType getType(String qualifiedName) {
+
+      JavaRootContextSnapshot jdk = JavaRootContext.this.snapshot;
+      if (jdk != null) {
+        BaseType type;
+        int nestedIndex = qualifiedName.indexOf('$');
+        if (nestedIndex > 0) {
+          type = getNestedType(jdk, qualifiedName, nestedIndex);
+        } else {
+          type = getTypeFromSnapshot(jdk, qualifiedName);
+        }
+        if (type != null) {
+          return type;
+        }
+      }
+      return super.getType(qualifiedName);
+    }
+
+    private BaseType getTypeFromSnapshot(JavaRootContextSnapshot jdk, String qualifiedName) {
+
+      BaseSourceLoader sourceLoader = getSource().getLoader();
+      if (!(sourceLoader instanceof JavaSourceLoader) || !jdk.hasType(qualifiedName)) {
+        return null;
+      }
+      BaseType type = ((JavaSourceLoader) sourceLoader).loadType(parseName(qualifiedName),
+          file -> jdk.readType(qualifiedName, file));
+      if (type != null) {
+        // setImmutable would eagerly resolve all referenced types that again load from the snapshot
+        type.setSystemImmutable();
+      }
+      return type;
+    }
+
+    private BaseType getNestedType(JavaRootContextSnapshot jdk, String qualifiedName, int nestedIndex) {
+
+      String topLevelName = qualifiedName.substring(0, nestedIndex);
+      if (!jdk.hasType(topLevelName)) {
+        return null;
+      }
+      BaseType type = JavaRootContext.this.getType(topLevelName);
+      for (String simpleName : qualifiedName.substring(nestedIndex + 1).split("\\$")) {
+        if (type == null) {
+          break;
+        }
+        type = (BaseType) type.getNestedTypes().getDeclared(simpleName);
+      }
+      return type;
+    }
+
+    @Override
+    protected boolean isAvailable(String qualifiedName) {
+
+      if (JavaRootContext.this.snapshot == null) {
+        return true;
+      }
+      return JavaRootContext.this.snapshot.contains(qualifiedName);
     }
-    return instance;
   }
 
 }
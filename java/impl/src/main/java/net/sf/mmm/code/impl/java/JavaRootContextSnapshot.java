@@ -0,0 +1,580 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.impl.java;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.ProviderNotFoundException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+import net.sf.mmm.code.base.BaseFile;
+import net.sf.mmm.code.base.type.BaseType;
+import net.sf.mmm.code.impl.java.parser.JavaParsedFileReader;
+import net.sf.mmm.code.impl.java.parser.JavaParsedFileWriter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A persistent snapshot of the JDK used by {@link JavaRootContext}. It contains the names of all types available in
+ * the JDK and the models of the top-level types that have already been resolved, serialized with the
+ * {@link JavaParsedFileWriter} in skeleton mode (signatures only, comments and JavaDoc are still read from the source
+ * code on demand). The snapshot is keyed by {@code java.version}, {@code java.home} and the modification time of the
+ * JDK runtime image and stored in a compact binary file that is memory-mapped on later starts. Names and models are
+ * only decoded on demand so opening a snapshot is almost free. Lookups of names that are not contained can be
+ * answered without probing the {@link ClassLoader} and resolved types are rehydrated without reflection.<br>
+ * Opening a snapshot via {@link #get(File)} never writes. The snapshot is created or extended explicitly by
+ * {@link #write(JavaRootContext, File)} from the types resolved by a {@link JavaRootContext} or, if enabled via the
+ * system property {@value #PROPERTY_WRITE}, from the {@link JavaRootContext#get() default instance} when the JVM shuts
+ * down. Hence nothing is scanned or written on the startup path. If the snapshot is stale or can not be read or
+ * written, the {@link JavaRootContext} transparently falls back to live reflection. The same applies to types whose
+ * model can not be represented.
+ *
+ * @author Joerg Hohwiller (hohwille at users.sourceforge.net)
+ * @since 1.0.0
+ */
+public final class JavaRootContextSnapshot {
+
+  /**
+   * Name of the system property to enable writing the snapshot of the {@link JavaRootContext#get() default instance}
+   * to the {@link #getDefaultDirectory() default directory} when the JVM shuts down (e.g.
+   * {@code -Dmmm.code.snapshot.write=true}). Disabled by default.
+   */
+  public static final String PROPERTY_WRITE = "mmm.code.snapshot.write";
+
+  private static final Logger LOG = LoggerFactory.getLogger(JavaRootContextSnapshot.class);
+
+  private static final int MAGIC = 0x4D4D4D43;
+
+  private static final int FORMAT_VERSION = 4;
+
+  /** Marker of a model entry for a type that could not be serialized and is loaded via reflection. */
+  private static final byte MODEL_UNSUPPORTED = 0;
+
+  /** Marker of a model entry followed by the data written by {@link JavaParsedFileWriter}. */
+  private static final byte MODEL_AVAILABLE = 1;
+
+  private static final String SUFFIX_CLASS = ".class";
+
+  private final ByteBuffer buffer;
+
+  private final String key;
+
+  private final int count;
+
+  private final int offsetsStart;
+
+  private final int namesStart;
+
+  private final int modelOffsetsStart;
+
+  private final int modelsStart;
+
+  private JavaRootContextSnapshot(ByteBuffer buffer, String key, int count, int offsetsStart, int namesStart,
+      int modelOffsetsStart) {
+
+    super();
+    this.buffer = buffer;
+    this.key = key;
+    this.count = count;
+    this.offsetsStart = offsetsStart;
+    this.namesStart = namesStart;
+    this.modelOffsetsStart = modelOffsetsStart;
+    this.modelsStart = modelOffsetsStart + ((count + 1) * 4);
+  }
+
+  /**
+   * @return the key identifying the JDK this snapshot has been created for.
+   */
+  public String getKey() {
+
+    return this.key;
+  }
+
+  /**
+   * @return the number of type names in this snapshot.
+   */
+  public int getSize() {
+
+    return this.count;
+  }
+
+  /**
+   * @param qualifiedName the {@link Class#getName() binary name} of a type (e.g. "java.util.Map$Entry").
+   * @return {@code true} if the JDK contains the given type, {@code false} otherwise.
+   */
+  public boolean contains(String qualifiedName) {
+
+    return (indexOf(encode(qualifiedName), false) >= 0);
+  }
+
+  /**
+   * @param packageName the {@link Package#getName() qualified name} of the package.
+   * @return the {@link Class#getSimpleName() simple names} of the top-level types contained in the given package.
+   */
+  public List<String> getTypeNames(String packageName) {
+
+    List<String> typeNames = new ArrayList<>();
+    byte[] prefix = encode(packageName + ".");
+    int index = indexOf(prefix, true);
+    while (index < this.count) {
+      int start = getStart(index);
+      int end = getStart(index + 1);
+      if (compare(prefix, start, end, true) != 0) {
+        break;
+      }
+      String simpleName = decode(start + prefix.length, end);
+      if ((simpleName.indexOf('.') < 0) && (simpleName.indexOf('$') < 0)) {
+        typeNames.add(simpleName);
+      }
+      index++;
+    }
+    return typeNames;
+  }
+
+  /**
+   * @param qualifiedName the {@link Class#getName() binary name} of a top-level type (e.g. "java.util.Map").
+   * @return {@code true} if this snapshot contains the model of the given type so it can be
+   *         {@link #readType(String, BaseFile) read}, {@code false} otherwise.
+   */
+  public boolean hasType(String qualifiedName) {
+
+    int index = indexOf(encode(qualifiedName), false);
+    if (index < 0) {
+      return false;
+    }
+    int start = getModelStart(index);
+    return (getModelStart(index + 1) > start) && (this.buffer.get(start) == MODEL_AVAILABLE);
+  }
+
+  /**
+   * @param qualifiedName the {@link Class#getName() binary name} of a top-level type (e.g. "java.util.Map").
+   * @param file the new and still detached {@link BaseFile} to populate from the model of the given type.
+   * @return {@code true} if the {@link BaseFile} has been populated, {@code false} if the model is not
+   *         {@link #hasType(String) available} or could not be read.
+   */
+  public boolean readType(String qualifiedName, BaseFile file) {
+
+    byte[] model = getModel(indexOf(encode(qualifiedName), false));
+    if ((model == null) || (model.length == 0) || (model[0] != MODEL_AVAILABLE)) {
+      return false;
+    }
+    try {
+      new JavaParsedFileReader(new ByteArrayInputStream(model, 1, model.length - 1), file).read();
+      return true;
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Failed to read type {} from snapshot: {}", qualifiedName, e.toString());
+      return false;
+    }
+  }
+
+  private byte[] getModel(int index) {
+
+    if (index < 0) {
+      return null;
+    }
+    int start = getModelStart(index);
+    byte[] model = new byte[getModelStart(index + 1) - start];
+    ByteBuffer view = this.buffer.duplicate();
+    view.position(start);
+    view.get(model);
+    return model;
+  }
+
+  private int getStart(int index) {
+
+    return this.namesStart + this.buffer.getInt(this.offsetsStart + (index * 4));
+  }
+
+  private int getModelStart(int index) {
+
+    return this.modelsStart + this.buffer.getInt(this.modelOffsetsStart + (index * 4));
+  }
+
+  /**
+   * @param name the encoded name to search.
+   * @param prefix - {@code true} to search the first name starting with the given {@code name} (lower bound),
+   *        {@code false} to search an exact match.
+   * @return the index of the requested name. If not found, a negative value for an exact match or the insertion
+   *         point for a prefix.
+   */
+  private int indexOf(byte[] name, boolean prefix) {
+
+    int low = 0;
+    int high = this.count - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = compare(name, getStart(mid), getStart(mid + 1), prefix);
+      if (cmp > 0) {
+        low = mid + 1;
+      } else if ((cmp < 0) || prefix) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    if (prefix) {
+      return low;
+    }
+    return -(low + 1);
+  }
+
+  private int compare(byte[] name, int start, int end, boolean prefix) {
+
+    int length = end - start;
+    int max = Math.min(name.length, length);
+    for (int i = 0; i < max; i++) {
+      int diff = (name[i] & 0xFF) - (this.buffer.get(start + i) & 0xFF);
+      if (diff != 0) {
+        return diff;
+      }
+    }
+    if (prefix && (name.length <= length)) {
+      return 0;
+    }
+    return name.length - length;
+  }
+
+  private String decode(int start, int end) {
+
+    byte[] bytes = new byte[end - start];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = this.buffer.get(start + i);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static byte[] encode(String name) {
+
+    return name.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @return the default directory where the snapshot files are stored.
+   */
+  public static File getDefaultDirectory() {
+
+    return new File(System.getProperty("user.home"), ".mmm/code");
+  }
+
+  /**
+   * @return the {@link JavaRootContextSnapshot} for the current JDK from the {@link #getDefaultDirectory() default
+   *         location} or {@code null} if not available.
+   * @see #get(File)
+   */
+  public static JavaRootContextSnapshot get() {
+
+    return get(getDefaultDirectory());
+  }
+
+  /**
+   * @param directory the directory where the snapshot files are stored.
+   * @return the {@link JavaRootContextSnapshot} for the current JDK or {@code null} if not available or stale. This
+   *         method never scans the JDK or writes any file.
+   * @see #write(JavaRootContext, File)
+   */
+  public static JavaRootContextSnapshot get(File directory) {
+
+    String key = getCurrentKey();
+    File file = getFile(directory, key);
+    if (!file.isFile()) {
+      return null;
+    }
+    try {
+      JavaRootContextSnapshot snapshot = read(file, key);
+      if (snapshot == null) {
+        LOG.debug("Snapshot {} is stale.", file);
+      }
+      return snapshot;
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Snapshot {} not available - falling back to reflection: {}", file, e.toString());
+      return null;
+    }
+  }
+
+  /**
+   * Creates or extends the snapshot for the current JDK with the models of the JDK types resolved by the given
+   * {@link JavaRootContext}. Models already contained in the {@link JavaRootContext#getSnapshot() snapshot of the
+   * context} are retained. The file is written to a temporary file and then atomically moved into place so concurrent
+   * JVMs never see a partial snapshot.
+   *
+   * @param context the {@link JavaRootContext} with the resolved types to persist.
+   * @param directory the directory where the snapshot files are stored.
+   * @return {@code true} if the snapshot has been written, {@code false} if it was already up-to-date or could not be
+   *         written.
+   */
+  public static boolean write(JavaRootContext context, File directory) {
+
+    String key = getCurrentKey();
+    File file = getFile(directory, key);
+    JavaRootContextSnapshot existing = context.getSnapshot();
+    if ((existing != null) && !key.equals(existing.key)) {
+      existing = null;
+    }
+    try {
+      List<String> typeNames;
+      if (existing == null) {
+        typeNames = scanJdk();
+      } else {
+        typeNames = existing.getTypeNames();
+      }
+      if (typeNames.isEmpty()) {
+        return false;
+      }
+      Map<String, byte[]> models = new HashMap<>(typeNames.size());
+      for (String typeName : typeNames) {
+        models.put(typeName, null);
+      }
+      if (existing != null) {
+        for (int i = 0; i < existing.count; i++) {
+          byte[] model = existing.getModel(i);
+          if (model.length > 0) {
+            models.put(typeNames.get(i), model);
+          }
+        }
+      }
+      boolean modified = (existing == null) || !file.isFile();
+      for (BaseType type : context.getCachedTypes()) {
+        if ((type.getReflectiveObject() == null) || (type.getDeclaringType() != type)) {
+          continue; // not resolved via reflection (e.g. from this snapshot or primitive) or nested type
+        }
+        String qualifiedName = type.getQualifiedName();
+        if (models.containsKey(qualifiedName) && (models.get(qualifiedName) == null)) {
+          models.put(qualifiedName, serialize(type));
+          modified = true;
+        }
+      }
+      if (!modified) {
+        return false;
+      }
+      write(file, key, typeNames, models);
+      return true;
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Snapshot {} could not be written: {}", file, e.toString());
+      return false;
+    }
+  }
+
+  private static byte[] serialize(BaseType type) {
+
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+    buffer.write(MODEL_AVAILABLE);
+    try {
+      new JavaParsedFileWriter(buffer, true).write(type.getFile());
+      return buffer.toByteArray();
+    } catch (IOException | RuntimeException e) {
+      LOG.trace("Type {} can not be stored in snapshot: {}", type.getQualifiedName(), e.toString());
+      return new byte[] { MODEL_UNSUPPORTED };
+    }
+  }
+
+  private List<String> getTypeNames() {
+
+    List<String> typeNames = new ArrayList<>(this.count);
+    for (int i = 0; i < this.count; i++) {
+      typeNames.add(decode(getStart(i), getStart(i + 1)));
+    }
+    return typeNames;
+  }
+
+  private static File getFile(File directory, String key) {
+
+    return new File(directory, "jdk-" + Integer.toHexString(key.hashCode()) + ".snapshot");
+  }
+
+  private static String getCurrentKey() {
+
+    String javaHome = System.getProperty("java.home");
+    File modules = new File(javaHome, "lib/modules");
+    if (!modules.isFile()) {
+      modules = new File(javaHome, "lib/rt.jar");
+    }
+    return System.getProperty("java.version") + "|" + javaHome + "|" + modules.lastModified();
+  }
+
+  private static JavaRootContextSnapshot read(File file, String key) throws IOException {
+
+    ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      MappedByteBuffer mappedBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      buffer = mappedBuffer;
+    }
+    try {
+      if ((buffer.getInt() != MAGIC) || (buffer.getInt() != FORMAT_VERSION)) {
+        return null;
+      }
+      byte[] keyBytes = new byte[buffer.getShort() & 0xFFFF];
+      buffer.get(keyBytes);
+      String snapshotKey = new String(keyBytes, StandardCharsets.UTF_8);
+      if (!key.equals(snapshotKey)) {
+        return null;
+      }
+      int size = buffer.getInt();
+      int offsetsStart = buffer.position();
+      int namesStart = offsetsStart + ((size + 1) * 4);
+      if (size < 0) {
+        return null;
+      }
+      int modelOffsetsStart = namesStart + buffer.getInt(namesStart - 4);
+      int modelsStart = modelOffsetsStart + ((size + 1) * 4);
+      int modelsLength = buffer.getInt(modelsStart - 4);
+      if ((modelsStart + modelsLength) != buffer.limit()) {
+        return null;
+      }
+      return new JavaRootContextSnapshot(buffer, snapshotKey, size, offsetsStart, namesStart, modelOffsetsStart);
+    } catch (BufferUnderflowException | BufferOverflowException | IndexOutOfBoundsException e) {
+      return null;
+    }
+  }
+
+  private static void write(File file, String key, List<String> typeNames, Map<String, byte[]> models)
+      throws IOException {
+
+    File directory = file.getParentFile();
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Failed to create directory " + directory);
+    }
+    List<byte[]> names = new ArrayList<>(typeNames.size());
+    for (String typeName : typeNames) {
+      names.add(encode(typeName));
+    }
+    names.sort(JavaRootContextSnapshot::compareBytes);
+    Path tmpFile = Files.createTempFile(directory.toPath(), file.getName(), ".tmp");
+    boolean success = false;
+    try {
+      try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        data.writeUTF(key);
+        data.writeInt(names.size());
+        int offset = 0;
+        for (byte[] name : names) {
+          data.writeInt(offset);
+          offset = offset + name.length;
+        }
+        data.writeInt(offset);
+        for (byte[] name : names) {
+          data.write(name);
+        }
+        List<byte[]> sortedModels = new ArrayList<>(names.size());
+        offset = 0;
+        for (byte[] name : names) {
+          byte[] model = models.get(new String(name, StandardCharsets.UTF_8));
+          if (model == null) {
+            model = new byte[0];
+          }
+          sortedModels.add(model);
+          data.writeInt(offset);
+          offset = offset + model.length;
+        }
+        data.writeInt(offset);
+        for (byte[] model : sortedModels) {
+          data.write(model);
+        }
+      }
+      try {
+        Files.move(tmpFile, file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmpFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      success = true;
+    } finally {
+      if (!success) {
+        Files.deleteIfExists(tmpFile);
+      }
+    }
+  }
+
+  private static int compareBytes(byte[] b1, byte[] b2) {
+
+    int max = Math.min(b1.length, b2.length);
+    for (int i = 0; i < max; i++) {
+      int diff = (b1[i] & 0xFF) - (b2[i] & 0xFF);
+      if (diff != 0) {
+        return diff;
+      }
+    }
+    return b1.length - b2.length;
+  }
+
+  private static List<String> scanJdk() throws IOException {
+
+    TreeSet<String> typeNames = new TreeSet<>();
+    FileSystem jrt = null;
+    try {
+      jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+    } catch (FileSystemNotFoundException | ProviderNotFoundException | IllegalArgumentException e) {
+      LOG.trace("No jrt filesystem available: {}", e.toString());
+    }
+    if (jrt != null) {
+      scanJrt(jrt.getPath("/modules"), typeNames);
+    } else {
+      File lib = new File(System.getProperty("java.home"), "lib");
+      File[] jars = lib.listFiles((dir, name) -> name.endsWith(".jar"));
+      if (jars != null) {
+        for (File jar : jars) {
+          scanJar(jar, typeNames);
+        }
+      }
+    }
+    return new ArrayList<>(typeNames);
+  }
+
+  private static void scanJrt(Path modules, TreeSet<String> typeNames) throws IOException {
+
+    try (Stream<Path> moduleStream = Files.list(modules)) {
+      for (Path module : (Iterable<Path>) moduleStream::iterator) {
+        try (Stream<Path> fileStream = Files.walk(module)) {
+          fileStream.forEach(path -> addTypeName(module.relativize(path).toString(), typeNames));
+        }
+      }
+    }
+  }
+
+  private static void scanJar(File jar, TreeSet<String> typeNames) throws IOException {
+
+    try (JarFile jarFile = new JarFile(jar)) {
+      Enumeration<JarEntry> entries = jarFile.entries();
+      while (entries.hasMoreElements()) {
+        addTypeName(entries.nextElement().getName(), typeNames);
+      }
+    }
+  }
+
+  private static void addTypeName(String path, TreeSet<String> typeNames) {
+
+    if (!path.endsWith(SUFFIX_CLASS) || path.endsWith("module-info.class") || path.endsWith("package-info.class")) {
+      return;
+    }
+    String typeName = path.substring(0, path.length() - SUFFIX_CLASS.length()).replace('/', '.');
+    typeNames.add(typeName);
+  }
+
+}
@@ -0,0 +1,358 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.impl.java.loader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import net.sf.mmm.code.api.language.JavaLanguage;
+import net.sf.mmm.code.base.loader.BaseArchiveIndex;
+import net.sf.mmm.code.base.loader.BaseSourceCodeProvider;
+import net.sf.mmm.code.base.loader.BaseSourceCodeStamp;
+import net.sf.mmm.code.base.loader.BaseUtf8Reader;
+import net.sf.mmm.util.io.api.IoMode;
+import net.sf.mmm.util.io.api.RuntimeIoException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implementation of {@link BaseSourceCodeProvider} for the {@code src.zip} of the JDK. Since Java 9 the entries are
+ * prefixed with the name of their module (e.g. "java.base/java/lang/String.java") while before they were stored
+ * directly (e.g. "java/lang/String.java"). This provider detects the layout and maps each package to its module once.
+ * The archive is neither opened nor indexed before the first request for source-code so creating the
+ * {@link net.sf.mmm.code.impl.java.JavaRootContext} stays fast.
+ *
+ * @author Joerg Hohwiller (hohwille at users.sourceforge.net)
+ * @since 1.0.0
+ */
+public class JavaSourceCodeProviderJdk extends BaseSourceCodeProvider {
+
+  private static final Logger LOG = LoggerFactory.getLogger(JavaSourceCodeProviderJdk.class);
+
+  private static final String MODULE_INFO_JAVA = "module-info.java";
+
+  private final File srcZip;
+
+  private volatile BaseArchiveIndex index;
+
+  private Map<String, String> package2ModuleMap;
+
+  private NavigableSet<String> directories;
+
+  private long srcZipSize;
+
+  private long srcZipLastModified;
+
+  private boolean closed;
+
+  /**
+   * The constructor.
+   *
+   * @param srcZip the {@link File} pointing to the {@code src.zip} of the JDK.
+   */
+  public JavaSourceCodeProviderJdk(File srcZip) {
+
+    super(JavaLanguage.TYPE_EXTENSION_JAVA);
+    this.srcZip = srcZip;
+  }
+
+  /**
+   * @return the {@link File} pointing to the {@code src.zip} of the JDK.
+   */
+  public File getSrcZip() {
+
+    return this.srcZip;
+  }
+
+  /**
+   * @return {@code true} if the {@code src.zip} has already been opened and indexed, {@code false} otherwise.
+   */
+  public boolean isIndexed() {
+
+    return (this.index != null);
+  }
+
+  private BaseArchiveIndex getIndex() {
+
+    BaseArchiveIndex archiveIndex = this.index;
+    if (archiveIndex == null) {
+      synchronized (this) {
+        requireNotClosed();
+        archiveIndex = this.index;
+        if (archiveIndex == null) {
+          archiveIndex = createIndex();
+          this.index = archiveIndex;
+        }
+      }
+    }
+    return archiveIndex;
+  }
+
+  private BaseArchiveIndex createIndex() {
+
+    long start = System.currentTimeMillis();
+    BaseArchiveIndex archiveIndex;
+    try {
+      archiveIndex = BaseArchiveIndex.open(this.srcZip);
+    } catch (IOException e) {
+      throw new RuntimeIoException(e, IoMode.READ);
+    }
+    Map<String, String> packageMap = new HashMap<>();
+    NavigableSet<String> dirs = new TreeSet<>();
+    for (String module : archiveIndex.listDirectories("")) {
+      if (archiveIndex.contains(module + "/" + MODULE_INFO_JAVA)) {
+        indexModule(archiveIndex, module, "", packageMap, dirs);
+      }
+    }
+    if (packageMap.isEmpty()) {
+      LOG.debug("No modules found in {} - using legacy layout.", this.srcZip);
+      packageMap = null;
+      dirs = null;
+    }
+    this.package2ModuleMap = packageMap;
+    this.directories = dirs;
+    this.srcZipSize = this.srcZip.length();
+    this.srcZipLastModified = this.srcZip.lastModified();
+    LOG.debug("Indexed {} in {}ms", this.srcZip, Long.valueOf(System.currentTimeMillis() - start));
+    return archiveIndex;
+  }
+
+  private void indexModule(BaseArchiveIndex archiveIndex, String module, String path, Map<String, String> packageMap,
+      NavigableSet<String> dirs) {
+
+    String modulePath = module + "/" + path;
+    if (!path.isEmpty()) {
+      dirs.add(path);
+      for (String filename : archiveIndex.list(modulePath)) {
+        if (filename2TypeSimpleName(filename) != null) {
+          packageMap.put(path, module);
+          break;
+        }
+      }
+    }
+    for (String child : archiveIndex.listDirectories(modulePath)) {
+      if (isPackageSimpleName(child)) {
+        String childPath = child;
+        if (!path.isEmpty()) {
+          childPath = path + "/" + child;
+        }
+        indexModule(archiveIndex, module, childPath, packageMap, dirs);
+      }
+    }
+  }
+
+  /**
+   * @param path the path of a package (e.g. "java/lang").
+   * @return the prefix for the paths of the package in the {@code src.zip} (e.g. "java.base/"), the empty
+   *         {@link String} if the {@code src.zip} has no modules or {@code null} if the package is not contained.
+   */
+  private String getModulePrefix(String path) {
+
+    getIndex();
+    if (this.package2ModuleMap == null) {
+      return "";
+    }
+    String module = this.package2ModuleMap.get(path);
+    if (module == null) {
+      return null;
+    }
+    return module + "/";
+  }
+
+  /**
+   * @param qualifiedName the qualified name of a package (e.g. "java.lang").
+   * @return the name of the module containing the package (e.g. "java.base") or {@code null} if the package is not
+   *         contained or the {@code src.zip} has no modules (before Java 9).
+   */
+  public String getModule(String qualifiedName) {
+
+    getIndex();
+    if (this.package2ModuleMap == null) {
+      return null;
+    }
+    return this.package2ModuleMap.get(qualifiedName2Path(qualifiedName));
+  }
+
+  /**
+   * @param pathString the path of a file (e.g. "java/lang/String.java").
+   * @return the path of the according entry in the {@code src.zip} (e.g. "java.base/java/lang/String.java") or
+   *         {@code null} if the package of the file is not contained.
+   */
+  private String getEntryPath(String pathString) {
+
+    String packagePath = "";
+    int lastSlash = pathString.lastIndexOf('/');
+    if (lastSlash > 0) {
+      packagePath = pathString.substring(0, lastSlash);
+    }
+    String prefix = getModulePrefix(packagePath);
+    if (prefix == null) {
+      return null;
+    }
+    return prefix + pathString;
+  }
+
+  @Override
+  public boolean containsType(String qualifiedName) {
+
+    requireNotClosed();
+    String entryPath = getEntryPath(qualifiedName2TypePath(qualifiedName));
+    return (entryPath != null) && getIndex().contains(entryPath);
+  }
+
+  @Override
+  public BaseSourceCodeStamp getTypeStamp(String qualifiedName) {
+
+    requireNotClosed();
+    String entryPath = getEntryPath(qualifiedName2TypePath(qualifiedName));
+    if ((entryPath == null) || !getIndex().contains(entryPath)) {
+      return null;
+    }
+    return new BaseSourceCodeStamp(this.srcZip.getAbsolutePath() + "!/" + entryPath, this.srcZipSize,
+        this.srcZipLastModified);
+  }
+
+  @Override
+  protected Reader openFile(String pathString) throws IOException {
+
+    String entryPath = getEntryPath(pathString);
+    if (entryPath == null) {
+      LOG.debug("Package of {} not found in {}.", pathString, this.srcZip);
+      return null;
+    }
+    ByteBuffer data = getIndex().readBuffer(entryPath);
+    if (data == null) {
+      LOG.debug("File {} does not exist in {}.", entryPath, this.srcZip);
+      return null;
+    }
+    LOG.debug("Opening file {} from {} to parse source code.", entryPath, this.srcZip);
+    return new BaseUtf8Reader(data);
+  }
+
+  @Override
+  public List<String> scanPackage(String qualifiedName) {
+
+    requireNotClosed();
+    String path = qualifiedName2Path(qualifiedName);
+    String prefix = getModulePrefix(path);
+    if (prefix == null) {
+      return Collections.emptyList();
+    }
+    List<String> result = new ArrayList<>();
+    for (String filename : getIndex().list(prefix + path)) {
+      String simpleName = filename2TypeSimpleName(filename);
+      if (simpleName != null) {
+        result.add(simpleName);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public List<String> scanSubPackages(String qualifiedName) {
+
+    requireNotClosed();
+    BaseArchiveIndex archiveIndex = getIndex();
+    String path = qualifiedName2Path(qualifiedName);
+    List<String> result = new ArrayList<>();
+    if (this.directories == null) {
+      for (String directory : archiveIndex.listDirectories(path)) {
+        if (isPackageSimpleName(directory)) {
+          result.add(directory);
+        }
+      }
+      return result;
+    }
+    // sub-packages of the same parent may be located in different modules (e.g. java.lang and java.sql)
+    String prefix = path;
+    if (!prefix.isEmpty()) {
+      prefix = prefix + "/";
+    }
+    for (String directory : this.directories.tailSet(prefix, false)) {
+      if (!directory.startsWith(prefix)) {
+        break;
+      }
+      if (directory.indexOf('/', prefix.length()) < 0) {
+        result.add(directory.substring(prefix.length()));
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public Stream<String> streamTypes(String qualifiedName, boolean recursive) {
+
+    requireNotClosed();
+    BaseArchiveIndex archiveIndex = getIndex();
+    String path = qualifiedName2Path(qualifiedName);
+    if (this.directories == null) {
+      return archiveIndex.stream(path, recursive).map(this::path2TypeName).filter(Objects::nonNull);
+    }
+    if (!recursive) {
+      return streamModulePackage(archiveIndex, path);
+    }
+    // the packages of the subtree may be spread over different modules so stream each package from its module
+    Stream<String> packages = this.directories.stream();
+    if (!path.isEmpty()) {
+      String prefix = path + "/";
+      // '0' is the successor of '/' so the subtree is located before
+      packages = this.directories.subSet(path, true, path + '0', false).stream()
+          .filter(directory -> directory.equals(path) || directory.startsWith(prefix));
+    }
+    return packages.flatMap(directory -> streamModulePackage(archiveIndex, directory));
+  }
+
+  private Stream<String> streamModulePackage(BaseArchiveIndex archiveIndex, String path) {
+
+    String module = this.package2ModuleMap.get(path);
+    if (module == null) {
+      return Stream.empty();
+    }
+    int prefixLength = module.length() + 1;
+    return archiveIndex.stream(module + "/" + path, false).map(entry -> path2TypeName(entry.substring(prefixLength)))
+        .filter(Objects::nonNull);
+  }
+
+  @Override
+  public synchronized void close() {
+
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    BaseArchiveIndex archiveIndex = this.index;
+    if (archiveIndex != null) {
+      try {
+        archiveIndex.close();
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+      this.index = null;
+    }
+  }
+
+  @Override
+  protected boolean isClosed() {
+
+    return this.closed;
+  }
+
+  @Override
+  public String toString() {
+
+    return this.srcZip.toString();
+  }
+
+}
@@ -2,23 +2,38 @@
  * http://www.apache.org/licenses/LICENSE-2.0 */
 package net.sf.mmm.code.impl.java.loader;
 
+import java.io.CharArrayReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.net.URL;
 import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
-import net.sf.mmm.code.api.CodeContext;
 import net.sf.mmm.code.api.CodeName;
+import net.sf.mmm.code.api.item.CodeSourceRange;
+import net.sf.mmm.code.api.statement.CodeStatement;
+import net.sf.mmm.code.base.AbstractBaseContextWithCache;
+import net.sf.mmm.code.base.BaseContext;
 import net.sf.mmm.code.base.BaseFile;
 import net.sf.mmm.code.base.BasePackage;
+import net.sf.mmm.code.base.BasePathElements;
+import net.sf.mmm.code.base.block.BaseBlock;
+import net.sf.mmm.code.base.loader.BaseSourceCodeStamp;
 import net.sf.mmm.code.base.loader.BaseSourceLoaderImpl;
 import net.sf.mmm.code.base.loader.SourceCodeProvider;
 import net.sf.mmm.code.base.parser.SourceCodeParser;
 import net.sf.mmm.code.base.source.BaseSource;
+import net.sf.mmm.code.base.statistic.BaseStatistics.CountingReader;
 import net.sf.mmm.code.base.type.BaseGenericType;
+import net.sf.mmm.code.base.type.BaseNestedTypes;
 import net.sf.mmm.code.base.type.BaseType;
 import net.sf.mmm.code.impl.java.parser.JavaSourceCodeParserImpl;
 
@@ -39,6 +54,10 @@ public class JavaSourceLoader extends BaseSourceLoaderImpl {
 
   private SourceCodeParser parser;
 
+  private ForkJoinPool scanPool;
+
+  private JavaSourcePrefetcher prefetcher;
+
   /**
    * The constructor.
    *
@@ -62,16 +81,54 @@ public class JavaSourceLoader extends BaseSourceLoaderImpl {
   }
 
   /**
-   * @param parser the new value of {@link #getParser()}.
+   * @param parser the new value of {@link #getParser()}. E.g. a
+   *        {@link net.sf.mmm.code.impl.java.parser.JavaSourceCodeParseCache} to avoid reparsing unchanged files or a
+   *        {@link JavaSourceCodeParserImpl#JavaSourceCodeParserImpl(boolean) skeleton parser} if only signatures are
+   *        needed.
    */
   public void setParser(SourceCodeParser parser) {
 
-    if (this.parser == null) {
-      this.parser = parser;
-    }
-    if (this.parser == parser) {
+    if (this.parser != null) {
       throw new IllegalStateException("Already initialized!");
     }
+    this.parser = parser;
+  }
+
+  /**
+   * @return the {@link ForkJoinPool} used to {@link #scan(BasePackage, boolean) scan} packages in parallel or
+   *         {@code null} (default) to scan sequentially in the calling thread.
+   */
+  public ForkJoinPool getScanPool() {
+
+    return this.scanPool;
+  }
+
+  /**
+   * @param scanPool the new value of {@link #getScanPool()}. E.g. {@link ForkJoinPool#commonPool()}. The
+   *        {@link #getContext() context} has to be in {@link AbstractBaseContextWithCache#setConcurrent(boolean)
+   *        concurrent mode} to scan in parallel.
+   */
+  public void setScanPool(ForkJoinPool scanPool) {
+
+    this.scanPool = scanPool;
+  }
+
+  /**
+   * @return the {@link JavaSourcePrefetcher} used to read the source code of imported types ahead of time or
+   *         {@code null} (default) to read source code only on demand.
+   */
+  public JavaSourcePrefetcher getPrefetcher() {
+
+    return this.prefetcher;
+  }
+
+  /**
+   * @param prefetcher the new value of {@link #getPrefetcher()}. Has to use the same
+   *        {@link #getSourceCodeProvider() source code provider}.
+   */
+  public void setPrefetcher(JavaSourcePrefetcher prefetcher) {
+
+    this.prefetcher = prefetcher;
   }
 
   /**
@@ -98,13 +155,14 @@ public class JavaSourceLoader extends BaseSourceLoaderImpl {
       return null;
     }
     CodeName parent = qualifiedName.getParent();
-    try (Reader reader = this.sourceCodeProvider.openType(qualifiedName.getFullName())) {
+    BaseSourceCodeStamp stamp = getTypeStamp(qualifiedName.getFullName());
+    try (Reader reader = openType(qualifiedName.getFullName())) {
       if (reader == null) {
         return getTypeFromSource(parent, qualifiedName.getSimpleName());
       } else {
         BasePackage pkg = getPackage(parent);
         BaseFile file = pkg.getChildren().createFile(qualifiedName.getSimpleName());
-        getParser().parseType(reader, file);
+        parseType(reader, file, stamp);
         return file.getType();
       }
     } catch (IOException e) {
@@ -146,20 +204,64 @@ public class JavaSourceLoader extends BaseSourceLoaderImpl {
 
     String simpleName = clazz.getSimpleName();
     Class<?> declaringClass = clazz.getDeclaringClass();
-    BaseType type = (BaseType) pkg.getChildren().getType(simpleName, false);
+    BasePathElements children = pkg.getChildren();
+    BaseType type = (BaseType) children.getType(simpleName, false);
     if (type != null) {
       return type;
     }
-    BaseType declaringType = null;
     if (declaringClass != null) {
-      declaringType = getTypeInternal(declaringClass, pkg);
-      BaseFile file = declaringType.getFile();
-      type = new BaseType(file, simpleName, declaringType, clazz);
-      addContainerItem(declaringType.getNestedTypes(), type);
+      BaseType declaringType = getTypeInternal(declaringClass, pkg);
+      BaseNestedTypes nestedTypes = declaringType.getNestedTypes();
+      synchronized (nestedTypes) {
+        type = (BaseType) getContainerItemDeclared(nestedTypes, simpleName);
+        if (type == null) {
+          type = new BaseType(declaringType.getFile(), simpleName, declaringType, clazz);
+          addContainerItem(nestedTypes, type);
+        }
+      }
     } else {
-      BaseFile file = new BaseFile(pkg, clazz, getSourceFileSupplier(pkg, clazz.getSimpleName()));
-      addPathElementInternal(pkg.getChildren(), file);
-      type = file.getType();
+      synchronized (children) {
+        type = (BaseType) children.getType(simpleName, false);
+        if (type == null) {
+          BaseFile file = new BaseFile(pkg, clazz, getSourceFileSupplier(pkg, clazz.getSimpleName()));
+          addPathElementInternal(children, file);
+          type = file.getType();
+        }
+      }
+    }
+    return type;
+  }
+
+  /**
+   * Loads a top-level type from a pre-computed model (e.g. a {@link net.sf.mmm.code.impl.java.JavaRootContextSnapshot})
+   * instead of reflection or parsing. The {@link BaseFile} keeps access to the source code so comments and JavaDoc are
+   * still available on demand.
+   *
+   * @param qualifiedName the {@link CodeName} of the top-level type to load.
+   * @param populator the {@link Predicate} that populates the given (still detached) {@link BaseFile} and returns
+   *        {@code true} on success or {@code false} if the model is not available.
+   * @return the loaded {@link BaseType}, the existing one if the type has already been loaded, or {@code null} if the
+   *         {@code populator} failed.
+   */
+  public BaseType loadType(CodeName qualifiedName, Predicate<BaseFile> populator) {
+
+    BasePackage pkg = getPackage(qualifiedName.getParent());
+    String simpleName = qualifiedName.getSimpleName();
+    BasePathElements children = pkg.getChildren();
+    BaseType type = (BaseType) children.getType(simpleName, false);
+    if (type != null) {
+      return type;
+    }
+    BaseFile file = new BaseFile(pkg, simpleName, getSourceFileSupplier(pkg, simpleName));
+    if (!populator.test(file)) {
+      return null;
+    }
+    synchronized (children) {
+      type = (BaseType) children.getType(simpleName, false);
+      if (type == null) {
+        addPathElementInternal(children, file);
+        type = file.getType();
+      }
     }
     return type;
   }
@@ -188,7 +290,7 @@ public class JavaSourceLoader extends BaseSourceLoaderImpl {
     BasePackage pkg = new BasePackage(parentPackage, simpleName, null, null, true);
     try (Reader reader = this.sourceCodeProvider.openPackage(pkg.getQualifiedName())) {
       if (reader != null) {
-        getParser().parsePackage(reader, pkg);
+        parsePackage(reader, pkg);
       }
     } catch (IOException e) {
       LOG.debug("Open package failed: {}", e.getMessage(), e);
@@ -207,9 +309,11 @@ public class JavaSourceLoader extends BaseSourceLoaderImpl {
   private BaseFile getFileFromSource(BasePackage pkg, String simpleName) {
 
     BaseFile file = pkg.getChildren().createFile(simpleName);
-    try (Reader reader = this.sourceCodeProvider.openType(file.getQualifiedName())) {
+    String qualifiedName = file.getQualifiedName();
+    BaseSourceCodeStamp stamp = getTypeStamp(qualifiedName);
+    try (Reader reader = openType(qualifiedName)) {
       if (reader != null) {
-        getParser().parseType(reader, file);
+        parseType(reader, file, stamp);
         return file;
       }
     } catch (IOException | RuntimeException e) {
@@ -218,6 +322,136 @@ public class JavaSourceLoader extends BaseSourceLoaderImpl {
     return null;
   }
 
+  /**
+   * @param qualifiedName the qualified name of the top-level type to {@link #openType(String) open} afterwards.
+   * @return the {@link BaseSourceCodeStamp} of the source file or {@code null} if not available or if the source code
+   *         has been prefetched (and may therefore be older than the stamp).
+   */
+  private BaseSourceCodeStamp getTypeStamp(String qualifiedName) {
+
+    JavaSourcePrefetcher sourcePrefetcher = this.prefetcher;
+    if ((sourcePrefetcher != null) && sourcePrefetcher.isPrefetched(qualifiedName)) {
+      return null;
+    }
+    try {
+      return this.sourceCodeProvider.getTypeStamp(qualifiedName);
+    } catch (RuntimeException e) {
+      LOG.debug("Failed to get stamp of type {}: {}", qualifiedName, e.getMessage(), e);
+      return null;
+    }
+  }
+
+  private Reader openType(String qualifiedName) throws IOException {
+
+    JavaSourcePrefetcher sourcePrefetcher = this.prefetcher;
+    if (sourcePrefetcher != null) {
+      Reader reader = sourcePrefetcher.take(qualifiedName);
+      if (reader != null) {
+        return reader;
+      }
+    }
+    return this.sourceCodeProvider.openType(qualifiedName);
+  }
+
+  private void parseType(Reader reader, BaseFile file, BaseSourceCodeStamp stamp) {
+
+    long start = System.nanoTime();
+    CountingReader countingReader = new CountingReader(reader);
+    getParser().parseType(countingReader, file, stamp);
+    recordSourceParse(countingReader, start);
+    JavaSourcePrefetcher sourcePrefetcher = this.prefetcher;
+    if (sourcePrefetcher != null) {
+      sourcePrefetcher.prefetch(file, this::isPrefetchable);
+    }
+  }
+
+  private boolean isPrefetchable(String qualifiedName) {
+
+    BaseContext context = getContext();
+    if (context instanceof AbstractBaseContextWithCache) {
+      return !((AbstractBaseContextWithCache) context).isTypeCached(qualifiedName);
+    }
+    return true;
+  }
+
+  private void parsePackage(Reader reader, BasePackage pkg) {
+
+    long start = System.nanoTime();
+    CountingReader countingReader = new CountingReader(reader);
+    getParser().parsePackage(countingReader, pkg);
+    recordSourceParse(countingReader, start);
+  }
+
+  private void recordSourceParse(CountingReader reader, long start) {
+
+    long nanos = System.nanoTime() - start;
+    long chars = reader.getCount();
+    BaseSource source = getSource();
+    source.getStatistics().recordSourceParse(chars, nanos);
+    source.getContext().getStatistics().recordSourceParse(chars, nanos);
+  }
+
+  @Override
+  public List<CodeStatement> loadStatements(BaseFile file, BaseBlock block) {
+
+    CodeSourceRange range = block.getSourceRange();
+    if ((this.sourceCodeProvider == null) || (range == null) || (range.getLength() <= 0)) {
+      return null;
+    }
+    int start = range.getStart();
+    int length = range.getLength();
+    char[] chars = new char[length];
+    try (Reader reader = this.sourceCodeProvider.openType(file.getQualifiedName())) {
+      if (reader == null) {
+        return null;
+      }
+      long rest = start;
+      while (rest > 0) {
+        long skipped = reader.skip(rest);
+        if (skipped <= 0) {
+          return null;
+        }
+        rest = rest - skipped;
+      }
+      int offset = 0;
+      while (offset < length) {
+        int count = reader.read(chars, offset, length - offset);
+        if (count < 0) {
+          return null;
+        }
+        offset = offset + count;
+      }
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Failed to load block of {}: {}", file.getQualifiedName(), e.getMessage(), e);
+      return null;
+    }
+    if (hash(chars) != block.getSourceHash()) {
+      LOG.warn("Source code of {} has changed - can not load block at offset {}.", file.getQualifiedName(),
+          Integer.valueOf(start));
+      return null;
+    }
+    List<CodeStatement> statements = getParser().parseBlock(new CharArrayReader(chars));
+    if (statements == null) {
+      LOG.warn("Source code of {} has changed - failed to load block at offset {}.", file.getQualifiedName(),
+          Integer.valueOf(start));
+    }
+    return statements;
+  }
+
+  /**
+   * @param chars the source code.
+   * @return the same as {@link String#hashCode()} for the given {@code chars}.
+   * @see BaseBlock#getSourceHash()
+   */
+  private static int hash(char[] chars) {
+
+    int hash = 0;
+    for (char c : chars) {
+      hash = 31 * hash + c;
+    }
+    return hash;
+  }
+
   private BaseType getTypeFromSource(CodeName parent, String simpleName) {
 
     if (parent == null) {
@@ -236,26 +470,150 @@ public class JavaSourceLoader extends BaseSourceLoaderImpl {
   @Override
   public void scan(BasePackage pkg) {
 
-    if ((this.sourceCodeProvider != null)) {
-      try {
-        String qualifiedName = pkg.getQualifiedName();
-        List<String> simpleNames = this.sourceCodeProvider.scanPackage(qualifiedName);
-        CodeContext context = getContext();
-        String prefix = qualifiedName + context.getLanguage().getPackageSeparator();
-        for (String simpleName : simpleNames) {
-          context.getType(prefix + simpleName);
+    scan(pkg, false);
+  }
+
+  /**
+   * Loads all types of the given {@link BasePackage} and adds their {@link BaseFile}s to its
+   * {@link BasePackage#getChildren() children} in one step after all types have been loaded. The scanned files are
+   * (re-)attached in the order of their {@link BaseFile#getSimpleName() simple names} even if loading (e.g. via
+   * reflection) or a previous lookup already attached some of them. Hence the order of
+   * {@link BasePathElements#getDeclared()} is deterministic and the same with or without a {@link #getScanPool() scan
+   * pool}. If a scan pool is configured, the files (and sub-packages) are loaded in parallel.
+   *
+   * @param pkg the {@link BasePackage} to scan.
+   * @param recursive - {@code true} to also scan the entire subtree of sub-packages, {@code false} otherwise.
+   */
+  public void scan(BasePackage pkg, boolean recursive) {
+
+    if (this.sourceCodeProvider == null) {
+      // reflective component scan? or scan classes directory?
+      return;
+    }
+    ForkJoinPool pool = this.scanPool;
+    if (pool == null) {
+      scanPackage(pkg, recursive, false);
+    } else {
+      BaseContext context = getContext();
+      if ((context instanceof AbstractBaseContextWithCache)
+          && !((AbstractBaseContextWithCache) context).isConcurrent()) {
+        throw new IllegalStateException("Parallel scan requires concurrent mode of " + context);
+      }
+      pool.invoke(ForkJoinTask.adapt(() -> scanPackage(pkg, recursive, true)));
+    }
+  }
+
+  private void scanPackage(BasePackage pkg, boolean recursive, boolean parallel) {
+
+    String qualifiedName = pkg.getQualifiedName();
+    List<String> simpleNames = null;
+    List<String> subPackageNames = null;
+    try {
+      simpleNames = this.sourceCodeProvider.scanPackage(qualifiedName);
+      if (recursive) {
+        subPackageNames = this.sourceCodeProvider.scanSubPackages(qualifiedName);
+      }
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Package scan failed: {}", e.getMessage(), e);
+    }
+    String prefix = "";
+    if (!qualifiedName.isEmpty()) {
+      prefix = qualifiedName + getContext().getLanguage().getPackageSeparator();
+    }
+    String[] names = new String[0];
+    if (simpleNames != null) {
+      names = simpleNames.toArray(names);
+      Arrays.sort(names);
+    }
+    BaseType[] types = new BaseType[names.length];
+    List<ForkJoinTask<?>> tasks = new ArrayList<>();
+    for (int i = 0; i < names.length; i++) {
+      int index = i;
+      String typeName = prefix + names[i];
+      if (parallel) {
+        tasks.add(ForkJoinTask.adapt(() -> types[index] = scanType(typeName)));
+      } else {
+        types[index] = scanType(typeName);
+      }
+    }
+    if (subPackageNames != null) {
+      for (String subPackageName : subPackageNames) {
+        BasePackage subPackage = getPackage(getSource().parseName(prefix + subPackageName));
+        if (parallel) {
+          tasks.add(ForkJoinTask.adapt(() -> scanPackage(subPackage, true, true)));
+        } else {
+          scanPackage(subPackage, true, false);
+        }
+      }
+    }
+    if (!tasks.isEmpty()) {
+      ForkJoinTask.invokeAll(tasks);
+    }
+    List<BaseFile> files = new ArrayList<>(types.length);
+    for (BaseType type : types) {
+      if (type != null) {
+        BaseFile file = type.getFile();
+        if (file.getParentPackage() == pkg) {
+          files.add(file);
+        }
+      }
+    }
+    BasePathElements children = pkg.getChildren();
+    synchronized (children) {
+      // loading via reflection attaches files in the order of completion so detach them first
+      for (BaseFile file : files) {
+        removePathElementInternal(children, file);
+      }
+      for (BaseFile file : files) {
+        if (children.getFile(file.getSimpleName(), false) == null) {
+          addPathElementInternal(children, file);
         }
-      } catch (IOException e) {
-        LOG.debug("Package scan failed: {}", e.getMessage(), e);
       }
-    } else {
-      // reflective component scan? or scan classes directory?
+    }
+  }
+
+  /**
+   * <b>ATTENTION:</b><br>
+   * The {@link Stream} is directly backed by the {@link SourceCodeProvider} (e.g. by open directory handles of a
+   * source folder) and therefore has to be {@link Stream#close() closed} by the caller (e.g. via try-with-resources).
+   *
+   * {@inheritDoc}
+   */
+  @Override
+  public Stream<String> streamTypes(BasePackage pkg, boolean recursive) {
+
+    if (this.sourceCodeProvider == null) {
+      return Stream.empty();
+    }
+    return this.sourceCodeProvider.streamTypes(pkg.getQualifiedName(), recursive);
+  }
+
+  private BaseType scanType(String qualifiedName) {
+
+    try {
+      return getContext().getType(qualifiedName);
+    } catch (RuntimeException e) {
+      LOG.warn("Failed to load type {} during package scan: {}", qualifiedName, e.getMessage(), e);
+      return null;
+    }
+  }
+
+  @Override
+  public void invalidateType(String qualifiedName) {
+
+    JavaSourcePrefetcher sourcePrefetcher = this.prefetcher;
+    if (sourcePrefetcher != null) {
+      sourcePrefetcher.invalidate(qualifiedName);
     }
   }
 
   @Override
   public void close() {
 
+    if (this.prefetcher != null) {
+      this.prefetcher.clear();
+      this.prefetcher = null;
+    }
     if (this.sourceCodeProvider != null) {
       this.sourceCodeProvider.close();
       this.sourceCodeProvider = null;
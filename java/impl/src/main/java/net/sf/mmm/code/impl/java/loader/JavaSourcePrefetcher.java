@@ -0,0 +1,388 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.impl.java.loader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import net.sf.mmm.code.api.imports.CodeImport;
+import net.sf.mmm.code.base.BaseFile;
+import net.sf.mmm.code.base.loader.SourceCodeProvider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the source code of imported types ahead of time. After a {@link BaseFile} has been parsed by the
+ * {@link JavaSourceLoader}, its {@link BaseFile#getImports() imports} are {@link #prefetch(BaseFile, Predicate) queued}
+ * on a background {@link Executor} that reads their source code from the {@link SourceCodeProvider}. When the imported
+ * type is requested later on, the {@link JavaSourceLoader} {@link #take(String) takes} the prefetched source code
+ * instead of opening it again. Only the source code is read in the background so the code model itself is never
+ * touched by a foreign thread. Types that are already loaded or not {@link SourceCodeProvider#containsType(String)
+ * contained} in the {@link SourceCodeProvider} are not prefetched. The number of concurrent reads and the amount of
+ * buffered characters are bounded. If the buffer is full, the source code that has been prefetched first and not yet
+ * been taken is discarded.
+ *
+ * @see JavaSourceLoader#setPrefetcher(JavaSourcePrefetcher)
+ * @author Joerg Hohwiller (hohwille at users.sourceforge.net)
+ * @since 1.0.0
+ */
+public class JavaSourcePrefetcher {
+
+  private static final Logger LOG = LoggerFactory.getLogger(JavaSourcePrefetcher.class);
+
+  /** The default for the maximum number of concurrent reads. */
+  public static final int DEFAULT_MAX_CONCURRENCY = 4;
+
+  /** The default for the maximum number of buffered characters (8M chars). */
+  public static final long DEFAULT_MAX_BUFFERED_CHARS = 8 * 1024 * 1024;
+
+  /** The maximum number of recently requested types remembered to avoid prefetching the same type again. */
+  private static final int MAX_REQUESTED = 4096;
+
+  private final SourceCodeProvider sourceCodeProvider;
+
+  private final Executor executor;
+
+  private final Semaphore permits;
+
+  private final long maxBufferedChars;
+
+  private final AtomicLong bufferedChars;
+
+  /** In the order of prefetching. Guarded by synchronizing on itself (also for {@link #requested}). */
+  private final Map<String, CompletableFuture<String>> sourceMap;
+
+  private final Set<String> requested;
+
+  private final LongAdder hitCount;
+
+  private final LongAdder evictionCount;
+
+  /**
+   * The constructor.
+   *
+   * @param sourceCodeProvider the {@link SourceCodeProvider} to read the source code from.
+   * @param executor the {@link Executor} to read the source code in the background. E.g.
+   *        {@link java.util.concurrent.ForkJoinPool#commonPool()}.
+   */
+  public JavaSourcePrefetcher(SourceCodeProvider sourceCodeProvider, Executor executor) {
+
+    this(sourceCodeProvider, executor, DEFAULT_MAX_CONCURRENCY, DEFAULT_MAX_BUFFERED_CHARS);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param sourceCodeProvider the {@link SourceCodeProvider} to read the source code from.
+   * @param executor the {@link Executor} to read the source code in the background.
+   * @param maxConcurrency the maximum number of source files read concurrently.
+   * @param maxBufferedChars the maximum number of characters of prefetched source code that have not yet been
+   *        {@link #take(String) taken}.
+   */
+  public JavaSourcePrefetcher(SourceCodeProvider sourceCodeProvider, Executor executor, int maxConcurrency,
+      long maxBufferedChars) {
+
+    super();
+    this.sourceCodeProvider = sourceCodeProvider;
+    this.executor = executor;
+    this.permits = new Semaphore(maxConcurrency);
+    this.maxBufferedChars = maxBufferedChars;
+    this.bufferedChars = new AtomicLong();
+    this.sourceMap = new LinkedHashMap<>();
+    this.requested = Collections.newSetFromMap(new LinkedHashMap<String, Boolean>(64, 0.75f, true) {
+
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+
+        return (size() > MAX_REQUESTED);
+      }
+    });
+    this.hitCount = new LongAdder();
+    this.evictionCount = new LongAdder();
+  }
+
+  /**
+   * @return the number of characters of prefetched source code currently buffered.
+   */
+  public long getBufferedChars() {
+
+    return this.bufferedChars.get();
+  }
+
+  /**
+   * @return the number of source files that have been {@link #take(String) taken} from the prefetched source code.
+   */
+  public long getHitCount() {
+
+    return this.hitCount.sum();
+  }
+
+  /**
+   * @return the number of prefetched source files that have been discarded without being {@link #take(String) taken}
+   *         to make room for newer ones.
+   */
+  public long getEvictionCount() {
+
+    return this.evictionCount.sum();
+  }
+
+  /**
+   * Queues the non-static {@link BaseFile#getImports() imports} of the given {@link BaseFile} for prefetching.
+   *
+   * @param file the {@link BaseFile} that has just been parsed.
+   * @param filter the {@link Predicate} that decides if the top-level type with the given
+   *        {@link net.sf.mmm.code.api.type.CodeType#getQualifiedName() qualified name} shall be prefetched. Should
+   *        reject types that have already been loaded.
+   */
+  public void prefetch(BaseFile file, Predicate<String> filter) {
+
+    for (CodeImport importStatement : file.getImports()) {
+      if (!importStatement.isStatic()) {
+        String qualifiedName = getTopLevelTypeName(importStatement.getReference());
+        if ((qualifiedName != null) && filter.test(qualifiedName)) {
+          prefetch(qualifiedName);
+        }
+      }
+    }
+  }
+
+  /**
+   * @param reference the {@link CodeImport#getReference() reference} of an import (e.g. "java.util.Map.Entry").
+   * @return the qualified name of the top-level type containing the source code (e.g. "java.util.Map") or {@code null}
+   *         for a wildcard import.
+   */
+  private static String getTopLevelTypeName(String reference) {
+
+    if (reference.endsWith("*")) {
+      return null;
+    }
+    int start = 0;
+    while (start < reference.length()) {
+      int end = reference.indexOf('.', start);
+      if (end < 0) {
+        end = reference.length();
+      }
+      if ((end > start) && Character.isUpperCase(reference.charAt(start))) {
+        return reference.substring(0, end);
+      }
+      start = end + 1;
+    }
+    return reference;
+  }
+
+  /**
+   * Reads the source code of the given type in the background unless it has been requested recently, it is not
+   * {@link SourceCodeProvider#containsType(String) contained} in the {@link SourceCodeProvider} or the maximum number
+   * of concurrent reads is reached.
+   *
+   * @param qualifiedName the {@link net.sf.mmm.code.api.type.CodeType#getQualifiedName() qualified name} of the
+   *        top-level type to prefetch.
+   */
+  public void prefetch(String qualifiedName) {
+
+    synchronized (this.sourceMap) {
+      if (this.sourceMap.containsKey(qualifiedName) || !this.requested.add(qualifiedName)) {
+        return;
+      }
+    }
+    try {
+      if (!this.sourceCodeProvider.containsType(qualifiedName)) {
+        return;
+      }
+    } catch (RuntimeException e) {
+      LOG.debug("Failed to check type {} for prefetching: {}", qualifiedName, e.getMessage(), e);
+      return;
+    }
+    if (!this.permits.tryAcquire()) {
+      // allow a later attempt if triggered by another file
+      synchronized (this.sourceMap) {
+        this.requested.remove(qualifiedName);
+      }
+      return;
+    }
+    CompletableFuture<String> future = new CompletableFuture<>();
+    synchronized (this.sourceMap) {
+      this.sourceMap.put(qualifiedName, future);
+    }
+    try {
+      this.executor.execute(() -> read(qualifiedName, future));
+    } catch (RejectedExecutionException e) {
+      this.permits.release();
+      remove(qualifiedName, future);
+      future.complete(null);
+    }
+  }
+
+  private void read(String qualifiedName, CompletableFuture<String> future) {
+
+    String source = null;
+    try (Reader reader = this.sourceCodeProvider.openType(qualifiedName)) {
+      if (reader != null) {
+        source = readFully(reader);
+      }
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Failed to prefetch type {}: {}", qualifiedName, e.getMessage(), e);
+    } finally {
+      this.permits.release();
+    }
+    if ((source != null) && !reserve(source.length())) {
+      source = null;
+    }
+    if (source == null) {
+      remove(qualifiedName, future);
+    }
+    future.complete(source);
+  }
+
+  /**
+   * Reserves space in the buffer. If required, completed entries are discarded in the order they have been prefetched
+   * so source code that is never {@link #take(String) taken} (e.g. for an import that is not used) ages out.
+   *
+   * @param length the number of characters to buffer.
+   * @return {@code true} if the space has been reserved, {@code false} otherwise.
+   */
+  private boolean reserve(long length) {
+
+    if (length > this.maxBufferedChars) {
+      return false;
+    }
+    synchronized (this.sourceMap) {
+      Iterator<CompletableFuture<String>> iterator = this.sourceMap.values().iterator();
+      while ((this.bufferedChars.get() + length > this.maxBufferedChars) && iterator.hasNext()) {
+        CompletableFuture<String> future = iterator.next();
+        if (future.isDone()) {
+          iterator.remove();
+          discard(future);
+          this.evictionCount.increment();
+        }
+      }
+      if (this.bufferedChars.get() + length > this.maxBufferedChars) {
+        return false;
+      }
+      this.bufferedChars.addAndGet(length);
+      return true;
+    }
+  }
+
+  private void remove(String qualifiedName, CompletableFuture<String> future) {
+
+    synchronized (this.sourceMap) {
+      this.sourceMap.remove(qualifiedName, future);
+    }
+  }
+
+  /**
+   * Releases the buffered characters of a removed entry as soon as its source code is available.
+   *
+   * @param future the {@link CompletableFuture} of the removed entry.
+   */
+  private void discard(CompletableFuture<String> future) {
+
+    future.thenAccept(source -> {
+      if (source != null) {
+        this.bufferedChars.addAndGet(-source.length());
+      }
+    });
+  }
+
+  private static String readFully(Reader reader) throws IOException {
+
+    StringBuilder buffer = new StringBuilder(4096);
+    char[] chars = new char[4096];
+    int count = reader.read(chars);
+    while (count >= 0) {
+      buffer.append(chars, 0, count);
+      count = reader.read(chars);
+    }
+    return buffer.toString();
+  }
+
+  /**
+   * @param qualifiedName the {@link net.sf.mmm.code.api.type.CodeType#getQualifiedName() qualified name} of the
+   *        top-level type.
+   * @return {@code true} if the source code of the given type has been prefetched or is currently read,
+   *         {@code false} otherwise.
+   */
+  public boolean isPrefetched(String qualifiedName) {
+
+    synchronized (this.sourceMap) {
+      return this.sourceMap.containsKey(qualifiedName);
+    }
+  }
+
+  /**
+   * Takes the prefetched source code of the given type. If the source code is still being read, this method waits for
+   * it to complete rather than reading the same file again.
+   *
+   * @param qualifiedName the {@link net.sf.mmm.code.api.type.CodeType#getQualifiedName() qualified name} of the
+   *        top-level type.
+   * @return a {@link Reader} on the prefetched source code or {@code null} if not available.
+   */
+  public Reader take(String qualifiedName) {
+
+    CompletableFuture<String> future;
+    synchronized (this.sourceMap) {
+      future = this.sourceMap.remove(qualifiedName);
+    }
+    if (future == null) {
+      return null;
+    }
+    String source = future.join();
+    if (source == null) {
+      return null;
+    }
+    this.bufferedChars.addAndGet(-source.length());
+    this.hitCount.increment();
+    return new StringReader(source);
+  }
+
+  /**
+   * Discards the prefetched source code of the given type after its source file has been modified, created or deleted
+   * so the outdated source code is never parsed. The type may be prefetched again afterwards.
+   *
+   * @param qualifiedName the {@link net.sf.mmm.code.api.type.CodeType#getQualifiedName() qualified name} of the
+   *        top-level type.
+   */
+  public void invalidate(String qualifiedName) {
+
+    CompletableFuture<String> future;
+    synchronized (this.sourceMap) {
+      this.requested.remove(qualifiedName);
+      future = this.sourceMap.remove(qualifiedName);
+    }
+    if (future != null) {
+      discard(future);
+    }
+  }
+
+  /**
+   * Discards all prefetched source code.
+   */
+  public void clear() {
+
+    synchronized (this.sourceMap) {
+      for (CompletableFuture<String> future : this.sourceMap.values()) {
+        discard(future);
+      }
+      this.sourceMap.clear();
+      this.requested.clear();
+    }
+  }
+
+}
@@ -86,6 +86,13 @@ public class JavaGenericTypeFromSource extends BaseGenericTypeProxy {
     return this.type;
   }
 
+  @Override
+  public BaseContext getContext() {
+
+    // avoid resolving the delegate as the context is required while it is resolved
+    return this.file.getContext();
+  }
+
   /**
    * @return the raw name from source code.
    */
@@ -111,7 +118,8 @@ public class JavaGenericTypeFromSource extends BaseGenericTypeProxy {
       genericType = composedType;
     }
     if ((this.typeParameters != null) && !this.typeParameters.isEmpty()) {
-      BaseType javaType = (BaseType) genericType;
+      // qualified references are wrapped in a BaseTypeProxy
+      BaseType javaType = ((BaseGenericType) genericType).asType();
       BaseParameterizedType parameterizedType = javaType.createParameterizedType(this.parent);
       BaseTypeParameters parameters = parameterizedType.getTypeParameters();
       for (BaseGenericType typeParam : this.typeParameters) {
@@ -240,6 +248,23 @@ public class JavaGenericTypeFromSource extends BaseGenericTypeProxy {
     this.typeParameters.add(typeParameter);
   }
 
+  /**
+   * @return the {@link List} of type parameters as parsed from the source code or {@code null} if not present.
+   * @see #isDiamonOperator()
+   */
+  List<BaseGenericType> getTypeParameterList() {
+
+    return this.typeParameters;
+  }
+
+  /**
+   * @return the {@link List} of additional composed types (e.g. "{@code & Serializable}") or {@code null} if none.
+   */
+  List<BaseGenericType> getComposedTypeList() {
+
+    return this.composedTypes;
+  }
+
   /**
    * @param composedType the composed type to add.
    */
@@ -0,0 +1,525 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.impl.java.parser;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.sf.mmm.code.api.annotation.CodeAnnotations;
+import net.sf.mmm.code.api.arg.CodeParameter;
+import net.sf.mmm.code.api.comment.CodeComment;
+import net.sf.mmm.code.api.element.CodeElement;
+import net.sf.mmm.code.api.element.CodeElementWithTypeVariables;
+import net.sf.mmm.code.api.expression.CodeExpression;
+import net.sf.mmm.code.api.item.CodeSourceRange;
+import net.sf.mmm.code.api.modifier.CodeModifiers;
+import net.sf.mmm.code.api.modifier.CodeVisibility;
+import net.sf.mmm.code.api.operator.CodeNAryOperator;
+import net.sf.mmm.code.api.statement.CodeStatement;
+import net.sf.mmm.code.api.type.CodeTypeCategory;
+import net.sf.mmm.code.base.BaseFile;
+import net.sf.mmm.code.base.annoation.BaseAnnotation;
+import net.sf.mmm.code.base.arg.BaseExceptions;
+import net.sf.mmm.code.base.arg.BaseParameters;
+import net.sf.mmm.code.base.block.BaseBlock;
+import net.sf.mmm.code.base.block.BaseBlockBody;
+import net.sf.mmm.code.base.block.BaseBlockInitializer;
+import net.sf.mmm.code.base.comment.BaseBlockComment;
+import net.sf.mmm.code.base.comment.BaseComments;
+import net.sf.mmm.code.base.comment.BaseInlineComment;
+import net.sf.mmm.code.base.comment.BaseSingleLineComment;
+import net.sf.mmm.code.base.element.BaseElement;
+import net.sf.mmm.code.base.expression.BaseArrayInstatiation;
+import net.sf.mmm.code.base.expression.BaseFieldReferenceLazy;
+import net.sf.mmm.code.base.expression.BaseMethodInvocation;
+import net.sf.mmm.code.base.member.BaseConstructor;
+import net.sf.mmm.code.base.member.BaseConstructors;
+import net.sf.mmm.code.base.member.BaseField;
+import net.sf.mmm.code.base.member.BaseMember;
+import net.sf.mmm.code.base.member.BaseMethod;
+import net.sf.mmm.code.base.member.BaseOperation;
+import net.sf.mmm.code.base.operator.BaseOperator;
+import net.sf.mmm.code.base.statement.BaseTextStatement;
+import net.sf.mmm.code.base.type.BaseGenericType;
+import net.sf.mmm.code.base.type.BaseType;
+import net.sf.mmm.code.base.type.BaseTypeVariable;
+import net.sf.mmm.code.base.type.BaseTypeVariables;
+import net.sf.mmm.code.impl.java.expression.JavaNAryOperatorExpression;
+import net.sf.mmm.code.impl.java.expression.literal.JavaLiteral;
+
+/**
+ * Reads a {@link BaseFile} written by {@link JavaParsedFileWriter} and populates the given {@link BaseFile} in the same
+ * way as {@link JavaSourceCodeReaderHighlevel} does when parsing the source code.
+ *
+ * @author Joerg Hohwiller (hohwille at users.sourceforge.net)
+ * @since 1.0.0
+ * @see JavaParsedFileWriter
+ */
+public class JavaParsedFileReader {
+
+  private final DataInputStream in;
+
+  private final BaseFile file;
+
+  private final List<String> strings;
+
+  /**
+   * The constructor.
+   *
+   * @param in the {@link InputStream} to read from.
+   * @param file the {@link BaseFile} to populate.
+   */
+  public JavaParsedFileReader(InputStream in, BaseFile file) {
+
+    super();
+    this.in = new DataInputStream(in);
+    this.file = file;
+    this.strings = new ArrayList<>();
+  }
+
+  /**
+   * @return the {@link BaseFile#getType() top-level type} of the populated {@link BaseFile}.
+   * @throws IOException on I/O error or corrupt data.
+   */
+  public BaseType read() throws IOException {
+
+    this.file.setComment(readComment());
+    int importCount = readSize();
+    for (int i = 0; i < importCount; i++) {
+      String reference = readString();
+      boolean staticImport = this.in.readBoolean();
+      this.file.getImports().add(reference, staticImport);
+    }
+    readType(null);
+    return this.file.getType();
+  }
+
+  private BaseType readType(BaseType declaringType) throws IOException {
+
+    String simpleName = readString();
+    BaseType type;
+    if (declaringType == null) {
+      type = (BaseType) this.file.getType(simpleName, false);
+      if (type == null) {
+        throw new IOException("Type " + simpleName + " does not match file " + this.file.getQualifiedName());
+      }
+    } else {
+      type = (BaseType) declaringType.getNestedTypes().getDeclaredOrCreate(simpleName);
+    }
+    type.setCategory(readCategory());
+    type.setModifiers(readModifiers());
+    type.setComment(readComment());
+    readTypeVariables(type.getTypeParameters(), type);
+    readDoc(type);
+    readAnnotations(type);
+    int superTypeCount = readSize();
+    for (int i = 0; i < superTypeCount; i++) {
+      type.getSuperTypes().add(readGenericType(type));
+    }
+    BaseBlockInitializer staticInitializer = new BaseBlockInitializer(type);
+    if (readBlock(staticInitializer)) {
+      type.setStaticInitializer(staticInitializer);
+    }
+    BaseBlockInitializer nonStaticInitializer = new BaseBlockInitializer(type);
+    if (readBlock(nonStaticInitializer)) {
+      type.setNonStaticInitializer(nonStaticInitializer);
+    }
+    BaseConstructors constructors = type.getConstructors();
+    int constructorCount = readSize();
+    for (int i = 0; i < constructorCount; i++) {
+      JavaTypeVariablesFromSource typeVariables = readOperationTypeVariables();
+      BaseConstructor constructor;
+      if (typeVariables == null) {
+        constructor = new BaseConstructor(constructors);
+      } else {
+        constructor = new BaseConstructor(constructors, typeVariables);
+      }
+      readOperation(constructor);
+      constructors.add(constructor);
+      readMember(constructor);
+    }
+    int methodCount = readSize();
+    for (int i = 0; i < methodCount; i++) {
+      JavaTypeVariablesFromSource typeVariables = readOperationTypeVariables();
+      CodeElementWithTypeVariables element = type;
+      BaseMethod method;
+      String name = readString();
+      if (typeVariables == null) {
+        method = new BaseMethod(type.getMethods(), name);
+      } else {
+        method = new BaseMethod(type.getMethods(), name, typeVariables);
+        element = typeVariables;
+      }
+      type.getMethods().add(method);
+      method.getReturns().setType(readGenericType(element));
+      readDoc(method.getReturns());
+      readOperation(method);
+      CodeExpression defaultValue = readExpression();
+      if (defaultValue != null) {
+        method.setDefaultValue(defaultValue);
+      }
+      readMember(method);
+    }
+    int fieldCount = readSize();
+    for (int i = 0; i < fieldCount; i++) {
+      BaseField field = type.getFields().add(readString());
+      field.setType(readGenericType(type));
+      CodeExpression initializer = readExpression();
+      if (initializer != null) {
+        field.setInitializer(initializer);
+      }
+      readMember(field);
+    }
+    int nestedTypeCount = readSize();
+    for (int i = 0; i < nestedTypeCount; i++) {
+      readType(type);
+    }
+    return type;
+  }
+
+  private void readOperation(BaseOperation operation) throws IOException {
+
+    BaseParameters parameters = operation.getParameters();
+    int parameterCount = readSize();
+    for (int i = 0; i < parameterCount; i++) {
+      CodeParameter parameter = parameters.add(readString());
+      parameter.setType(readGenericType(operation));
+      readDoc(parameter);
+    }
+    BaseExceptions exceptions = operation.getExceptions();
+    int exceptionCount = readSize();
+    for (int i = 0; i < exceptionCount; i++) {
+      BaseGenericType exceptionType = readGenericType(operation);
+      readDoc(exceptions.add(exceptionType));
+    }
+    BaseBlockBody body = new BaseBlockBody(operation);
+    if (readBlock(body)) {
+      operation.setBody(body);
+    }
+  }
+
+  private void readMember(BaseMember member) throws IOException {
+
+    member.setModifiers(readModifiers());
+    CodeComment comment = readComment();
+    if (comment != null) {
+      member.setComment(comment);
+    }
+    readAnnotations(member);
+    readDoc(member);
+  }
+
+  private JavaTypeVariablesFromSource readOperationTypeVariables() throws IOException {
+
+    int count = readSize();
+    if (count == 0) {
+      return null;
+    }
+    JavaTypeVariablesFromSource typeVariables = new JavaTypeVariablesFromSource();
+    for (int i = 0; i < count; i++) {
+      readTypeVariable(typeVariables, typeVariables);
+    }
+    return typeVariables;
+  }
+
+  private void readTypeVariables(BaseTypeVariables typeVariables, CodeElementWithTypeVariables element)
+      throws IOException {
+
+    int count = readSize();
+    for (int i = 0; i < count; i++) {
+      readTypeVariable(typeVariables, element);
+    }
+  }
+
+  private void readTypeVariable(BaseTypeVariables typeVariables, CodeElementWithTypeVariables element)
+      throws IOException {
+
+    BaseTypeVariable typeVariable = new BaseTypeVariable(typeVariables, readString());
+    CodeComment comment = readComment();
+    if (comment != null) {
+      typeVariable.setComment(comment);
+    }
+    BaseGenericType bound = readGenericType(element);
+    if (bound != null) {
+      typeVariable.setBound(bound);
+    }
+    typeVariables.add(typeVariable);
+    readDoc(typeVariable);
+  }
+
+  private BaseGenericType readGenericType(CodeElementWithTypeVariables element) throws IOException {
+
+    int tag = readSize();
+    if (tag == JavaParsedFileWriter.TAG_NULL) {
+      return null;
+    } else if (tag != JavaParsedFileWriter.TAG_GENERIC_TYPE) {
+      throw new IOException("Invalid type tag " + tag);
+    }
+    JavaGenericTypeFromSource type = new JavaGenericTypeFromSource(element, readString(), this.file);
+    CodeComment comment = readComment();
+    if (comment != null) {
+      type.setComment(comment);
+    }
+    type.setExtendsBound(readGenericType(element));
+    type.setSuperBound(readGenericType(element));
+    int typeParameterCount = readSize();
+    if (typeParameterCount > 0) {
+      type.ensureTypeParameters();
+      for (int i = 1; i < typeParameterCount; i++) {
+        type.addTypeParameter(readGenericType(element));
+      }
+    }
+    int composedTypeCount = readSize();
+    for (int i = 1; i < composedTypeCount; i++) {
+      type.addComposedType(readGenericType(element));
+    }
+    type.setArrayCount(readSize());
+    type.setArrayLengthExpression(readString());
+    return type;
+  }
+
+  private void readAnnotations(BaseElement element) throws IOException {
+
+    int count = readSize();
+    if (count == 0) {
+      return;
+    }
+    CodeAnnotations annotations = element.getAnnotations();
+    for (int i = 0; i < count; i++) {
+      String typeName = readString();
+      String qualifiedTypeName = readString();
+      BaseAnnotation annotation = new BaseAnnotation(this.file.getAnnotations(), typeName, qualifiedTypeName);
+      CodeComment comment = readComment();
+      if (comment != null) {
+        annotation.setComment(comment);
+      }
+      Map<String, CodeExpression> parameters = annotation.getParameters();
+      int parameterCount = readSize();
+      for (int j = 0; j < parameterCount; j++) {
+        String key = readString();
+        parameters.put(key, readExpression());
+      }
+      annotations.add(annotation);
+    }
+  }
+
+  private CodeExpression readExpression() throws IOException {
+
+    int tag = readSize();
+    switch (tag) {
+      case JavaParsedFileWriter.TAG_NULL:
+        return null;
+      case JavaParsedFileWriter.TAG_LITERAL:
+        return JavaLiteral.of(readLiteral());
+      case JavaParsedFileWriter.TAG_FIELD_REFERENCE:
+        String typeName = readString();
+        int qualified = readSize();
+        Boolean qualifiedFlag = null;
+        if (qualified == 1) {
+          qualifiedFlag = Boolean.TRUE;
+        } else if (qualified == 2) {
+          qualifiedFlag = Boolean.FALSE;
+        }
+        return new BaseFieldReferenceLazy(this.file.getContext(), typeName, qualifiedFlag, readString());
+      case JavaParsedFileWriter.TAG_ARRAY:
+        return new BaseArrayInstatiation(readExpressions());
+      case JavaParsedFileWriter.TAG_OPERATOR:
+        CodeNAryOperator operator = (CodeNAryOperator) BaseOperator.of(readString());
+        return new JavaNAryOperatorExpression(operator, readExpressions());
+      case JavaParsedFileWriter.TAG_METHOD_INVOCATION:
+        BaseMethod method = null;
+        return new BaseMethodInvocation(method, readExpressions());
+      default:
+        throw new IOException("Invalid expression tag " + tag);
+    }
+  }
+
+  private List<CodeExpression> readExpressions() throws IOException {
+
+    int count = readSize();
+    List<CodeExpression> expressions = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      expressions.add(readExpression());
+    }
+    return expressions;
+  }
+
+  private Object readLiteral() throws IOException {
+
+    int kind = readSize();
+    switch (kind) {
+      case JavaParsedFileWriter.LITERAL_NULL:
+        return null;
+      case JavaParsedFileWriter.LITERAL_STRING:
+        return readString();
+      case JavaParsedFileWriter.LITERAL_CHAR:
+        return Character.valueOf(this.in.readChar());
+      case JavaParsedFileWriter.LITERAL_BOOLEAN:
+        return Boolean.valueOf(this.in.readBoolean());
+      case JavaParsedFileWriter.LITERAL_INT:
+        return Integer.valueOf(this.in.readInt());
+      case JavaParsedFileWriter.LITERAL_LONG:
+        return Long.valueOf(this.in.readLong());
+      case JavaParsedFileWriter.LITERAL_SHORT:
+        return Short.valueOf(this.in.readShort());
+      case JavaParsedFileWriter.LITERAL_FLOAT:
+        return Float.valueOf(this.in.readFloat());
+      case JavaParsedFileWriter.LITERAL_DOUBLE:
+        return Double.valueOf(this.in.readDouble());
+      default:
+        throw new IOException("Invalid literal kind " + kind);
+    }
+  }
+
+  private CodeComment readComment() throws IOException {
+
+    int tag = readSize();
+    switch (tag) {
+      case JavaParsedFileWriter.TAG_NULL:
+        return null;
+      case JavaParsedFileWriter.TAG_SINGLE_LINE_COMMENT:
+        return new BaseSingleLineComment(readString());
+      case JavaParsedFileWriter.TAG_INLINE_COMMENT:
+        return new BaseInlineComment(readString());
+      case JavaParsedFileWriter.TAG_BLOCK_COMMENT:
+        return new BaseBlockComment(readStrings());
+      case JavaParsedFileWriter.TAG_COMMENTS:
+        int count = readSize();
+        List<CodeComment> blocks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+          blocks.add(readComment());
+        }
+        return new BaseComments(blocks);
+      default:
+        throw new IOException("Invalid comment tag " + tag);
+    }
+  }
+
+  /**
+   * @param block the empty {@link BaseBlock} to populate.
+   * @return {@code true} if the {@link BaseBlock} has {@link BaseBlock#getStatements() statements} or has been
+   *         {@link BaseBlock#isSkipped() skipped}, {@code false} otherwise (nothing to set).
+   * @throws IOException on I/O error.
+   */
+  private boolean readBlock(BaseBlock block) throws IOException {
+
+    int count = readSize();
+    List<CodeStatement> statements = block.getStatements();
+    for (int i = 0; i < count; i++) {
+      statements.add(new BaseTextStatement(readString()));
+    }
+    block.setSourceRange(readSourceRange());
+    block.setSkipped(this.in.readBoolean());
+    block.setSourceHash(this.in.readInt());
+    return (count > 0) || block.isSkipped();
+  }
+
+  /**
+   * @return the {@link CodeSourceRange} as written by {@link JavaParsedFileWriter} or {@code null} if none.
+   * @throws IOException on I/O error.
+   */
+  private CodeSourceRange readSourceRange() throws IOException {
+
+    int start = readSize() - 1;
+    if (start < 0) {
+      return null;
+    }
+    int end = start + readSize();
+    int startLine = readSize();
+    int endLine = startLine + readSize();
+    try {
+      return new CodeSourceRange(start, end, startLine, endLine);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Invalid source range " + e.getMessage(), e);
+    }
+  }
+
+  private CodeTypeCategory readCategory() throws IOException {
+
+    String category = readString();
+    if (CodeTypeCategory.CLASS.toString().equals(category)) {
+      return CodeTypeCategory.CLASS;
+    } else if (CodeTypeCategory.INTERFACE.toString().equals(category)) {
+      return CodeTypeCategory.INTERFACE;
+    } else if (CodeTypeCategory.ENUMERAION.toString().equals(category)) {
+      return CodeTypeCategory.ENUMERAION;
+    } else if (CodeTypeCategory.ANNOTATION.toString().equals(category)) {
+      return CodeTypeCategory.ANNOTATION;
+    }
+    throw new IOException("Invalid category " + category);
+  }
+
+  private CodeModifiers readModifiers() throws IOException {
+
+    String visibilityString = readString();
+    CodeVisibility visibility = CodeVisibility.of(visibilityString);
+    if (visibility == null) {
+      throw new IOException("Invalid visibility " + visibilityString);
+    }
+    int count = readSize();
+    Set<String> modifiers = new HashSet<>(count);
+    for (int i = 0; i < count; i++) {
+      modifiers.add(readString());
+    }
+    return new CodeModifiers(visibility, modifiers);
+  }
+
+  private void readDoc(CodeElement element) throws IOException {
+
+    List<String> lines = readStrings();
+    if (!lines.isEmpty()) {
+      element.getDoc().add(lines);
+    }
+  }
+
+  private List<String> readStrings() throws IOException {
+
+    int count = readSize();
+    List<String> lines = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      lines.add(readString());
+    }
+    return lines;
+  }
+
+  private String readString() throws IOException {
+
+    int index = readSize();
+    if (index == 0) {
+      return null;
+    }
+    int size = this.strings.size();
+    if (index <= size) {
+      return this.strings.get(index - 1);
+    } else if (index == size + 1) {
+      String string = this.in.readUTF();
+      this.strings.add(string);
+      return string;
+    }
+    throw new IOException("Invalid string index " + index);
+  }
+
+  private int readSize() throws IOException {
+
+    int value = 0;
+    int shift = 0;
+    while (true) {
+      int b = this.in.readUnsignedByte();
+      value = value | ((b & 0x7F) << shift);
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+      shift = shift + 7;
+      if (shift > 28) {
+        throw new IOException("Invalid size");
+      }
+    }
+  }
+
+}
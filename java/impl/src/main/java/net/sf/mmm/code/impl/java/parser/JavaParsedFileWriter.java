@@ -0,0 +1,653 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.impl.java.parser;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import net.sf.mmm.code.api.annotation.CodeAnnotation;
+import net.sf.mmm.code.api.arg.CodeException;
+import net.sf.mmm.code.api.arg.CodeParameter;
+import net.sf.mmm.code.api.block.CodeBlock;
+import net.sf.mmm.code.api.comment.CodeComment;
+import net.sf.mmm.code.api.element.CodeElement;
+import net.sf.mmm.code.api.expression.CodeExpression;
+import net.sf.mmm.code.api.imports.CodeImport;
+import net.sf.mmm.code.api.item.CodeSourceRange;
+import net.sf.mmm.code.api.member.CodeConstructor;
+import net.sf.mmm.code.api.member.CodeField;
+import net.sf.mmm.code.api.member.CodeMethod;
+import net.sf.mmm.code.api.modifier.CodeModifiers;
+import net.sf.mmm.code.api.statement.CodeStatement;
+import net.sf.mmm.code.api.type.CodeGenericType;
+import net.sf.mmm.code.api.type.CodeType;
+import net.sf.mmm.code.api.type.CodeTypeCategory;
+import net.sf.mmm.code.api.type.CodeTypePlaceholder;
+import net.sf.mmm.code.api.type.CodeTypeVariable;
+import net.sf.mmm.code.base.BaseFile;
+import net.sf.mmm.code.base.annoation.BaseAnnotation;
+import net.sf.mmm.code.base.block.BaseBlock;
+import net.sf.mmm.code.base.comment.BaseBlockComment;
+import net.sf.mmm.code.base.comment.BaseComments;
+import net.sf.mmm.code.base.comment.BaseInlineComment;
+import net.sf.mmm.code.base.comment.BaseSingleLineComment;
+import net.sf.mmm.code.base.expression.BaseArrayInstatiation;
+import net.sf.mmm.code.base.expression.BaseFieldReferenceLazy;
+import net.sf.mmm.code.base.expression.BaseMethodInvocation;
+import net.sf.mmm.code.base.member.BaseConstructor;
+import net.sf.mmm.code.base.member.BaseField;
+import net.sf.mmm.code.base.member.BaseMember;
+import net.sf.mmm.code.base.member.BaseMethod;
+import net.sf.mmm.code.base.member.BaseOperation;
+import net.sf.mmm.code.base.statement.BaseTextStatement;
+import net.sf.mmm.code.base.type.BaseArrayType;
+import net.sf.mmm.code.base.type.BaseComposedType;
+import net.sf.mmm.code.base.type.BaseGenericType;
+import net.sf.mmm.code.base.type.BaseParameterizedType;
+import net.sf.mmm.code.base.type.BaseType;
+import net.sf.mmm.code.base.type.BaseTypeProxy;
+import net.sf.mmm.code.base.type.BaseTypeVariable;
+import net.sf.mmm.code.base.type.BaseTypeWildcard;
+import net.sf.mmm.code.impl.java.expression.JavaNAryOperatorExpression;
+import net.sf.mmm.code.impl.java.expression.literal.JavaLiteral;
+
+/**
+ * Writes a {@link BaseFile} as produced by {@link JavaSourceCodeReaderHighlevel} in the compact binary form of the
+ * {@link JavaSourceCodeParseCache}. All strings are written only once and then referenced by their index. Only the
+ * elements the parser can create are supported. For anything else an {@link UnsupportedOperationException} is thrown
+ * so the file is simply not cached.<br>
+ * In {@link #JavaParsedFileWriter(OutputStream, boolean) skeleton mode} only the signatures are written and types
+ * created via reflection are supported as well. Their generic types are written as references by name so they are
+ * resolved lazily when read. Comments, JavaDoc and bodies are omitted as they are available from the source code.
+ *
+ * @author Joerg Hohwiller (hohwille at users.sourceforge.net)
+ * @since 1.0.0
+ * @see JavaParsedFileReader
+ */
+public class JavaParsedFileWriter {
+
+  static final int TAG_NULL = 0;
+
+  static final int TAG_GENERIC_TYPE = 1;
+
+  static final int TAG_LITERAL = 1;
+
+  static final int TAG_FIELD_REFERENCE = 2;
+
+  static final int TAG_ARRAY = 3;
+
+  static final int TAG_OPERATOR = 4;
+
+  static final int TAG_METHOD_INVOCATION = 5;
+
+  static final int TAG_SINGLE_LINE_COMMENT = 1;
+
+  static final int TAG_INLINE_COMMENT = 2;
+
+  static final int TAG_BLOCK_COMMENT = 3;
+
+  static final int TAG_COMMENTS = 4;
+
+  static final int LITERAL_NULL = 0;
+
+  static final int LITERAL_STRING = 1;
+
+  static final int LITERAL_CHAR = 2;
+
+  static final int LITERAL_BOOLEAN = 3;
+
+  static final int LITERAL_INT = 4;
+
+  static final int LITERAL_LONG = 5;
+
+  static final int LITERAL_SHORT = 6;
+
+  static final int LITERAL_FLOAT = 7;
+
+  static final int LITERAL_DOUBLE = 8;
+
+  private final DataOutputStream out;
+
+  private final Map<String, Integer> strings;
+
+  private final boolean skeleton;
+
+  /**
+   * The constructor.
+   *
+   * @param out the {@link OutputStream} to write to.
+   */
+  public JavaParsedFileWriter(OutputStream out) {
+
+    this(out, false);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param out the {@link OutputStream} to write to.
+   * @param skeleton - {@code true} to only write the signatures (see class JavaDoc), {@code false} otherwise.
+   */
+  public JavaParsedFileWriter(OutputStream out, boolean skeleton) {
+
+    super();
+    this.out = new DataOutputStream(out);
+    this.strings = new HashMap<>();
+    this.skeleton = skeleton;
+  }
+
+  /**
+   * @param file the {@link BaseFile} to write.
+   * @throws IOException on I/O error.
+   * @throws UnsupportedOperationException if the {@link BaseFile} contains an element that is not supported.
+   */
+  public void write(BaseFile file) throws IOException {
+
+    writeComment(this.skeleton ? null : file.getComment());
+    List<? extends CodeImport> imports = file.getImports().getDeclared();
+    writeSize(imports.size());
+    for (CodeImport importStatement : imports) {
+      writeString(importStatement.getReference());
+      this.out.writeBoolean(importStatement.isStatic());
+    }
+    writeType(file.getType());
+    this.out.flush();
+  }
+
+  private void writeType(BaseType type) throws IOException {
+
+    writeString(type.getSimpleName());
+    CodeTypeCategory category = type.getCategory();
+    if (category == null) {
+      throw new UnsupportedOperationException("type without category");
+    }
+    writeString(category.toString());
+    writeModifiers(type.getModifiers());
+    writeComment(this.skeleton ? null : type.getComment());
+    writeTypeVariables(type.getTypeParameters().getDeclared());
+    writeDoc(type);
+    writeAnnotations(type);
+    List<? extends CodeGenericType> superTypes = type.getSuperTypes().getDeclared();
+    writeSize(superTypes.size());
+    for (CodeGenericType superType : superTypes) {
+      writeGenericType(superType);
+    }
+    writeStatements(this.skeleton ? null : type.getStaticInitializer());
+    writeStatements(this.skeleton ? null : type.getNonStaticInitializer());
+    List<? extends CodeConstructor> constructors = type.getConstructors().getDeclared();
+    writeSize(constructors.size());
+    for (CodeConstructor constructor : constructors) {
+      writeTypeVariables(constructor.getTypeParameters().getDeclared());
+      writeOperation((BaseConstructor) constructor);
+      writeMember((BaseConstructor) constructor);
+    }
+    List<? extends CodeMethod> methods = type.getMethods().getDeclared();
+    writeSize(methods.size());
+    for (CodeMethod codeMethod : methods) {
+      BaseMethod method = (BaseMethod) codeMethod;
+      writeTypeVariables(method.getTypeParameters().getDeclared());
+      writeString(method.getName());
+      writeGenericType(method.getReturns().getType());
+      writeDoc(method.getReturns());
+      writeOperation(method);
+      writeExpression(method.getDefaultValue());
+      writeMember(method);
+    }
+    List<? extends CodeField> fields = type.getFields().getDeclared();
+    writeSize(fields.size());
+    for (CodeField field : fields) {
+      writeString(field.getName());
+      writeGenericType(field.getType());
+      writeExpression(field.getInitializer());
+      writeMember((BaseField) field);
+    }
+    List<? extends CodeType> nestedTypes = type.getNestedTypes().getDeclared();
+    writeSize(nestedTypes.size());
+    for (CodeType nestedType : nestedTypes) {
+      writeType((BaseType) nestedType);
+    }
+  }
+
+  private void writeOperation(BaseOperation operation) throws IOException {
+
+    List<? extends CodeParameter> parameters = operation.getParameters().getDeclared();
+    writeSize(parameters.size());
+    for (CodeParameter parameter : parameters) {
+      writeString(parameter.getName());
+      writeGenericType(parameter.getType());
+      writeDoc(parameter);
+    }
+    List<? extends CodeException> exceptions = operation.getExceptions().getDeclared();
+    writeSize(exceptions.size());
+    for (CodeException exception : exceptions) {
+      writeGenericType(exception.getType());
+      writeDoc(exception);
+    }
+    writeStatements(this.skeleton ? null : operation.getBody());
+  }
+
+  private void writeMember(BaseMember member) throws IOException {
+
+    writeModifiers(member.getModifiers());
+    writeComment(this.skeleton ? null : member.getComment());
+    writeAnnotations(member);
+    writeDoc(member);
+  }
+
+  private void writeTypeVariables(List<? extends CodeTypeVariable> typeVariables) throws IOException {
+
+    writeSize(typeVariables.size());
+    for (CodeTypeVariable typeVariable : typeVariables) {
+      BaseTypeVariable variable = (BaseTypeVariable) typeVariable;
+      writeString(variable.getName());
+      writeComment(this.skeleton ? null : variable.getComment());
+      BaseGenericType bound = variable.getBound();
+      if ((bound instanceof JavaGenericTypeFromSource) || (this.skeleton && !isRootType(bound))) {
+        writeGenericType(bound);
+      } else {
+        writeSize(TAG_NULL);
+      }
+      writeDoc(variable);
+    }
+  }
+
+  private static boolean isRootType(CodeGenericType type) {
+
+    return (type == null) || "java.lang.Object".equals(type.getQualifiedName());
+  }
+
+  private void writeGenericType(CodeGenericType genericType) throws IOException {
+
+    if (genericType == null) {
+      writeSize(TAG_NULL);
+      return;
+    } else if (!(genericType instanceof JavaGenericTypeFromSource)) {
+      if (!this.skeleton) {
+        throw new UnsupportedOperationException(genericType.getClass().getName());
+      }
+      writeTypeReference(genericType, 0);
+      return;
+    }
+    JavaGenericTypeFromSource type = (JavaGenericTypeFromSource) genericType;
+    writeSize(TAG_GENERIC_TYPE);
+    writeString(type.getName());
+    writeComment(type.getComment(false));
+    writeGenericType(type.getExtendsBound());
+    writeGenericType(type.getSuperBound());
+    writeGenericTypes(type.getTypeParameterList());
+    writeGenericTypes(type.getComposedTypeList());
+    writeSize(type.getArrayCount());
+    writeString(type.getArrayLengthExpression());
+  }
+
+  /**
+   * Writes a {@link CodeGenericType} that has not been parsed from source code (e.g. created via reflection) in the
+   * same form as a {@link JavaGenericTypeFromSource} so it is resolved by name when read.
+   *
+   * @param genericType the {@link CodeGenericType} to write.
+   * @param arrayCount the number of array dimensions to add.
+   * @throws IOException on I/O error.
+   */
+  private void writeTypeReference(CodeGenericType genericType, int arrayCount) throws IOException {
+
+    if (genericType instanceof JavaGenericTypeFromSource) {
+      if (arrayCount > 0) {
+        throw new UnsupportedOperationException("array of " + genericType);
+      }
+      writeGenericType(genericType);
+      return;
+    } else if (genericType instanceof BaseArrayType) {
+      writeTypeReference(((BaseArrayType) genericType).getComponentType(), arrayCount + 1);
+      return;
+    }
+    String name;
+    CodeGenericType extendsBound = null;
+    CodeGenericType superBound = null;
+    List<? extends CodeGenericType> typeParameters = null;
+    List<? extends CodeGenericType> composedTypes = null;
+    if (genericType instanceof BaseTypeProxy) {
+      name = getTypeName(((BaseTypeProxy) genericType).getDelegate());
+    } else if (genericType instanceof BaseType) {
+      name = getTypeName((BaseType) genericType);
+    } else if (genericType instanceof BaseTypeVariable) {
+      name = ((BaseTypeVariable) genericType).getName();
+    } else if (genericType instanceof BaseParameterizedType) {
+      BaseParameterizedType parameterizedType = (BaseParameterizedType) genericType;
+      name = getTypeName(parameterizedType.asType());
+      typeParameters = parameterizedType.getTypeParameters().getDeclared();
+    } else if (genericType instanceof BaseTypeWildcard) {
+      BaseTypeWildcard wildcard = (BaseTypeWildcard) genericType;
+      name = CodeTypePlaceholder.NAME_WILDCARD;
+      BaseGenericType bound = wildcard.getBound();
+      if (wildcard.isSuper()) {
+        superBound = bound;
+      } else if (!isRootType(bound)) {
+        extendsBound = bound;
+      }
+    } else if (genericType instanceof BaseComposedType) {
+      List<? extends CodeGenericType> types = ((BaseComposedType) genericType).getTypes();
+      CodeGenericType first = types.get(0);
+      if (!(first instanceof BaseType)) {
+        throw new UnsupportedOperationException("composed type starting with " + first);
+      }
+      name = getTypeName((BaseType) first);
+      composedTypes = types.subList(1, types.size());
+    } else {
+      throw new UnsupportedOperationException(genericType.getClass().getName());
+    }
+    writeSize(TAG_GENERIC_TYPE);
+    writeString(name);
+    writeSize(TAG_NULL); // comment
+    writeTypeReferenceOrNull(extendsBound);
+    writeTypeReferenceOrNull(superBound);
+    writeTypeReferences(typeParameters);
+    writeTypeReferences(composedTypes);
+    writeSize(arrayCount);
+    writeString(null);
+  }
+
+  private void writeTypeReferenceOrNull(CodeGenericType type) throws IOException {
+
+    if (type == null) {
+      writeSize(TAG_NULL);
+    } else {
+      writeTypeReference(type, 0);
+    }
+  }
+
+  private void writeTypeReferences(List<? extends CodeGenericType> types) throws IOException {
+
+    if (types == null) {
+      writeSize(0);
+      return;
+    }
+    writeSize(types.size() + 1);
+    for (CodeGenericType type : types) {
+      writeTypeReference(type, 0);
+    }
+  }
+
+  /**
+   * @param type the {@link BaseType}.
+   * @return the name of the given {@link BaseType} to resolve it unambiguously. Nested types use the binary name (e.g.
+   *         "java.util.Map$Entry") so they can be resolved even if their declaring type is not yet loaded.
+   */
+  private static String getTypeName(BaseType type) {
+
+    BaseType declaringType = type.getDeclaringType();
+    if ((declaringType == null) || (declaringType == type)) {
+      return type.getQualifiedName();
+    }
+    return getTypeName(declaringType) + "$" + type.getSimpleName();
+  }
+
+  private void writeGenericTypes(List<BaseGenericType> types) throws IOException {
+
+    if (types == null) {
+      writeSize(0);
+      return;
+    }
+    writeSize(types.size() + 1);
+    for (BaseGenericType type : types) {
+      writeGenericType(type);
+    }
+  }
+
+  private void writeAnnotations(CodeElement element) throws IOException {
+
+    List<? extends CodeAnnotation> annotations = element.getAnnotations().getDeclared();
+    writeSize(annotations.size());
+    for (CodeAnnotation codeAnnotation : annotations) {
+      if (!(codeAnnotation instanceof BaseAnnotation)) {
+        throw new UnsupportedOperationException(codeAnnotation.getClass().getName());
+      }
+      BaseAnnotation annotation = (BaseAnnotation) codeAnnotation;
+      String qualifiedTypeName = annotation.getQualifiedTypeName();
+      String typeName = annotation.getTypeName();
+      if (qualifiedTypeName == null) {
+        qualifiedTypeName = annotation.getType().getQualifiedName();
+        typeName = qualifiedTypeName;
+      }
+      writeString(typeName);
+      writeString(qualifiedTypeName);
+      writeComment(this.skeleton ? null : annotation.getComment());
+      Map<String, CodeExpression> parameters = annotation.getParameters();
+      writeSize(parameters.size());
+      for (Entry<String, CodeExpression> entry : parameters.entrySet()) {
+        writeString(entry.getKey());
+        writeExpression(entry.getValue());
+      }
+    }
+  }
+
+  private void writeExpression(CodeExpression expression) throws IOException {
+
+    if (expression == null) {
+      writeSize(TAG_NULL);
+    } else if (expression instanceof JavaLiteral) {
+      writeSize(TAG_LITERAL);
+      writeLiteral(((JavaLiteral<?>) expression).getValue());
+    } else if (expression instanceof BaseFieldReferenceLazy) {
+      BaseFieldReferenceLazy reference = (BaseFieldReferenceLazy) expression;
+      writeSize(TAG_FIELD_REFERENCE);
+      writeString(reference.getTypeName());
+      Boolean qualified = reference.getQualified();
+      if (qualified == null) {
+        writeSize(0);
+      } else if (qualified.booleanValue()) {
+        writeSize(1);
+      } else {
+        writeSize(2);
+      }
+      writeString(reference.getFieldName());
+    } else if (expression instanceof BaseArrayInstatiation) {
+      writeSize(TAG_ARRAY);
+      writeExpressions(((BaseArrayInstatiation) expression).getValues());
+    } else if (expression instanceof JavaNAryOperatorExpression) {
+      JavaNAryOperatorExpression operatorExpression = (JavaNAryOperatorExpression) expression;
+      writeSize(TAG_OPERATOR);
+      writeString(operatorExpression.getOperator().getName());
+      writeExpressions(operatorExpression.getArguments());
+    } else if (isUnresolvedInvocation(expression)) {
+      writeSize(TAG_METHOD_INVOCATION);
+      writeExpressions(((BaseMethodInvocation) expression).getArguments());
+    } else {
+      throw new UnsupportedOperationException(expression.getClass().getName());
+    }
+  }
+
+  private static boolean isUnresolvedInvocation(CodeExpression expression) {
+
+    return (expression instanceof BaseMethodInvocation) && (((BaseMethodInvocation) expression).getMember() == null);
+  }
+
+  private void writeExpressions(List<? extends CodeExpression> expressions) throws IOException {
+
+    writeSize(expressions.size());
+    for (CodeExpression expression : expressions) {
+      writeExpression(expression);
+    }
+  }
+
+  private void writeLiteral(Object value) throws IOException {
+
+    if (value == null) {
+      writeSize(LITERAL_NULL);
+    } else if (value instanceof String) {
+      writeSize(LITERAL_STRING);
+      writeString((String) value);
+    } else if (value instanceof Character) {
+      writeSize(LITERAL_CHAR);
+      this.out.writeChar(((Character) value).charValue());
+    } else if (value instanceof Boolean) {
+      writeSize(LITERAL_BOOLEAN);
+      this.out.writeBoolean(((Boolean) value).booleanValue());
+    } else if (value instanceof Integer) {
+      writeSize(LITERAL_INT);
+      this.out.writeInt(((Integer) value).intValue());
+    } else if (value instanceof Long) {
+      writeSize(LITERAL_LONG);
+      this.out.writeLong(((Long) value).longValue());
+    } else if (value instanceof Short) {
+      writeSize(LITERAL_SHORT);
+      this.out.writeShort(((Short) value).shortValue());
+    } else if (value instanceof Float) {
+      writeSize(LITERAL_FLOAT);
+      this.out.writeFloat(((Float) value).floatValue());
+    } else if (value instanceof Double) {
+      writeSize(LITERAL_DOUBLE);
+      this.out.writeDouble(((Double) value).doubleValue());
+    } else {
+      throw new UnsupportedOperationException(value.getClass().getName());
+    }
+  }
+
+  private void writeComment(CodeComment comment) throws IOException {
+
+    if ((comment == null) || (comment == BaseBlockComment.EMPTY_COMMENT)) {
+      writeSize(TAG_NULL);
+    } else if (comment instanceof BaseSingleLineComment) {
+      writeSize(TAG_SINGLE_LINE_COMMENT);
+      writeString(((BaseSingleLineComment) comment).getComment());
+    } else if (comment instanceof BaseInlineComment) {
+      writeSize(TAG_INLINE_COMMENT);
+      writeString(((BaseInlineComment) comment).getComment());
+    } else if (comment instanceof BaseBlockComment) {
+      writeSize(TAG_BLOCK_COMMENT);
+      writeStrings(((BaseBlockComment) comment).getCommentLines());
+    } else if (comment instanceof BaseComments) {
+      List<? extends CodeComment> blocks = ((BaseComments) comment).getCommentBlocks();
+      writeSize(TAG_COMMENTS);
+      writeSize(blocks.size());
+      for (CodeComment block : blocks) {
+        writeComment(block);
+      }
+    } else {
+      throw new UnsupportedOperationException(comment.getClass().getName());
+    }
+  }
+
+  private void writeStatements(CodeBlock block) throws IOException {
+
+    if (block == null) {
+      // skeleton: no statements and no source range
+      writeSize(0);
+      writeSize(0);
+      this.out.writeBoolean(false);
+      this.out.writeInt(0);
+      return;
+    }
+    List<CodeStatement> statements = block.getStatements();
+    writeSize(statements.size());
+    for (CodeStatement statement : statements) {
+      if (!(statement instanceof BaseTextStatement)) {
+        throw new UnsupportedOperationException(statement.getClass().getName());
+      }
+      writeString(((BaseTextStatement) statement).getCode());
+    }
+    int hash = 0;
+    boolean skipped = false;
+    if (block instanceof BaseBlock) {
+      BaseBlock baseBlock = (BaseBlock) block;
+      hash = baseBlock.getSourceHash();
+      skipped = baseBlock.isSkipped();
+    }
+    writeSourceRange(block.getSourceRange());
+    this.out.writeBoolean(skipped);
+    this.out.writeInt(hash);
+  }
+
+  /**
+   * Writes the given {@link CodeSourceRange} packed as small non-negative ints: the start offset plus one ({@code 0}
+   * for {@code null}), the length, the start line and the number of additional lines.
+   *
+   * @param range the {@link CodeSourceRange} to write. May be {@code null}.
+   * @throws IOException on I/O error.
+   */
+  private void writeSourceRange(CodeSourceRange range) throws IOException {
+
+    if (range == null) {
+      writeSize(0);
+      return;
+    }
+    writeSize(range.getStart() + 1);
+    writeSize(range.getLength());
+    writeSize(range.getStartLine());
+    writeSize(range.getEndLine() - range.getStartLine());
+  }
+
+  private void writeModifiers(CodeModifiers modifiers) throws IOException {
+
+    writeString(modifiers.getVisibility().toString());
+    Set<String> keys = modifiers.getModifiers();
+    writeSize(keys.size());
+    for (String key : keys) {
+      writeString(key);
+    }
+  }
+
+  private void writeDoc(CodeElement element) throws IOException {
+
+    if (this.skeleton) {
+      // JavaDoc is available from the source code
+      writeSize(0);
+      return;
+    }
+    writeStrings(element.getDoc().getLines());
+  }
+
+  private void writeStrings(List<String> lines) throws IOException {
+
+    writeSize(lines.size());
+    for (String line : lines) {
+      writeString(line);
+    }
+  }
+
+  /**
+   * Writes a {@link String} as index into the string table. A new string is written as its index followed by its
+   * value. Index zero represents {@code null}.
+   *
+   * @param string the {@link String} to write. May be {@code null}.
+   * @throws IOException on I/O error.
+   */
+  private void writeString(String string) throws IOException {
+
+    if (string == null) {
+      writeSize(0);
+      return;
+    }
+    Integer index = this.strings.get(string);
+    if (index != null) {
+      writeSize(index.intValue());
+      return;
+    }
+    int newIndex = this.strings.size() + 1;
+    this.strings.put(string, Integer.valueOf(newIndex));
+    writeSize(newIndex);
+    this.out.writeUTF(string);
+  }
+
+  /**
+   * Writes a non-negative {@code int} as variable length quantity (7 bits per byte).
+   *
+   * @param value the value to write.
+   * @throws IOException on I/O error.
+   */
+  private void writeSize(int value) throws IOException {
+
+    int rest = value;
+    while ((rest & ~0x7F) != 0) {
+      this.out.writeByte((rest & 0x7F) | 0x80);
+      rest = rest >>> 7;
+    }
+    this.out.writeByte(rest);
+  }
+
+}
@@ -0,0 +1,409 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.impl.java.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+import net.sf.mmm.code.api.statement.CodeStatement;
+import net.sf.mmm.code.base.BaseFile;
+import net.sf.mmm.code.base.BasePackage;
+import net.sf.mmm.code.base.loader.BaseSourceCodeStamp;
+import net.sf.mmm.code.base.parser.SourceCodeParser;
+import net.sf.mmm.code.base.type.BaseType;
+import net.sf.mmm.util.io.api.IoMode;
+import net.sf.mmm.util.io.api.RuntimeIoException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implementation of {@link SourceCodeParser} that wraps another {@link SourceCodeParser} with a persistent cache. For
+ * each source file a compact binary form of the parsed {@link BaseFile} is stored in a {@link #getDirectory()
+ * directory} keyed by the SHA-256 hash of the source code together with the parser class and the {@link #VERSION}.
+ * When the same content is parsed again (e.g. on the next run of a code generator) the {@link BaseFile} is rehydrated
+ * from the cache instead of being parsed. Changed files get a new key and are parsed as usual. Files with elements
+ * that can not be stored are never cached. If the {@link BaseSourceCodeStamp stamp} of a source file is
+ * {@link #parseType(Reader, BaseFile, BaseSourceCodeStamp) given}, its path, size and last modification time are
+ * recorded so an unchanged file is found without reading and hashing its source code. Corrupt cache entries are
+ * detected via a checksum or by rehydrating them into a scratch {@link BaseFile} first and are then deleted and
+ * reparsed.
+ *
+ * @author Joerg Hohwiller (hohwille at users.sourceforge.net)
+ * @since 1.0.0
+ */
+public class JavaSourceCodeParseCache implements SourceCodeParser {
+
+  private static final Logger LOG = LoggerFactory.getLogger(JavaSourceCodeParseCache.class);
+
+  /** The version of the cache format. Has to be increased whenever the parser or the format changes incompatibly. */
+  public static final int VERSION = 5;
+
+  private static final int MAGIC = 0x4D4D4D43;
+
+  private static final String EXTENSION = ".bin";
+
+  private static final String STAMP_EXTENSION = ".stamp";
+
+  private final Path directory;
+
+  private final SourceCodeParser parser;
+
+  private final LongAdder hitCount;
+
+  private final LongAdder missCount;
+
+  /**
+   * The constructor.
+   *
+   * @param directory the {@link #getDirectory() directory} where to store the cache. Will be created if it does not
+   *        exist.
+   */
+  public JavaSourceCodeParseCache(File directory) {
+
+    this(directory, new JavaSourceCodeParserImpl());
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param directory the {@link #getDirectory() directory} where to store the cache. Will be created if it does not
+   *        exist.
+   * @param parser the {@link SourceCodeParser} to delegate to for files not in the cache.
+   */
+  public JavaSourceCodeParseCache(File directory, SourceCodeParser parser) {
+
+    super();
+    this.directory = directory.toPath();
+    this.parser = parser;
+    this.hitCount = new LongAdder();
+    this.missCount = new LongAdder();
+  }
+
+  /**
+   * @return the directory where the cache entries are stored.
+   */
+  public File getDirectory() {
+
+    return this.directory.toFile();
+  }
+
+  /**
+   * @return the number of files that have been rehydrated from the cache.
+   */
+  public long getHitCount() {
+
+    return this.hitCount.sum();
+  }
+
+  /**
+   * @return the number of files that have been parsed because they were not in the cache.
+   */
+  public long getMissCount() {
+
+    return this.missCount.sum();
+  }
+
+  @Override
+  public BaseType parseType(Reader reader, BaseFile file) {
+
+    return parseType(reader, file, null);
+  }
+
+  @Override
+  public BaseType parseType(Reader reader, BaseFile file, BaseSourceCodeStamp stamp) {
+
+    if ((this.parser instanceof JavaSourceCodeParserImpl)
+        && ((JavaSourceCodeParserImpl) this.parser).isRecordSourceRanges()) {
+      // source ranges are not part of the cache format
+      return this.parser.parseType(reader, file);
+    }
+    Path stampEntry = null;
+    Path entry = null;
+    if (stamp != null) {
+      stampEntry = getStampEntry(stamp);
+      entry = loadStamp(stampEntry, stamp);
+    }
+    String source = null;
+    if (entry == null) {
+      source = readSource(reader);
+      entry = getEntry(source);
+    }
+    byte[] data = load(entry);
+    if (data != null) {
+      BaseType type = rehydrate(entry, data, file);
+      if (type != null) {
+        this.hitCount.increment();
+        if ((stampEntry != null) && (source != null)) {
+          storeStamp(stampEntry, stamp, entry);
+        }
+        return type;
+      }
+    }
+    if (source == null) {
+      // entry of the stamp is missing or corrupt
+      source = readSource(reader);
+      entry = getEntry(source);
+    }
+    this.missCount.increment();
+    BaseType type = this.parser.parseType(new StringReader(source), file);
+    if (store(entry, file) && (stampEntry != null)) {
+      storeStamp(stampEntry, stamp, entry);
+    }
+    return type;
+  }
+
+  /**
+   * Rehydrates the given cache entry. As the {@link BaseFile} can not be reset once it has been partially populated,
+   * the entry is first rehydrated into a scratch {@link BaseFile} to verify it.
+   *
+   * @param entry the {@link Path} of the cache entry.
+   * @param data the payload of the cache entry.
+   * @param file the {@link BaseFile} to populate.
+   * @return the {@link BaseFile#getType() main type} or {@code null} if the entry is corrupt and has been deleted.
+   */
+  private BaseType rehydrate(Path entry, byte[] data, BaseFile file) {
+
+    try {
+      BaseFile scratch = new BaseFile(file.getParentPackage(), file.getSimpleName());
+      new JavaParsedFileReader(new ByteArrayInputStream(data), scratch).read();
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Deleting corrupt parse cache entry {} for {}", entry, file.getQualifiedName(), e);
+      try {
+        Files.deleteIfExists(entry);
+      } catch (IOException e2) {
+        LOG.warn("Failed to delete parse cache entry {}", entry, e2);
+      }
+      return null;
+    }
+    try {
+      return new JavaParsedFileReader(new ByteArrayInputStream(data), file).read();
+    } catch (IOException e) {
+      throw new IllegalStateException("Corrupt parse cache entry " + entry + " for " + file.getQualifiedName(), e);
+    }
+  }
+
+  @Override
+  public void parsePackage(Reader reader, BasePackage pkg) {
+
+    this.parser.parsePackage(reader, pkg);
+  }
+
+  @Override
+  public List<CodeStatement> parseBlock(Reader reader) {
+
+    return this.parser.parseBlock(reader);
+  }
+
+  private static String readSource(Reader reader) {
+
+    StringBuilder buffer = new StringBuilder(4096);
+    char[] chars = new char[4096];
+    try {
+      int count = reader.read(chars);
+      while (count >= 0) {
+        buffer.append(chars, 0, count);
+        count = reader.read(chars);
+      }
+    } catch (IOException e) {
+      throw new RuntimeIoException(e, IoMode.READ);
+    }
+    return buffer.toString();
+  }
+
+  private Path getEntry(String source) {
+
+    return getPath(source, EXTENSION);
+  }
+
+  private Path getStampEntry(BaseSourceCodeStamp stamp) {
+
+    return getPath(stamp.getPath(), STAMP_EXTENSION);
+  }
+
+  /**
+   * @param content the content to hash.
+   * @param extension the file extension.
+   * @return the {@link Path} in the {@link #getDirectory() directory} for the SHA-256 hash of the given
+   *         {@code content} together with the parser and the {@link #VERSION}.
+   */
+  private Path getPath(String content, String extension) {
+
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    String parserKey = this.parser.getClass().getName();
+    if ((this.parser instanceof JavaSourceCodeParserImpl) && ((JavaSourceCodeParserImpl) this.parser).isSkeleton()) {
+      parserKey = parserKey + "-skeleton";
+    }
+    digest.update((parserKey + ':' + VERSION + '\n').getBytes(StandardCharsets.UTF_8));
+    byte[] hash = digest.digest(content.getBytes(StandardCharsets.UTF_8));
+    StringBuilder key = new StringBuilder(hash.length * 2);
+    for (byte b : hash) {
+      key.append(Character.forDigit((b >> 4) & 0xF, 16));
+      key.append(Character.forDigit(b & 0xF, 16));
+    }
+    String hex = key.toString();
+    return this.directory.resolve(hex.substring(0, 2)).resolve(hex + extension);
+  }
+
+  /**
+   * @param stampEntry the {@link Path} of the stamp entry.
+   * @param stamp the current {@link BaseSourceCodeStamp} of the source file.
+   * @return the {@link Path} of the cache entry recorded for the source file or {@code null} if not present or the
+   *         source file has changed since.
+   */
+  private Path loadStamp(Path stampEntry, BaseSourceCodeStamp stamp) {
+
+    byte[] bytes;
+    try {
+      bytes = Files.readAllBytes(stampEntry);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      LOG.warn("Failed to read parse cache stamp {}", stampEntry, e);
+      return null;
+    }
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      if ((in.readInt() == MAGIC) && (in.readInt() == VERSION) && in.readUTF().equals(stamp.getPath())
+          && (in.readLong() == stamp.getSize()) && (in.readLong() == stamp.getLastModified())) {
+        String filename = in.readUTF();
+        if (filename.endsWith(EXTENSION) && (filename.indexOf('/') < 0)) {
+          return this.directory.resolve(filename.substring(0, 2)).resolve(filename);
+        }
+      }
+    } catch (IOException e) {
+      LOG.debug("Truncated parse cache stamp {}", stampEntry, e);
+    }
+    return null;
+  }
+
+  private void storeStamp(Path stampEntry, BaseSourceCodeStamp stamp, Path entry) {
+
+    try {
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+      DataOutputStream out = new DataOutputStream(buffer);
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeUTF(stamp.getPath());
+      out.writeLong(stamp.getSize());
+      out.writeLong(stamp.getLastModified());
+      out.writeUTF(entry.getFileName().toString());
+      out.flush();
+      write(stampEntry, buffer.toByteArray());
+    } catch (IOException e) {
+      LOG.warn("Failed to write parse cache stamp {}", stampEntry, e);
+    }
+  }
+
+  /**
+   * @param entry the {@link Path} of the cache entry.
+   * @return the validated payload of the cache entry or {@code null} if not present or invalid.
+   */
+  private static byte[] load(Path entry) {
+
+    byte[] bytes;
+    try {
+      bytes = Files.readAllBytes(entry);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      LOG.warn("Failed to read parse cache entry {}", entry, e);
+      return null;
+    }
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      if ((in.readInt() == MAGIC) && (in.readInt() == VERSION)) {
+        int length = in.readInt();
+        long checksum = in.readLong();
+        int offset = bytes.length - length;
+        if ((length >= 0) && (offset == 20)) {
+          CRC32 crc = new CRC32();
+          crc.update(bytes, offset, length);
+          if (crc.getValue() == checksum) {
+            byte[] payload = new byte[length];
+            System.arraycopy(bytes, offset, payload, 0, length);
+            return payload;
+          }
+        }
+      }
+    } catch (IOException e) {
+      LOG.debug("Truncated parse cache entry {}", entry, e);
+    }
+    LOG.warn("Ignoring invalid parse cache entry {}", entry);
+    return null;
+  }
+
+  /**
+   * @param entry the {@link Path} of the cache entry.
+   * @param file the parsed {@link BaseFile} to store.
+   * @return {@code true} if the entry has been stored, {@code false} otherwise.
+   */
+  private boolean store(Path entry, BaseFile file) {
+
+    byte[] payload;
+    try {
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+      new JavaParsedFileWriter(buffer).write(file);
+      payload = buffer.toByteArray();
+    } catch (IOException | UnsupportedOperationException e) {
+      LOG.debug("File {} can not be cached: {}", file.getQualifiedName(), e.toString());
+      return false;
+    }
+    try {
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream(payload.length + 20);
+      DataOutputStream out = new DataOutputStream(buffer);
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(payload.length);
+      CRC32 crc = new CRC32();
+      crc.update(payload, 0, payload.length);
+      out.writeLong(crc.getValue());
+      out.write(payload);
+      out.flush();
+      write(entry, buffer.toByteArray());
+      return true;
+    } catch (IOException e) {
+      LOG.warn("Failed to write parse cache entry {}", entry, e);
+      return false;
+    }
+  }
+
+  private static void write(Path entry, byte[] bytes) throws IOException {
+
+    Path parent = entry.getParent();
+    Files.createDirectories(parent);
+    // write to temporary file and move so concurrent readers never see a partial entry
+    Path temp = Files.createTempFile(parent, entry.getFileName().toString(), ".tmp");
+    try {
+      Files.write(temp, bytes);
+      try {
+        Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+}
@@ -3,37 +3,160 @@
 package net.sf.mmm.code.impl.java.parser;
 
 import java.io.Reader;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import net.sf.mmm.code.api.statement.CodeStatement;
 import net.sf.mmm.code.base.BaseFile;
 import net.sf.mmm.code.base.BasePackage;
 import net.sf.mmm.code.base.parser.SourceCodeParser;
 import net.sf.mmm.code.base.type.BaseType;
 
 /**
- * Implementation of {@link SourceCodeParser}.
+ * Implementation of {@link SourceCodeParser}. Instances are thread-safe: each invocation borrows a
+ * {@link JavaSourceCodeReaderHighlevel} from an internal pool (or creates a new one if the pool is empty) and returns it
+ * afterwards. This way any number of threads can parse concurrently with a single parser instance while the readers
+ * with their buffers are reused.
  *
  * @author Joerg Hohwiller (hohwille at users.sourceforge.net)
  * @since 1.0.0
  */
 public class JavaSourceCodeParserImpl implements SourceCodeParser {
 
-  private static JavaSourceCodeParserImpl instance;
+  /** The default for the maximum number of idle readers kept in the pool. */
+  public static final int DEFAULT_MAX_POOL_SIZE = Runtime.getRuntime().availableProcessors();
 
-  private final JavaSourceCodeReaderHighlevel codeReader;
+  private static volatile JavaSourceCodeParserImpl instance;
+
+  private final boolean skeleton;
+
+  private final boolean recordSourceRanges;
+
+  private final int maxPoolSize;
+
+  private final Queue<JavaSourceCodeReaderHighlevel> readerPool;
+
+  private final AtomicInteger readerPoolSize;
 
   /**
    * The constructor.
    */
   public JavaSourceCodeParserImpl() {
 
+    this(false);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param skeleton - {@code true} to only parse the signatures and skip the bodies of operations and initializer
+   *        blocks (see {@link #isSkeleton()}), {@code false} otherwise.
+   */
+  public JavaSourceCodeParserImpl(boolean skeleton) {
+
+    this(skeleton, DEFAULT_MAX_POOL_SIZE);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param skeleton - {@code true} to only parse the signatures and skip the bodies of operations and initializer
+   *        blocks (see {@link #isSkeleton()}), {@code false} otherwise.
+   * @param maxPoolSize the maximum number of idle {@link JavaSourceCodeReaderHighlevel readers} to keep for reuse.
+   */
+  public JavaSourceCodeParserImpl(boolean skeleton, int maxPoolSize) {
+
+    this(skeleton, false, maxPoolSize);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param skeleton - {@code true} to only parse the signatures and skip the bodies of operations and initializer
+   *        blocks (see {@link #isSkeleton()}), {@code false} otherwise.
+   * @param recordSourceRanges - {@code true} to record the source ranges of the parsed elements (see
+   *        {@link #isRecordSourceRanges()}), {@code false} otherwise.
+   * @param maxPoolSize the maximum number of idle {@link JavaSourceCodeReaderHighlevel readers} to keep for reuse.
+   */
+  public JavaSourceCodeParserImpl(boolean skeleton, boolean recordSourceRanges, int maxPoolSize) {
+
     super();
-    this.codeReader = new JavaSourceCodeReaderHighlevel();
+    this.skeleton = skeleton;
+    this.recordSourceRanges = recordSourceRanges;
+    this.maxPoolSize = maxPoolSize;
+    this.readerPool = new ConcurrentLinkedQueue<>();
+    this.readerPoolSize = new AtomicInteger();
+  }
+
+  /**
+   * @return {@code true} if this parser is in skeleton mode where the bodies of operations and initializer blocks are
+   *         {@link net.sf.mmm.code.base.block.BaseBlock#isSkipped() skipped} so parsing is much faster and consumes
+   *         less memory if only the API (types and signatures) is of interest, {@code false} otherwise.
+   */
+  public boolean isSkeleton() {
+
+    return this.skeleton;
+  }
+
+  /**
+   * @return {@code true} if the {@link net.sf.mmm.code.api.node.CodeNodeItem#getSourceRange() source ranges} of the
+   *         parsed elements are recorded, {@code false} otherwise (default).
+   * @see JavaSourceCodeReaderHighlevel#isRecordSourceRanges()
+   */
+  public boolean isRecordSourceRanges() {
+
+    return this.recordSourceRanges;
+  }
+
+  /**
+   * @return the number of idle {@link JavaSourceCodeReaderHighlevel readers} currently kept in the pool.
+   */
+  public int getPoolSize() {
+
+    return this.readerPoolSize.get();
+  }
+
+  private JavaSourceCodeReaderHighlevel acquireReader() {
+
+    JavaSourceCodeReaderHighlevel codeReader = this.readerPool.poll();
+    if (codeReader == null) {
+      codeReader = new JavaSourceCodeReaderHighlevel();
+      codeReader.setSkeleton(this.skeleton);
+      codeReader.setRecordSourceRanges(this.recordSourceRanges);
+    } else {
+      this.readerPoolSize.decrementAndGet();
+    }
+    return codeReader;
+  }
+
+  private void releaseReader(JavaSourceCodeReaderHighlevel codeReader) {
+
+    if (this.readerPoolSize.incrementAndGet() <= this.maxPoolSize) {
+      this.readerPool.offer(codeReader);
+    } else {
+      this.readerPoolSize.decrementAndGet();
+    }
   }
 
   @Override
   public BaseType parseType(Reader reader, BaseFile file) {
 
-    return this.codeReader.parse(reader, file);
+    JavaSourceCodeReaderHighlevel codeReader = acquireReader();
+    BaseType type = codeReader.parse(reader, file);
+    // only reuse readers that completed normally and are therefore in a clean state
+    releaseReader(codeReader);
+    return type;
+  }
+
+  @Override
+  public List<CodeStatement> parseBlock(Reader reader) {
+
+    JavaSourceCodeReaderHighlevel codeReader = acquireReader();
+    List<CodeStatement> statements = codeReader.parseBlock(reader);
+    releaseReader(codeReader);
+    return statements;
   }
 
   @Override
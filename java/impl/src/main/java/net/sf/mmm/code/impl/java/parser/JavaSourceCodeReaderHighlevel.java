@@ -14,19 +14,20 @@ import net.sf.mmm.code.api.comment.CodeComment;
 import net.sf.mmm.code.api.element.CodeElement;
 import net.sf.mmm.code.api.element.CodeElementWithTypeVariables;
 import net.sf.mmm.code.api.expression.CodeExpression;
-import net.sf.mmm.code.api.member.CodeField;
-import net.sf.mmm.code.api.member.CodeOperation;
+import net.sf.mmm.code.api.item.CodeSourceRange;
 import net.sf.mmm.code.api.modifier.CodeModifiers;
 import net.sf.mmm.code.api.statement.CodeStatement;
 import net.sf.mmm.code.api.type.CodeGenericType;
 import net.sf.mmm.code.api.type.CodeTypeCategory;
 import net.sf.mmm.code.api.type.CodeTypePlaceholder;
+import net.sf.mmm.code.base.BaseContext;
 import net.sf.mmm.code.base.BaseFile;
 import net.sf.mmm.code.base.arg.BaseExceptions;
 import net.sf.mmm.code.base.arg.BaseParameters;
+import net.sf.mmm.code.base.block.BaseBlock;
 import net.sf.mmm.code.base.block.BaseBlockBody;
 import net.sf.mmm.code.base.block.BaseBlockInitializer;
-import net.sf.mmm.code.base.doc.BaseDocParser;
+import net.sf.mmm.code.base.doc.BaseDoc;
 import net.sf.mmm.code.base.element.BaseElement;
 import net.sf.mmm.code.base.member.BaseConstructor;
 import net.sf.mmm.code.base.member.BaseConstructors;
@@ -34,11 +35,13 @@ import net.sf.mmm.code.base.member.BaseField;
 import net.sf.mmm.code.base.member.BaseMember;
 import net.sf.mmm.code.base.member.BaseMethod;
 import net.sf.mmm.code.base.member.BaseOperation;
+import net.sf.mmm.code.base.node.BaseNodeItem;
 import net.sf.mmm.code.base.statement.BaseTextStatement;
 import net.sf.mmm.code.base.type.BaseGenericType;
 import net.sf.mmm.code.base.type.BaseType;
 import net.sf.mmm.code.base.type.BaseTypeVariable;
 import net.sf.mmm.code.base.type.BaseTypeVariables;
+import net.sf.mmm.code.impl.java.JavaContext;
 import net.sf.mmm.util.filter.api.CharFilter;
 
 import org.slf4j.Logger;
@@ -54,7 +57,19 @@ public class JavaSourceCodeReaderHighlevel extends JavaSourceCodeReaderLowlevel
 
   private static final Logger LOG = LoggerFactory.getLogger(JavaSourceCodeReaderHighlevel.class);
 
-  private BaseDocParser docParser;
+  private boolean skeleton;
+
+  private boolean recordSourceRanges;
+
+  private int blockStart;
+
+  private int blockEnd;
+
+  private int blockHash;
+
+  private JavaSourceLineIndex blockLineIndex;
+
+  private final StringBuilder statementBuffer;
 
   /**
    * The constructor.
@@ -72,7 +87,43 @@ public class JavaSourceCodeReaderHighlevel extends JavaSourceCodeReaderLowlevel
   public JavaSourceCodeReaderHighlevel(int capacity) {
 
     super(capacity);
-    this.docParser = new BaseDocParser();
+    this.statementBuffer = new StringBuilder(256);
+  }
+
+  /**
+   * @return {@code true} if only the signatures are parsed while the bodies of operations and initializer blocks are
+   *         {@link BaseBlock#isSkipped() skipped} and only their {@link BaseBlock#getSourceRange() source range} is
+   *         recorded, {@code false} otherwise (default).
+   */
+  public boolean isSkeleton() {
+
+    return this.skeleton;
+  }
+
+  /**
+   * @param skeleton the new value of {@link #isSkeleton()}.
+   */
+  public void setSkeleton(boolean skeleton) {
+
+    this.skeleton = skeleton;
+  }
+
+  /**
+   * @return {@code true} if the {@link net.sf.mmm.code.api.node.CodeNodeItem#getSourceRange() source ranges} of the
+   *         parsed file, types, members, parameters, annotations and docs are recorded, {@code false} otherwise
+   *         (default).
+   */
+  public boolean isRecordSourceRanges() {
+
+    return this.recordSourceRanges;
+  }
+
+  /**
+   * @param recordSourceRanges the new value of {@link #isRecordSourceRanges()}.
+   */
+  public void setRecordSourceRanges(boolean recordSourceRanges) {
+
+    this.recordSourceRanges = recordSourceRanges;
   }
 
   /**
@@ -85,14 +136,35 @@ public class JavaSourceCodeReaderHighlevel extends JavaSourceCodeReaderLowlevel
     if (this.file != null) {
       throw new IllegalStateException();
     }
-    setReader(reader);
+    if (this.recordSourceRanges || this.skeleton) {
+      // source ranges of blocks are also required in skeleton mode to reload skipped blocks
+      JavaSourceLineIndex index = new JavaSourceLineIndex(reader);
+      setReader(index);
+      this.blockLineIndex = index;
+      if (this.recordSourceRanges) {
+        this.lineIndex = index;
+      }
+    } else {
+      setReader(reader);
+      this.blockLineIndex = null;
+    }
     this.file = javaFile;
+    BaseContext context = javaFile.getContext();
+    if (context instanceof JavaContext) {
+      this.symbols = ((JavaContext) context).getSymbolTable();
+    } else {
+      this.symbols = null;
+    }
     // parse the source code
     parsePackage();
     parseImports();
     parseTypes();
+    recordSourceRange(javaFile, 0);
     // clear
     this.file = null;
+    this.lineIndex = null;
+    this.blockLineIndex = null;
+    this.symbols = null;
     return javaFile.getType();
   }
 
@@ -125,7 +197,7 @@ public class JavaSourceCodeReaderHighlevel extends JavaSourceCodeReaderLowlevel
         if (staticImport) {
           parseWhitespacesAndComments();
         }
-        String reference = readUntil(';', false);
+        String reference = getSymbols().intern(readUntil(';', false));
         this.file.getImports().add(reference, staticImport);
         parseWhitespacesAndComments();
       }
@@ -143,12 +215,13 @@ public class JavaSourceCodeReaderHighlevel extends JavaSourceCodeReaderLowlevel
   private BaseType parseType(BaseType declaringType) {
 
     consume();
+    int start = (int) getPosition();
     CodeModifiers modifiers = parseModifiers(false);
     CodeTypeCategory category = parseCategory();
-    return parseType(declaringType, modifiers, category);
+    return parseType(declaringType, modifiers, category, start);
   }
 
-  private BaseType parseType(BaseType declaringType, CodeModifiers modifiers, CodeTypeCategory category) {
+  private BaseType parseType(BaseType declaringType, CodeModifiers modifiers, CodeTypeCategory category, int start) {
 
     consume();
     String simpleName = parseIdentifier();
@@ -157,6 +230,10 @@ public class JavaSourceCodeReaderHighlevel extends JavaSourceCodeReaderLowlevel
     }
     BaseType type = (BaseType) this.file.getType(simpleName, false);
     if (type == null) {
+      if (declaringType == null) {
+        LOG.warn("Ignoring unexpected top-level type {} and the rest of {}", simpleName, this.file.getQualifiedName());
+        return null;
+      }
       type = (BaseType) declaringType.getNestedTypes().getDeclaredOrCreate(simpleName);
     }
     type.setCategory(category);
@@ -167,7 +244,11 @@ public class JavaSourceCodeReaderHighlevel extends JavaSourceCodeReaderLowlevel
       type.setComment(getElementComment());
     }
     parseTypeVariables(type, type);
-    this.docParser.parseDoc(type, this.javaDocLines);
+    if (this.javaDoc != null) {
+      BaseDoc doc = type.getDoc();
+      doc.setRawDoc(this.javaDoc);
+      doc.setSourceRange(this.javaDocRange);
+    }
     if (!this.annotations.isEmpty()) {
       CodeAnnotations typeAnnotations = type.getAnnotations();
       for (CodeAnnotation annotation : this.annotations) {
@@ -183,6 +264,7 @@ public class JavaSourceCodeReaderHighlevel extends JavaSourceCodeReaderLowlevel
       LOG.warn("Garbarge before body in {} for type {}: {}", this.file.getQualifiedName(), simpleName, dummy);
     }
     parseTypeBody(type);
+    recordSourceRange(type, start);
     return type;
   }
 
@@ -205,10 +287,11 @@ public class JavaSourceCodeReaderHighlevel extends JavaSourceCodeReaderLowlevel
     if (peek() == '}') {
       return false;
     }
+    int start = (int) getPosition();
     CodeModifiers modifiers = parseModifiers(type.isInterface());
     CodeTypeCategory category = parseCategory();
     if (category != null) {
-      parseType(type, modifiers, category);
+      parseType(type, modifiers, category, start);
       return true;
     }
     CodeComment memberComment = getElementComment();
@@ -221,7 +304,8 @@ public class JavaSourceCodeReaderHighlevel extends JavaSourceCodeReaderLowlevel
     JavaTypeVariablesFromSource typeVariables = parseTypeVariables(null, type);
     String name = parseIdentifier();
     if (name == null) {
-      List<CodeStatement> statements = parseBlock();
+      // initializers are never skipped as multiple blocks get merged so there is no single source range to reload
+      List<CodeStatement> statements = parseBlock(false);
       if (statements == null) {
         LOG.warn("Invalid member of type {} at {}", type.getSimpleName(), this.file.getQualifiedName());
         return false;
@@ -234,10 +318,16 @@ public class JavaSourceCodeReaderHighlevel extends JavaSourceCodeReaderLowlevel
         assert (modifiers.getModifiers().size() == 0);
         initializer = type.getNonStaticInitializer();
       }
-      if (initializer != null) {
+      // the type lazily creates an empty initializer so only a previous block with statements or range is merged
+      boolean merged = !initializer.getStatements().isEmpty() || (initializer.getSourceRange() != null);
+      if (merged) {
         statements.addAll(initializer.getStatements());
       }
-      initializer = new BaseBlockInitializer(type, statements);
+      BaseBlockInitializer blockInitializer = new BaseBlockInitializer(type, statements);
+      if (!merged) {
+        blockInitializer.setSourceRange(createBlockRange());
+      }
+      initializer = blockInitializer;
       if (modifiers.isStatic()) {
         type.setStaticInitializer(initializer);
       } else {
@@ -286,25 +376,36 @@ public class JavaSourceCodeReaderHighlevel extends JavaSourceCodeReaderLowlevel
         field.setType(memberType);
         parseWhitespacesAndComments();
         if (expect('=')) {
-          field.setInitializer(parseAssignmentValue());
-        }
-        if (!expect(';')) {
           CodeExpression expression = parseAssignmentValue();
-          field.setInitializer(expression);
-          if (!expect(';')) {
-            LOG.warn("Missing ;");
+          parseWhitespacesAndComments();
+          if (expect(';')) {
+            field.setInitializer(expression);
+          } else {
+            // unsupported expression (e.g. anonymous class or lambda) that is omitted as it was only partially parsed
+            LOG.debug("Unsupported initializer of field {} in {}", name, this.file.getQualifiedName());
+            skipFieldInitializer(name);
           }
+        } else if (!expect(';')) {
+          skipFieldInitializer(name);
         }
         member = field;
       }
     }
-    return parseTypeElementForMember(modifiers, memberComment, memberAnnotations, member);
+    return parseTypeElementForMember(modifiers, memberComment, memberAnnotations, member, start);
+  }
+
+  private void skipFieldInitializer(String fieldName) {
+
+    if (!skipStatement()) {
+      LOG.warn("Missing ; after field {} in {}", fieldName, this.file.getQualifiedName());
+    }
   }
 
   private boolean parseTypeElementForMember(CodeModifiers modifiers, CodeComment memberComment,
-      List<CodeAnnotation> memberAnnotations, BaseMember member) {
+      List<CodeAnnotation> memberAnnotations, BaseMember member, int start) {
 
     if (member != null) {
+      recordSourceRange(member, start);
       member.setModifiers(modifiers);
       if (memberComment != null) {
         member.setComment(memberComment);
@@ -314,13 +415,12 @@ public class JavaSourceCodeReaderHighlevel extends JavaSourceCodeReaderLowlevel
           member.getAnnotations().add(annotation);
         }
       }
-      if (!this.javaDocLines.isEmpty()) {
-        if (member instanceof CodeOperation) {
-          this.docParser.parseDoc((CodeOperation) member, this.javaDocLines);
-        } else {
-          this.docParser.parseDoc((CodeField) member, this.javaDocLines);
-        }
-        this.javaDocLines.clear();
+      if (this.javaDoc != null) {
+        BaseDoc doc = member.getDoc();
+        doc.setRawDoc(this.javaDoc);
+        doc.setSourceRange(this.javaDocRange);
+        this.javaDoc = null;
+        this.javaDocRange = null;
       }
       return true;
     }
@@ -345,6 +445,7 @@ public class JavaSourceCodeReaderHighlevel extends JavaSourceCodeReaderLowlevel
     boolean todo = !(expect(')'));
     while (todo) {
       parseWhitespacesAndComments();
+      int start = (int) getPosition();
       BaseGenericType argType = parseGenericType(operation, true, true, false);
       // TODO: this is all nuts. We might however throw away all this code anyhow...
       skipWhile(CharFilter.WHITESPACE_FILTER);
@@ -355,6 +456,7 @@ public class JavaSourceCodeReaderHighlevel extends JavaSourceCodeReaderLowlevel
       } else {
         CodeParameter parameter = parameters.add(name);
         parameter.setType(argType);
+        recordSourceRange((BaseNodeItem) parameter, start);
       }
       todo = !(expect(')'));
       if (todo && !expect(',')) {
@@ -389,46 +491,235 @@ public class JavaSourceCodeReaderHighlevel extends JavaSourceCodeReaderLowlevel
     if (expect(';')) {
       return;
     }
-    List<CodeStatement> statements = parseBlock();
+    List<CodeStatement> statements = parseBlock(this.skeleton);
     if (statements == null) {
       LOG.warn("Expecting ';' or '{' to terminate signature of operation {} but found '{}' in {}", operation,
           "" + forcePeek(), this.file.getQualifiedName());
       return;
     }
-    operation.setBody(new BaseBlockBody(operation, statements));
+    BaseBlockBody body = new BaseBlockBody(operation, statements);
+    applyBlockRange(body);
+    operation.setBody(body);
+  }
+
+  private void applyBlockRange(BaseBlock block) {
+
+    block.setSourceRange(createBlockRange());
+    if (this.skeleton) {
+      block.setSourceHash(this.blockHash);
+      block.setSkipped(true);
+    }
+  }
+
+  /**
+   * @return the {@link CodeSourceRange} of the last {@link #parseBlock(boolean) parsed block} or {@code null} if not
+   *         recorded.
+   */
+  private CodeSourceRange createBlockRange() {
+
+    JavaSourceLineIndex index = this.blockLineIndex;
+    if (index == null) {
+      return null;
+    }
+    int last = Math.max(this.blockStart, this.blockEnd - 1);
+    return new CodeSourceRange(this.blockStart, this.blockEnd, index.getLine(this.blockStart), index.getLine(last));
   }
 
-  private List<CodeStatement> parseBlock() {
+  /**
+   * Parses a single block of source code (e.g. a body that has been {@link BaseBlock#isSkipped() skipped} in
+   * {@link #isSkeleton() skeleton mode}).
+   *
+   * @param reader the {@link Reader} to read the block from starting with its opening curly brace.
+   * @return the parsed {@link CodeStatement}s or {@code null} if the source code does not start with a block.
+   */
+  public List<CodeStatement> parseBlock(Reader reader) {
+
+    if (this.file != null) {
+      throw new IllegalStateException();
+    }
+    setReader(reader);
+    this.symbols = null;
+    List<CodeStatement> statements = parseBlock(false);
+    this.symbols = null;
+    return statements;
+  }
 
+  /**
+   * @param skip - {@code true} to {@link #skipBlock() skip} the block and only record its source range and hash,
+   *        {@code false} to parse its statements.
+   * @return the parsed {@link CodeStatement}s or {@code null} if no block was found.
+   */
+  private List<CodeStatement> parseBlock(boolean skip) {
+
+    this.blockStart = (int) getPosition();
     if (!expect('{')) {
       return null;
     }
-    skipWhile(CharFilter.WHITESPACE_FILTER);
-    List<CodeStatement> statements = new ArrayList<>();
-    // TODO HACK: this only works for formatted source code!
-    int braceCount = 1;
-    while (braceCount > 0) {
-      String statement = readLine(true);
-      braceCount += countMatches(statement, '{');
-      braceCount -= countMatches(statement, '}');
-      if (braceCount > 0) {
-        statements.add(new BaseTextStatement(statement));
-      } else {
-        assert (statement.equals("}"));
+    if (skip) {
+      startHash('{');
+      if (!skipBlock()) {
+        LOG.warn("Unterminated block at offset {} in {}", this.blockStart, this.file.getQualifiedName());
       }
+      this.blockHash = stopHash();
+      this.blockEnd = (int) getPosition();
+      return new ArrayList<>(0);
     }
+    List<CodeStatement> statements = new ArrayList<>();
+    StringBuilder buffer = this.statementBuffer;
+    buffer.setLength(0);
+    setCapture(buffer);
+    try {
+      parseStatements(statements, buffer);
+    } finally {
+      setCapture(null);
+      buffer.setLength(0);
+    }
+    this.blockEnd = (int) getPosition();
     return statements;
   }
 
-  private static int countMatches(String str, char c) {
+  /**
+   * Splits the {@link #nextToken() tokens} of a block into top-level statements. A statement ends with a semicolon or
+   * with a nested block (e.g. "if (...) {...}") unless the block is continued (e.g. by "else", "catch" or an operator).
+   * The statements keep their original source code text with lines indented relative to the statement. Comments
+   * between statements are omitted.
+   *
+   * @param statements the {@link List} where to add the parsed {@link CodeStatement}s.
+   * @param buffer the {@link StringBuilder} {@link #setCapture(StringBuilder) capturing} the source code.
+   */
+  private void parseStatements(List<CodeStatement> statements, StringBuilder buffer) {
+
+    int braceDepth = 0;
+    int parenthesisDepth = 0;
+    boolean blockClosed = false;
+    // "while" only continues the statement after the block of a "do" statement
+    boolean doStatement = false;
+    while (true) {
+      int tokenOffset = buffer.length();
+      JavaTokenType token = nextToken();
+      if (token == JavaTokenType.END) {
+        LOG.warn("Unterminated block at offset {} in {}", this.blockStart, this.file);
+        addStatement(statements, buffer, buffer.length());
+        return;
+      } else if (token.isComment()) {
+        if (isBlank(buffer, tokenOffset)) {
+          buffer.setLength(0);
+        }
+        continue;
+      }
+      if (blockClosed) {
+        blockClosed = false;
+        if (!isBlockContinued(token, doStatement)) {
+          addStatement(statements, buffer, tokenOffset);
+          tokenOffset = 0;
+          doStatement = false;
+        }
+      }
+      if ((token == JavaTokenType.IDENTIFIER) && (braceDepth == 0) && (parenthesisDepth == 0) && isToken("do")) {
+        doStatement = true;
+      } else if (token == JavaTokenType.SEPARATOR) {
+        char c = getTokenChar();
+        if (c == '{') {
+          braceDepth++;
+        } else if (c == '}') {
+          if (braceDepth == 0) {
+            addStatement(statements, buffer, tokenOffset);
+            return;
+          }
+          braceDepth--;
+          blockClosed = (braceDepth == 0) && (parenthesisDepth == 0);
+        } else if ((c == '(') || (c == '[')) {
+          parenthesisDepth++;
+        } else if ((c == ')') || (c == ']')) {
+          parenthesisDepth--;
+        } else if ((c == ';') && (braceDepth == 0) && (parenthesisDepth == 0)) {
+          addStatement(statements, buffer, buffer.length());
+          doStatement = false;
+        }
+      }
+    }
+  }
+
+  private boolean isBlockContinued(JavaTokenType token, boolean doStatement) {
+
+    if (token == JavaTokenType.OPERATOR) {
+      return true;
+    } else if (token == JavaTokenType.SEPARATOR) {
+      char c = getTokenChar();
+      return (c == ';') || (c == '.') || (c == ',') || (c == ')') || (c == ']');
+    } else if (token == JavaTokenType.IDENTIFIER) {
+      return isToken("else") || isToken("catch") || isToken("finally") || (doStatement && isToken("while"));
+    }
+    return false;
+  }
+
+  private static void addStatement(List<CodeStatement> statements, StringBuilder buffer, int end) {
 
-    int count = 0;
-    int index = 0;
-    while ((index = str.indexOf(c, index)) != -1) {
-      count++;
-      index++;
+    String code = buffer.substring(0, end).trim();
+    if (!code.isEmpty()) {
+      statements.add(new BaseTextStatement(stripIndent(code)));
+    }
+    buffer.delete(0, end);
+  }
+
+  /**
+   * @param code the trimmed source code of a statement that may span multiple lines (e.g. with a nested block).
+   * @return the given {@code code} with the common indentation of all lines after the first one removed so that these
+   *         lines are indented relative to the statement. Carriage returns are also removed.
+   */
+  private static String stripIndent(String code) {
+
+    int newline = code.indexOf('\n');
+    if (newline < 0) {
+      return code;
+    }
+    int length = code.length();
+    int indent = length;
+    while (newline >= 0) {
+      int lineStart = newline + 1;
+      int i = lineStart;
+      while ((i < length) && CHAR_FILTER_SPACES.accept(code.charAt(i))) {
+        i++;
+      }
+      if ((i < length) && (code.charAt(i) != '\n') && (code.charAt(i) != '\r')) {
+        // blank lines do not count
+        indent = Math.min(indent, i - lineStart);
+      }
+      newline = code.indexOf('\n', i);
+    }
+    StringBuilder sb = new StringBuilder(length);
+    int lineStart = 0;
+    while (true) {
+      newline = code.indexOf('\n', lineStart);
+      int lineEnd = newline;
+      if (lineEnd < 0) {
+        lineEnd = length;
+      }
+      int contentEnd = lineEnd;
+      if ((contentEnd > lineStart) && (code.charAt(contentEnd - 1) == '\r')) {
+        contentEnd--;
+      }
+      int contentStart = lineStart;
+      if (lineStart > 0) {
+        contentStart += Math.min(indent, contentEnd - lineStart);
+      }
+      sb.append(code, contentStart, contentEnd);
+      if (newline < 0) {
+        return sb.toString();
+      }
+      sb.append('\n');
+      lineStart = lineEnd + 1;
+    }
+  }
+
+  private static boolean isBlank(StringBuilder buffer, int end) {
+
+    for (int i = 0; i < end; i++) {
+      if (!Character.isWhitespace(buffer.charAt(i))) {
+        return false;
+      }
     }
-    return count;
+    return true;
   }
 
   private JavaTypeVariablesFromSource parseTypeVariables(CodeElementWithTypeVariables element, BaseElement owner) {
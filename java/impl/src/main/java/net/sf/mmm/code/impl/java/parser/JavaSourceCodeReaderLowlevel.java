@@ -4,17 +4,16 @@ package net.sf.mmm.code.impl.java.parser;
 
 import java.io.Reader;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 
 import net.sf.mmm.code.api.CodeName;
 import net.sf.mmm.code.api.annotation.CodeAnnotation;
 import net.sf.mmm.code.api.comment.CodeComment;
 import net.sf.mmm.code.api.expression.CodeExpression;
 import net.sf.mmm.code.api.imports.CodeImport;
+import net.sf.mmm.code.api.item.CodeSourceRange;
 import net.sf.mmm.code.api.modifier.CodeModifiers;
 import net.sf.mmm.code.api.modifier.CodeVisibility;
 import net.sf.mmm.code.api.operator.CodeNAryOperator;
@@ -28,6 +27,7 @@ import net.sf.mmm.code.base.expression.BaseArrayInstatiation;
 import net.sf.mmm.code.base.expression.BaseFieldReferenceLazy;
 import net.sf.mmm.code.base.expression.BaseMethodInvocation;
 import net.sf.mmm.code.base.member.BaseMethod;
+import net.sf.mmm.code.base.node.BaseNodeItem;
 import net.sf.mmm.code.base.operator.BaseOperator;
 import net.sf.mmm.code.impl.java.expression.JavaNAryOperatorExpression;
 import net.sf.mmm.code.impl.java.expression.literal.JavaLiteral;
@@ -39,7 +39,6 @@ import net.sf.mmm.code.impl.java.expression.literal.JavaLiteralInt;
 import net.sf.mmm.code.impl.java.expression.literal.JavaLiteralLong;
 import net.sf.mmm.code.impl.java.expression.literal.JavaLiteralString;
 import net.sf.mmm.util.filter.api.CharFilter;
-import net.sf.mmm.util.scanner.base.CharReaderScanner;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,16 +49,12 @@ import org.slf4j.LoggerFactory;
  * @author Joerg Hohwiller (hohwille at users.sourceforge.net)
  * @since 1.0.0
  */
-public abstract class JavaSourceCodeReaderLowlevel extends CharReaderScanner {
+public abstract class JavaSourceCodeReaderLowlevel extends JavaSourceCodeTokenizer {
 
   private static final Logger LOG = LoggerFactory.getLogger(JavaSourceCodeReaderLowlevel.class);
 
   static final CharFilter CHAR_FILTER_SPACES = c -> ((c == ' ') || (c == '\t'));
 
-  static final CharFilter CHAR_FILTER_IDENTIFIER = c -> Character.isJavaIdentifierPart(c);
-
-  static final CharFilter CHAR_FILTER_QNAME = c -> Character.isJavaIdentifierPart(c) || (c == '.');
-
   static final CharFilter CHAR_FILTER_ANNOTATION_KEY = c -> ((c == '{') || (c == '=') || (c == ','));
 
   static final CharFilter CHAR_FILTER_OPERATOR = c -> ((c == '+') || (c == '-') || (c == '*') || (c == '/')
@@ -70,8 +65,40 @@ public abstract class JavaSourceCodeReaderLowlevel extends CharReaderScanner {
 
   static final CharFilter CHAR_FILTER_STATEMENT_END = c -> ((c == ';') || (c == '\r') || (c == '\n'));
 
-  /** {@link List} of plain JavaDoc lines collected whilst parsing. */
-  protected final List<String> javaDocLines;
+  private static final String[] MODIFIER_KEYWORDS = { CodeModifiers.KEY_ABSTRACT, CodeModifiers.KEY_DEFAULT,
+  CodeModifiers.KEY_NATIVE, CodeModifiers.KEY_FINAL, CodeModifiers.KEY_VOLATILE, CodeModifiers.KEY_STATIC,
+  CodeModifiers.KEY_SYNCHRONIZED, CodeModifiers.KEY_TRANSIENT };
+
+  private static final int MODIFIER_ABSTRACT = 1;
+
+  private static final int MODIFIER_DEFAULT = 1 << 1;
+
+  private static final int MODIFIER_NATIVE = 1 << 2;
+
+  private static final int MODIFIER_FINAL = 1 << 3;
+
+  private static final int MODIFIER_VOLATILE = 1 << 4;
+
+  private static final int MODIFIER_STATIC = 1 << 5;
+
+  private static final int MODIFIER_SYNCHRONIZED = 1 << 6;
+
+  private static final int MODIFIER_TRANSIENT = 1 << 7;
+
+  private static final CodeVisibility[] VISIBILITIES = { CodeVisibility.PUBLIC, CodeVisibility.PROTECTED,
+  CodeVisibility.DEFAULT, CodeVisibility.PRIVATE };
+
+  /** Immutable {@link CodeModifiers} by {@link CodeVisibility} index and modifier bits. Initialized lazily. */
+  private static final CodeModifiers[] MODIFIERS_CACHE = new CodeModifiers[VISIBILITIES.length
+      << MODIFIER_KEYWORDS.length];
+
+  /** @see #getJavaDoc() */
+  protected String javaDoc;
+
+  /** The {@link CodeSourceRange} of the {@link #getJavaDoc() JavaDoc} or {@code null}. */
+  protected CodeSourceRange javaDocRange;
+
+  private final StringBuilder javaDocBuffer;
 
   /** {@link List} of {@link CodeComment}s collected whilst parsing. */
   protected final List<CodeComment> comments;
@@ -85,6 +112,14 @@ public abstract class JavaSourceCodeReaderLowlevel extends CharReaderScanner {
   /** The current {@link BaseFile} to parse. */
   protected BaseFile file;
 
+  /** The {@link JavaSourceLineIndex} if source ranges are recorded, {@code null} otherwise. */
+  protected JavaSourceLineIndex lineIndex;
+
+  /** The {@link JavaSymbolTable} to intern identifiers and qualified names or {@code null} for a new one per parse. */
+  protected JavaSymbolTable symbols;
+
+  private char[] symbolBuffer;
+
   /**
    * The constructor.
    */
@@ -101,9 +136,10 @@ public abstract class JavaSourceCodeReaderLowlevel extends CharReaderScanner {
   public JavaSourceCodeReaderLowlevel(int capacity) {
 
     super(capacity);
-    this.javaDocLines = new ArrayList<>();
+    this.javaDocBuffer = new StringBuilder(256);
     this.comments = new ArrayList<>();
     this.annotations = new ArrayList<>();
+    this.symbolBuffer = new char[64];
   }
 
   @Override
@@ -112,6 +148,8 @@ public abstract class JavaSourceCodeReaderLowlevel extends CharReaderScanner {
     super.reset();
     clearConsumeState();
     this.file = null;
+    this.lineIndex = null;
+    this.symbols = null;
   }
 
   /**
@@ -119,7 +157,8 @@ public abstract class JavaSourceCodeReaderLowlevel extends CharReaderScanner {
    */
   protected void clearConsumeState() {
 
-    this.javaDocLines.clear();
+    this.javaDoc = null;
+    this.javaDocRange = null;
     this.comments.clear();
     this.elementComment = null;
     this.annotations.clear();
@@ -154,12 +193,13 @@ public abstract class JavaSourceCodeReaderLowlevel extends CharReaderScanner {
   }
 
   /**
-   * @return the plain JavaDoc lines that have been parsed by the last invocation of {@link #consume()}. Will be
-   *         {@link List#isEmpty() empty} for no JavaDoc.
+   * @return the raw JavaDoc (text between "/**" and "*&#47;") that has been read by the last invocation of
+   *         {@link #consume()} or {@code null} for no JavaDoc. Parsed lazily via
+   *         {@link net.sf.mmm.code.base.doc.BaseDoc#setRawDoc(String)}.
    */
-  public List<String> getJavaDocLines() {
+  public String getJavaDoc() {
 
-    return this.javaDocLines;
+    return this.javaDoc;
   }
 
   /**
@@ -223,7 +263,7 @@ public abstract class JavaSourceCodeReaderLowlevel extends CharReaderScanner {
   protected String parseIdentifier() {
 
     if (Character.isJavaIdentifierStart(forcePeek())) {
-      return readWhile(CHAR_FILTER_IDENTIFIER);
+      return readSymbol(false);
     }
     return null;
   }
@@ -234,16 +274,91 @@ public abstract class JavaSourceCodeReaderLowlevel extends CharReaderScanner {
   protected String parseQName() {
 
     if (Character.isJavaIdentifierStart(forcePeek())) {
-      return readWhile(CHAR_FILTER_QNAME);
+      return readSymbol(true);
     }
     return null;
   }
 
+  /**
+   * Reads an identifier or qualified name into the reused symbol buffer while computing its {@link String#hashCode()
+   * hash code} so it can be {@link JavaSymbolTable#intern(char[], int, int) interned} without creating a substring.
+   *
+   * @param qualified - {@code true} to also accept dots (qualified name), {@code false} otherwise (identifier).
+   * @return the interned symbol.
+   */
+  private String readSymbol(boolean qualified) {
+
+    char[] buffer = this.symbolBuffer;
+    int length = 0;
+    int hash = 0;
+    char c = forcePeek();
+    // forcePeek() returns 0 at the end of the stream that is an identifier part for Java
+    while ((c != 0) && (Character.isJavaIdentifierPart(c) || (qualified && (c == '.')))) {
+      if (length == buffer.length) {
+        char[] newBuffer = new char[length * 2];
+        System.arraycopy(buffer, 0, newBuffer, 0, length);
+        buffer = newBuffer;
+        this.symbolBuffer = buffer;
+      }
+      buffer[length++] = c;
+      hash = 31 * hash + c;
+      next();
+      c = forcePeek();
+    }
+    return getSymbols().intern(buffer, length, hash);
+  }
+
+  /**
+   * @return the {@link JavaSymbolTable} to intern identifiers and qualified names. Created lazily for the current parse
+   *         if none was provided.
+   */
+  protected JavaSymbolTable getSymbols() {
+
+    if (this.symbols == null) {
+      // without a context the symbols are only shared within the current parse so nothing is retained afterwards
+      this.symbols = new JavaSymbolTable();
+    }
+    return this.symbols;
+  }
+
+  /**
+   * @param start the offset where the range starts.
+   * @return the {@link CodeSourceRange} from the given {@code start} to the current position or {@code null} if source
+   *         ranges are not recorded.
+   */
+  protected CodeSourceRange createSourceRange(int start) {
+
+    if (this.lineIndex == null) {
+      return null;
+    }
+    int end = (int) getPosition();
+    int last = start;
+    if (end > start) {
+      last = end - 1;
+    }
+    return new CodeSourceRange(start, end, this.lineIndex.getLine(start), this.lineIndex.getLine(last));
+  }
+
+  /**
+   * Sets the {@link BaseNodeItem#getSourceRange() source range} of the given item if source ranges are recorded.
+   *
+   * @param item the {@link BaseNodeItem} that has been parsed.
+   * @param start the offset where the given {@code item} starts in the source code. It ends at the current position.
+   */
+  protected void recordSourceRange(BaseNodeItem item, int start) {
+
+    if (this.lineIndex != null) {
+      item.setSourceRange(createSourceRange(start));
+    }
+  }
+
   private void parseAnnotations() {
 
+    // the '@' has already been consumed
+    int start = (int) getPosition() - 1;
     String annotationTypeName = parseQName();
     String annotationQName = getQualifiedName(annotationTypeName);
-    CodeAnnotation annotation = new BaseAnnotation(this.file.getAnnotations(), annotationTypeName, annotationQName);
+    BaseAnnotation annotation = new BaseAnnotation(this.file.getAnnotations(), annotationTypeName, annotationQName);
     if (expect('(')) {
       parseAnnotationParameters(annotation, annotationTypeName);
     }
@@ -251,6 +366,7 @@ public abstract class JavaSourceCodeReaderLowlevel extends CharReaderScanner {
     if (comment != null) {
       annotation.setComment(comment);
     }
+    recordSourceRange(annotation, start);
     this.annotations.add(annotation);
   }
 
@@ -369,6 +485,10 @@ public abstract class JavaSourceCodeReaderLowlevel extends CharReaderScanner {
       return expression;
     }
     String qName = parseQName();
+    if (qName == null) {
+      // e.g. a lambda or a cast that is not supported
+      return null;
+    }
     parseWhitespacesAndComments();
     if (expect('(')) {
       List<CodeExpression> arguments = new ArrayList<>();
@@ -470,10 +590,20 @@ public abstract class JavaSourceCodeReaderLowlevel extends CharReaderScanner {
       c = forcePeek();
       if (c == '*') { // JavaDoc or regular comment
         next();
-        if (!this.javaDocLines.isEmpty()) {
+        // "/**" has already been consumed
+        int start = (int) getPosition() - 3;
+        String doc = readJavaDoc();
+        if (this.javaDoc == null) {
+          this.javaDoc = doc;
+          this.javaDocRange = createSourceRange(start);
+        } else {
           LOG.warn("Duplicate JavaDoc in {}.", this.file);
+          this.javaDoc = this.javaDoc + "\n" + doc;
+          if (this.javaDocRange != null) {
+            this.javaDocRange = createSourceRange(this.javaDocRange.getStart());
+          }
         }
-        parseDocOrBlockComment(this.javaDocLines);
+        skipWhile(CharFilter.WHITESPACE_FILTER);
       } else {
         List<String> lines = new ArrayList<>();
         parseDocOrBlockComment(lines);
@@ -485,6 +615,27 @@ public abstract class JavaSourceCodeReaderLowlevel extends CharReaderScanner {
     }
   }
 
+  /**
+   * Reads the raw JavaDoc into a single {@link String} without splitting it into lines or tags. The leading "/**" has
+   * to be consumed before.
+   *
+   * @return the raw JavaDoc excluding the comment delimiters.
+   */
+  private String readJavaDoc() {
+
+    StringBuilder buffer = this.javaDocBuffer;
+    buffer.setLength(0);
+    while (hasNext()) {
+      char c = next();
+      if ((c == '*') && (forcePeek() == '/')) {
+        next();
+        break;
+      }
+      buffer.append(c);
+    }
+    return buffer.toString();
+  }
+
   private void parseDocOrBlockComment(List<String> lines) {
 
     String line = readDocOrCommentLine();
@@ -527,6 +678,69 @@ public abstract class JavaSourceCodeReaderLowlevel extends CharReaderScanner {
     return line;
   }
 
+  /**
+   * Skips a block of source code by counting the depth of curly brace {@link #nextToken() tokens}. Curly braces inside
+   * comments as well as string, char and text block literals are ignored. The opening curly brace has to be consumed
+   * before.
+   *
+   * @return {@code true} if the matching closing curly brace has been consumed, {@code false} if the end of the
+   *         source code has been reached before.
+   */
+  protected boolean skipBlock() {
+
+    int depth = 1;
+    JavaTokenType token = nextToken();
+    while (token != JavaTokenType.END) {
+      if (token == JavaTokenType.SEPARATOR) {
+        char c = getTokenChar();
+        if (c == '{') {
+          depth++;
+        } else if (c == '}') {
+          depth--;
+          if (depth == 0) {
+            return true;
+          }
+        }
+      }
+      token = nextToken();
+    }
+    return false;
+  }
+
+  /**
+   * Skips the rest of a statement including its terminating semicolon. Nested curly braces, parenthesis and brackets
+   * (e.g. of an anonymous class or a lambda) are skipped as a whole.
+   *
+   * @return {@code true} if the terminating semicolon has been consumed, {@code false} if the end of the enclosing
+   *         block or of the source code has been reached before.
+   */
+  protected boolean skipStatement() {
+
+    int depth = 0;
+    while (true) {
+      if (depth == 0) {
+        skipWhile(CharFilter.WHITESPACE_FILTER);
+        if (forcePeek() == '}') {
+          // leave the closing curly brace of the enclosing block
+          return false;
+        }
+      }
+      JavaTokenType token = nextToken();
+      if (token == JavaTokenType.END) {
+        return false;
+      } else if (token == JavaTokenType.SEPARATOR) {
+        char c = getTokenChar();
+        if ((c == '{') || (c == '(') || (c == '[')) {
+          depth++;
+        } else if ((c == '}') || (c == ')') || (c == ']')) {
+          depth--;
+        } else if ((c == ';') && (depth == 0)) {
+          return true;
+        }
+      }
+    }
+  }
+
   /**
    * @param inInterface - {@code true} if in the context of an interface (where public is the default), {@code false}
    *        otherwise.
@@ -535,34 +749,32 @@ public abstract class JavaSourceCodeReaderLowlevel extends CharReaderScanner {
   protected CodeModifiers parseModifiers(boolean inInterface) {
 
     CodeVisibility visibility = parseVisibility(null);
-    Set<String> modifiers = new HashSet<>();
+    int modifiers = 0;
     boolean found = true;
     while (found) {
       skipWhile(CharFilter.WHITESPACE_FILTER);
       char c = forcePeek();
+      int modifier = 0;
       if (c == 'a') {
-        found = parseModifierKeyword(modifiers, CodeModifiers.KEY_ABSTRACT);
+        modifier = parseModifierKeyword(MODIFIER_ABSTRACT);
       } else if (c == 'd') {
-        found = parseModifierKeyword(modifiers, CodeModifiers.KEY_DEFAULT);
+        modifier = parseModifierKeyword(MODIFIER_DEFAULT);
       } else if (c == 'n') {
-        found = parseModifierKeyword(modifiers, CodeModifiers.KEY_NATIVE);
+        modifier = parseModifierKeyword(MODIFIER_NATIVE);
       } else if (c == 'f') {
-        found = parseModifierKeyword(modifiers, CodeModifiers.KEY_FINAL);
+        modifier = parseModifierKeyword(MODIFIER_FINAL);
       } else if (c == 'v') {
-        found = parseModifierKeyword(modifiers, CodeModifiers.KEY_VOLATILE);
+        modifier = parseModifierKeyword(MODIFIER_VOLATILE);
       } else if (c == 's') {
-        found = parseModifierKeyword(modifiers, CodeModifiers.KEY_STATIC);
-        if (!found) {
-          found = parseModifierKeyword(modifiers, CodeModifiers.KEY_SYNCHRONIZED);
-          if (!found) {
-            found = parseModifierKeyword(modifiers, CodeModifiers.KEY_SYNCHRONIZED);
-          }
+        modifier = parseModifierKeyword(MODIFIER_STATIC);
+        if (modifier == 0) {
+          modifier = parseModifierKeyword(MODIFIER_SYNCHRONIZED);
         }
       } else if (c == 't') {
-        found = parseModifierKeyword(modifiers, CodeModifiers.KEY_TRANSIENT);
-      } else {
-        found = false;
+        modifier = parseModifierKeyword(MODIFIER_TRANSIENT);
       }
+      modifiers = modifiers | modifier;
+      found = (modifier != 0);
       if (visibility == null) {
         visibility = parseVisibility(null);
         if (!found) {
@@ -573,16 +785,37 @@ public abstract class JavaSourceCodeReaderLowlevel extends CharReaderScanner {
     if (visibility == null) {
       visibility = getVisibilityFallback(inInterface);
     }
-    return new CodeModifiers(visibility, modifiers);
+    return getModifiers(visibility, modifiers);
   }
 
-  private boolean parseModifierKeyword(Set<String> modifiers, String modifier) {
+  private int parseModifierKeyword(int modifier) {
 
-    if (expectStrict(modifier)) {
-      modifiers.add(modifier);
-      return true;
+    if (expectStrict(MODIFIER_KEYWORDS[Integer.numberOfTrailingZeros(modifier)])) {
+      return modifier;
     }
-    return false;
+    return 0;
+  }
+
+  private static CodeModifiers getModifiers(CodeVisibility visibility, int modifiers) {
+
+    int visibilityIndex = 0;
+    while (VISIBILITIES[visibilityIndex] != visibility) {
+      visibilityIndex++;
+    }
+    int index = (visibilityIndex << MODIFIER_KEYWORDS.length) | modifiers;
+    CodeModifiers result = MODIFIERS_CACHE[index];
+    if (result == null) {
+      // benign race: CodeModifiers is immutable
+      List<String> keywords = new ArrayList<>(Integer.bitCount(modifiers));
+      for (int i = 0; i < MODIFIER_KEYWORDS.length; i++) {
+        if ((modifiers & (1 << i)) != 0) {
+          keywords.add(MODIFIER_KEYWORDS[i]);
+        }
+      }
+      result = new CodeModifiers(visibility, keywords);
+      MODIFIERS_CACHE[index] = result;
+    }
+    return result;
   }
 
   private CodeVisibility getVisibilityFallback(boolean inInterface) {
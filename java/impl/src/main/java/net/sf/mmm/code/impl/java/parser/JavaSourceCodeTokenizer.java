@@ -0,0 +1,355 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.impl.java.parser;
+
+import net.sf.mmm.util.scanner.base.CharReaderScanner;
+
+/**
+ * Streaming tokenizer for Java source code. Each invocation of {@link #nextToken()} skips whitespaces and reads the
+ * next token. The characters of the current token are collected in a reusable buffer (see {@link #getTokenBuffer()}) so
+ * tokenizing does not allocate anything. String, char and text block literals as well as comments are recognized as
+ * single tokens so curly braces or semicolons inside them are never mistaken for structure.
+ *
+ * @author Joerg Hohwiller (hohwille at users.sourceforge.net)
+ * @since 1.0.0
+ */
+public abstract class JavaSourceCodeTokenizer extends CharReaderScanner {
+
+  private static final String SEPARATORS = "(){}[];,.@";
+
+  private char[] tokenBuffer;
+
+  private int tokenLength;
+
+  private int tokenStart;
+
+  private JavaTokenType tokenType;
+
+  private StringBuilder capture;
+
+  private boolean hashing;
+
+  private int hash;
+
+  /**
+   * The constructor.
+   *
+   * @param capacity the buffer capacity.
+   */
+  public JavaSourceCodeTokenizer(int capacity) {
+
+    super(capacity);
+    this.tokenBuffer = new char[64];
+  }
+
+  @Override
+  protected void reset() {
+
+    super.reset();
+    this.tokenLength = 0;
+    this.tokenStart = 0;
+    this.tokenType = null;
+    this.capture = null;
+    this.hashing = false;
+  }
+
+  /**
+   * @param buffer the {@link StringBuilder} where all consumed characters (including whitespaces and comments) are
+   *        appended to by {@link #nextToken()} or {@code null} to stop capturing.
+   */
+  protected void setCapture(StringBuilder buffer) {
+
+    this.capture = buffer;
+  }
+
+  /**
+   * Starts to compute the {@link #stopHash() hash} of all characters consumed by {@link #nextToken()}. The result is
+   * the same as {@link String#hashCode()} of the consumed source code.
+   *
+   * @param first the first character that has already been consumed.
+   */
+  protected void startHash(char first) {
+
+    this.hash = first;
+    this.hashing = true;
+  }
+
+  /**
+   * @return the hash of the characters consumed since {@link #startHash(char)}.
+   */
+  protected int stopHash() {
+
+    this.hashing = false;
+    return this.hash;
+  }
+
+  /**
+   * Skips whitespaces and reads the next token.
+   *
+   * @return the {@link JavaTokenType} of the token that has been read. Will be {@link JavaTokenType#END} at the end of
+   *         the source code.
+   */
+  public JavaTokenType nextToken() {
+
+    this.tokenLength = 0;
+    char c = forcePeek();
+    while ((c != 0) && Character.isWhitespace(c)) {
+      read();
+      c = forcePeek();
+    }
+    this.tokenStart = (int) getPosition();
+    if (!hasNext()) {
+      this.tokenType = JavaTokenType.END;
+      return this.tokenType;
+    }
+    c = readToken();
+    JavaTokenType type;
+    if (Character.isJavaIdentifierStart(c)) {
+      c = forcePeek();
+      while ((c != 0) && Character.isJavaIdentifierPart(c)) {
+        readToken();
+        c = forcePeek();
+      }
+      type = JavaTokenType.IDENTIFIER;
+    } else if (isDigit(c) || ((c == '.') && isDigit(forcePeek()))) {
+      readNumber();
+      type = JavaTokenType.NUMBER;
+    } else if (c == '"') {
+      type = readString();
+    } else if (c == '\'') {
+      readQuoted('\'');
+      type = JavaTokenType.CHAR;
+    } else if (c == '/') {
+      c = forcePeek();
+      if (c == '/') {
+        readToken();
+        while (hasNext() && (forcePeek() != '\n') && (forcePeek() != '\r')) {
+          readToken();
+        }
+        type = JavaTokenType.LINE_COMMENT;
+      } else if (c == '*') {
+        readToken();
+        type = readBlockComment();
+      } else {
+        type = JavaTokenType.OPERATOR;
+      }
+    } else if (SEPARATORS.indexOf(c) >= 0) {
+      type = JavaTokenType.SEPARATOR;
+    } else {
+      type = JavaTokenType.OPERATOR;
+    }
+    this.tokenType = type;
+    return type;
+  }
+
+  private static boolean isDigit(char c) {
+
+    return (c >= '0') && (c <= '9');
+  }
+
+  private void readNumber() {
+
+    boolean hex = false;
+    if (this.tokenBuffer[0] == '0') {
+      char c = forcePeek();
+      hex = (c == 'x') || (c == 'X');
+    }
+    while (true) {
+      char c = forcePeek();
+      if ((c == '.') || (c == '_') || Character.isLetterOrDigit(c)) {
+        readToken();
+      } else if ((c == '+') || (c == '-')) {
+        char last = this.tokenBuffer[this.tokenLength - 1];
+        boolean exponent;
+        if (hex) {
+          exponent = (last == 'p') || (last == 'P');
+        } else {
+          exponent = (last == 'e') || (last == 'E');
+        }
+        if (!exponent) {
+          return;
+        }
+        readToken();
+      } else {
+        return;
+      }
+    }
+  }
+
+  private JavaTokenType readString() {
+
+    if (forcePeek() == '"') {
+      readToken();
+      if (forcePeek() != '"') {
+        // empty string literal
+        return JavaTokenType.STRING;
+      }
+      readToken();
+      int quotes = 0;
+      while (hasNext()) {
+        char c = readToken();
+        if (c == '\\') {
+          quotes = 0;
+          if (hasNext()) {
+            readToken();
+          }
+        } else if (c == '"') {
+          quotes++;
+          if (quotes == 3) {
+            break;
+          }
+        } else {
+          quotes = 0;
+        }
+      }
+      return JavaTokenType.TEXT_BLOCK;
+    }
+    readQuoted('"');
+    return JavaTokenType.STRING;
+  }
+
+  private void readQuoted(char quote) {
+
+    while (hasNext()) {
+      char c = forcePeek();
+      if ((c == '\n') || (c == '\r')) {
+        // unterminated literal
+        return;
+      }
+      readToken();
+      if (c == '\\') {
+        if (hasNext()) {
+          readToken();
+        }
+      } else if (c == quote) {
+        return;
+      }
+    }
+  }
+
+  private JavaTokenType readBlockComment() {
+
+    JavaTokenType type = JavaTokenType.BLOCK_COMMENT;
+    if (forcePeek() == '*') {
+      readToken();
+      if (forcePeek() == '/') {
+        // "/**/" is an empty block comment
+        readToken();
+        return type;
+      }
+      type = JavaTokenType.JAVA_DOC;
+    }
+    boolean star = false;
+    while (hasNext()) {
+      char c = readToken();
+      if (star && (c == '/')) {
+        break;
+      }
+      star = (c == '*');
+    }
+    return type;
+  }
+
+  private char read() {
+
+    char c = next();
+    if (this.capture != null) {
+      this.capture.append(c);
+    }
+    if (this.hashing) {
+      this.hash = 31 * this.hash + c;
+    }
+    return c;
+  }
+
+  private char readToken() {
+
+    char c = read();
+    if (this.tokenLength == this.tokenBuffer.length) {
+      char[] buffer = new char[this.tokenLength * 2];
+      System.arraycopy(this.tokenBuffer, 0, buffer, 0, this.tokenLength);
+      this.tokenBuffer = buffer;
+    }
+    this.tokenBuffer[this.tokenLength++] = c;
+    return c;
+  }
+
+  /**
+   * @return the {@link JavaTokenType} of the current token read by the last invocation of {@link #nextToken()}.
+   */
+  public JavaTokenType getTokenType() {
+
+    return this.tokenType;
+  }
+
+  /**
+   * @return the offset of the current token in the source code.
+   */
+  public int getTokenStart() {
+
+    return this.tokenStart;
+  }
+
+  /**
+   * @return the offset after the current token in the source code.
+   */
+  public int getTokenEnd() {
+
+    return this.tokenStart + this.tokenLength;
+  }
+
+  /**
+   * @return the number of characters of the current token.
+   */
+  public int getTokenLength() {
+
+    return this.tokenLength;
+  }
+
+  /**
+   * @return the reusable buffer with the characters of the current token from index {@code 0} to
+   *         {@link #getTokenLength()}. Will be overwritten by the next invocation of {@link #nextToken()}.
+   */
+  public char[] getTokenBuffer() {
+
+    return this.tokenBuffer;
+  }
+
+  /**
+   * @return the first character of the current token or {@code 0} for {@link JavaTokenType#END}. Typically used to
+   *         distinguish {@link JavaTokenType#SEPARATOR separators} and {@link JavaTokenType#OPERATOR operators}.
+   */
+  public char getTokenChar() {
+
+    if (this.tokenLength == 0) {
+      return 0;
+    }
+    return this.tokenBuffer[0];
+  }
+
+  /**
+   * @param text the expected text.
+   * @return {@code true} if the current token is equal to the given {@code text}, {@code false} otherwise.
+   */
+  public boolean isToken(String text) {
+
+    if (text.length() != this.tokenLength) {
+      return false;
+    }
+    for (int i = 0; i < this.tokenLength; i++) {
+      if (text.charAt(i) != this.tokenBuffer[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the text of the current token as new {@link String}.
+   */
+  public String getTokenText() {
+
+    return new String(this.tokenBuffer, 0, this.tokenLength);
+  }
+
+}
@@ -0,0 +1,95 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.impl.java.parser;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * {@link FilterReader} that records the offsets of all newlines while the source code is read. This allows to
+ * determine the {@link #getLine(int) line number} of any offset that has already been read via binary search without
+ * tracking lines in the parser itself.
+ *
+ * @author Joerg Hohwiller (hohwille at users.sourceforge.net)
+ * @since 1.0.0
+ */
+public class JavaSourceLineIndex extends FilterReader {
+
+  private int[] newlines;
+
+  private int newlineCount;
+
+  private int offset;
+
+  /**
+   * The constructor.
+   *
+   * @param reader the {@link Reader} to read the source code from.
+   */
+  public JavaSourceLineIndex(Reader reader) {
+
+    super(reader);
+    this.newlines = new int[256];
+  }
+
+  @Override
+  public int read() throws IOException {
+
+    int c = super.read();
+    if (c >= 0) {
+      record((char) c);
+    }
+    return c;
+  }
+
+  @Override
+  public int read(char[] buffer, int start, int length) throws IOException {
+
+    int count = super.read(buffer, start, length);
+    int end = start + count;
+    for (int i = start; i < end; i++) {
+      record(buffer[i]);
+    }
+    return count;
+  }
+
+  private void record(char c) {
+
+    if (c == '\n') {
+      if (this.newlineCount == this.newlines.length) {
+        this.newlines = Arrays.copyOf(this.newlines, this.newlineCount * 2);
+      }
+      this.newlines[this.newlineCount++] = this.offset;
+    }
+    this.offset++;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+
+    throw new IOException("skip not supported");
+  }
+
+  @Override
+  public boolean markSupported() {
+
+    return false;
+  }
+
+  /**
+   * @param position the character offset in the source code that has already been read.
+   * @return the line number of the given {@code position} starting with {@code 1}.
+   */
+  public int getLine(int position) {
+
+    int index = Arrays.binarySearch(this.newlines, 0, this.newlineCount, position);
+    if (index < 0) {
+      index = -index - 1;
+    }
+    // the newline itself still belongs to its line
+    return index + 1;
+  }
+
+}
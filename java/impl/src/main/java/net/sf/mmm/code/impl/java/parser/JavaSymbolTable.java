@@ -0,0 +1,181 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.impl.java.parser;
+
+/**
+ * A symbol table to intern identifiers and qualified names while parsing Java source code. The
+ * {@link JavaSourceCodeReaderLowlevel reader} scans a symbol into a reusable {@code char[]} and computes its
+ * {@link String#hashCode() hash code} on the fly. It then {@link #intern(char[], int, int) looks it up} here, so a
+ * {@link String} is only created the first time a symbol is seen. All occurrences of the same identifier (e.g. "get",
+ * "value" or "java.lang.String") therefore share a single {@link String} instance in the code model. The Java keywords
+ * and some common names are pre-interned. Lookups are lock-free. Only adding a new symbol is synchronized. A symbol
+ * table is owned by a {@link net.sf.mmm.code.impl.java.JavaContext} that {@link #clear() clears} it whenever parsed
+ * types are evicted or invalidated, so it does not retain the symbols of types that are no longer cached. If the
+ * parsed file has no such context, a new symbol table is used per parse.
+ *
+ * @see net.sf.mmm.code.impl.java.JavaContext#getSymbolTable()
+ * @author Joerg Hohwiller (hohwille at users.sourceforge.net)
+ * @since 1.0.0
+ */
+public class JavaSymbolTable {
+
+  private static final String[] PREDEFINED_SYMBOLS = { "abstract", "assert", "boolean", "break", "byte", "case",
+  "catch", "char", "class", "const", "continue", "default", "do", "double", "else", "enum", "extends", "false", "final",
+  "finally", "float", "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+  "new", "null", "package", "private", "protected", "public", "return", "short", "static", "strictfp", "super",
+  "switch", "synchronized", "this", "throw", "throws", "transient", "true", "try", "void", "volatile", "while", "var",
+  "Object", "String", "Class", "Override", "Deprecated", "SuppressWarnings", "FunctionalInterface", "Exception",
+  "RuntimeException", "java.lang.Object", "java.lang.String", "java.lang.Class", "java.lang.Override", "value", "get",
+  "set", "is", "equals", "hashCode", "toString", "T", "E", "K", "V" };
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private volatile String[] table;
+
+  private int size;
+
+  /**
+   * The constructor.
+   */
+  public JavaSymbolTable() {
+
+    super();
+    this.table = createTable();
+    this.size = PREDEFINED_SYMBOLS.length;
+  }
+
+  private static String[] createTable() {
+
+    String[] symbols = new String[INITIAL_CAPACITY];
+    int mask = symbols.length - 1;
+    for (String symbol : PREDEFINED_SYMBOLS) {
+      int index = mix(symbol.hashCode()) & mask;
+      while (symbols[index] != null) {
+        index = (index + 1) & mask;
+      }
+      symbols[index] = symbol;
+    }
+    return symbols;
+  }
+
+  /**
+   * Removes all symbols except the pre-interned ones. Symbols that are still referenced by the code model remain valid
+   * but are no longer shared with symbols interned afterwards.
+   */
+  public synchronized void clear() {
+
+    if (this.size > PREDEFINED_SYMBOLS.length) {
+      this.table = createTable();
+      this.size = PREDEFINED_SYMBOLS.length;
+    }
+  }
+
+  /**
+   * @return the number of interned symbols.
+   */
+  public synchronized int getSize() {
+
+    return this.size;
+  }
+
+  /**
+   * @param chars the buffer containing the symbol.
+   * @param length the length of the symbol starting at index {@code 0} of the given {@code chars}.
+   * @param hash the {@link String#hashCode() hash code} of the symbol.
+   * @return the interned {@link String} for the symbol. Only created if the symbol was not interned before.
+   */
+  public String intern(char[] chars, int length, int hash) {
+
+    String[] symbols = this.table;
+    int mask = symbols.length - 1;
+    int index = mix(hash) & mask;
+    String symbol = symbols[index];
+    while (symbol != null) {
+      if ((symbol.hashCode() == hash) && matches(symbol, chars, length)) {
+        return symbol;
+      }
+      index = (index + 1) & mask;
+      symbol = symbols[index];
+    }
+    return add(new String(chars, 0, length));
+  }
+
+  /**
+   * @param symbol the symbol to intern.
+   * @return the interned {@link String} that is {@link String#equals(Object) equal} to the given {@code symbol}. May
+   *         be the given {@code symbol} itself if it was not interned before.
+   */
+  public String intern(String symbol) {
+
+    int hash = symbol.hashCode();
+    String[] symbols = this.table;
+    int mask = symbols.length - 1;
+    int index = mix(hash) & mask;
+    String interned = symbols[index];
+    while (interned != null) {
+      if ((interned.hashCode() == hash) && interned.equals(symbol)) {
+        return interned;
+      }
+      index = (index + 1) & mask;
+      interned = symbols[index];
+    }
+    return add(symbol);
+  }
+
+  private synchronized String add(String symbol) {
+
+    String[] symbols = this.table;
+    int mask = symbols.length - 1;
+    int index = mix(symbol.hashCode()) & mask;
+    String interned = symbols[index];
+    while (interned != null) {
+      if (interned.equals(symbol)) {
+        // added concurrently
+        return interned;
+      }
+      index = (index + 1) & mask;
+      interned = symbols[index];
+    }
+    symbols[index] = symbol;
+    this.size++;
+    if ((this.size * 2) > symbols.length) {
+      this.table = rehash(symbols);
+    }
+    return symbol;
+  }
+
+  private static String[] rehash(String[] symbols) {
+
+    String[] newSymbols = new String[symbols.length * 2];
+    int mask = newSymbols.length - 1;
+    for (String symbol : symbols) {
+      if (symbol != null) {
+        int index = mix(symbol.hashCode()) & mask;
+        while (newSymbols[index] != null) {
+          index = (index + 1) & mask;
+        }
+        newSymbols[index] = symbol;
+      }
+    }
+    return newSymbols;
+  }
+
+  private static int mix(int hash) {
+
+    return hash ^ (hash >>> 16);
+  }
+
+  private static boolean matches(String symbol, char[] chars, int length) {
+
+    if (symbol.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (symbol.charAt(i) != chars[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
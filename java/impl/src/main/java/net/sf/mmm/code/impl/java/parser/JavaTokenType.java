@@ -0,0 +1,55 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.impl.java.parser;
+
+/**
+ * Enum with the types of the tokens produced by {@link JavaSourceCodeTokenizer#nextToken()}.
+ *
+ * @author Joerg Hohwiller (hohwille at users.sourceforge.net)
+ * @since 1.0.0
+ */
+public enum JavaTokenType {
+
+  /** An identifier or keyword (e.g. "foo", "String" or "return"). */
+  IDENTIFIER,
+
+  /** A number literal (e.g. "42", "0x1F", "1.5e-3" or "10L"). */
+  NUMBER,
+
+  /** A string literal including its quotes (e.g. "\"foo\""). */
+  STRING,
+
+  /** A text block literal including its triple quotes. */
+  TEXT_BLOCK,
+
+  /** A char literal including its quotes (e.g. "'}'"). */
+  CHAR,
+
+  /** A single line comment starting with "//" excluding the terminating newline. */
+  LINE_COMMENT,
+
+  /** A block comment from "/*" to "*&#47;". */
+  BLOCK_COMMENT,
+
+  /** A JavaDoc comment from "/**" to "*&#47;". */
+  JAVA_DOC,
+
+  /** One of the separators "(", ")", "{", "}", "[", "]", ";", ",", "." and "@". */
+  SEPARATOR,
+
+  /** A single operator character (e.g. "=", "+", "&lt;", "?" or ":"). */
+  OPERATOR,
+
+  /** The end of the source code. */
+  END;
+
+  /**
+   * @return {@code true} if {@link #LINE_COMMENT}, {@link #BLOCK_COMMENT} or {@link #JAVA_DOC}, {@code false}
+   *         otherwise.
+   */
+  public boolean isComment() {
+
+    return (this == LINE_COMMENT) || (this == BLOCK_COMMENT) || (this == JAVA_DOC);
+  }
+
+}
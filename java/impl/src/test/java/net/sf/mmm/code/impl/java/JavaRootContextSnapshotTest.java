@@ -0,0 +1,135 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.impl.java;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Test;
+
+import net.sf.mmm.code.api.member.CodeMethod;
+import net.sf.mmm.code.base.type.BaseType;
+
+/**
+ * Test of {@link JavaRootContextSnapshot}.
+ */
+public class JavaRootContextSnapshotTest extends Assertions {
+
+  private final List<File> directories = new ArrayList<>();
+
+  private File createDirectory() throws IOException {
+
+    File directory = Files.createTempDirectory("mmm-code-snapshot").toFile();
+    this.directories.add(directory);
+    return directory;
+  }
+
+  /**
+   * Deletes the snapshot directories created by the test.
+   */
+  @After
+  public void deleteDirectories() {
+
+    for (File directory : this.directories) {
+      File[] children = directory.listFiles();
+      if (children != null) {
+        for (File child : children) {
+          child.delete();
+        }
+      }
+      directory.delete();
+    }
+  }
+
+  /**
+   * Test of {@link JavaRootContextSnapshot#get(File)} without a written snapshot.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testGetWithoutSnapshot() throws Exception {
+
+    // given
+    File directory = createDirectory();
+
+    // when
+    JavaRootContextSnapshot snapshot = JavaRootContextSnapshot.get(directory);
+
+    // then
+    assertThat(snapshot).isNull();
+    assertThat(directory.list()).isEmpty();
+  }
+
+  /**
+   * Test of {@link JavaRootContextSnapshot#write(JavaRootContext, File)} and {@link JavaRootContextSnapshot#get(File)}.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testWriteAndGet() throws Exception {
+
+    // given
+    File directory = createDirectory();
+    JavaRootContext context = JavaRootContext.create(null);
+    BaseType arrayList = context.getType("java.util.ArrayList");
+    assertThat(arrayList.getReflectiveObject()).isSameAs(java.util.ArrayList.class);
+    assertThat(arrayList.getMethods().getFirst("add")).isNotNull();
+
+    // when
+    boolean written = JavaRootContextSnapshot.write(context, directory);
+    JavaRootContextSnapshot snapshot = JavaRootContextSnapshot.get(directory);
+
+    // then
+    assertThat(written).isTrue();
+    assertThat(directory.list()).hasSize(1); // no temporary files left
+    assertThat(snapshot).isNotNull();
+    assertThat(snapshot.getKey()).contains(System.getProperty("java.version"));
+    assertThat(snapshot.contains("java.lang.String")).isTrue();
+    assertThat(snapshot.contains("java.util.Map$Entry")).isTrue();
+    assertThat(snapshot.contains("java.util.Map.Entry")).isFalse();
+    assertThat(snapshot.contains("com.example.Undefined")).isFalse();
+    assertThat(snapshot.getTypeNames("java.util")).contains("ArrayList", "Map").doesNotContain("Map$Entry",
+        "concurrent.ConcurrentHashMap");
+    assertThat(snapshot.hasType("java.util.ArrayList")).isTrue();
+    assertThat(snapshot.hasType("java.util.Map$Entry")).isFalse();
+    assertThat(snapshot.hasType("com.example.Undefined")).isFalse();
+  }
+
+  /**
+   * Test of {@link JavaRootContext} rehydrating types from a {@link JavaRootContextSnapshot}.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testRehydrate() throws Exception {
+
+    // given
+    File directory = createDirectory();
+    JavaRootContext context = JavaRootContext.create(null);
+    context.getType("java.util.ArrayList").getMethods().getDeclared();
+    JavaRootContextSnapshot.write(context, directory);
+    JavaRootContextSnapshot snapshot = JavaRootContextSnapshot.get(directory);
+
+    // when
+    JavaRootContext snapshotContext = JavaRootContext.create(snapshot);
+    BaseType arrayList = snapshotContext.getType("java.util.ArrayList");
+
+    // then
+    assertThat(arrayList).isNotNull();
+    assertThat(arrayList.getReflectiveObject()).isNull();
+    assertThat(arrayList.getQualifiedName()).isEqualTo("java.util.ArrayList");
+    assertThat(arrayList.getTypeParameters().getDeclared()).hasSize(1);
+    assertThat(arrayList.getTypeParameters().getDeclared().get(0).getName()).isEqualTo("E");
+    CodeMethod add = arrayList.getMethods().getFirst("add");
+    assertThat(add).isNotNull();
+    assertThat(add.getReturns().getType().getSimpleName()).isEqualTo("boolean");
+    assertThat(snapshotContext.getType("java.util.ArrayList")).isSameAs(arrayList);
+    assertThat(snapshotContext.getType("java.lang.String")).isNotNull();
+  }
+
+}
@@ -3,7 +3,13 @@
 package net.sf.mmm.code.impl.java;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import net.sf.mmm.code.api.language.CodeLanguage;
 import net.sf.mmm.code.api.member.CodeField;
@@ -202,6 +208,50 @@ public class JavaRootContextTest extends AbstractBaseTypeTest {
     assertThat(classLoader).isSameAs(ClassLoader.getSystemClassLoader());
   }
 
+  /**
+   * Test of {@link JavaRootContext#get()} shared by multiple threads.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testConcurrentAccess() throws Exception {
+
+    // given
+    JavaRootContext context = getContext();
+    int threadCount = 8;
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    List<Future<CodeType>> futures = new ArrayList<>();
+    Callable<CodeType> lookup = () -> {
+      start.await();
+      CodeType type = context.getType("java.util.concurrent.ConcurrentSkipListMap");
+      type.getMethods().getDeclared();
+      type.getFields().getDeclared();
+      return type;
+    };
+
+    // when
+    for (int i = 0; i < threadCount; i++) {
+      futures.add(executor.submit(lookup));
+    }
+    start.countDown();
+    List<CodeType> types = new ArrayList<>();
+    for (Future<CodeType> future : futures) {
+      types.add(future.get());
+    }
+    executor.shutdown();
+
+    // then
+    assertThat(context.isConcurrent()).isTrue();
+    CodeType type = types.get(0);
+    int methodCount = type.getMethods().getDeclared().size();
+    assertThat(methodCount).isGreaterThan(0);
+    for (CodeType t : types) {
+      assertThat(t).isSameAs(type);
+      assertThat(t.getMethods().getDeclared()).hasSize(methodCount);
+    }
+  }
+
   private void checkProperty(CodeProperties properties, String name, Class<?> type) {
 
     CodeProperty property = properties.get(name);
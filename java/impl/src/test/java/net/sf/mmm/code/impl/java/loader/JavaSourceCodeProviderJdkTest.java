@@ -0,0 +1,139 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.impl.java.loader;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test of {@link JavaSourceCodeProviderJdk}.
+ */
+public class JavaSourceCodeProviderJdkTest extends Assertions {
+
+  private static final String STRING = "package java.lang;\n\npublic final class String {}\n";
+
+  private static final String CONNECTION = "package java.sql;\n\npublic interface Connection {}\n";
+
+  private File srcZip;
+
+  private File createSrcZip() throws Exception {
+
+    this.srcZip = new File(Files.createTempDirectory("mmm-code-jdk").toFile(), "src.zip");
+    return this.srcZip;
+  }
+
+  /**
+   * Deletes the temporary {@link #srcZip} and its directory.
+   */
+  @After
+  public void deleteSrcZip() {
+
+    if (this.srcZip != null) {
+      this.srcZip.delete();
+      this.srcZip.getParentFile().delete();
+    }
+  }
+
+  /**
+   * Test of {@link JavaSourceCodeProviderJdk} with a {@code src.zip} of Java 9+ using module prefixes.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testModules() throws Exception {
+
+    // given
+    File srcZip = createSrcZip();
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(srcZip))) {
+      write(out, "java.base/module-info.java", "module java.base {}");
+      write(out, "java.base/java/lang/String.java", STRING);
+      write(out, "java.base/java/lang/package-info.java", "package java.lang;");
+      write(out, "java.base/java/lang/annotation/Target.java", "package java.lang.annotation;");
+      write(out, "java.sql/module-info.java", "module java.sql {}");
+      write(out, "java.sql/java/sql/Connection.java", CONNECTION);
+    }
+
+    // when
+    try (JavaSourceCodeProviderJdk provider = new JavaSourceCodeProviderJdk(srcZip)) {
+
+      // then
+      assertThat(provider.isIndexed()).isFalse();
+      assertThat(read(provider.openType("java.lang.String"))).isEqualTo(STRING);
+      assertThat(provider.isIndexed()).isTrue();
+      assertThat(read(provider.openType("java.sql.Connection"))).isEqualTo(CONNECTION);
+      assertThat(read(provider.openPackage("java.lang"))).isEqualTo("package java.lang;");
+      assertThat(provider.openType("java.lang.Undefined")).isNull();
+      assertThat(provider.openType("java.util.List")).isNull();
+      assertThat(provider.getModule("java.lang")).isEqualTo("java.base");
+      assertThat(provider.getModule("java.sql")).isEqualTo("java.sql");
+      assertThat(provider.scanPackage("java.lang")).containsExactly("String");
+      assertThat(provider.scanPackage("java")).isEmpty();
+      assertThat(provider.scanSubPackages("")).containsExactly("java");
+      assertThat(provider.scanSubPackages("java")).containsExactly("lang", "sql");
+      assertThat(provider.scanSubPackages("java.lang")).containsExactly("annotation");
+      assertThat(provider.streamTypes("java.lang", false)).containsExactly("java.lang.String");
+      assertThat(provider.streamTypes("java", true)).containsExactly("java.lang.String",
+          "java.lang.annotation.Target", "java.sql.Connection");
+      assertThat(provider.streamTypes("", true)).hasSize(3);
+    }
+  }
+
+  /**
+   * Test of {@link JavaSourceCodeProviderJdk} with a {@code src.zip} of Java 8 without modules.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testLegacy() throws Exception {
+
+    // given
+    File srcZip = createSrcZip();
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(srcZip))) {
+      write(out, "java/lang/String.java", STRING);
+      write(out, "java/sql/Connection.java", CONNECTION);
+    }
+
+    // when
+    try (JavaSourceCodeProviderJdk provider = new JavaSourceCodeProviderJdk(srcZip)) {
+
+      // then
+      assertThat(read(provider.openType("java.lang.String"))).isEqualTo(STRING);
+      assertThat(provider.getModule("java.lang")).isNull();
+      assertThat(provider.scanPackage("java.sql")).containsExactly("Connection");
+      assertThat(provider.scanSubPackages("java")).containsExactly("lang", "sql");
+      assertThat(provider.streamTypes("", true)).containsExactly("java.lang.String", "java.sql.Connection");
+    }
+  }
+
+  private static void write(ZipOutputStream out, String path, String content) throws Exception {
+
+    out.putNextEntry(new ZipEntry(path));
+    out.write(content.getBytes(StandardCharsets.UTF_8));
+    out.closeEntry();
+  }
+
+  private static String read(Reader reader) throws Exception {
+
+    assertThat(reader).isNotNull();
+    StringBuilder sb = new StringBuilder();
+    try (BufferedReader br = new BufferedReader(reader)) {
+      int c = br.read();
+      while (c >= 0) {
+        sb.append((char) c);
+        c = br.read();
+      }
+    }
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,197 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.impl.java.loader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Test;
+
+import net.sf.mmm.code.api.CodePathElement;
+import net.sf.mmm.code.api.statement.CodeStatement;
+import net.sf.mmm.code.base.BaseFile;
+import net.sf.mmm.code.base.BasePackage;
+import net.sf.mmm.code.base.block.BaseBlock;
+import net.sf.mmm.code.base.loader.BaseSourceCodeProviderDirectory;
+import net.sf.mmm.code.base.source.BaseSourceDescriptorType;
+import net.sf.mmm.code.base.source.BaseSourceImpl;
+import net.sf.mmm.code.base.statement.BaseTextStatement;
+import net.sf.mmm.code.base.type.BaseType;
+import net.sf.mmm.code.impl.java.JavaContext;
+import net.sf.mmm.code.impl.java.JavaRootContext;
+import net.sf.mmm.code.impl.java.parser.JavaSourceCodeParserImpl;
+
+/**
+ * Test of {@link JavaSourceLoader}.
+ */
+public class JavaSourceLoaderTest extends Assertions {
+
+  private static final String SOURCE = "package com.example;\n\npublic class Foo {\n\n  public int bar(int x) {\n"
+      + "    int y = x + 1;\n    return y;\n  }\n}\n";
+
+  private File directory;
+
+  private File createDirectory(String prefix) throws IOException {
+
+    this.directory = Files.createTempDirectory(prefix).toFile();
+    return this.directory;
+  }
+
+  /**
+   * Deletes the temporary {@link #directory} of the test.
+   *
+   * @throws IOException on error.
+   */
+  @After
+  public void deleteDirectory() throws IOException {
+
+    if (this.directory != null) {
+      try (Stream<Path> paths = Files.walk(this.directory.toPath())) {
+        paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+      }
+    }
+  }
+
+  /**
+   * Test of {@link JavaSourceLoader#loadStatements(BaseFile, BaseBlock)} for a body
+   * {@link BaseBlock#isSkipped() skipped} in skeleton mode.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testLoadStatements() throws Exception {
+
+    // given
+    File sourceFolder = createDirectory("mmm-code-src");
+    File packageFolder = new File(sourceFolder, "com/example");
+    assertThat(packageFolder.mkdirs()).isTrue();
+    Files.write(new File(packageFolder, "Foo.java").toPath(), SOURCE.getBytes(StandardCharsets.UTF_8));
+    JavaContext context = JavaRootContext.get();
+    BasePackage root = context.getSource().getRootPackage();
+    BasePackage pkg = new BasePackage(new BasePackage(root, "com", null, null, false), "example", null, null, false);
+    BaseFile file = new BaseFile(pkg, "Foo");
+    BaseType type = new JavaSourceCodeParserImpl(true).parseType(new StringReader(SOURCE), file);
+    BaseBlock body = (BaseBlock) type.getMethods().getFirst("bar").getBody();
+    assertThat(body.isSkipped()).isTrue();
+
+    // when
+    List<CodeStatement> statements;
+    try (JavaSourceLoader loader = new JavaSourceLoader(new BaseSourceCodeProviderDirectory(sourceFolder))) {
+      statements = loader.loadStatements(file, body);
+    }
+
+    // then
+    assertThat(statements).isNotNull();
+    assertThat(statements.stream().map(s -> ((BaseTextStatement) s).getCode().trim()).collect(Collectors.toList()))
+        .containsExactly("int y = x + 1;", "return y;");
+  }
+
+  /**
+   * Test of {@link JavaSourceLoader#loadStatements(BaseFile, BaseBlock)} after the source code has been changed without
+   * changing its length.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testLoadStatementsChanged() throws Exception {
+
+    // given
+    File sourceFolder = createDirectory("mmm-code-src");
+    File packageFolder = new File(sourceFolder, "com/example");
+    assertThat(packageFolder.mkdirs()).isTrue();
+    String changed = SOURCE.replace("x + 1", "x + 2");
+    Files.write(new File(packageFolder, "Foo.java").toPath(), changed.getBytes(StandardCharsets.UTF_8));
+    JavaContext context = JavaRootContext.get();
+    BasePackage root = context.getSource().getRootPackage();
+    BasePackage pkg = new BasePackage(new BasePackage(root, "com", null, null, false), "example", null, null, false);
+    BaseFile file = new BaseFile(pkg, "Foo");
+    BaseType type = new JavaSourceCodeParserImpl(true).parseType(new StringReader(SOURCE), file);
+    BaseBlock body = (BaseBlock) type.getMethods().getFirst("bar").getBody();
+
+    // when
+    List<CodeStatement> statements;
+    try (JavaSourceLoader loader = new JavaSourceLoader(new BaseSourceCodeProviderDirectory(sourceFolder))) {
+      statements = loader.loadStatements(file, body);
+    }
+
+    // then
+    assertThat(changed.length()).isEqualTo(SOURCE.length());
+    assertThat(statements).isNull();
+  }
+
+  /**
+   * Test of {@link JavaSourceLoader#scan(BasePackage, boolean)} with types loaded via reflection that verifies the
+   * order of the scanned files is the same with and without {@link JavaSourceLoader#setScanPool(ForkJoinPool) scan
+   * pool}.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testScanOrder() throws Exception {
+
+    // given
+    File srcZip = new File(createDirectory("mmm-code-jdk"), "src.zip");
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(srcZip))) {
+      out.putNextEntry(new ZipEntry("java.base/module-info.java"));
+      out.write("module java.base {}".getBytes(StandardCharsets.UTF_8));
+      String[] names = { "Supplier", "Function", "Consumer", "Predicate", "BiFunction", "UnaryOperator" };
+      for (String name : names) {
+        String source = "package java.util.function;\n\npublic interface " + name + " {}\n";
+        out.putNextEntry(new ZipEntry("java.base/java/util/function/" + name + ".java"));
+        out.write(source.getBytes(StandardCharsets.UTF_8));
+      }
+    }
+
+    // when
+    List<String> sequential = scan(srcZip, null);
+    List<String> parallel;
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      parallel = scan(srcZip, pool);
+    } finally {
+      pool.shutdown();
+    }
+
+    // then
+    assertThat(sequential).containsExactly("BiFunction", "Consumer", "Function", "Predicate", "Supplier",
+        "UnaryOperator");
+    assertThat(parallel).isEqualTo(sequential);
+  }
+
+  private static List<String> scan(File srcZip, ForkJoinPool pool) {
+
+    JavaSourceLoader loader = new JavaSourceLoader(new JavaSourceCodeProviderJdk(srcZip));
+    loader.setScanPool(pool);
+    BaseSourceDescriptorType descriptor = new BaseSourceDescriptorType("java", "jdk", null, null, null);
+    File javaHome = new File(System.getProperty("java.home"));
+    JavaRootContext context = new JavaRootContext(new BaseSourceImpl(javaHome, srcZip, null, descriptor, loader));
+    context.setConcurrent(true);
+    // attached before the scan and therefore out of order
+    BasePackage pkg = context.getType("java.util.function.Supplier").getParentPackage();
+    loader.scan(pkg, false);
+    List<String> names = new ArrayList<>();
+    for (CodePathElement child : pkg.getChildren().getDeclared()) {
+      if (child.isFile()) {
+        names.add(child.getSimpleName());
+      }
+    }
+    context.close();
+    return names;
+  }
+
+}
@@ -0,0 +1,164 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.impl.java.loader;
+
+import java.io.BufferedReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import net.sf.mmm.code.base.loader.SourceCodeProvider;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Test of {@link JavaSourcePrefetcher}.
+ */
+public class JavaSourcePrefetcherTest extends Assertions {
+
+  private static final String FOO = "package com.example;\n\npublic class Foo {}\n";
+
+  /**
+   * Test of {@link JavaSourcePrefetcher#prefetch(String)} and {@link JavaSourcePrefetcher#take(String)}.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testPrefetchAndTake() throws Exception {
+
+    // given
+    MapSourceCodeProvider provider = new MapSourceCodeProvider();
+    provider.sources.put("com.example.Foo", FOO);
+    JavaSourcePrefetcher prefetcher = new JavaSourcePrefetcher(provider, Runnable::run);
+
+    // when
+    prefetcher.prefetch("com.example.Foo");
+    prefetcher.prefetch("com.example.Foo");
+    prefetcher.prefetch("com.example.Undefined");
+
+    // then
+    assertThat(provider.openCount.get()).isEqualTo(1); // Undefined is not contained
+    assertThat(prefetcher.getBufferedChars()).isEqualTo(FOO.length());
+    assertThat(read(prefetcher.take("com.example.Foo"))).isEqualTo(FOO);
+    assertThat(prefetcher.take("com.example.Foo")).isNull();
+    assertThat(prefetcher.take("com.example.Undefined")).isNull();
+    assertThat(prefetcher.getBufferedChars()).isZero();
+    assertThat(prefetcher.getHitCount()).isEqualTo(1);
+  }
+
+  /**
+   * Test of {@link JavaSourcePrefetcher#prefetch(String)} exceeding the maximum number of buffered characters.
+   */
+  @Test
+  public void testMaxBufferedChars() {
+
+    // given
+    MapSourceCodeProvider provider = new MapSourceCodeProvider();
+    provider.sources.put("com.example.Foo", FOO);
+    provider.sources.put("com.example.Bar", FOO);
+    JavaSourcePrefetcher prefetcher = new JavaSourcePrefetcher(provider, Runnable::run, 1, FOO.length());
+
+    // when
+    prefetcher.prefetch("com.example.Foo");
+    prefetcher.prefetch("com.example.Bar");
+
+    // then
+    assertThat(provider.openCount.get()).isEqualTo(2);
+    assertThat(prefetcher.getEvictionCount()).isEqualTo(1); // Foo was never taken and aged out
+    assertThat(prefetcher.getBufferedChars()).isEqualTo(FOO.length());
+    assertThat(prefetcher.take("com.example.Foo")).isNull();
+    assertThat(prefetcher.take("com.example.Bar")).isNotNull();
+    prefetcher.clear();
+    assertThat(prefetcher.getBufferedChars()).isZero();
+  }
+
+  /**
+   * Test of {@link JavaSourcePrefetcher#invalidate(String)}.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testInvalidate() throws Exception {
+
+    // given
+    MapSourceCodeProvider provider = new MapSourceCodeProvider();
+    provider.sources.put("com.example.Foo", FOO);
+    JavaSourcePrefetcher prefetcher = new JavaSourcePrefetcher(provider, Runnable::run);
+    prefetcher.prefetch("com.example.Foo");
+    String changed = FOO.replace("Foo {}", "Foo {\n  int x;\n}");
+    provider.sources.put("com.example.Foo", changed);
+
+    // when
+    prefetcher.invalidate("com.example.Foo");
+
+    // then
+    assertThat(prefetcher.getBufferedChars()).isZero();
+    assertThat(prefetcher.take("com.example.Foo")).isNull();
+    prefetcher.prefetch("com.example.Foo");
+    assertThat(provider.openCount.get()).isEqualTo(2);
+    assertThat(read(prefetcher.take("com.example.Foo"))).isEqualTo(changed);
+  }
+
+  private static String read(Reader reader) throws Exception {
+
+    try (BufferedReader bufferedReader = new BufferedReader(reader)) {
+      return bufferedReader.lines().collect(Collectors.joining("\n", "", "\n"));
+    }
+  }
+
+  private static class MapSourceCodeProvider implements SourceCodeProvider {
+
+    private final Map<String, String> sources = new HashMap<>();
+
+    private final AtomicInteger openCount = new AtomicInteger();
+
+    @Override
+    public Reader openType(String qualifiedName) {
+
+      this.openCount.incrementAndGet();
+      String source = this.sources.get(qualifiedName);
+      if (source == null) {
+        return null;
+      }
+      return new StringReader(source);
+    }
+
+    @Override
+    public boolean containsType(String qualifiedName) {
+
+      return this.sources.containsKey(qualifiedName);
+    }
+
+    @Override
+    public Reader openPackage(String qualifiedName) {
+
+      return null;
+    }
+
+    @Override
+    public List<String> scanPackage(String qualifiedName) {
+
+      return Collections.emptyList();
+    }
+
+    @Override
+    public List<String> scanSubPackages(String qualifiedName) {
+
+      return Collections.emptyList();
+    }
+
+    @Override
+    public void close() {
+
+      this.sources.clear();
+    }
+
+  }
+
+}
@@ -0,0 +1,255 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.impl.java.parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Test;
+
+import net.sf.mmm.code.api.annotation.CodeAnnotation;
+import net.sf.mmm.code.api.modifier.CodeModifiers;
+import net.sf.mmm.code.api.type.CodeTypeCategory;
+import net.sf.mmm.code.base.BaseFile;
+import net.sf.mmm.code.base.BasePackage;
+import net.sf.mmm.code.base.annoation.BaseAnnotation;
+import net.sf.mmm.code.base.block.BaseBlockBody;
+import net.sf.mmm.code.base.loader.BaseSourceCodeStamp;
+import net.sf.mmm.code.base.member.BaseField;
+import net.sf.mmm.code.base.member.BaseMethod;
+import net.sf.mmm.code.base.parser.SourceCodeParser;
+import net.sf.mmm.code.base.statement.BaseTextStatement;
+import net.sf.mmm.code.base.type.BaseType;
+import net.sf.mmm.code.base.type.BaseTypeVariable;
+import net.sf.mmm.code.base.type.BaseTypeVariables;
+import net.sf.mmm.code.impl.java.JavaRootContext;
+import net.sf.mmm.code.impl.java.expression.literal.JavaLiteralString;
+
+/**
+ * Test of {@link JavaSourceCodeParseCache}.
+ */
+public class JavaSourceCodeParseCacheTest extends Assertions {
+
+  private static final String SOURCE = "package foo; public class Bar {}";
+
+  private File directory;
+
+  private File createDirectory() throws IOException {
+
+    this.directory = Files.createTempDirectory("mmm-parse-cache").toFile();
+    return this.directory;
+  }
+
+  /**
+   * Deletes the cache {@link #directory} with its entries.
+   *
+   * @throws IOException on error.
+   */
+  @After
+  public void deleteDirectory() throws IOException {
+
+    if (this.directory != null) {
+      try (Stream<Path> files = Files.walk(this.directory.toPath())) {
+        files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+      }
+    }
+  }
+
+  private static BaseFile createFile(String simpleName) {
+
+    BasePackage rootPkg = JavaRootContext.get().getSource().getRootPackage();
+    BasePackage pkg = new BasePackage(rootPkg, "foo", null, null, false);
+    return new BaseFile(pkg, simpleName);
+  }
+
+  /**
+   * Test that a file is parsed only once and then rehydrated from the cache.
+   *
+   * @throws IOException on error.
+   */
+  @Test
+  public void testRehydrate() throws IOException {
+
+    // given
+    File directory = createDirectory();
+    ModelParser delegate = new ModelParser();
+    JavaSourceCodeParseCache cache = new JavaSourceCodeParseCache(directory, delegate);
+
+    // when
+    BaseType parsed = cache.parseType(new StringReader(SOURCE), createFile("Bar"));
+    BaseType cached = cache.parseType(new StringReader(SOURCE), createFile("Bar"));
+    cache.parseType(new StringReader(SOURCE + " "), createFile("Bar"));
+
+    // then
+    assertThat(delegate.count).isEqualTo(2);
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getMissCount()).isEqualTo(2);
+    assertThat(cached).isNotSameAs(parsed);
+    assertThat(cached.getSimpleName()).isEqualTo("Bar");
+    assertThat(cached.getCategory()).isEqualTo(CodeTypeCategory.CLASS);
+    assertThat(cached.getModifiers()).isEqualTo(CodeModifiers.MODIFIERS_PUBLIC);
+    assertThat(cached.getFile().getImports().getDeclared()).hasSize(1);
+    assertThat(cached.getDoc().getLines()).containsExactly("The bar.");
+    assertThat(cached.getTypeParameters().getDeclared()).hasSize(1);
+    BaseTypeVariable typeVariable = (BaseTypeVariable) cached.getTypeParameters().getDeclared().get(0);
+    assertThat(typeVariable.getName()).isEqualTo("T");
+    assertThat(((JavaGenericTypeFromSource) typeVariable.getBound()).getName()).isEqualTo("Comparable");
+    assertThat(typeVariable.getDoc().getLines()).containsExactly("the value type.");
+    BaseField field = (BaseField) cached.getFields().getDeclared("name");
+    assertThat(field.getModifiers()).isEqualTo(CodeModifiers.MODIFIERS_PRIVATE_FINAL);
+    assertThat(((JavaGenericTypeFromSource) field.getType()).getName()).isEqualTo("String");
+    assertThat(((JavaLiteralString) field.getInitializer()).getValue()).isEqualTo("bar");
+    assertThat(field.getAnnotations().getDeclared()).hasSize(1);
+    CodeAnnotation annotation = field.getAnnotations().getDeclared().get(0);
+    assertThat(((BaseAnnotation) annotation).getQualifiedTypeName()).isEqualTo("java.lang.Deprecated");
+    assertThat(((JavaLiteralString) annotation.getParameters().get("since")).getValue()).isEqualTo("1.0");
+    BaseMethod method = (BaseMethod) cached.getMethods().getDeclared().get(0);
+    assertThat(method.getName()).isEqualTo("getValue");
+    assertThat(((JavaGenericTypeFromSource) method.getReturns().getType()).getName()).isEqualTo("T");
+    assertThat(method.getParameters().getDeclared().get(0).getName()).isEqualTo("index");
+    assertThat(((BaseTextStatement) method.getBody().getStatements().get(0)).getCode()).isEqualTo("return null;");
+  }
+
+  /**
+   * Test of {@link JavaSourceCodeParseCache#parseType(Reader, BaseFile, BaseSourceCodeStamp)} that an unchanged file
+   * is found via its {@link BaseSourceCodeStamp} without reading its source code.
+   *
+   * @throws IOException on error.
+   */
+  @Test
+  public void testStamp() throws IOException {
+
+    // given
+    File directory = createDirectory();
+    ModelParser delegate = new ModelParser();
+    JavaSourceCodeParseCache cache = new JavaSourceCodeParseCache(directory, delegate);
+    BaseSourceCodeStamp stamp = new BaseSourceCodeStamp("/src/foo/Bar.java", SOURCE.length(), 1000);
+    BaseSourceCodeStamp modified = new BaseSourceCodeStamp("/src/foo/Bar.java", SOURCE.length() + 1, 2000);
+    Reader unreadable = new Reader() {
+
+      @Override
+      public int read(char[] buffer, int offset, int length) {
+
+        throw new IllegalStateException("source code must not be read");
+      }
+
+      @Override
+      public void close() {
+
+      }
+    };
+
+    // when
+    cache.parseType(new StringReader(SOURCE), createFile("Bar"), stamp);
+    BaseType cached = cache.parseType(unreadable, createFile("Bar"), stamp);
+    cache.parseType(new StringReader(SOURCE + " "), createFile("Bar"), modified);
+
+    // then
+    assertThat(cached.getSimpleName()).isEqualTo("Bar");
+    assertThat(delegate.count).isEqualTo(2);
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getMissCount()).isEqualTo(2);
+  }
+
+  /**
+   * Test of {@link JavaSourceCodeParseCache#parseType(Reader, BaseFile)} with a cache entry that has a valid checksum
+   * but can not be rehydrated.
+   *
+   * @throws IOException on error.
+   */
+  @Test
+  public void testCorruptEntry() throws IOException {
+
+    // given
+    File directory = createDirectory();
+    ModelParser delegate = new ModelParser();
+    JavaSourceCodeParseCache cache = new JavaSourceCodeParseCache(directory, delegate);
+    cache.parseType(new StringReader(SOURCE), createFile("Bar"));
+    Path entry;
+    try (Stream<Path> files = Files.walk(directory.toPath())) {
+      entry = files.filter(path -> path.toString().endsWith(".bin")).findFirst().get();
+    }
+    byte[] bytes = Files.readAllBytes(entry);
+    byte[] payload = Arrays.copyOfRange(bytes, 20, 20 + (bytes.length - 20) / 2);
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(buffer)) {
+      out.write(bytes, 0, 8); // magic and version
+      out.writeInt(payload.length);
+      CRC32 crc = new CRC32();
+      crc.update(payload, 0, payload.length);
+      out.writeLong(crc.getValue());
+      out.write(payload);
+    }
+    Files.write(entry, buffer.toByteArray());
+
+    // when
+    BaseFile file = createFile("Bar");
+    BaseType type = cache.parseType(new StringReader(SOURCE), file);
+    BaseType cached = cache.parseType(new StringReader(SOURCE), createFile("Bar"));
+
+    // then
+    assertThat(delegate.count).isEqualTo(2);
+    assertThat(type.getFields().getDeclared()).hasSize(1);
+    assertThat(file.getImports().getDeclared()).hasSize(1);
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cached.getFields().getDeclared("name")).isNotNull();
+  }
+
+  /**
+   * Creates the model of a file with the API as the {@link JavaSourceCodeReaderHighlevel} does.
+   */
+  private static class ModelParser implements SourceCodeParser {
+
+    private int count;
+
+    @Override
+    public BaseType parseType(Reader reader, BaseFile file) {
+
+      this.count++;
+      file.getImports().add("java.util.List", false);
+      BaseType type = file.getType();
+      type.setCategory(CodeTypeCategory.CLASS);
+      type.setModifiers(CodeModifiers.MODIFIERS_PUBLIC);
+      BaseTypeVariables typeVariables = type.getTypeParameters();
+      BaseTypeVariable typeVariable = new BaseTypeVariable(typeVariables, "T");
+      JavaGenericTypeFromSource bound = new JavaGenericTypeFromSource(type, "Comparable", file);
+      bound.addTypeParameter(new JavaGenericTypeFromSource(type, "T", file));
+      typeVariable.setBound(bound);
+      typeVariables.add(typeVariable);
+      type.getDoc().add("The bar.");
+      typeVariable.getDoc().add("the value type.");
+      BaseField field = type.getFields().add("name");
+      field.setType(new JavaGenericTypeFromSource(type, "String", file));
+      field.setInitializer(JavaLiteralString.of("bar"));
+      field.setModifiers(CodeModifiers.MODIFIERS_PRIVATE_FINAL);
+      BaseAnnotation annotation = new BaseAnnotation(file.getAnnotations(), "Deprecated", "java.lang.Deprecated");
+      annotation.getParameters().put("since", JavaLiteralString.of("1.0"));
+      field.getAnnotations().add(annotation);
+      BaseMethod method = new BaseMethod(type.getMethods(), "getValue");
+      type.getMethods().add(method);
+      method.getReturns().setType(new JavaGenericTypeFromSource(type, "T", file));
+      method.getParameters().add("index").setType(new JavaGenericTypeFromSource(method, "int", file));
+      method.setBody(new BaseBlockBody(method, Arrays.asList(new BaseTextStatement("return null;"))));
+      method.setModifiers(CodeModifiers.MODIFIERS_PUBLIC);
+      return type;
+    }
+
+    @Override
+    public void parsePackage(Reader reader, BasePackage pkg) {
+
+    }
+  }
+
+}
@@ -0,0 +1,66 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.impl.java.parser;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import net.sf.mmm.code.base.BaseFile;
+import net.sf.mmm.code.base.BasePackage;
+import net.sf.mmm.code.base.type.BaseType;
+import net.sf.mmm.code.impl.java.JavaRootContext;
+
+/**
+ * Test of {@link JavaSourceCodeParserImpl} used by multiple threads concurrently.
+ */
+public class JavaSourceCodeParserImplConcurrentTest extends Assertions {
+
+  private static final int THREADS = 4;
+
+  private static final int FILES = 200;
+
+  /**
+   * Test of {@link JavaSourceCodeParserImpl#parseType(java.io.Reader, BaseFile)} invoked concurrently on a single
+   * instance.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testConcurrentParse() throws Exception {
+
+    // given
+    JavaSourceCodeParserImpl parser = new JavaSourceCodeParserImpl(false, 2);
+    BasePackage root = JavaRootContext.get().getSource().getRootPackage();
+    BasePackage pkg = new BasePackage(new BasePackage(root, "com", null, null, false), "example", null, null, false);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    List<Future<BaseType>> futures = new ArrayList<>();
+
+    // when
+    try {
+      for (int i = 0; i < FILES; i++) {
+        String simpleName = "Type" + i;
+        String source = "package com.example;\n\npublic class " + simpleName + " {\n\n  public int get" + i
+            + "() {\n    return " + i + ";\n  }\n}\n";
+        futures.add(executor.submit(() -> parser.parseType(new StringReader(source), new BaseFile(pkg, simpleName))));
+      }
+
+      // then
+      for (int i = 0; i < FILES; i++) {
+        BaseType type = futures.get(i).get();
+        assertThat(type.getSimpleName()).isEqualTo("Type" + i);
+        assertThat(type.getMethods().getFirst("get" + i)).isNotNull();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertThat(parser.getPoolSize()).isBetween(1, 2);
+  }
+
+}
@@ -0,0 +1,71 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.impl.java.parser;
+
+import java.io.StringReader;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import net.sf.mmm.code.api.item.CodeSourceRange;
+import net.sf.mmm.code.base.BaseFile;
+import net.sf.mmm.code.base.BasePackage;
+import net.sf.mmm.code.base.block.BaseBlock;
+import net.sf.mmm.code.base.statement.BaseTextStatement;
+import net.sf.mmm.code.base.type.BaseType;
+import net.sf.mmm.code.impl.java.JavaContext;
+import net.sf.mmm.code.impl.java.JavaRootContext;
+
+/**
+ * Test of {@link JavaSourceCodeParserImpl} in {@link JavaSourceCodeParserImpl#isSkeleton() skeleton mode}.
+ */
+public class JavaSourceCodeParserSkeletonTest extends Assertions {
+
+  private static final String BAR_BODY = "{\n    // }\n    if (x > 0) { return '}'; }\n    /* { */\n    return x;\n  }";
+
+  private static final String SOURCE = "package com.example;\n\npublic class Foo {\n\n  static {\n    String s = \"}\";\n  }\n\n"
+      + "  public int bar(int x) " + BAR_BODY + "\n\n  public void baz() {}\n}\n";
+
+  /**
+   * Test of {@link JavaSourceCodeParserImpl#parseType(java.io.Reader, BaseFile)} with
+   * {@link JavaSourceCodeParserImpl#JavaSourceCodeParserImpl(boolean) skeleton mode}.
+   */
+  @Test
+  public void testSkeleton() {
+
+    // given
+    JavaContext context = JavaRootContext.get();
+    BasePackage root = context.getSource().getRootPackage();
+    BasePackage com = new BasePackage(root, "com", null, null, false);
+    BasePackage pkg = new BasePackage(com, "example", null, null, false);
+    BaseFile file = new BaseFile(pkg, "Foo");
+    JavaSourceCodeParserImpl parser = new JavaSourceCodeParserImpl(true);
+
+    // when
+    BaseType type = parser.parseType(new StringReader(SOURCE), file);
+
+    // then
+    assertThat(parser.isSkeleton()).isTrue();
+    assertThat(type.getSimpleName()).isEqualTo("Foo");
+    BaseBlock body = (BaseBlock) type.getMethods().getFirst("bar").getBody();
+    assertThat(body.isSkipped()).isTrue();
+    assertThat(body.getStatements()).isEmpty();
+    CodeSourceRange bodyRange = body.getSourceRange();
+    assertThat(SOURCE.substring(bodyRange.getStart(), bodyRange.getEnd())).isEqualTo(BAR_BODY);
+    assertThat(bodyRange.getStartLine()).isEqualTo(9);
+    assertThat(bodyRange.getEndLine()).isEqualTo(14);
+    assertThat(body.getSourceHash()).isEqualTo(BAR_BODY.hashCode());
+    BaseBlock emptyBody = (BaseBlock) type.getMethods().getFirst("baz").getBody();
+    CodeSourceRange emptyBodyRange = emptyBody.getSourceRange();
+    assertThat(SOURCE.substring(emptyBodyRange.getStart(), emptyBodyRange.getEnd())).isEqualTo("{}");
+    BaseBlock initializer = (BaseBlock) type.getStaticInitializer();
+    // initializers are always parsed
+    assertThat(initializer.isSkipped()).isFalse();
+    String statement = ((BaseTextStatement) initializer.getStatements().get(0)).getCode();
+    assertThat(statement.trim()).isEqualTo("String s = \"}\";");
+    CodeSourceRange initializerRange = initializer.getSourceRange();
+    assertThat(SOURCE.substring(initializerRange.getStart(), initializerRange.getEnd()))
+        .isEqualTo("{\n    String s = \"}\";\n  }");
+  }
+
+}
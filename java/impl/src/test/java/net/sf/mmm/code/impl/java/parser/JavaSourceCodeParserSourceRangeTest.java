@@ -0,0 +1,111 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.impl.java.parser;
+
+import java.io.StringReader;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import net.sf.mmm.code.api.annotation.CodeAnnotation;
+import net.sf.mmm.code.api.arg.CodeParameter;
+import net.sf.mmm.code.api.item.CodeSourceRange;
+import net.sf.mmm.code.api.member.CodeMethod;
+import net.sf.mmm.code.base.BaseFile;
+import net.sf.mmm.code.base.BasePackage;
+import net.sf.mmm.code.base.type.BaseType;
+import net.sf.mmm.code.impl.java.JavaContext;
+import net.sf.mmm.code.impl.java.JavaRootContext;
+
+/**
+ * Test of {@link JavaSourceCodeParserImpl} with {@link JavaSourceCodeParserImpl#isRecordSourceRanges() source ranges}.
+ */
+public class JavaSourceCodeParserSourceRangeTest extends Assertions {
+
+  private static final String SOURCE = "package com.example;\n\n/**\n * The foo.\n */\npublic class Foo {\n\n" //
+      + "  /**\n   * @param x the x.\n   */\n  @Deprecated\n  public int bar(int x) {\n    return x;\n  }\n}\n";
+
+  private static BaseFile createFile() {
+
+    JavaContext context = JavaRootContext.get();
+    BasePackage root = context.getSource().getRootPackage();
+    BasePackage com = new BasePackage(root, "com", null, null, false);
+    BasePackage pkg = new BasePackage(com, "example", null, null, false);
+    return new BaseFile(pkg, "Foo");
+  }
+
+  private static String getText(CodeSourceRange range) {
+
+    return SOURCE.substring(range.getStart(), range.getEnd());
+  }
+
+  /**
+   * Test of {@link JavaSourceCodeParserImpl#parseType(java.io.Reader, BaseFile)} with
+   * {@link JavaSourceCodeParserImpl#JavaSourceCodeParserImpl(boolean, boolean, int) source ranges enabled}.
+   */
+  @Test
+  public void testSourceRanges() {
+
+    // given
+    BaseFile file = createFile();
+    JavaSourceCodeParserImpl parser = new JavaSourceCodeParserImpl(false, true, 1);
+
+    // when
+    BaseType type = parser.parseType(new StringReader(SOURCE), file);
+
+    // then
+    assertThat(parser.isRecordSourceRanges()).isTrue();
+    CodeSourceRange fileRange = file.getSourceRange();
+    assertThat(fileRange.getStart()).isEqualTo(0);
+    assertThat(fileRange.getStartLine()).isEqualTo(1);
+    CodeSourceRange typeRange = type.getSourceRange();
+    assertThat(getText(typeRange)).startsWith("public class Foo {").endsWith("}");
+    assertThat(typeRange.getStartLine()).isEqualTo(6);
+    CodeSourceRange typeDocRange = type.getDoc().getSourceRange();
+    assertThat(getText(typeDocRange)).isEqualTo("/**\n * The foo.\n */");
+    assertThat(typeDocRange.getStartLine()).isEqualTo(3);
+    assertThat(typeDocRange.getEndLine()).isEqualTo(5);
+    CodeMethod method = type.getMethods().getFirst("bar");
+    CodeSourceRange methodRange = method.getSourceRange();
+    assertThat(getText(methodRange).trim()).isEqualTo("public int bar(int x) {\n    return x;\n  }");
+    assertThat(methodRange.getStartLine()).isEqualTo(12);
+    assertThat(typeRange.contains(methodRange.getStart())).isTrue();
+    CodeSourceRange methodDocRange = method.getDoc().getSourceRange();
+    assertThat(getText(methodDocRange)).isEqualTo("/**\n   * @param x the x.\n   */");
+    assertThat(methodDocRange.getStartLine()).isEqualTo(8);
+    assertThat(methodDocRange.getEndLine()).isEqualTo(10);
+    CodeAnnotation annotation = method.getAnnotations().getDeclared().get(0);
+    CodeSourceRange annotationRange = annotation.getSourceRange();
+    assertThat(getText(annotationRange).trim()).isEqualTo("@Deprecated");
+    assertThat(annotationRange.getStartLine()).isEqualTo(11);
+    CodeParameter parameter = method.getParameters().getDeclared().get(0);
+    CodeSourceRange parameterRange = parameter.getSourceRange();
+    assertThat(getText(parameterRange)).isEqualTo("int x");
+    assertThat(parameterRange.getStartLine()).isEqualTo(12);
+    assertThat(parameterRange.getEndLine()).isEqualTo(12);
+  }
+
+  /**
+   * Test of {@link JavaSourceCodeParserImpl#parseType(java.io.Reader, BaseFile)} with source ranges disabled (default).
+   */
+  @Test
+  public void testSourceRangesDisabled() {
+
+    // given
+    BaseFile file = createFile();
+    JavaSourceCodeParserImpl parser = new JavaSourceCodeParserImpl(false, 1);
+
+    // when
+    BaseType type = parser.parseType(new StringReader(SOURCE), file);
+
+    // then
+    assertThat(parser.isRecordSourceRanges()).isFalse();
+    assertThat(file.getSourceRange()).isNull();
+    assertThat(type.getSourceRange()).isNull();
+    CodeMethod method = type.getMethods().getFirst("bar");
+    assertThat(method.getSourceRange()).isNull();
+    assertThat(method.getDoc().getSourceRange()).isNull();
+    assertThat(method.getParameters().getDeclared().get(0).getSourceRange()).isNull();
+  }
+
+}
@@ -0,0 +1,95 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.impl.java.parser;
+
+import java.io.StringReader;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import net.sf.mmm.code.base.BaseFile;
+import net.sf.mmm.code.base.BasePackage;
+import net.sf.mmm.code.base.type.BaseType;
+import net.sf.mmm.code.impl.java.JavaContext;
+import net.sf.mmm.code.impl.java.JavaRootContext;
+
+/**
+ * Test of {@link JavaSourceCodeReaderHighlevel}.
+ */
+public class JavaSourceCodeReaderHighlevelTest extends Assertions {
+
+  private static BaseType parse(String simpleName, String source) {
+
+    JavaContext context = JavaRootContext.get();
+    BasePackage root = context.getSource().getRootPackage();
+    BasePackage com = new BasePackage(root, "com", null, null, false);
+    BasePackage pkg = new BasePackage(com, "example", null, null, false);
+    BaseFile file = new BaseFile(pkg, simpleName);
+    return new JavaSourceCodeReaderHighlevel().parse(new StringReader(source), file);
+  }
+
+  /**
+   * Test of {@link JavaSourceCodeReaderHighlevel#parse(java.io.Reader, BaseFile)} with fields initialized with an
+   * anonymous class and a lambda followed by further members.
+   */
+  @Test
+  public void testFieldWithAnonymousClass() {
+
+    // given
+    String source = "package com.example;\n\n" //
+        + "class Foo {\n" //
+        + "  Object o = new Object() {\n" //
+        + "    @Override\n" //
+        + "    public String toString() { return \"};\"; }\n" //
+        + "  };\n" //
+        + "  Runnable r = () -> { run(); };\n" //
+        + "  int[] numbers = { 1, 2 };\n" //
+        + "  public String bar() { return null; }\n" //
+        + "  static class Nested {\n" //
+        + "  }\n" //
+        + "  int after = 42;\n" //
+        + "}\n";
+
+    // when
+    BaseType type = parse("Foo", source);
+
+    // then
+    assertThat(type.getSimpleName()).isEqualTo("Foo");
+    assertThat(type.getFields().getDeclared("o").getInitializer()).isNull();
+    assertThat(type.getFields().getDeclared("r")).isNotNull();
+    assertThat(type.getFields().getDeclared("numbers")).isNotNull();
+    assertThat(type.getFields().getDeclared("after").getInitializer()).isNotNull();
+    assertThat(type.getMethods().getFirst("bar")).isNotNull();
+    assertThat(type.getMethods().getFirst("toString")).isNull();
+    assertThat(type.getNestedTypes().get("Nested")).isNotNull();
+  }
+
+  /**
+   * Test of {@link JavaSourceCodeReaderHighlevel#parse(java.io.Reader, BaseFile)} with a method body containing nested
+   * blocks that is written back via {@link net.sf.mmm.code.api.item.CodeItem#getSourceCode()}.
+   */
+  @Test
+  public void testWriteNestedBlocks() {
+
+    // given
+    String method = "public int bar(int x) {\n" //
+        + "  int y;\n" //
+        + "  if (x > 0) {\n" //
+        + "    y = 1;\n" //
+        + "\n" //
+        + "  } else {\n" //
+        + "    y = 2;\n" //
+        + "  }\n" //
+        + "  return y;\n" //
+        + "}\n";
+    // the source is indented differently and uses CRLF
+    String source = "package com.example;\n\nclass Bar {\n\n  " + method.replace("\n", "\r\n    ") + "}\n";
+
+    // when
+    BaseType type = parse("Bar", source);
+
+    // then
+    assertThat(type.getMethods().getFirst("bar").getSourceCode()).isEqualTo(method);
+  }
+
+}
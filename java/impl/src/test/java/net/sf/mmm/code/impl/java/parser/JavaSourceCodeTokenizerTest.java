@@ -0,0 +1,214 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.impl.java.parser;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import net.sf.mmm.code.api.statement.CodeStatement;
+import net.sf.mmm.code.base.statement.BaseTextStatement;
+
+/**
+ * Test of {@link JavaSourceCodeTokenizer} directly via {@link JavaSourceCodeTokenizer#nextToken()} and indirectly via
+ * {@link JavaSourceCodeReaderHighlevel#parseBlock(java.io.Reader)}.
+ */
+public class JavaSourceCodeTokenizerTest extends Assertions {
+
+  private static void assertToken(JavaSourceCodeTokenizer tokenizer, JavaTokenType type, String text, int start) {
+
+    assertThat(tokenizer.nextToken()).as(text).isEqualTo(type);
+    assertThat(tokenizer.getTokenType()).isEqualTo(type);
+    assertThat(tokenizer.getTokenText()).isEqualTo(text);
+    assertThat(tokenizer.isToken(text)).isTrue();
+    assertThat(tokenizer.getTokenStart()).as(text).isEqualTo(start);
+    assertThat(tokenizer.getTokenEnd()).as(text).isEqualTo(start + text.length());
+  }
+
+  private static void assertEnd(JavaSourceCodeTokenizer tokenizer) {
+
+    assertThat(tokenizer.nextToken()).isEqualTo(JavaTokenType.END);
+    assertThat(tokenizer.getTokenLength()).isEqualTo(0);
+    assertThat(tokenizer.getTokenChar()).isEqualTo((char) 0);
+  }
+
+  /**
+   * Test of {@link JavaSourceCodeTokenizer#nextToken()} with token types and offsets.
+   */
+  @Test
+  public void testTokenTypesAndOffsets() {
+
+    // given
+    JavaSourceCodeTokenizer tokenizer = new TestTokenizer("int x = a.b(1, y[0]);");
+
+    // when + then
+    assertToken(tokenizer, JavaTokenType.IDENTIFIER, "int", 0);
+    assertToken(tokenizer, JavaTokenType.IDENTIFIER, "x", 4);
+    assertToken(tokenizer, JavaTokenType.OPERATOR, "=", 6);
+    assertToken(tokenizer, JavaTokenType.IDENTIFIER, "a", 8);
+    assertToken(tokenizer, JavaTokenType.SEPARATOR, ".", 9);
+    assertToken(tokenizer, JavaTokenType.IDENTIFIER, "b", 10);
+    assertToken(tokenizer, JavaTokenType.SEPARATOR, "(", 11);
+    assertToken(tokenizer, JavaTokenType.NUMBER, "1", 12);
+    assertToken(tokenizer, JavaTokenType.SEPARATOR, ",", 13);
+    assertToken(tokenizer, JavaTokenType.IDENTIFIER, "y", 15);
+    assertToken(tokenizer, JavaTokenType.SEPARATOR, "[", 16);
+    assertToken(tokenizer, JavaTokenType.NUMBER, "0", 17);
+    assertToken(tokenizer, JavaTokenType.SEPARATOR, "]", 18);
+    assertToken(tokenizer, JavaTokenType.SEPARATOR, ")", 19);
+    assertToken(tokenizer, JavaTokenType.SEPARATOR, ";", 20);
+    assertEnd(tokenizer);
+  }
+
+  /**
+   * Test of {@link JavaSourceCodeTokenizer#nextToken()} with hexadecimal, floating point and exponent numbers.
+   */
+  @Test
+  public void testNumbers() {
+
+    // given
+    JavaSourceCodeTokenizer tokenizer = new TestTokenizer("0x1F+1.5e-3 0x1.8p+3 .5f 1_000L 0xE-1 2e+5d");
+
+    // when + then
+    assertToken(tokenizer, JavaTokenType.NUMBER, "0x1F", 0);
+    assertToken(tokenizer, JavaTokenType.OPERATOR, "+", 4);
+    assertToken(tokenizer, JavaTokenType.NUMBER, "1.5e-3", 5);
+    assertToken(tokenizer, JavaTokenType.NUMBER, "0x1.8p+3", 12);
+    assertToken(tokenizer, JavaTokenType.NUMBER, ".5f", 21);
+    assertToken(tokenizer, JavaTokenType.NUMBER, "1_000L", 25);
+    // E is a hex digit and not an exponent
+    assertToken(tokenizer, JavaTokenType.NUMBER, "0xE", 32);
+    assertToken(tokenizer, JavaTokenType.OPERATOR, "-", 35);
+    assertToken(tokenizer, JavaTokenType.NUMBER, "1", 36);
+    assertToken(tokenizer, JavaTokenType.NUMBER, "2e+5d", 38);
+    assertEnd(tokenizer);
+  }
+
+  /**
+   * Test of {@link JavaSourceCodeTokenizer#nextToken()} with string literals, text blocks and comments.
+   */
+  @Test
+  public void testLiteralsAndComments() {
+
+    // given
+    String textBlock = "\"\"\"\n  a \"\" b }\n  \"\"\"";
+    String source = textBlock + " \"\" \"x\\\"}\" '\\'' /**/ /** doc */ /* c */ // line }\nz";
+    JavaSourceCodeTokenizer tokenizer = new TestTokenizer(source);
+
+    // when + then
+    assertToken(tokenizer, JavaTokenType.TEXT_BLOCK, textBlock, 0);
+    int offset = textBlock.length() + 1;
+    assertToken(tokenizer, JavaTokenType.STRING, "\"\"", offset);
+    assertToken(tokenizer, JavaTokenType.STRING, "\"x\\\"}\"", offset + 3);
+    assertToken(tokenizer, JavaTokenType.CHAR, "'\\''", offset + 10);
+    assertToken(tokenizer, JavaTokenType.BLOCK_COMMENT, "/**/", offset + 15);
+    assertToken(tokenizer, JavaTokenType.JAVA_DOC, "/** doc */", offset + 20);
+    assertToken(tokenizer, JavaTokenType.BLOCK_COMMENT, "/* c */", offset + 31);
+    assertToken(tokenizer, JavaTokenType.LINE_COMMENT, "// line }", offset + 39);
+    assertToken(tokenizer, JavaTokenType.IDENTIFIER, "z", offset + 49);
+    assertEnd(tokenizer);
+  }
+
+  /**
+   * Test of {@link JavaSourceCodeTokenizer#nextToken()} with unterminated literals and comments.
+   */
+  @Test
+  public void testUnterminated() {
+
+    // given
+    JavaSourceCodeTokenizer tokenizer = new TestTokenizer("\"abc\nx 'y\nz /* open");
+
+    // when + then
+    assertToken(tokenizer, JavaTokenType.STRING, "\"abc", 0);
+    assertToken(tokenizer, JavaTokenType.IDENTIFIER, "x", 5);
+    assertToken(tokenizer, JavaTokenType.CHAR, "'y", 7);
+    assertToken(tokenizer, JavaTokenType.IDENTIFIER, "z", 10);
+    assertToken(tokenizer, JavaTokenType.BLOCK_COMMENT, "/* open", 12);
+    assertEnd(tokenizer);
+  }
+
+  private static List<String> parseBlock(String block) {
+
+    List<CodeStatement> statements = new JavaSourceCodeReaderHighlevel().parseBlock(new StringReader(block));
+    return statements.stream().map(s -> ((BaseTextStatement) s).getCode()).collect(Collectors.toList());
+  }
+
+  /**
+   * Test of {@link JavaSourceCodeReaderHighlevel#parseBlock(java.io.Reader)} with minified source code.
+   */
+  @Test
+  public void testMinified() {
+
+    // given
+    String block = "{int x=1;if(x>0){x++;}else{x--;}String s=\"};{\";char c='}';return x;}";
+
+    // when
+    List<String> statements = parseBlock(block);
+
+    // then
+    assertThat(statements).containsExactly("int x=1;", "if(x>0){x++;}else{x--;}", "String s=\"};{\";", "char c='}';",
+        "return x;");
+  }
+
+  /**
+   * Test of {@link JavaSourceCodeReaderHighlevel#parseBlock(java.io.Reader)} with comments, text blocks, lambdas,
+   * anonymous classes and statements spanning multiple lines.
+   */
+  @Test
+  public void testFormatted() {
+
+    // given
+    String block = "{\n" //
+        + "    // leading comment }\n" //
+        + "    String text = \"\"\"\n      {\"}\"\n      \"\"\";\n" //
+        + "    /* block { comment */\n" //
+        + "    Runnable r = () -> {\n      run();\n    };\n" //
+        + "    try {\n      r.run();\n    } catch (RuntimeException e) {\n    }\n" //
+        + "    for (int i = 0; i < 10; i++) {\n    }\n" //
+        + "    Object o = new Object() {\n    }.toString();\n" //
+        + "  }";
+
+    // when
+    List<String> statements = parseBlock(block);
+
+    // then
+    // subsequent lines are indented relative to the statement
+    assertThat(statements).containsExactly("String text = \"\"\"\n{\"}\"\n\"\"\";", "Runnable r = () -> {\n  run();\n};",
+        "try {\n  r.run();\n} catch (RuntimeException e) {\n}", "for (int i = 0; i < 10; i++) {\n}",
+        "Object o = new Object() {\n}.toString();");
+  }
+
+  /**
+   * Test of {@link JavaSourceCodeReaderHighlevel#parseBlock(java.io.Reader)} with {@code do}-{@code while} loops and
+   * a {@code while} loop following another block.
+   */
+  @Test
+  public void testDoWhile() {
+
+    // given
+    String block = "{do {\n x++;\n} while (x < 3);if (x > 0) {\n}\nwhile (x > 0) {\n x--;\n}\n}";
+
+    // when
+    List<String> statements = parseBlock(block);
+
+    // then
+    assertThat(statements).containsExactly("do {\n x++;\n} while (x < 3);", "if (x > 0) {\n}",
+        "while (x > 0) {\n x--;\n}");
+  }
+
+  /**
+   * Concrete {@link JavaSourceCodeTokenizer} for testing.
+   */
+  private static final class TestTokenizer extends JavaSourceCodeTokenizer {
+
+    private TestTokenizer(String source) {
+
+      super(256);
+      setReader(new StringReader(source));
+    }
+  }
+
+}
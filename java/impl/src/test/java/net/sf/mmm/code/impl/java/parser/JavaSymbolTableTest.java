@@ -0,0 +1,118 @@
+/* Copyright (c) The m-m-m Team, Licensed under the Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0 */
+package net.sf.mmm.code.impl.java.parser;
+
+import java.io.StringReader;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import net.sf.mmm.code.api.member.CodeField;
+import net.sf.mmm.code.base.BaseFile;
+import net.sf.mmm.code.base.BasePackage;
+import net.sf.mmm.code.base.type.BaseType;
+import net.sf.mmm.code.impl.java.JavaContext;
+import net.sf.mmm.code.impl.java.JavaRootContext;
+
+/**
+ * Test of {@link JavaSymbolTable}.
+ */
+public class JavaSymbolTableTest extends Assertions {
+
+  /**
+   * Test of {@link JavaSymbolTable#intern(char[], int, int)} and {@link JavaSymbolTable#intern(String)}.
+   */
+  @Test
+  public void testIntern() {
+
+    // given
+    JavaSymbolTable symbols = new JavaSymbolTable();
+    int initialSize = symbols.getSize();
+    char[] chars = "fooBar;".toCharArray();
+    String fooBar = "fooBar";
+
+    // when
+    String symbol = symbols.intern(chars, 6, fooBar.hashCode());
+
+    // then
+    assertThat(symbol).isEqualTo(fooBar);
+    assertThat(symbols.intern(new String(fooBar))).isSameAs(symbol);
+    assertThat(symbols.intern(chars, 6, fooBar.hashCode())).isSameAs(symbol);
+    assertThat(symbols.intern(chars, 3, "foo".hashCode())).isEqualTo("foo");
+    assertThat(symbols.intern(new String("public"))).isSameAs(symbols.intern("public"));
+    assertThat(symbols.getSize()).isEqualTo(initialSize + 2);
+  }
+
+  /**
+   * Test of {@link JavaSymbolTable} growing beyond its initial capacity.
+   */
+  @Test
+  public void testGrow() {
+
+    // given
+    JavaSymbolTable symbols = new JavaSymbolTable();
+    int initialSize = symbols.getSize();
+    int count = 5000;
+
+    // when
+    String[] interned = new String[count];
+    for (int i = 0; i < count; i++) {
+      interned[i] = symbols.intern("symbol" + i);
+    }
+
+    // then
+    assertThat(symbols.getSize()).isEqualTo(initialSize + count);
+    for (int i = 0; i < count; i++) {
+      assertThat(symbols.intern("symbol" + i)).isSameAs(interned[i]);
+    }
+  }
+
+  /**
+   * Test of {@link JavaSymbolTable#clear()}.
+   */
+  @Test
+  public void testClear() {
+
+    // given
+    JavaSymbolTable symbols = new JavaSymbolTable();
+    int initialSize = symbols.getSize();
+    String keyword = symbols.intern("class");
+    String fooBar = symbols.intern(new String("fooBar"));
+
+    // when
+    symbols.clear();
+
+    // then
+    assertThat(symbols.getSize()).isEqualTo(initialSize);
+    assertThat(symbols.intern(new String("class"))).isSameAs(keyword);
+    assertThat(symbols.intern(new String("fooBar"))).isNotSameAs(fooBar).isEqualTo(fooBar);
+    assertThat(symbols.getSize()).isEqualTo(initialSize + 1);
+  }
+
+  /**
+   * Test that identifiers parsed by {@link JavaSourceCodeParserImpl} are interned in the
+   * {@link JavaContext#getSymbolTable() symbol table of the context} and modifiers are shared.
+   */
+  @Test
+  public void testParserInternsIdentifiers() {
+
+    // given
+    JavaContext context = JavaRootContext.get();
+    BasePackage root = context.getSource().getRootPackage();
+    BasePackage pkg = new BasePackage(new BasePackage(root, "com", null, null, false), "example", null, null, false);
+    String source = "package com.example;\n\npublic class Foo {\n\n  private static final int counter = 1;\n\n"
+        + "  private static final int limit = 2;\n}\n";
+
+    // when
+    BaseType type = new JavaSourceCodeParserImpl().parseType(new StringReader(source), new BaseFile(pkg, "Foo"));
+
+    // then
+    CodeField counter = type.getFields().get("counter");
+    CodeField limit = type.getFields().get("limit");
+    assertThat(counter.getName()).isSameAs(context.getSymbolTable().intern(new String("counter")));
+    assertThat(counter.getModifiers()).isSameAs(limit.getModifiers());
+    assertThat(counter.getModifiers().isStatic()).isTrue();
+    assertThat(counter.getModifiers().isFinal()).isTrue();
+  }
+
+}